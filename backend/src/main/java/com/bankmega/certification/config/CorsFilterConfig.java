@@ -33,7 +33,9 @@ public class CorsFilterConfig {
 
         // Method & header yang umum buat axios/json
         c.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
-        c.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With"));
+        // Last-Event-ID: reconnect stream notifikasi (fetch, bukan EventSource)
+        c.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With",
+                "Last-Event-ID"));
 
         // Kalau lu mau FE bisa baca header tertentu
         c.setExposedHeaders(List.of("Location"));
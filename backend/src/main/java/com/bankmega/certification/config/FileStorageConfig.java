@@ -0,0 +1,40 @@
+package com.bankmega.certification.config;
+
+import com.bankmega.certification.service.file_storage.FileStore;
+import com.bankmega.certification.service.file_storage.LocalFileStore;
+import com.bankmega.certification.service.file_storage.ObjectStoreClient;
+import com.bankmega.certification.service.file_storage.ObjectStoreFileStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+@Slf4j
+@Configuration
+public class FileStorageConfig {
+
+    // 🔹 local = folder FILE_STORAGE_PATH (default), object = lewat bean ObjectStoreClient
+    @Bean
+    public FileStore fileStore(
+            @Value("${app.file-storage.type:local}") String type,
+            @Value("${app.file-storage.path:./storage}") String path,
+            ObjectProvider<ObjectStoreClient> objectStoreClient) throws IOException {
+        switch (type.trim().toLowerCase(Locale.ROOT)) {
+            case "object":
+                ObjectStoreClient client = objectStoreClient.getIfAvailable();
+                if (client == null)
+                    throw new IllegalStateException("app.file-storage.type=object butuh bean ObjectStoreClient");
+                log.info("File sertifikat disimpan di object store ({})", client.getClass().getSimpleName());
+                return new ObjectStoreFileStore(client, Path.of(path).resolve(".tmp"));
+            case "local":
+                return new LocalFileStore(Path.of(path));
+            default:
+                throw new IllegalStateException("app.file-storage.type tidak dikenal: " + type + " (local|object)");
+        }
+    }
+}
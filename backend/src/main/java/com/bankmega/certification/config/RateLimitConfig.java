@@ -0,0 +1,35 @@
+package com.bankmega.certification.config;
+
+import com.bankmega.certification.security.rate_limit.InMemoryRateLimitStore;
+import com.bankmega.certification.security.rate_limit.JdbcRateLimitStore;
+import com.bankmega.certification.security.rate_limit.RateLimitStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Locale;
+
+@Slf4j
+@Configuration
+public class RateLimitConfig {
+
+    // 🔹 memory = per instance (default), jdbc = dibagi semua instance lewat Postgres
+    @Bean
+    public RateLimitStore rateLimitStore(
+            @Value("${app.rate-limit.store:memory}") String store,
+            @Value("${app.rate-limit.max-buckets:50000}") int maxBuckets,
+            @Value("${app.rate-limit.jdbc.idle-seconds:3600}") long idleSeconds,
+            NamedParameterJdbcTemplate jdbc) {
+        switch (store.trim().toLowerCase(Locale.ROOT)) {
+            case "jdbc":
+                log.info("Rate limiter memakai state bersama di Postgres (rate_limit_buckets)");
+                return new JdbcRateLimitStore(jdbc, idleSeconds);
+            case "memory":
+                return new InMemoryRateLimitStore(maxBuckets);
+            default:
+                throw new IllegalStateException("app.rate-limit.store tidak dikenal: " + store + " (memory|jdbc)");
+        }
+    }
+}
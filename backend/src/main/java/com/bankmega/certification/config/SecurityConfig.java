@@ -2,6 +2,7 @@ package com.bankmega.certification.config;
 
 import com.bankmega.certification.security.JwtAuthenticationFilter;
 import com.bankmega.certification.security.RateLimitingFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -35,6 +36,9 @@ public class SecurityConfig {
                                 xss -> xss.headerValue(XXssProtectionHeaderWriter.HeaderValue.ENABLED_MODE_BLOCK)))
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // async dispatch SSE (/api/notifications/stream) sudah diautentikasi di request awal
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // preflight MUST pass
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
@@ -44,6 +48,12 @@ public class SecurityConfig {
                         // employee certifications file endpoint - require authentication
                         // (removed permitAll for security - files should not be publicly accessible)
                         .requestMatchers(HttpMethod.GET, "/api/employee-certifications/*/file").authenticated()
+                        // download massal file sertifikat (audit)
+                        .requestMatchers(HttpMethod.GET, "/api/employee-certifications/export/files")
+                        .hasAnyRole("SUPERADMIN", "PIC")
+
+                        // admin (rekonsiliasi storage, dll.)
+                        .requestMatchers("/api/admin/**").hasRole("SUPERADMIN")
 
                         // roles
                         .requestMatchers(HttpMethod.GET, "/api/roles/**").hasAnyRole("SUPERADMIN", "PIC")
@@ -5,10 +5,12 @@ import com.bankmega.certification.dto.EmployeeCertificationRequest;
 import com.bankmega.certification.dto.EmployeeCertificationResponse;
 import com.bankmega.certification.entity.PicCertificationScope;
 import com.bankmega.certification.repository.PicCertificationScopeRepository;
+import com.bankmega.certification.service.CertificateBundleService;
 import com.bankmega.certification.service.EmployeeCertificationService;
 import com.bankmega.certification.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.*;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ContentDisposition;
@@ -20,6 +22,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -33,6 +36,7 @@ public class EmployeeCertificationController {
 
     private final EmployeeCertificationService service;
     private final FileStorageService fileStorageService;
+    private final CertificateBundleService bundleService;
     private final PicCertificationScopeRepository scopeRepo;
 
     private boolean isPic(Authentication auth) {
@@ -167,6 +171,44 @@ public class EmployeeCertificationController {
                 .body(bytes);
     }
 
+    // 🔹 ZIP semua file sertifikat (filter sama dengan export + batch), di-stream + manifest.csv
+    @GetMapping("/export/files")
+    public void exportFiles(
+            @RequestParam(required = false) List<Long> employeeIds,
+            @RequestParam(required = false) List<String> certCodes,
+            @RequestParam(required = false) List<Integer> levels,
+            @RequestParam(required = false) List<String> subCodes,
+            @RequestParam(required = false) List<Long> institutionIds,
+            @RequestParam(required = false) List<String> statuses,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate certDateStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate certDateEnd,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate validUntilStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate validUntilEnd,
+            @RequestParam(required = false) Long batchId,
+            Authentication authentication,
+            @AuthenticationPrincipal(expression = "id") Long userIdFromPrincipal,
+            HttpServletResponse response) throws IOException {
+
+        List<Long> allowedCertIds = resolveAllowedCertIds(authentication, userIdFromPrincipal);
+
+        bundleService.writeBundle(
+                employeeIds,
+                certCodes,
+                levels,
+                subCodes,
+                institutionIds,
+                statuses,
+                search,
+                certDateStart,
+                certDateEnd,
+                validUntilStart,
+                validUntilEnd,
+                batchId,
+                allowedCertIds,
+                response);
+    }
+
     @GetMapping("/{id}")
     public EmployeeCertificationResponse getDetail(
             @PathVariable Long id,
@@ -251,13 +293,15 @@ public class EmployeeCertificationController {
     }
 
     @GetMapping("/{id}/file")
-    public ResponseEntity<Resource> getCertificateFile(
+    public void getCertificateFile(
             @PathVariable Long id,
-            @RequestParam(value = "download", defaultValue = "false") boolean download) {
-        // No authentication required - file is accessed directly by browser (img src,
-        // iframe)
-        // The file itself doesn't contain sensitive data beyond what's already shown in
-        // the UI
-        return fileStorageService.serveFile(id, download);
+            @RequestParam(value = "download", defaultValue = "false") boolean download,
+            @RequestParam(value = "variant", required = false) String variant,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        // Diakses langsung oleh browser (img src, iframe); butuh login (SecurityConfig).
+        // Response ditulis langsung: ETag/304, Range/206, streaming FileChannel.
+        // ?variant=thumb|preview untuk list / preview gambar
+        fileStorageService.serveFile(id, download, variant, request, response);
     }
 }
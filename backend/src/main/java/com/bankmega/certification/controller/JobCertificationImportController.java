@@ -2,7 +2,6 @@ package com.bankmega.certification.controller;
 
 import com.bankmega.certification.dto.JobCertImportResponse;
 import com.bankmega.certification.dto.JobCertImportLogResponse;
-import com.bankmega.certification.entity.User;
 import com.bankmega.certification.security.UserPrincipal;
 import com.bankmega.certification.service.JobCertificationImportService;
 import lombok.RequiredArgsConstructor;
@@ -26,8 +25,7 @@ public class JobCertificationImportController {
             @RequestParam("file") MultipartFile file,
             @AuthenticationPrincipal UserPrincipal principal) {
 
-        User user = principal.getUser(); // 🔑 ambil entity
-        return ResponseEntity.ok(importService.dryRun(file, user));
+        return ResponseEntity.ok(importService.dryRun(file, principal.getId()));
     }
 
     @PostMapping("/confirm")
@@ -35,17 +33,16 @@ public class JobCertificationImportController {
             @RequestParam("file") MultipartFile file,
             @AuthenticationPrincipal UserPrincipal principal) {
 
-        User user = principal.getUser();
-        return ResponseEntity.ok(importService.confirm(file, user));
+        return ResponseEntity.ok(importService.confirm(file, principal.getId()));
     }
 
     @GetMapping("/logs")
     public ResponseEntity<List<JobCertImportLogResponse>> getLogs(
-            @AuthenticationPrincipal User user) {
-        if ("SUPERADMIN".equalsIgnoreCase(user.getRole().getName())) {
+            @AuthenticationPrincipal UserPrincipal principal) {
+        if ("SUPERADMIN".equalsIgnoreCase(principal.getRoleName())) {
             return ResponseEntity.ok(importService.getAllLogsDto());
         } else {
-            return ResponseEntity.ok(importService.getLogsByUserDto(user.getId()));
+            return ResponseEntity.ok(importService.getLogsByUserDto(principal.getId()));
         }
     }
 
@@ -1,18 +1,24 @@
 package com.bankmega.certification.controller;
 
+import com.bankmega.certification.dto.NotificationInboxResponse;
+import com.bankmega.certification.dto.NotificationMarkReadRequest;
 import com.bankmega.certification.dto.NotificationResponse;
 import com.bankmega.certification.entity.EmployeeBatch;
 import com.bankmega.certification.entity.Notification;
 import com.bankmega.certification.security.UserPrincipal;
 import com.bankmega.certification.service.NotificationService;
+import com.bankmega.certification.service.notification_inbox.NotificationStreamService;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,6 +30,7 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStream;
 
     @GetMapping("/filter")
     public ResponseEntity<Page<NotificationResponse>> filterNotifications(
@@ -73,8 +80,7 @@ public class NotificationController {
         LocalDateTime toDt = toRaw != null ? LocalDateTime.parse(toRaw + "T23:59:59") : null; // end day
 
         boolean isSuperadmin = principal != null
-                && principal.getRole() != null
-                && "SUPERADMIN".equalsIgnoreCase(principal.getRole().getName()); // check role dari principal
+                && "SUPERADMIN".equalsIgnoreCase(principal.getRoleName()); // check role dari principal
 
         Long currentUserId = principal != null ? principal.getId() : null; // userId = principal.id
 
@@ -136,22 +142,42 @@ public class NotificationController {
             @AuthenticationPrincipal UserPrincipal principal,
             @RequestParam(name = "limit", defaultValue = "5") int limit) {
 
-        if (limit <= 0) {
-            limit = 5;
-        } else if (limit > 50) {
-            limit = 50;
-        }
-
         List<NotificationResponse> result = notificationService
-                .getUserNotifications(principal.getEmployeeId())
+                .getLatestNotifications(principal.getEmployeeId(), limit)
                 .stream()
-                .limit(limit)
                 .map(this::toResponse)
                 .toList();
 
         return ResponseEntity.ok(result);
     }
 
+    // 📥 inbox dengan cursor: /api/notifications/inbox?limit=20&cursor=<nextCursor>
+    @GetMapping("/inbox")
+    public ResponseEntity<NotificationInboxResponse> getInbox(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+
+        Long employeeId = principal.getEmployeeId();
+        NotificationService.InboxPage page = notificationService.getInbox(employeeId, limit, cursor);
+
+        return ResponseEntity.ok(NotificationInboxResponse.builder()
+                .items(page.items().stream().map(this::toResponse).toList())
+                .nextCursor(page.nextCursor())
+                .unreadCount(notificationService.getUnreadCount(employeeId))
+                .build());
+    }
+
+    // 📡 push notifikasi baru + unread count (SSE); reconnect kirim Last-Event-ID.
+    // Auth tetap header Bearer: frontend membaca stream pakai fetch, bukan EventSource
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+
+        return notificationStream.subscribe(principal.getEmployeeId(), lastEventId);
+    }
+
     @GetMapping("/unread-count")
     public ResponseEntity<Long> getUnreadCount(
             @AuthenticationPrincipal UserPrincipal principal) {
@@ -159,15 +185,35 @@ public class NotificationController {
         return ResponseEntity.ok(notificationService.getUnreadCount(principal.getEmployeeId()));
     }
 
+    // createdAt (opsional, dari item inbox) supaya lookup hanya ke partisi terkait
     @PatchMapping("/{notificationId}/read")
     public ResponseEntity<Void> markAsRead(
             @PathVariable Long notificationId,
+            @RequestParam(required = false) String createdAt,
             @AuthenticationPrincipal UserPrincipal principal) {
 
-        notificationService.markAsRead(notificationId, principal.getEmployeeId());
+        LocalDateTime createdAtDt = createdAt != null ? LocalDateTime.parse(createdAt) : null;
+        notificationService.markAsRead(notificationId, createdAtDt, principal.getEmployeeId());
         return ResponseEntity.ok().build();
     }
 
+    @PatchMapping("/read")
+    public ResponseEntity<Map<String, Integer>> markManyAsRead(
+            @Valid @RequestBody NotificationMarkReadRequest req,
+            @AuthenticationPrincipal UserPrincipal principal) {
+
+        int updated = notificationService.markManyAsRead(principal.getEmployeeId(), req.getIds());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    @PatchMapping("/read-all")
+    public ResponseEntity<Map<String, Integer>> markAllAsRead(
+            @AuthenticationPrincipal UserPrincipal principal) {
+
+        int updated = notificationService.markAllAsRead(principal.getEmployeeId());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
     @PostMapping("/batches/{batchId}/send")
     public ResponseEntity<?> sendBatchNotifications(
             @PathVariable Long batchId,
@@ -0,0 +1,31 @@
+// src/main/java/com/bankmega/certification/controller/StorageAdminController.java
+package com.bankmega.certification.controller;
+
+import com.bankmega.certification.exception.ConflictException;
+import com.bankmega.certification.service.file_storage.StorageReconciler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+@RequiredArgsConstructor
+public class StorageAdminController {
+
+    private final StorageReconciler storageReconciler;
+
+    // 🔹 Hasil rekonsiliasi terakhir (204 kalau belum pernah jalan)
+    @GetMapping("/reconciliation")
+    public ResponseEntity<StorageReconciler.Report> getLastReconciliation() {
+        StorageReconciler.Report report = storageReconciler.lastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    // 🔹 Jalankan rekonsiliasi di background; cek hasilnya lewat GET
+    @PostMapping("/reconciliation")
+    public ResponseEntity<Void> runReconciliation(@RequestParam(defaultValue = "false") boolean quarantine) {
+        if (!storageReconciler.startAsync(quarantine))
+            throw new ConflictException("Rekonsiliasi storage sedang berjalan");
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.bankmega.certification.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class NotificationInboxResponse {
+
+    private List<NotificationResponse> items;
+    private String nextCursor; // null = sudah halaman terakhir
+    private long unreadCount;
+}
@@ -0,0 +1,15 @@
+package com.bankmega.certification.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class NotificationMarkReadRequest {
+
+    @NotEmpty
+    @Size(max = 500)
+    private List<Long> ids;
+}
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_ec_status", columnList = "status"),
         @Index(name = "idx_ec_valid_until", columnList = "valid_until"),
         @Index(name = "idx_ec_reminder", columnList = "reminder_date"),
-        @Index(name = "idx_ec_deleted", columnList = "deleted_at")
+        @Index(name = "idx_ec_deleted", columnList = "deleted_at"),
+        @Index(name = "idx_ec_file_url", columnList = "file_url")
 })
 @Getter
 @Setter
@@ -80,10 +81,25 @@ public class EmployeeCertification {
     @Column(name = "file_type", length = 50)
     private String fileType;
 
+    // 🔹 Dihitung saat upload (streaming), untuk cek integritas file
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "file_sha256", length = 64)
+    private String fileSha256;
+
     @Enumerated(EnumType.STRING)
     @Column(length = 30, nullable = false)
     private Status status;
 
+    // 🔹 Dedupe run reminder / expired (JdbcCertificationNotificationRepository).
+    // Hanya ditulis lewat JDBC; read-only di JPA supaya save entity tidak menimpanya
+    @Column(name = "reminder_notified_at", insertable = false, updatable = false)
+    private LocalDateTime reminderNotifiedAt;
+
+    @Column(name = "expired_notified_at", insertable = false, updatable = false)
+    private LocalDateTime expiredNotifiedAt;
+
     // 🔹 Audit fields
     @CreatedDate
     @Column(name = "created_at", updatable = false, nullable = false)
@@ -6,8 +6,13 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "notifications", indexes = {
-        @Index(name = "idx_notifications_user", columnList = "user_id"),
-        @Index(name = "idx_notifications_is_read", columnList = "is_read")
+        // inbox: WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT n
+        @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at DESC, id DESC"),
+        @Index(name = "idx_notifications_is_read", columnList = "is_read"),
+        // prod: tabel partisi bulanan per created_at (migration V20261019_5)
+        @Index(name = "idx_notifications_created", columnList = "created_at DESC"),
+        // lookup notifikasi per entitas terkait (type + related_entity)
+        @Index(name = "idx_notifications_dedupe", columnList = "type, related_entity, related_entity_id, user_id")
 })
 @Getter
 @Setter
@@ -0,0 +1,56 @@
+package com.bankmega.certification.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Statistik satu run reminder / expired (lihat CertificationNotificationRunner)
+@Entity
+@Table(name = "notification_runs", indexes = {
+        @Index(name = "idx_notification_runs_type_started", columnList = "type, started_at")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private Notification.Type type;
+
+    // Sertifikat yang belum dinotifikasi saat run mulai
+    @Column(nullable = false)
+    private Integer due;
+
+    @Column(nullable = false)
+    private Integer sent;
+
+    // Tanpa email / rule, atau ternyata sudah dinotifikasi proses lain
+    @Column(nullable = false)
+    private Integer skipped;
+
+    @Column(nullable = false)
+    private Integer failed;
+
+    @Column(nullable = false)
+    private Integer partitions;
+
+    @Column(nullable = false)
+    private Integer workers;
+
+    @Column(name = "duration_ms", nullable = false)
+    private Long durationMs;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
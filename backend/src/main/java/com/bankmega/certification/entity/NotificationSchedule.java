@@ -41,6 +41,11 @@ public class NotificationSchedule {
     @Column(name = "last_run")
     private LocalDateTime lastRun;
 
+    // Lease run yang sedang jalan (lihat NotificationScheduleRepository.claimRun).
+    // Hanya ditulis lewat query update; read-only di JPA supaya save jadwal tidak menimpanya
+    @Column(name = "lease_until", insertable = false, updatable = false)
+    private LocalDateTime leaseUntil;
+
     // Admin yang terakhir mengubah jadwal
     @Column(name = "updated_by", length = 100)
     private String updatedBy;
@@ -0,0 +1,5 @@
+// src/main/java/com/bankmega/certification/event/EmailConfigChangedEvent.java
+package com.bankmega.certification.event;
+
+public record EmailConfigChangedEvent(Long configId) {
+}
@@ -34,7 +34,8 @@ public class GlobalExceptionHandler {
                                 .message(ex.getReason())
                                 .path(req.getRequestURI())
                                 .build();
-                return ResponseEntity.status(sc).body(body);
+                // header dari exception (mis. Retry-After di 503) ikut dikirim
+                return ResponseEntity.status(sc).headers(ex.getHeaders()).body(body);
         }
 
         // Validasi @Valid di DTO -> 400
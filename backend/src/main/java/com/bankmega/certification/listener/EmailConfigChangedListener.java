@@ -0,0 +1,28 @@
+package com.bankmega.certification.listener;
+
+import com.bankmega.certification.event.EmailConfigChangedEvent;
+import com.bankmega.certification.service.mail_sender.MailSenderHolder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailConfigChangedListener {
+
+    private final MailSenderHolder mailSenderHolder;
+
+    // Swap sender begitu config baru ter-commit, tidak menunggu refresh berkala
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handle(EmailConfigChangedEvent event) {
+        try {
+            mailSenderHolder.reload();
+        } catch (Exception e) {
+            log.error("Gagal memuat ulang mail sender setelah config #{} disimpan: {}", event.configId(),
+                    e.getMessage(), e);
+        }
+    }
+}
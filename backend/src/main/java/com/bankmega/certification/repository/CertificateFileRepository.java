@@ -0,0 +1,100 @@
+// src/main/java/com/bankmega/certification/repository/CertificateFileRepository.java
+package com.bankmega.certification.repository;
+
+import com.bankmega.certification.entity.EmployeeCertification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Baris file sertifikat (kolom seperlunya, bukan entity) untuk download massal.
+ * Dibaca per potongan dengan keyset {@code id > afterId}, jadi tidak ada
+ * koneksi / transaksi yang ditahan selama file di-stream ke client.
+ */
+@Repository
+public class CertificateFileRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public record CertificateFileRow(
+            Long id,
+            String nip,
+            String employeeName,
+            String certCode,
+            Integer level,
+            String subCode,
+            EmployeeCertification.Status status,
+            LocalDate validUntil,
+            String fileUrl,
+            String fileName,
+            String fileType,
+            Long fileSize,
+            String fileSha256) {
+    }
+
+    public List<CertificateFileRow> findChunk(Specification<EmployeeCertification> spec, long afterId, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<EmployeeCertification> root = cq.from(EmployeeCertification.class);
+
+        Join<Object, Object> emp = root.join("employee");
+        Join<Object, Object> rule = root.join("certificationRule");
+        Join<Object, Object> cert = rule.join("certification");
+        Join<Object, Object> level = rule.join("certificationLevel", JoinType.LEFT);
+        Join<Object, Object> sub = rule.join("subField", JoinType.LEFT);
+
+        Predicate filter = spec != null ? spec.toPredicate(root, cq, cb) : null;
+        Predicate page = cb.and(
+                cb.greaterThan(root.get("id"), afterId),
+                cb.isNotNull(root.get("fileUrl")));
+
+        cq.multiselect(
+                root.get("id"),
+                emp.get("nip"),
+                emp.get("name"),
+                cert.get("code"),
+                level.get("level"),
+                sub.get("code"),
+                root.get("status"),
+                root.get("validUntil"),
+                root.get("fileUrl"),
+                root.get("fileName"),
+                root.get("fileType"),
+                root.get("fileSize"),
+                root.get("fileSha256"))
+                .where(filter != null ? cb.and(filter, page) : page)
+                .orderBy(cb.asc(root.get("id")));
+
+        return em.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(t -> new CertificateFileRow(
+                        t.get(0, Long.class),
+                        t.get(1, String.class),
+                        t.get(2, String.class),
+                        t.get(3, String.class),
+                        t.get(4, Integer.class),
+                        t.get(5, String.class),
+                        t.get(6, EmployeeCertification.Status.class),
+                        t.get(7, LocalDate.class),
+                        t.get(8, String.class),
+                        t.get(9, String.class),
+                        t.get(10, String.class),
+                        t.get(11, Long.class),
+                        t.get(12, String.class)))
+                .toList();
+    }
+}
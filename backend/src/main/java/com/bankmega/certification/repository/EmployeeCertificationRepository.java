@@ -14,6 +14,7 @@ import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,7 +47,8 @@ public interface EmployeeCertificationRepository extends
 
         List<EmployeeCertification> findAllByStatus(EmployeeCertification.Status status);
 
-        // Ambil semua sertifikasi yang perlu dikirim reminder hari ini
+        // Partisi run reminder/expired yang sudah diklaim (lihat
+        // JdbcCertificationNotificationRepository) + relasi untuk render template
         @EntityGraph(attributePaths = {
                         "employee",
                         "certificationRule",
@@ -54,18 +56,7 @@ public interface EmployeeCertificationRepository extends
                         "certificationRule.certificationLevel",
                         "certificationRule.subField"
         })
-        List<EmployeeCertification> findByReminderDateAndDeletedAtIsNull(LocalDate reminderDate);
-
-        // EXP: sertifikat yang sudah kadaluarsa SAMPAI HARI INI (<= today) + eager
-        // fetch
-        @EntityGraph(attributePaths = {
-                        "employee",
-                        "certificationRule",
-                        "certificationRule.certification",
-                        "certificationRule.certificationLevel",
-                        "certificationRule.subField"
-        })
-        List<EmployeeCertification> findByValidUntilLessThanEqualAndDeletedAtIsNull(LocalDate date);
+        List<EmployeeCertification> findForNotificationByIdIn(Collection<Long> ids);
 
         // EntityGraph overrides for paging and export
         // NOTE: Cannot include collections (employee.positions) in paginated queries
@@ -4,7 +4,10 @@ import com.bankmega.certification.entity.EmployeeEligibilityException;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -32,4 +35,24 @@ public interface EmployeeEligibilityExceptionRepository
 
         Optional<EmployeeEligibilityException> findFirstByEmployeeIdAndCertificationRuleId(
                         Long employeeId, Long certificationRuleId);
-}
\ No newline at end of file
+
+        interface ExceptionSnapshot {
+                Long getId();
+
+                Long getEmployeeId();
+
+                Long getCertificationRuleId();
+
+                Boolean getIsActive();
+
+                String getNotes();
+
+                java.time.Instant getDeletedAt();
+        }
+
+        // 🔹 Exception (termasuk soft-deleted) milik pegawai tertentu tanpa load entity, buat index import
+        @Query("SELECT x.id AS id, x.employee.id AS employeeId, x.certificationRule.id AS certificationRuleId, "
+                        + "x.isActive AS isActive, x.notes AS notes, x.deletedAt AS deletedAt "
+                        + "FROM EmployeeEligibilityException x WHERE x.employee.id IN :employeeIds")
+        List<ExceptionSnapshot> findSnapshotsByEmployeeIdIn(@Param("employeeIds") Collection<Long> employeeIds);
+}
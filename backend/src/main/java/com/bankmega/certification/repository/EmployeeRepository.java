@@ -103,4 +103,18 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSp
         @EntityGraph(attributePaths = { "positions", "positions.jobPosition",
                         "positions.regional", "positions.division", "positions.unit" })
         List<Employee> findWithRelationsByDeletedAtIsNull();
+
+        // Non-resigned employees holding any of the given job positions (primary or
+        // secondary), with positions loaded for eligibility sync
+        @EntityGraph(attributePaths = { "positions", "positions.jobPosition",
+                        "positions.regional", "positions.division", "positions.unit" })
+        @Query("SELECT DISTINCT e FROM Employee e JOIN e.positions p " +
+                        "WHERE p.jobPosition.id IN :jobIds AND p.deletedAt IS NULL " +
+                        "AND e.deletedAt IS NULL AND (e.status IS NULL OR UPPER(e.status) <> 'RESIGN')")
+        List<Employee> findActiveWithRelationsByJobPositionIdIn(@Param("jobIds") Collection<Long> jobIds);
+
+        // Eligibility refresh per kumpulan pegawai (termasuk resign), positions ikut di-load
+        @EntityGraph(attributePaths = { "positions", "positions.jobPosition",
+                        "positions.regional", "positions.division", "positions.unit" })
+        List<Employee> findWithRelationsByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,85 @@
+// src/main/java/com/bankmega/certification/repository/JdbcCertificateFileRefRepository.java
+package com.bankmega.certification.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Referensi file sertifikat ({@code file_url}) untuk rekonsiliasi storage dan
+ * reference count file yang dipakai bersama (upload content-addressed).
+ * Dibaca lewat cursor (fetch size) supaya tabel besar tidak dimuat sekaligus;
+ * harus dipanggil di dalam transaksi (driver Postgres baru streaming kalau
+ * autocommit mati).
+ */
+@Repository
+public class JdbcCertificateFileRefRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    // Baris soft-deleted ikut: file-nya masih milik baris itu
+    private static final String STREAM_SQL = """
+            SELECT id, file_url, file_size
+              FROM employee_certifications
+             WHERE file_url IS NOT NULL AND file_url <> ''
+            """;
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(:key)";
+
+    // Lock per file (bentuk 2 argumen = ruang key terpisah dari lock job)
+    private static final int FILE_LOCK_NAMESPACE = 0x46494C45; // "FILE"
+    private static final String LOCK_FILE_SQL = "SELECT pg_advisory_xact_lock(:ns, hashtext(:fileUrl))";
+
+    // Baris soft-deleted ikut dihitung, sama seperti di stream
+    private static final String COUNT_REFS_SQL = """
+            SELECT COUNT(*)
+              FROM employee_certifications
+             WHERE file_url = :fileUrl AND id <> :excludeId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final JdbcTemplate cursor;
+
+    public JdbcCertificateFileRefRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.cursor = new JdbcTemplate(jdbc.getJdbcTemplate().getDataSource());
+        this.cursor.setFetchSize(FETCH_SIZE);
+    }
+
+    public record FileRef(long certificationId, String fileUrl, Long fileSize) {
+    }
+
+    public void streamFileRefs(Consumer<FileRef> consumer) {
+        cursor.query(STREAM_SQL, rs -> {
+            long size = rs.getLong("file_size");
+            consumer.accept(new FileRef(rs.getLong("id"), rs.getString("file_url"),
+                    rs.wasNull() ? null : size));
+        });
+    }
+
+    /**
+     * Serialisasi upload / hapus untuk satu file sampai transaksi selesai, supaya
+     * file tidak dihapus tepat saat upload lain mulai merujuknya.
+     */
+    public void lockFile(String fileUrl) {
+        jdbc.query(LOCK_FILE_SQL, new MapSqlParameterSource()
+                .addValue("ns", FILE_LOCK_NAMESPACE)
+                .addValue("fileUrl", fileUrl), rs -> null);
+    }
+
+    /** Jumlah baris lain (selain {@code excludeId}) yang masih merujuk file ini. */
+    public long countOtherReferences(String fileUrl, long excludeId) {
+        Long count = jdbc.queryForObject(COUNT_REFS_SQL, new MapSqlParameterSource()
+                .addValue("fileUrl", fileUrl)
+                .addValue("excludeId", excludeId), Long.class);
+        return count != null ? count : 0;
+    }
+
+    public boolean tryLock(long key) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(TRY_LOCK_SQL, new MapSqlParameterSource("key", key),
+                Boolean.class));
+    }
+}
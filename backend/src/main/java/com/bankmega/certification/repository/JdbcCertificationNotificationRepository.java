@@ -0,0 +1,189 @@
+// src/main/java/com/bankmega/certification/repository/JdbcCertificationNotificationRepository.java
+package com.bankmega.certification.repository;
+
+import com.bankmega.certification.entity.Notification;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Query run reminder / expired: hitung sertifikat yang belum dinotifikasi,
+ * klaim satu partisi dengan FOR UPDATE SKIP LOCKED (banyak worker / node bisa
+ * jalan bareng), dan insert notifikasi multi-row dengan RETURNING id.
+ *
+ * Status "sudah dinotifikasi" ada di employee_certifications
+ * (reminder_notified_at / expired_notified_at), bukan anti-join ke
+ * notifications: partisi notifikasi lama dibuang job retensi, sedangkan
+ * dedupe harus tetap berlaku.
+ */
+@Repository
+public class JdbcCertificationNotificationRepository {
+
+    // %s = kolom dedupe (lihat notifiedColumn)
+    private static final String NOT_NOTIFIED = """
+            c.deleted_at IS NULL AND c.%s IS NULL
+            """;
+
+    // sama dengan syarat kirim di NotificationService (ada email + rule)
+    private static final String DELIVERABLE = """
+            c.certification_rule_id IS NOT NULL AND e.email IS NOT NULL AND btrim(e.email) <> ''
+            """;
+
+    private static final String COUNT_SQL = """
+            SELECT count(*) AS total, count(*) FILTER (WHERE %s) AS deliverable
+              FROM employee_certifications c
+              JOIN employees e ON e.id = c.employee_id
+             WHERE %s AND %s
+            """;
+
+    private static final String CLAIM_SQL = """
+            SELECT c.id
+              FROM employee_certifications c
+              JOIN employees e ON e.id = c.employee_id
+             WHERE %s AND %s AND %s %s
+             ORDER BY c.id
+             LIMIT :limit
+               FOR UPDATE OF c SKIP LOCKED
+            """;
+
+    // Statement baru = snapshot baru: buang yang ternyata sudah dinotifikasi worker
+    // lain yang commit tepat sebelum kita dapat lock
+    private static final String RECHECK_SQL = """
+            SELECT c.id
+              FROM employee_certifications c
+             WHERE c.id IN (:ids) AND %s
+             ORDER BY c.id
+            """;
+
+    // Tandai dulu, baru insert notifikasi untuk baris yang benar-benar ditandai:
+    // satu statement, jadi flag dedupe dan notifikasinya commit bersama
+    private static final String INSERT_HEAD = """
+            WITH marked AS (
+                UPDATE employee_certifications
+                   SET %1$s = :now
+                 WHERE id IN (:ids) AND %1$s IS NULL
+             RETURNING id, employee_id)
+            INSERT INTO notifications
+                (user_id, title, message, is_read, created_at, sent_at, success, type, related_entity, related_entity_id)
+            SELECT v.user_id, v.title, v.message, false, :now, :now, true, :type, 'EmployeeCertification', v.cert_id
+              FROM (VALUES
+            """;
+
+    private static final String INSERT_TAIL = """
+                   ) AS v (user_id, title, message, cert_id)
+              JOIN marked k ON k.id = v.cert_id AND k.employee_id = v.user_id
+            RETURNING id, user_id, related_entity_id, created_at
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcCertificationNotificationRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record PendingCount(int total, int deliverable) {
+    }
+
+    /** {@code locked} = baris yang dikunci, {@code ids} = yang masih perlu dinotifikasi. */
+    public record ClaimedPartition(int locked, List<Long> ids) {
+    }
+
+    public record NewNotification(Long userId, String title, String message, Long certificationId) {
+    }
+
+    public record InsertedNotification(Long id, Long userId, Long certificationId, LocalDateTime createdAt) {
+    }
+
+    public PendingCount countPending(Notification.Type type, LocalDate today) {
+        String sql = COUNT_SQL.formatted(DELIVERABLE, dueCondition(type), notNotified(type));
+        return jdbc.queryForObject(sql, params(type, today),
+                (rs, i) -> new PendingCount(rs.getInt("total"), rs.getInt("deliverable")));
+    }
+
+    /**
+     * Klaim sampai {@code limit} sertifikat yang harus dinotifikasi. Wajib
+     * dipanggil di dalam transaksi; lock dilepas saat commit, dan setelah
+     * notifikasinya ter-insert kolom dedupe baris itu sudah terisi.
+     */
+    public ClaimedPartition claimPartition(Notification.Type type, LocalDate today, int limit,
+            Collection<Long> excludedIds) {
+        boolean exclude = excludedIds != null && !excludedIds.isEmpty();
+        String sql = CLAIM_SQL.formatted(dueCondition(type), notNotified(type), DELIVERABLE,
+                exclude ? "AND c.id NOT IN (:excluded)" : "");
+        MapSqlParameterSource params = params(type, today).addValue("limit", limit);
+        if (exclude)
+            params.addValue("excluded", excludedIds);
+        List<Long> locked = jdbc.queryForList(sql, params, Long.class);
+        if (locked.isEmpty())
+            return new ClaimedPartition(0, List.of());
+
+        List<Long> ids = jdbc.queryForList(RECHECK_SQL.formatted(notNotified(type)),
+                params(type, today).addValue("ids", locked), Long.class);
+        return new ClaimedPartition(locked.size(), ids);
+    }
+
+    /**
+     * Tandai sertifikat sudah dinotifikasi lalu insert notifikasinya (multi-row).
+     * Sertifikat yang ternyata sudah ditandai di-skip dan tidak ikut di hasil.
+     */
+    public List<InsertedNotification> insertNotifications(Notification.Type type, List<NewNotification> rows) {
+        if (rows == null || rows.isEmpty())
+            return List.of();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("type", type.name())
+                .addValue("now", now)
+                .addValue("ids", rows.stream().map(NewNotification::certificationId).toList());
+        StringBuilder sql = new StringBuilder(INSERT_HEAD.formatted(notifiedColumn(type)));
+        for (int i = 0; i < rows.size(); i++) {
+            NewNotification r = rows.get(i);
+            if (i > 0)
+                sql.append(",\n");
+            sql.append("(:u").append(i).append(", :t").append(i).append(", :m").append(i)
+                    .append(", :c").append(i).append(')');
+            params.addValue("u" + i, r.userId())
+                    .addValue("t" + i, r.title())
+                    .addValue("m" + i, r.message())
+                    .addValue("c" + i, r.certificationId());
+        }
+        sql.append('\n').append(INSERT_TAIL);
+
+        return jdbc.query(sql.toString(), params,
+                (rs, i) -> new InsertedNotification(rs.getLong("id"), rs.getLong("user_id"),
+                        rs.getLong("related_entity_id"), rs.getTimestamp("created_at").toLocalDateTime()));
+    }
+
+    private static String dueCondition(Notification.Type type) {
+        return switch (type) {
+            case CERT_REMINDER -> "c.reminder_date = :today";
+            case EXPIRED_NOTICE -> "c.valid_until <= :today";
+            default -> throw new IllegalArgumentException("Tipe tidak didukung untuk run sertifikat: " + type);
+        };
+    }
+
+    private static String notifiedColumn(Notification.Type type) {
+        return switch (type) {
+            case CERT_REMINDER -> "reminder_notified_at";
+            case EXPIRED_NOTICE -> "expired_notified_at";
+            default -> throw new IllegalArgumentException("Tipe tidak didukung untuk run sertifikat: " + type);
+        };
+    }
+
+    private static String notNotified(Notification.Type type) {
+        return NOT_NOTIFIED.formatted(notifiedColumn(type));
+    }
+
+    private static MapSqlParameterSource params(Notification.Type type, LocalDate today) {
+        return new MapSqlParameterSource()
+                .addValue("type", type.name())
+                .addValue("today", Date.valueOf(today));
+    }
+}
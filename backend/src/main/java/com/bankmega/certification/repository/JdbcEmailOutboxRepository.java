@@ -0,0 +1,190 @@
+// src/main/java/com/bankmega/certification/repository/JdbcEmailOutboxRepository.java
+package com.bankmega.certification.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Akses email_outbox lewat JDBC: insert batch saat enqueue, klaim pesan
+ * dengan FOR UPDATE SKIP LOCKED (aman dijalankan banyak instance), lalu
+ * tandai hasil kirim per pesan.
+ */
+@Repository
+public class JdbcEmailOutboxRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO email_outbox
+                (notification_id, notification_created_at, recipient, subject, body, status, attempts,
+                 next_attempt_at, created_at, updated_at)
+            VALUES (:notificationId, :notificationCreatedAt, :recipient, :subject, :body, 'PENDING', 0,
+                    :now, :now, :now)
+            """;
+
+    // PENDING yang sudah waktunya + SENDING yang lease-nya habis (worker mati di tengah kirim)
+    private static final String CLAIM_SQL = """
+            UPDATE email_outbox o
+               SET status = 'SENDING', attempts = o.attempts + 1, locked_at = :now, updated_at = :now
+             WHERE o.id IN (
+                    SELECT id FROM email_outbox
+                     WHERE (status = 'PENDING' AND next_attempt_at <= :now)
+                        OR (status = 'SENDING' AND locked_at < :staleBefore)
+                     ORDER BY id
+                     LIMIT :limit
+                     FOR UPDATE SKIP LOCKED)
+            RETURNING o.id, o.notification_id, o.notification_created_at, o.recipient, o.subject, o.body,
+                      o.attempts
+            """;
+
+    private static final String MARK_SENT_SQL = """
+            UPDATE email_outbox
+               SET status = 'SENT', sent_at = :now, last_error = NULL, locked_at = NULL, updated_at = :now
+             WHERE id IN (:ids) AND status = 'SENDING'
+            """;
+
+    private static final String MARK_RETRY_SQL = """
+            UPDATE email_outbox
+               SET status = 'PENDING', next_attempt_at = :nextAttemptAt, last_error = :error,
+                   locked_at = NULL, updated_at = :now
+             WHERE id = :id AND status = 'SENDING'
+            """;
+
+    // Diklaim tapi tidak sempat dicoba: attempt dari klaim dikembalikan
+    private static final String RELEASE_SQL = """
+            UPDATE email_outbox
+               SET status = 'PENDING', attempts = GREATEST(attempts - 1, 0), next_attempt_at = :nextAttemptAt,
+                   last_error = :error, locked_at = NULL, updated_at = :now
+             WHERE id IN (:ids) AND status = 'SENDING'
+            """;
+
+    private static final String MARK_FAILED_SQL = """
+            UPDATE email_outbox
+               SET status = 'FAILED', last_error = :error, locked_at = NULL, updated_at = :now
+             WHERE id = :id AND status = 'SENDING'
+            """;
+
+    // Notifikasi in-app tetap ada, tapi ditandai email-nya gagal. Batas created_at
+    // supaya hanya partisi bulan notifikasi itu (dan sesudahnya) yang dibaca;
+    // baris outbox lama tanpa created_at jatuh ke versi id saja
+    private static final String MARK_NOTIFICATION_FAILED_SQL = """
+            UPDATE notifications SET success = false, error_message = LEFT(:error, 255)
+             WHERE id = :notificationId AND created_at >= :createdFrom
+            """;
+
+    private static final String MARK_NOTIFICATION_FAILED_BY_ID_SQL = """
+            UPDATE notifications SET success = false, error_message = LEFT(:error, 255) WHERE id = :notificationId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcEmailOutboxRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record NewEmail(Long notificationId, LocalDateTime notificationCreatedAt, String recipient,
+            String subject, String body) {
+    }
+
+    public record ClaimedEmail(Long id, Long notificationId, LocalDateTime notificationCreatedAt, String recipient,
+            String subject, String body, int attempts) {
+    }
+
+    public int batchInsert(List<NewEmail> rows) {
+        if (rows == null || rows.isEmpty())
+            return 0;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int total = 0;
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            List<NewEmail> chunk = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
+            SqlParameterSource[] params = chunk.stream()
+                    .map(r -> new MapSqlParameterSource()
+                            .addValue("notificationId", r.notificationId())
+                            .addValue("notificationCreatedAt", timestamp(r.notificationCreatedAt()))
+                            .addValue("recipient", r.recipient())
+                            .addValue("subject", r.subject())
+                            .addValue("body", r.body())
+                            .addValue("now", now))
+                    .toArray(SqlParameterSource[]::new);
+            for (int c : jdbc.batchUpdate(INSERT_SQL, params)) {
+                // driver boleh balikin SUCCESS_NO_INFO (-2) untuk batch
+                total += c > 0 ? c : 0;
+            }
+        }
+        return total;
+    }
+
+    public List<ClaimedEmail> claim(int limit, LocalDateTime staleBefore) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("staleBefore", Timestamp.valueOf(staleBefore))
+                .addValue("limit", limit);
+        return jdbc.query(CLAIM_SQL, params, (rs, i) -> new ClaimedEmail(
+                rs.getLong("id"),
+                rs.getObject("notification_id", Long.class),
+                localDateTime(rs.getTimestamp("notification_created_at")),
+                rs.getString("recipient"),
+                rs.getString("subject"),
+                rs.getString("body"),
+                rs.getInt("attempts")));
+    }
+
+    public void markSent(List<Long> ids) {
+        if (ids == null || ids.isEmpty())
+            return;
+        jdbc.update(MARK_SENT_SQL, new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    public void markRetry(Long id, String error, LocalDateTime nextAttemptAt) {
+        jdbc.update(MARK_RETRY_SQL, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("error", error)
+                .addValue("nextAttemptAt", Timestamp.valueOf(nextAttemptAt))
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    public void release(List<Long> ids, String error, LocalDateTime nextAttemptAt) {
+        if (ids == null || ids.isEmpty())
+            return;
+        jdbc.update(RELEASE_SQL, new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("error", error)
+                .addValue("nextAttemptAt", Timestamp.valueOf(nextAttemptAt))
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    public void markFailed(Long id, Long notificationId, LocalDateTime notificationCreatedAt, String error) {
+        jdbc.update(MARK_FAILED_SQL, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("error", error)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+        if (notificationId == null)
+            return;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("notificationId", notificationId)
+                .addValue("error", error);
+        if (notificationCreatedAt != null) {
+            // awal hari: aman terhadap pembulatan timestamp Java vs Postgres
+            jdbc.update(MARK_NOTIFICATION_FAILED_SQL, params.addValue("createdFrom",
+                    Timestamp.valueOf(notificationCreatedAt.toLocalDate().atStartOfDay())));
+        } else {
+            jdbc.update(MARK_NOTIFICATION_FAILED_BY_ID_SQL, params);
+        }
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private static LocalDateTime localDateTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime() : null;
+    }
+}
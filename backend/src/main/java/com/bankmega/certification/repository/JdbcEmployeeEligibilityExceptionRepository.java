@@ -0,0 +1,85 @@
+// src/main/java/com/bankmega/certification/repository/JdbcEmployeeEligibilityExceptionRepository.java
+package com.bankmega.certification.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Batch writer untuk employee_eligibility_exceptions, dipakai import Excel
+ * exception. Satu round trip per 500 baris, bukan save() per exception.
+ */
+@Repository
+public class JdbcEmployeeEligibilityExceptionRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO employee_eligibility_exceptions
+                (employee_id, certification_rule_id, is_active, notes, deleted_at, created_at, updated_at)
+            VALUES (:employeeId, :ruleId, :isActive, :notes, :deletedAt, :now, :now)
+            ON CONFLICT (employee_id, certification_rule_id) DO NOTHING
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE employee_eligibility_exceptions
+               SET is_active = :isActive, notes = :notes, deleted_at = :deletedAt, updated_at = :now
+             WHERE id = :id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcEmployeeEligibilityExceptionRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record NewException(Long employeeId, Long ruleId, boolean active, String notes, boolean deleted) {
+    }
+
+    public record ExceptionUpdate(Long exceptionId, boolean active, String notes, boolean deleted) {
+    }
+
+    public int batchInsert(List<NewException> rows) {
+        Timestamp now = Timestamp.from(Instant.now());
+        return run(INSERT_SQL, rows, r -> new MapSqlParameterSource()
+                .addValue("employeeId", r.employeeId())
+                .addValue("ruleId", r.ruleId())
+                .addValue("isActive", r.active())
+                .addValue("notes", r.notes())
+                .addValue("deletedAt", r.deleted() ? now : null, Types.TIMESTAMP)
+                .addValue("now", now));
+    }
+
+    public int batchUpdate(List<ExceptionUpdate> rows) {
+        Timestamp now = Timestamp.from(Instant.now());
+        return run(UPDATE_SQL, rows, r -> new MapSqlParameterSource()
+                .addValue("id", r.exceptionId())
+                .addValue("isActive", r.active())
+                .addValue("notes", r.notes())
+                .addValue("deletedAt", r.deleted() ? now : null, Types.TIMESTAMP)
+                .addValue("now", now));
+    }
+
+    private <T> int run(String sql, List<T> rows, Function<T, SqlParameterSource> mapper) {
+        if (rows == null || rows.isEmpty())
+            return 0;
+        int total = 0;
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            SqlParameterSource[] params = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size())).stream()
+                    .map(mapper)
+                    .toArray(SqlParameterSource[]::new);
+            for (int c : jdbc.batchUpdate(sql, params)) {
+                // driver boleh balikin SUCCESS_NO_INFO (-2) untuk batch
+                total += c > 0 ? c : 0;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,93 @@
+// src/main/java/com/bankmega/certification/repository/JdbcJobCertificationMappingRepository.java
+package com.bankmega.certification.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Batch writer untuk job_certification_mappings. Dipakai import Excel supaya
+ * insert/reactivate tidak jalan satu-satu lewat JPA (IDENTITY id bikin
+ * Hibernate gak bisa batch insert).
+ */
+@Repository
+public class JdbcJobCertificationMappingRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO job_certification_mappings
+                (job_position_id, certification_rule_id, is_active, created_at, updated_at)
+            VALUES (:jobPositionId, :ruleId, :isActive, :now, :now)
+            ON CONFLICT (job_position_id, certification_rule_id) DO NOTHING
+            """;
+
+    private static final String REACTIVATE_SQL = """
+            UPDATE job_certification_mappings
+               SET deleted_at = NULL, is_active = :isActive, updated_at = :now
+             WHERE id = :id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcJobCertificationMappingRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record NewMapping(Long jobPositionId, Long ruleId, boolean active) {
+    }
+
+    public record Reactivation(Long mappingId, boolean active) {
+    }
+
+    public int batchInsert(List<NewMapping> rows) {
+        if (rows == null || rows.isEmpty())
+            return 0;
+        Timestamp now = Timestamp.from(Instant.now());
+        int total = 0;
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            List<NewMapping> chunk = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
+            SqlParameterSource[] params = chunk.stream()
+                    .map(r -> new MapSqlParameterSource()
+                            .addValue("jobPositionId", r.jobPositionId())
+                            .addValue("ruleId", r.ruleId())
+                            .addValue("isActive", r.active())
+                            .addValue("now", now))
+                    .toArray(SqlParameterSource[]::new);
+            total += sum(jdbc.batchUpdate(INSERT_SQL, params));
+        }
+        return total;
+    }
+
+    public int batchReactivate(List<Reactivation> rows) {
+        if (rows == null || rows.isEmpty())
+            return 0;
+        Timestamp now = Timestamp.from(Instant.now());
+        int total = 0;
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            List<Reactivation> chunk = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
+            SqlParameterSource[] params = chunk.stream()
+                    .map(r -> new MapSqlParameterSource()
+                            .addValue("id", r.mappingId())
+                            .addValue("isActive", r.active())
+                            .addValue("now", now))
+                    .toArray(SqlParameterSource[]::new);
+            total += sum(jdbc.batchUpdate(REACTIVATE_SQL, params));
+        }
+        return total;
+    }
+
+    private static int sum(int[] counts) {
+        int n = 0;
+        for (int c : counts) {
+            // driver boleh balikin SUCCESS_NO_INFO (-2) untuk batch
+            n += c > 0 ? c : 0;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,120 @@
+// src/main/java/com/bankmega/certification/repository/JdbcNotificationPartitionRepository.java
+package com.bankmega.certification.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL partisi bulanan notifications (lihat migration V20261019_5). Nama
+ * partisi selalu {@code notifications_pYYYY_MM}, jadi bulan dibaca dari nama
+ * dan nama tabel yang dirakit ke SQL tidak pernah berasal dari input user.
+ */
+@Repository
+public class JdbcNotificationPartitionRepository {
+
+    private static final String PREFIX = "notifications_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^notifications_p(\\d{4})_(\\d{2})$");
+    private static final Pattern SCHEMA_NAME = Pattern.compile("^[a-z_][a-z0-9_]{0,62}$");
+
+    private static final String IS_PARTITIONED_SQL = """
+            SELECT EXISTS (
+                SELECT 1 FROM pg_partitioned_table pt
+                  JOIN pg_class c ON c.oid = pt.partrelid
+                 WHERE c.relname = 'notifications' AND pg_table_is_visible(c.oid))
+            """;
+
+    private static final String LIST_SQL = """
+            SELECT c.relname
+              FROM pg_inherits i
+              JOIN pg_class c ON c.oid = i.inhrelid
+              JOIN pg_class p ON p.oid = i.inhparent
+             WHERE p.relname = 'notifications' AND pg_table_is_visible(p.oid)
+            """;
+
+    // Satu job retensi per cluster; lock lepas sendiri di akhir transaksi
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(:key)";
+
+    private static final String DELETE_OLD_SQL = """
+            DELETE FROM notifications
+             WHERE id IN (SELECT id FROM notifications WHERE created_at < :cutoff LIMIT :limit)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcNotificationPartitionRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record Partition(String name, YearMonth month) {
+    }
+
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbc.queryForObject(IS_PARTITIONED_SQL, new MapSqlParameterSource(),
+                Boolean.class));
+    }
+
+    /** Partisi bulanan yang terpasang (partisi DEFAULT tidak ikut). */
+    public List<Partition> listMonthly() {
+        List<Partition> result = new ArrayList<>();
+        for (String name : jdbc.queryForList(LIST_SQL, new MapSqlParameterSource(), String.class)) {
+            Matcher m = PARTITION_NAME.matcher(name);
+            if (m.matches())
+                result.add(new Partition(name, YearMonth.of(Integer.parseInt(m.group(1)),
+                        Integer.parseInt(m.group(2)))));
+        }
+        return result;
+    }
+
+    public boolean tryLock(long key) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(TRY_LOCK_SQL, new MapSqlParameterSource("key", key),
+                Boolean.class));
+    }
+
+    public void createMonthly(YearMonth month) {
+        jdbc.getJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS " + name(month)
+                + " PARTITION OF notifications FOR VALUES FROM ('" + month.atDay(1) + "') TO ('"
+                + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    public void detach(Partition p) {
+        jdbc.getJdbcTemplate().execute("ALTER TABLE notifications DETACH PARTITION " + checked(p));
+    }
+
+    /** Pindahkan partisi yang sudah di-detach ke schema arsip (tetap bisa di-query / di-dump). */
+    public void moveToSchema(Partition p, String schema) {
+        if (!SCHEMA_NAME.matcher(schema).matches())
+            throw new IllegalArgumentException("Nama schema arsip tidak valid: " + schema);
+        jdbc.getJdbcTemplate().execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+        jdbc.getJdbcTemplate().execute("ALTER TABLE " + checked(p) + " SET SCHEMA " + schema);
+    }
+
+    public void drop(Partition p) {
+        jdbc.getJdbcTemplate().execute("DROP TABLE " + checked(p));
+    }
+
+    /** Fallback tabel tanpa partisi: hapus bertahap, return jumlah baris terhapus. */
+    public int deleteOlderThan(LocalDateTime cutoff, int limit) {
+        return jdbc.update(DELETE_OLD_SQL, new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", limit));
+    }
+
+    private static String name(YearMonth month) {
+        return PREFIX + String.format("%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static String checked(Partition p) {
+        if (!PARTITION_NAME.matcher(p.name()).matches())
+            throw new IllegalArgumentException("Bukan partisi notifications: " + p.name());
+        return p.name();
+    }
+}
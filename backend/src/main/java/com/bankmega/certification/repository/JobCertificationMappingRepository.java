@@ -22,6 +22,24 @@ public interface JobCertificationMappingRepository extends
         Optional<JobCertificationMapping> findByJobPositionAndCertificationRule(JobPosition job,
                         CertificationRule rule);
 
+        interface MappingKey {
+                Long getId();
+
+                Long getJobPositionId();
+
+                Long getCertificationRuleId();
+
+                Boolean getIsActive();
+
+                java.time.Instant getDeletedAt();
+        }
+
+        // 🔹 Semua mapping (termasuk soft-deleted) tanpa load entity, buat index import
+        @org.springframework.data.jpa.repository.Query("SELECT m.id AS id, m.jobPosition.id AS jobPositionId, "
+                        + "m.certificationRule.id AS certificationRuleId, m.isActive AS isActive, "
+                        + "m.deletedAt AS deletedAt FROM JobCertificationMapping m")
+        List<MappingKey> findAllKeys();
+
         List<JobCertificationMapping> findByJobPosition_IdAndDeletedAtIsNull(Long jobId);
 
         @EntityGraph(attributePaths = { "jobPosition", "certificationRule" })
@@ -1,10 +1,19 @@
 package com.bankmega.certification.repository;
 
 import com.bankmega.certification.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository
@@ -14,8 +23,50 @@ public interface NotificationRepository
 
     long countByUserIdAndIsReadFalse(Long userId);
 
-    // 🔹 Tambahin ini biar gak error
-    List<Notification> findByTypeAndRelatedEntity(
-            Notification.Type type,
-            String relatedEntity);
+    // 🔹 Inbox: top-N terbaru (pakai idx_notifications_user_created, LIMIT di DB)
+    List<Notification> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    // 🔹 Inbox: halaman berikutnya setelah cursor (createdAt, id) terakhir
+    @Query("""
+            SELECT n FROM Notification n
+            WHERE n.userId = :userId
+              AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id))
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<Notification> findInboxAfter(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    // 🔹 Lookup by id dengan batas bawah created_at (partition pruning)
+    Optional<Notification> findByIdAndCreatedAtGreaterThanEqual(Long id, LocalDateTime createdAt);
+
+    // 🔹 SSE: replay setelah Last-Event-ID, dibatasi created_at (partition pruning)
+    List<Notification> findByUserIdAndIdGreaterThanAndCreatedAtGreaterThanEqualOrderByIdAsc(
+            Long userId, Long id, LocalDateTime createdAt, Pageable pageable);
+
+    // 🔹 SSE: notifikasi terbaru untuk user yang sedang terhubung (dari instance mana pun)
+    List<Notification> findByUserIdInAndCreatedAtGreaterThanEqualOrderByIdAsc(
+            Collection<Long> userIds, LocalDateTime createdAt);
+
+    // 🔹 Bulk mark-read; hanya notifikasi milik user dan yang belum dibaca
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Notification n SET n.isRead = true, n.readAt = :now
+            WHERE n.userId = :userId AND n.isRead = false AND n.id IN :ids
+            """)
+    int markReadByIds(
+            @Param("userId") Long userId,
+            @Param("ids") Collection<Long> ids,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Notification n SET n.isRead = true, n.readAt = :now
+            WHERE n.userId = :userId AND n.isRead = false
+            """)
+    int markAllRead(@Param("userId") Long userId, @Param("now") LocalDateTime now);
 }
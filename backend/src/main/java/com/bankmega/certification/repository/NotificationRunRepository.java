@@ -0,0 +1,7 @@
+package com.bankmega.certification.repository;
+
+import com.bankmega.certification.entity.NotificationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface NotificationRunRepository extends JpaRepository<NotificationRun, Long> {
+}
@@ -3,9 +3,55 @@ package com.bankmega.certification.repository;
 import com.bankmega.certification.entity.NotificationSchedule;
 import com.bankmega.certification.entity.NotificationTemplate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface NotificationScheduleRepository extends JpaRepository<NotificationSchedule, Long> {
     Optional<NotificationSchedule> findByType(NotificationTemplate.Code type);
+
+    // Klaim satu run: ambil lease kalau run dueAt belum selesai dan tidak ada lease
+    // yang masih berlaku. Node lain yang update baris yang sama menunggu row lock,
+    // lalu kondisi dievaluasi ulang -> 0 baris. Lease node yang mati kedaluwarsa
+    // sendiri, jadi run-nya bisa diambil alih.
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE NotificationSchedule s SET s.leaseUntil = :leaseUntil
+            WHERE s.type = :type AND s.active = true
+              AND (s.lastRun IS NULL OR s.lastRun < :dueAt)
+              AND (s.leaseUntil IS NULL OR s.leaseUntil < :now)
+            """)
+    int claimRun(
+            @Param("type") NotificationTemplate.Code type,
+            @Param("dueAt") LocalDateTime dueAt,
+            @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Run selesai: isi last_run + lepas lease, hanya kalau lease-nya masih milik kita
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE NotificationSchedule s SET s.lastRun = :now, s.leaseUntil = NULL
+            WHERE s.type = :type AND s.leaseUntil = :leaseUntil
+            """)
+    int completeRun(
+            @Param("type") NotificationTemplate.Code type,
+            @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("now") LocalDateTime now);
+
+    // Run gagal: lepas lease tanpa menyentuh last_run, supaya run dicoba lagi
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE NotificationSchedule s SET s.leaseUntil = NULL
+            WHERE s.type = :type AND s.leaseUntil = :leaseUntil
+            """)
+    int releaseRun(
+            @Param("type") NotificationTemplate.Code type,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
 }
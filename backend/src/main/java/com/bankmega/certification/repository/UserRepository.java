@@ -10,8 +10,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
@@ -45,6 +47,13 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
 
     List<User> findByEmployee_IdIn(Collection<Long> employeeIds);
 
+    // Upgrade hash saat login; tidak menimpa kalau password sudah diganti di antaranya
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int upgradePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash,
+            @Param("newHash") String newHash);
+
     // EntityGraph override for paging with eager fetch
     @Override
     @EntityGraph(attributePaths = { "role", "employee", "employee.positions", "employee.positions.jobPosition" })
@@ -0,0 +1,100 @@
+package com.bankmega.certification.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt massal (provisioning akun dari import pegawai) di thread pool
+ * terbatas, sebanyak jumlah CPU. Input dipecah jadi slice per thread, jadi
+ * jumlah task = jumlah thread dan queue gak pernah membengkak.
+ */
+@Slf4j
+@Component
+public class BulkPasswordHasher {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final int threads;
+
+    private final Counter hashedCounter;
+    private final Timer batchTimer;
+
+    public BulkPasswordHasher(
+            @Value("${app.security.bulk-hash.threads:0}") int configuredThreads,
+            MeterRegistry registry) {
+        this.threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(threads);
+        ex.setMaxPoolSize(threads);
+        ex.setQueueCapacity(threads * 2);
+        ex.setThreadNamePrefix("BulkHash-");
+        ex.setKeepAliveSeconds(60);
+        ex.setAllowCoreThreadTimeOut(true);
+        // kalau tetap penuh (beberapa import barengan), caller ikut kerja
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ex.initialize();
+        this.executor = ex;
+
+        this.hashedCounter = Counter.builder("password.hash.bulk.count")
+                .description("Passwords hashed by bulk account provisioning")
+                .register(registry);
+        this.batchTimer = Timer.builder("password.hash.bulk.duration")
+                .description("Wall time per bulk hashing batch")
+                .register(registry);
+    }
+
+    /**
+     * Hash setiap raw password dengan cost yang diberikan. Urutan output sama
+     * dengan urutan input.
+     */
+    public List<String> hashAll(List<String> raws, int cost) {
+        if (raws == null || raws.isEmpty())
+            return List.of();
+
+        long start = System.nanoTime();
+        String[] out = new String[raws.size()];
+
+        int slices = Math.min(threads, raws.size());
+        int sliceSize = (raws.size() + slices - 1) / slices;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(slices);
+        for (int from = 0; from < raws.size(); from += sliceSize) {
+            int lo = from;
+            int hi = Math.min(from + sliceSize, raws.size());
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = lo; i < hi; i++) {
+                    out[i] = BCrypt.hashpw(raws.get(i), BCrypt.gensalt(cost));
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        long elapsedNs = System.nanoTime() - start;
+        batchTimer.record(elapsedNs, TimeUnit.NANOSECONDS);
+        hashedCounter.increment(raws.size());
+
+        double elapsedMs = elapsedNs / 1_000_000.0;
+        log.info("Bulk hashed {} passwords (cost {}) in {} ms on {} threads ({} /s)",
+                raws.size(), cost, Math.round(elapsedMs), futures.size(),
+                elapsedMs > 0 ? Math.round(raws.size() * 1000.0 / elapsedMs) : raws.size());
+
+        return List.of(out);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
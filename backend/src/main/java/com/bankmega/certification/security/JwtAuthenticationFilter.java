@@ -21,6 +21,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final CustomUserDetailsService customUserDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
@@ -42,17 +43,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            String username;
+            // satu kali verifikasi (atau hit cache) per request
+            JwtUtil.JwtClaims claims;
             try {
-                username = JwtUtil.getUsername(token);
+                claims = JwtUtil.verify(token);
             } catch (Exception e) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 return;
             }
 
-            var userDetails = customUserDetailsService.loadUserByUsername(username);
+            var userDetails = principalCache.get(claims.username(), customUserDetailsService::loadUserByUsername);
 
-            if (JwtUtil.isValid(token, userDetails.getUsername())) {
+            if (JwtUtil.isValid(claims, userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,6 +1,7 @@
 package com.bankmega.certification.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Date;
 import java.util.function.Function;
 
@@ -20,18 +22,48 @@ public class JwtUtil {
     private static final String DEFAULT_SECRET = "B4nKMegaGantengP4keJwTSecretKey123!!XXSecureKey";
     private static final long EXPIRATION_MS = 24 * 60 * 60 * 1000; // 24 jam
 
+    // Parser fallback kalau Spring belum initialize (immutable, thread-safe)
+    private static final JwtParser DEFAULT_PARSER = Jwts.parser()
+            .verifyWith(Keys.hmacShaKeyFor(DEFAULT_SECRET.getBytes()))
+            .build();
+
     @Value("${app.jwt.secret:" + DEFAULT_SECRET + "}")
     private String secret;
 
+    // Jumlah token terverifikasi yang diingat (0 = tanpa cache)
+    @Value("${app.jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
     @Getter
     private SecretKey secretKey;
 
+    // Dibangun sekali per secret; JwtParser aman dipakai banyak thread
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokens;
+
     // Static instance untuk backward compatibility
     private static JwtUtil instance;
 
+    /** Claims token yang sudah diverifikasi (signature + exp), hasil satu kali parse. */
+    public record JwtClaims(String username, String role, Long userId, Long employeeId, Instant issuedAt,
+            Instant expiresAt) {
+
+        static JwtClaims of(Claims c) {
+            return new JwtClaims(
+                    c.getSubject(),
+                    c.get("role", String.class),
+                    c.get("userId", Long.class),
+                    c.get("employeeId", Long.class),
+                    c.getIssuedAt() != null ? c.getIssuedAt().toInstant() : null,
+                    c.getExpiration() != null ? c.getExpiration().toInstant() : null);
+        }
+    }
+
     @PostConstruct
     public void init() {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
+        this.verifiedTokens = VerifiedTokenCache.create(verifiedCacheMaxEntries);
         instance = this;
     }
 
@@ -44,36 +76,62 @@ public class JwtUtil {
         return instance.secretKey;
     }
 
+    private static JwtParser getParser() {
+        JwtUtil current = instance;
+        return current != null && current.parser != null ? current.parser : DEFAULT_PARSER;
+    }
+
     private static Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getKey())
-                .build()
+        return getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
+    /**
+     * Verifikasi token sekali (signature + exp) dan kembalikan claims-nya.
+     * Token yang sama dan belum expired diambil dari cache tanpa cek ulang
+     * HMAC. Token tidak valid → {@link io.jsonwebtoken.JwtException} /
+     * {@link IllegalArgumentException}.
+     */
+    public static JwtClaims verify(String token) {
+        JwtUtil current = instance;
+        VerifiedTokenCache cache = current != null ? current.verifiedTokens : null;
+        if (cache == null)
+            return JwtClaims.of(extractAllClaims(token));
+
+        String key = VerifiedTokenCache.keyOf(token);
+        JwtClaims cached = cache.get(key);
+        if (cached != null)
+            return cached;
+
+        JwtClaims claims = JwtClaims.of(extractAllClaims(token));
+        cache.put(key, claims);
+        return claims;
+    }
+
     public static <T> T extractClaim(String token, Function<Claims, T> resolver) {
         return resolver.apply(extractAllClaims(token));
     }
 
     public static String getUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     public static String getRole(String token) {
-        return extractClaim(token, c -> c.get("role", String.class));
+        return verify(token).role();
     }
 
     public static Long getUserId(String token) {
-        return extractClaim(token, c -> c.get("userId", Long.class));
+        return verify(token).userId();
     }
 
     public static Long getEmployeeId(String token) {
-        return extractClaim(token, c -> c.get("employeeId", Long.class));
+        return verify(token).employeeId();
     }
 
     public static Date getExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        Instant exp = verify(token).expiresAt();
+        return exp != null ? Date.from(exp) : null;
     }
 
     public static String generateToken(String username,
@@ -94,11 +152,18 @@ public class JwtUtil {
 
     public static boolean isValid(String token, String username) {
         try {
-            String usernameInToken = getUsername(token);
-            boolean notExpired = getExpiration(token).after(new Date());
-            return username.equals(usernameInToken) && notExpired;
+            return isValid(verify(token), username);
         } catch (Exception e) {
             return false;
         }
     }
+
+    /** Cek claims hasil {@link #verify(String)} tanpa parse ulang token. */
+    public static boolean isValid(JwtClaims claims, String username) {
+        return claims != null
+                && username != null
+                && username.equals(claims.username())
+                && claims.expiresAt() != null
+                && claims.expiresAt().isAfter(Instant.now());
+    }
 }
@@ -0,0 +1,197 @@
+package com.bankmega.certification.security;
+
+import com.bankmega.certification.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * BCrypt login di thread pool sendiri yang terbatas (thread + antrean), supaya
+ * badai login jam 08:00 tidak memakan semua thread Tomcat dan membuat API lain
+ * ikut macet. Kalau antrean penuh atau menunggu terlalu lama, login langsung
+ * ditolak 503 + Retry-After.
+ *
+ * Hash dengan cost di bawah {@code target-cost} (mis. hasil provisioning massal
+ * cost rendah) di-upgrade di background setelah login sukses, di satu thread
+ * prioritas rendah terpisah. Selama masih ada login yang antre, upgrade
+ * dilewati (dicoba lagi di login berikutnya), jadi tidak pernah berebut CPU
+ * dengan login.
+ */
+@Slf4j
+@Component
+public class LoginPasswordVerifier {
+
+    private static final String BUSY_MESSAGE = "Server sedang sibuk memproses login, silakan coba lagi sebentar.";
+
+    private final ThreadPoolTaskExecutor executor;
+    private final ThreadPoolTaskExecutor upgradeExecutor;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+    private final int targetCost;
+
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+    private final Counter upgradedCounter;
+    private final Counter upgradeSkippedCounter;
+
+    public LoginPasswordVerifier(
+            @Value("${app.security.login-hash.threads:0}") int configuredThreads,
+            @Value("${app.security.login-hash.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.login-hash.timeout-ms:5000}") long timeoutMs,
+            @Value("${app.security.login-hash.retry-after-seconds:5}") long retryAfterSeconds,
+            @Value("${app.security.login-hash.target-cost:10}") int targetCost,
+            @Value("${app.security.login-hash.upgrade-queue-capacity:256}") int upgradeQueueCapacity,
+            MeterRegistry registry) {
+        int threads = configuredThreads > 0 ? configuredThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.timeoutMs = Math.max(100, timeoutMs);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.targetCost = Math.min(Math.max(4, targetCost), 31);
+
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(threads);
+        ex.setMaxPoolSize(threads);
+        ex.setQueueCapacity(Math.max(0, queueCapacity));
+        ex.setThreadNamePrefix("LoginHash-");
+        ex.setKeepAliveSeconds(60);
+        ex.setAllowCoreThreadTimeOut(true);
+        // antrean penuh → tolak, jangan jalankan di thread Tomcat
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        ex.initialize();
+        this.executor = ex;
+
+        ThreadPoolTaskExecutor up = new ThreadPoolTaskExecutor();
+        up.setCorePoolSize(1);
+        up.setMaxPoolSize(1);
+        up.setQueueCapacity(Math.max(0, upgradeQueueCapacity));
+        up.setThreadNamePrefix("LoginHashUpgrade-");
+        up.setThreadPriority(Thread.MIN_PRIORITY);
+        up.setKeepAliveSeconds(60);
+        up.setAllowCoreThreadTimeOut(true);
+        up.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        up.initialize();
+        this.upgradeExecutor = up;
+
+        this.hashTimer = Timer.builder("password.hash.login.duration")
+                .description("BCrypt time per login password check")
+                .register(registry);
+        this.rejectedCounter = Counter.builder("password.hash.login.rejected")
+                .description("Logins rejected with 503 because the hashing pool was saturated")
+                .register(registry);
+        this.upgradedCounter = Counter.builder("password.hash.login.upgraded")
+                .description("Low-cost password hashes upgraded after a successful login")
+                .register(registry);
+        this.upgradeSkippedCounter = Counter.builder("password.hash.login.upgrade.skipped")
+                .description("Hash upgrades skipped because logins were waiting or the upgrade queue was full")
+                .register(registry);
+        Gauge.builder("password.hash.login.queue", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Login password checks waiting for a hashing thread")
+                .register(registry);
+        Gauge.builder("password.hash.login.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Login password checks currently hashing")
+                .register(registry);
+    }
+
+    /** Cek password di pool login; lempar {@link ServiceBusyException} kalau pool penuh. */
+    public boolean matches(String raw, String hash) {
+        if (raw == null || hash == null || hash.isBlank())
+            return false;
+
+        Future<Boolean> future;
+        try {
+            future = executor.submit(() -> hashTimer.record(() -> BCrypt.checkpw(raw, hash)));
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        }
+
+        try {
+            return Boolean.TRUE.equals(future.get(timeoutMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceBusyException(BUSY_MESSAGE, retryAfterSeconds);
+        } catch (ExecutionException e) {
+            // hash rusak / format salah → anggap password tidak cocok
+            log.warn("Gagal verifikasi hash password: {}", e.getCause() != null ? e.getCause().getMessage() : e);
+            return false;
+        }
+    }
+
+    /** True kalau hash dibuat dengan cost lebih rendah dari target. */
+    public boolean needsUpgrade(String hash) {
+        int cost = costOf(hash);
+        return cost > 0 && cost < targetCost;
+    }
+
+    /**
+     * Hash ulang password dengan cost target di thread upgrade lalu serahkan ke
+     * {@code store}. Dilewati kalau ada login yang antre (dicek saat antre dan
+     * lagi sebelum hashing) atau antrean upgrade penuh; dicoba lagi di login
+     * berikutnya.
+     */
+    public void upgradeAsync(String raw, Consumer<String> store) {
+        if (loginsWaiting()) {
+            upgradeSkippedCounter.increment();
+            return;
+        }
+        try {
+            upgradeExecutor.execute(() -> {
+                if (loginsWaiting()) {
+                    upgradeSkippedCounter.increment();
+                    return;
+                }
+                try {
+                    String upgraded = BCrypt.hashpw(raw, BCrypt.gensalt(targetCost));
+                    store.accept(upgraded);
+                    upgradedCounter.increment();
+                } catch (Exception e) {
+                    log.warn("Gagal upgrade hash password: {}", e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            upgradeSkippedCounter.increment();
+            log.debug("Antrean upgrade hash penuh, upgrade ditunda");
+        }
+    }
+
+    private boolean loginsWaiting() {
+        return executor.getQueueSize() > 0;
+    }
+
+    // Format BCrypt: $2a$NN$...
+    static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$')
+            return -1;
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        upgradeExecutor.shutdown();
+    }
+}
@@ -0,0 +1,136 @@
+package com.bankmega.certification.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache {@link UserPrincipal} per username untuk JwtAuthenticationFilter,
+ * supaya 10 API call dari satu halaman tidak jadi 10 query user + role.
+ *
+ * TTL pendek (perubahan dari instance lain tetap terbaca), dibatasi jumlah
+ * entry (LRU). Perubahan user di UserService meng-evict entry-nya langsung dan
+ * sekali lagi setelah transaksi selesai; hasil load yang berjalan bareng evict
+ * tidak disimpan.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(UserPrincipal principal, Instant expiresAt) {
+    }
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Clock clock;
+
+    // access-order → yang paling lama tidak dipakai dibuang duluan
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long generation = 0;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public PrincipalCache(
+            @Value("${app.security.principal-cache.ttl-seconds:30}") long ttlSeconds,
+            @Value("${app.security.principal-cache.max-entries:10000}") int maxEntries,
+            MeterRegistry registry) {
+        this.ttl = Duration.ofSeconds(Math.max(1, ttlSeconds));
+        this.maxEntries = Math.max(1, maxEntries);
+        this.clock = Clock.systemUTC();
+
+        this.hits = Counter.builder("auth.principal.cache").tag("result", "hit")
+                .description("JWT principal lookups served from cache")
+                .register(registry);
+        this.misses = Counter.builder("auth.principal.cache").tag("result", "miss")
+                .description("JWT principal lookups that hit the database")
+                .register(registry);
+        this.evictions = Counter.builder("auth.principal.cache.evictions")
+                .description("Principal cache entries evicted by user changes")
+                .register(registry);
+        Gauge.builder("auth.principal.cache.size", this, PrincipalCache::size)
+                .description("Cached JWT principals")
+                .register(registry);
+    }
+
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        long startGeneration;
+        synchronized (this) {
+            Entry e = entries.get(username);
+            if (e != null && clock.instant().isBefore(e.expiresAt())) {
+                hits.increment();
+                return e.principal();
+            }
+            startGeneration = generation;
+        }
+
+        misses.increment();
+        UserPrincipal loaded = loader.apply(username);
+        synchronized (this) {
+            if (generation == startGeneration) {
+                entries.put(username, new Entry(loaded, clock.instant().plus(ttl)));
+                trim();
+            }
+        }
+        return loaded;
+    }
+
+    /** Buang principal user ini sekarang dan lagi setelah transaksi aktif selesai. */
+    public void evict(String username) {
+        if (username == null)
+            return;
+        evictions.increment();
+        runNowAndAfterCompletion(() -> {
+            synchronized (this) {
+                generation++;
+                entries.remove(username);
+            }
+        });
+    }
+
+    /** Untuk perubahan massal (batch upsert / deactivate). */
+    public void evictAll() {
+        runNowAndAfterCompletion(() -> {
+            synchronized (this) {
+                generation++;
+                entries.clear();
+            }
+        });
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void trim() {
+        var it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    // Evict ulang setelah commit: request lain bisa saja me-load data lama
+    // di antara evict pertama dan commit
+    private static void runNowAndAfterCompletion(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -1,40 +1,100 @@
 package com.bankmega.certification.security;
 
+import com.bankmega.certification.security.rate_limit.RateLimitStore;
+import com.bankmega.certification.security.rate_limit.RateLimitStore.Decision;
+import com.bankmega.certification.security.rate_limit.RateLimitStore.Limit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 
 /**
- * Simple rate limiting filter for authentication endpoints.
- * Uses sliding window counter algorithm without external dependencies.
+ * Rate limiting filter for authentication endpoints.
+ *
+ * Token bucket per route group (login, forgot-password, reset-password, other
+ * auth) and client IP, plus per username for login / forgot-password. Bucket
+ * state lives in a {@link RateLimitStore}: bounded in-memory LRU by default,
+ * or shared in Postgres when running several instances.
  */
 @Slf4j
 @Component
 public class RateLimitingFilter extends OncePerRequestFilter {
 
-    // Track request counts per IP with timestamp
-    private final Map<String, RequestCounter> requestCounters = new ConcurrentHashMap<>();
+    // Body login / forgot-password cuma beberapa ratus byte; lebih dari ini tidak di-parse
+    private static final int MAX_BODY_PEEK = 8 * 1024;
+    private static final int MAX_USERNAME_KEY = 100;
+    private static final ObjectMapper JSON = new ObjectMapper();
 
-    // Configurable rate limit: max requests per time window
+    enum Group {
+        LOGIN("login"), FORGOT_PASSWORD("forgot-password"), RESET_PASSWORD("reset-password"), AUTH("auth");
+
+        final String key;
+
+        Group(String key) {
+            this.key = key;
+        }
+    }
+
+    private final RateLimitStore store;
+
+    // Default limit for auth endpoints without their own group limit
     @Value("${app.rate-limit.auth.requests:10}")
     private int maxRequests;
 
     @Value("${app.rate-limit.auth.duration-seconds:60}")
     private int durationSeconds;
 
+    // Per group; 0 = pakai limit auth di atas
+    @Value("${app.rate-limit.login.requests:0}")
+    private int loginRequests;
+
+    @Value("${app.rate-limit.login.duration-seconds:0}")
+    private int loginDurationSeconds;
+
+    @Value("${app.rate-limit.forgot-password.requests:0}")
+    private int forgotPasswordRequests;
+
+    @Value("${app.rate-limit.forgot-password.duration-seconds:0}")
+    private int forgotPasswordDurationSeconds;
+
+    @Value("${app.rate-limit.reset-password.requests:0}")
+    private int resetPasswordRequests;
+
+    @Value("${app.rate-limit.reset-password.duration-seconds:0}")
+    private int resetPasswordDurationSeconds;
+
+    // Per username (login / forgot-password); 0 = tidak dibatasi per username
+    @Value("${app.rate-limit.username.requests:0}")
+    private int usernameRequests;
+
+    @Value("${app.rate-limit.username.duration-seconds:0}")
+    private int usernameDurationSeconds;
+
+    public RateLimitingFilter(RateLimitStore store) {
+        this.store = store;
+    }
+
     @Override
     protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
         String path = request.getRequestURI();
@@ -48,39 +108,75 @@ public class RateLimitingFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
+        Group group = groupOf(request.getRequestURI());
         String clientIp = getClientIP(request);
 
-        // Clean up expired entries periodically
-        cleanupExpiredEntries();
-
-        RequestCounter counter = requestCounters.computeIfAbsent(clientIp,
-                k -> new RequestCounter(Instant.now()));
-
-        // Reset counter if time window has passed
-        if (counter.isExpired(durationSeconds)) {
-            counter.reset();
+        Decision decision = store.tryConsume("ip:" + group.key + ":" + clientIp, limitFor(group));
+        if (!decision.allowed()) {
+            reject(response, decision, "IP " + clientIp, request);
+            return;
         }
 
-        int currentCount = counter.incrementAndGet();
-
-        if (currentCount <= maxRequests) {
-            // Request allowed
-            filterChain.doFilter(request, response);
-        } else {
-            // Rate limit exceeded
-            log.warn("Rate limit exceeded for IP: {} on path: {} (attempt {} of {})",
-                    clientIp, request.getRequestURI(), currentCount, maxRequests);
-
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            response.setContentType("application/json");
-            response.getWriter().write("""
-                    {
-                        "status": 429,
-                        "error": "Too Many Requests",
-                        "message": "Terlalu banyak percobaan. Silakan tunggu beberapa saat."
+        HttpServletRequest forwarded = request;
+        if (usernameRequests > 0 && (group == Group.LOGIN || group == Group.FORGOT_PASSWORD)) {
+            CachedBodyRequest cached = CachedBodyRequest.wrap(request);
+            if (cached != null) {
+                forwarded = cached;
+                String username = cached.username();
+                if (username != null) {
+                    decision = store.tryConsume("user:" + group.key + ":" + username,
+                            Limit.of(usernameRequests, usernameDurationSeconds));
+                    if (!decision.allowed()) {
+                        reject(response, decision, "username " + username, request);
+                        return;
                     }
-                    """);
+                }
+            }
         }
+
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private static Group groupOf(String path) {
+        if (path == null)
+            return Group.AUTH;
+        if (path.equals("/api/auth/login"))
+            return Group.LOGIN;
+        if (path.equals("/api/auth/forgot-password"))
+            return Group.FORGOT_PASSWORD;
+        if (path.startsWith("/api/auth/reset-password"))
+            return Group.RESET_PASSWORD;
+        return Group.AUTH;
+    }
+
+    private Limit limitFor(Group group) {
+        return switch (group) {
+            case LOGIN -> limitOr(loginRequests, loginDurationSeconds);
+            case FORGOT_PASSWORD -> limitOr(forgotPasswordRequests, forgotPasswordDurationSeconds);
+            case RESET_PASSWORD -> limitOr(resetPasswordRequests, resetPasswordDurationSeconds);
+            case AUTH -> Limit.of(maxRequests, durationSeconds);
+        };
+    }
+
+    private Limit limitOr(int requests, int seconds) {
+        return requests > 0 && seconds > 0 ? Limit.of(requests, seconds) : Limit.of(maxRequests, durationSeconds);
+    }
+
+    private void reject(HttpServletResponse response, Decision decision, String subject, HttpServletRequest request)
+            throws IOException {
+        log.warn("Rate limit exceeded for {} on path: {} (retry after {}s)",
+                subject, request.getRequestURI(), decision.retryAfterSeconds());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+        response.setContentType("application/json");
+        response.getWriter().write("""
+                {
+                    "status": 429,
+                    "error": "Too Many Requests",
+                    "message": "Terlalu banyak percobaan. Silakan tunggu beberapa saat."
+                }
+                """);
     }
 
     private String getClientIP(HttpServletRequest request) {
@@ -99,34 +195,117 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         return request.getRemoteAddr();
     }
 
-    private void cleanupExpiredEntries() {
-        // Remove entries older than 2x duration to prevent memory leak
-        long thresholdSeconds = durationSeconds * 2L;
-        requestCounters.entrySet().removeIf(entry -> entry.getValue().isExpired((int) thresholdSeconds));
-    }
-
     /**
-     * Simple counter with timestamp for rate limiting
+     * Request JSON yang body-nya sudah diintip untuk ambil username; body yang
+     * sama tetap bisa dibaca controller.
      */
-    private static class RequestCounter {
-        private volatile Instant windowStart;
-        private final AtomicInteger count = new AtomicInteger(0);
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] head;
+        private final boolean complete;
 
-        RequestCounter(Instant windowStart) {
-            this.windowStart = windowStart;
+        private CachedBodyRequest(HttpServletRequest request, byte[] head, boolean complete) {
+            super(request);
+            this.head = head;
+            this.complete = complete;
         }
 
-        boolean isExpired(int durationSeconds) {
-            return Instant.now().isAfter(windowStart.plusSeconds(durationSeconds));
+        /** null kalau bukan JSON atau body tidak bisa dibaca. */
+        static CachedBodyRequest wrap(HttpServletRequest request) throws IOException {
+            String contentType = request.getContentType();
+            if (contentType == null || !contentType.toLowerCase(Locale.ROOT).contains("json"))
+                return null;
+            InputStream in = request.getInputStream();
+            if (in == null)
+                return null;
+            byte[] head = in.readNBytes(MAX_BODY_PEEK + 1);
+            return new CachedBodyRequest(request, head, head.length <= MAX_BODY_PEEK);
         }
 
-        void reset() {
-            this.windowStart = Instant.now();
-            this.count.set(0);
+        String username() {
+            if (!complete || head.length == 0)
+                return null;
+            try {
+                JsonNode node = JSON.readTree(head).path("username");
+                if (!node.isTextual())
+                    return null;
+                String u = node.asText().trim().toLowerCase(Locale.ROOT);
+                if (u.isEmpty())
+                    return null;
+                return u.length() > MAX_USERNAME_KEY ? u.substring(0, MAX_USERNAME_KEY) : u;
+            } catch (IOException e) {
+                return null; // body rusak: biarkan controller yang menolak
+            }
         }
 
-        int incrementAndGet() {
-            return count.incrementAndGet();
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String enc = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    enc != null ? Charset.forName(enc) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            // head dari memori dulu; sisa body (kalau lebih dari yang diintip) dari stream aslinya
+            ByteArrayInputStream headIn = new ByteArrayInputStream(head);
+            ServletInputStream rest = complete ? null : super.getInputStream();
+            return new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    int b = headIn.read();
+                    return b < 0 && rest != null ? rest.read() : b;
+                }
+
+                @Override
+                public int read(byte[] buf, int off, int len) throws IOException {
+                    int n = headIn.read(buf, off, len);
+                    return n < 0 && rest != null ? rest.read(buf, off, len) : n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return headIn.available() == 0 && (rest == null || rest.isFinished());
+                }
+
+                @Override
+                public boolean isReady() {
+                    return headIn.available() > 0 || rest == null || rest.isReady();
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    if (rest == null) {
+                        // body sudah di memori semua: langsung bisa dibaca sampai habis
+                        try {
+                            if (headIn.available() > 0)
+                                listener.onDataAvailable();
+                            listener.onAllDataRead();
+                        } catch (IOException e) {
+                            listener.onError(e);
+                        }
+                        return;
+                    }
+                    rest.setReadListener(new ReadListener() {
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            listener.onDataAvailable();
+                        }
+
+                        @Override
+                        public void onAllDataRead() throws IOException {
+                            // sisa stream kosong: container tidak memanggil onDataAvailable untuk head
+                            if (headIn.available() > 0)
+                                listener.onDataAvailable();
+                            listener.onAllDataRead();
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            listener.onError(t);
+                        }
+                    });
+                }
+            };
         }
     }
 }
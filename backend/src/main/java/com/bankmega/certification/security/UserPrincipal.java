@@ -1,6 +1,5 @@
 package com.bankmega.certification.security;
 
-import com.bankmega.certification.entity.Role;
 import com.bankmega.certification.entity.User;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
@@ -10,40 +9,48 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.List;
 
+/**
+ * Principal ringan & immutable: hanya field yang dipakai controller, tanpa
+ * entity User / hash password, supaya aman disimpan di {@link PrincipalCache}
+ * dan dipakai bareng banyak request.
+ */
 @Getter
 public class UserPrincipal implements UserDetails {
 
-    @com.fasterxml.jackson.annotation.JsonIgnore
-    private final User user;
-
     private final Long id;
     private final Long employeeId;
 
     private final String username;
-    private final String password;
     private final String email;
-    private final Role role;
+    private final String roleName;
     private final Boolean isActive;
 
+    private final List<GrantedAuthority> authorities;
+
     public UserPrincipal(User user) {
-        this.user = user;
         this.id = user.getId();
         this.username = user.getUsername();
-        this.password = user.getPassword();
         this.email = user.getResolvedEmail();
-        this.role = user.getRole();
+        this.roleName = user.getRole() != null ? user.getRole().getName() : null;
         this.isActive = user.getIsActive();
 
         // 🔥 Ambil employeeId dari relasi User → Employee
         this.employeeId = user.getEmployee() != null ? user.getEmployee().getId() : null;
+
+        this.authorities = roleName != null
+                ? List.of(new SimpleGrantedAuthority("ROLE_" + roleName))
+                : List.of();
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        if (role != null) {
-            return List.of(new SimpleGrantedAuthority("ROLE_" + role.getName()));
-        }
-        return List.of();
+        return authorities;
+    }
+
+    // Autentikasi request pakai JWT, bukan password
+    @Override
+    public String getPassword() {
+        return null;
     }
 
     @Override
@@ -0,0 +1,75 @@
+package com.bankmega.certification.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+
+/**
+ * Token yang baru saja lolos verifikasi, disimpan per hash SHA-256 token (token
+ * aslinya tidak disimpan) sampai {@code exp}-nya. Bearer yang sama di request
+ * berikutnya tidak perlu cek HMAC + parse JSON lagi.
+ *
+ * Dibatasi jumlah entry (LRU); dipakai lewat {@link JwtUtil#verify(String)}.
+ */
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final Clock clock;
+
+    // access-order → yang paling lama tidak dipakai dibuang duluan
+    private final LinkedHashMap<String, JwtUtil.JwtClaims> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    VerifiedTokenCache(int maxEntries, Clock clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.clock = clock;
+    }
+
+    /** Claims token ini kalau pernah diverifikasi dan belum expired, selain itu null. */
+    synchronized JwtUtil.JwtClaims get(String key) {
+        JwtUtil.JwtClaims c = entries.get(key);
+        if (c == null)
+            return null;
+        if (!isLive(c)) {
+            entries.remove(key);
+            return null;
+        }
+        return c;
+    }
+
+    void put(String key, JwtUtil.JwtClaims claims) {
+        if (claims.expiresAt() == null || !isLive(claims))
+            return; // token tanpa exp tidak di-cache
+        synchronized (this) {
+            entries.put(key, claims);
+            var it = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean isLive(JwtUtil.JwtClaims c) {
+        return c.expiresAt() != null && clock.instant().isBefore(c.expiresAt());
+    }
+
+    static String keyOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 tidak tersedia", e);
+        }
+    }
+
+    static VerifiedTokenCache create(int maxEntries) {
+        return maxEntries > 0 ? new VerifiedTokenCache(maxEntries, Clock.systemUTC()) : null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bankmega.certification.security.rate_limit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token bucket per key di memori, dibatasi jumlah bucket (LRU). Eviction
+ * terjadi saat put (O(1)), bukan scan seluruh map tiap request; bucket yang
+ * dibuang paling lama tidak dipakai, jadi isinya hampir pasti sudah penuh lagi.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private static final class Bucket {
+        double tokens;
+        long lastNanos;
+
+        Bucket(double tokens, long lastNanos) {
+            this.tokens = tokens;
+            this.lastNanos = lastNanos;
+        }
+    }
+
+    private final Map<String, Bucket> buckets;
+
+    public InMemoryRateLimitStore(int maxBuckets) {
+        int max = Math.max(1, maxBuckets);
+        // access-order → yang paling lama tidak dipakai dibuang duluan
+        this.buckets = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Decision tryConsume(String key, Limit limit) {
+        long now = System.nanoTime();
+        Bucket b = buckets.get(key);
+        if (b == null) {
+            b = new Bucket(limit.capacity(), now);
+            buckets.put(key, b);
+        } else {
+            double elapsedSeconds = (now - b.lastNanos) / 1_000_000_000.0;
+            b.tokens = Math.min(limit.capacity(), b.tokens + elapsedSeconds * limit.refillPerSecond());
+            b.lastNanos = now;
+        }
+
+        if (b.tokens >= 1) {
+            b.tokens -= 1;
+            return Decision.ALLOWED;
+        }
+        return Decision.denied(b.tokens, limit);
+    }
+
+    public synchronized int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,73 @@
+package com.bankmega.certification.security.rate_limit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Token bucket bersama di Postgres (tabel rate_limit_buckets, lihat migration
+ * V20261019_6). Refill + ambil token dikerjakan satu UPSERT atomik, jadi
+ * beberapa instance backend berbagi batas yang sama tanpa lock aplikasi.
+ *
+ * Kalau DB error, request diloloskan (fail-open) supaya login tidak ikut mati.
+ */
+@Slf4j
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    // Isi bucket setelah refill, dihitung dari baris lama (b.* di SET = nilai sebelum update)
+    private static final String REFILLED = """
+            LEAST(CAST(:capacity AS double precision),
+                  b.tokens + EXTRACT(EPOCH FROM now() - b.updated_at) * :rate)""";
+
+    // Token hanya diambil kalau isi setelah refill >= 1
+    private static final String CONSUME_SQL = """
+            INSERT INTO rate_limit_buckets AS b (bucket_key, tokens, allowed, updated_at)
+            VALUES (:key, :capacity - 1, true, now())
+            ON CONFLICT (bucket_key) DO UPDATE SET
+                tokens = CASE WHEN %1$s >= 1 THEN %1$s - 1 ELSE %1$s END,
+                allowed = %1$s >= 1,
+                updated_at = now()
+            RETURNING b.tokens, b.allowed
+            """.formatted(REFILLED);
+
+    private static final String PURGE_SQL = """
+            DELETE FROM rate_limit_buckets WHERE updated_at < now() - make_interval(secs => :idleSeconds)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final long idleSeconds;
+
+    public JdbcRateLimitStore(NamedParameterJdbcTemplate jdbc, long idleSeconds) {
+        this.jdbc = jdbc;
+        this.idleSeconds = Math.max(60, idleSeconds);
+    }
+
+    @Override
+    public Decision tryConsume(String key, Limit limit) {
+        try {
+            return jdbc.queryForObject(CONSUME_SQL, new MapSqlParameterSource()
+                    .addValue("key", key)
+                    .addValue("capacity", limit.capacity())
+                    .addValue("rate", limit.refillPerSecond()),
+                    (rs, i) -> rs.getBoolean("allowed")
+                            ? Decision.ALLOWED
+                            : Decision.denied(rs.getDouble("tokens"), limit));
+        } catch (RuntimeException e) {
+            log.warn("Rate limit store tidak bisa diakses, request diloloskan: {}", e.getMessage());
+            return Decision.ALLOWED;
+        }
+    }
+
+    // Bucket yang lama tidak dipakai sudah penuh lagi; aman dihapus
+    @Scheduled(fixedDelayString = "${app.rate-limit.jdbc.purge-interval-ms:600000}")
+    public void purgeIdle() {
+        try {
+            int removed = jdbc.update(PURGE_SQL, new MapSqlParameterSource("idleSeconds", idleSeconds));
+            if (removed > 0)
+                log.debug("Rate limit: {} bucket idle dihapus", removed);
+        } catch (RuntimeException e) {
+            log.warn("Gagal membersihkan rate_limit_buckets: {}", e.getMessage());
+        }
+    }
+}
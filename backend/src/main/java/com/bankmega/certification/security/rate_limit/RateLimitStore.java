@@ -0,0 +1,31 @@
+package com.bankmega.certification.security.rate_limit;
+
+/**
+ * Penyimpanan state token bucket rate limiter. Implementasi in-memory untuk
+ * satu instance, atau Postgres supaya batas berlaku bersama di semua instance
+ * ({@code app.rate-limit.store}).
+ */
+public interface RateLimitStore {
+
+    /** Kapasitas bucket + kecepatan isi ulang (token per detik). */
+    record Limit(int capacity, double refillPerSecond) {
+
+        /** {@code requests} request per {@code seconds}, boleh burst sampai {@code requests}. */
+        public static Limit of(int requests, long seconds) {
+            return new Limit(Math.max(1, requests), Math.max(1, requests) / (double) Math.max(1, seconds));
+        }
+    }
+
+    /** Hasil ambil token; kalau ditolak, {@code retryAfterSeconds} = kapan token berikutnya tersedia. */
+    record Decision(boolean allowed, long retryAfterSeconds) {
+
+        static final Decision ALLOWED = new Decision(true, 0);
+
+        static Decision denied(double tokens, Limit limit) {
+            return new Decision(false, Math.max(1, (long) Math.ceil((1 - tokens) / limit.refillPerSecond())));
+        }
+    }
+
+    /** Ambil satu token dari bucket {@code key}; bucket baru mulai penuh. */
+    Decision tryConsume(String key, Limit limit);
+}
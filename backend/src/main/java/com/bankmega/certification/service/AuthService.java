@@ -9,6 +9,7 @@ import com.bankmega.certification.entity.Role;
 import com.bankmega.certification.entity.User;
 import com.bankmega.certification.repository.UserRepository;
 import com.bankmega.certification.security.JwtUtil;
+import com.bankmega.certification.security.LoginPasswordVerifier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -29,6 +30,7 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final PasswordResetService passwordResetService;
+    private final LoginPasswordVerifier passwordVerifier; // BCrypt login di pool terbatas
 
     public LoginResponse login(LoginRequest request) {
         if (request == null || request.getUsername() == null || request.getUsername().isBlank()) {
@@ -45,10 +47,18 @@ public class AuthService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User tidak aktif");
         }
 
-        if (!BCrypt.checkpw(request.getPassword(), user.getPassword())) {
+        String storedHash = user.getPassword();
+        if (!passwordVerifier.matches(request.getPassword(), storedHash)) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Password salah");
         }
 
+        // Hash cost rendah (provisioning massal) di-upgrade di background
+        if (passwordVerifier.needsUpgrade(storedHash)) {
+            Long userId = user.getId();
+            passwordVerifier.upgradeAsync(request.getPassword(),
+                    upgraded -> userRepository.upgradePasswordHash(userId, storedHash, upgraded));
+        }
+
         Role role = user.getRole();
         String roleName = role != null ? role.getName() : null;
         Long employeeId = user.getEmployee() != null ? user.getEmployee().getId() : null;
@@ -0,0 +1,253 @@
+package com.bankmega.certification.service;
+
+import com.bankmega.certification.entity.EmployeeCertification;
+import com.bankmega.certification.exception.ServiceBusyException;
+import com.bankmega.certification.repository.CertificateFileRepository;
+import com.bankmega.certification.repository.CertificateFileRepository.CertificateFileRow;
+import com.bankmega.certification.service.file_storage.FileStore;
+import com.bankmega.certification.specification.EmployeeCertificationSpecification;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Download ZIP semua file sertifikat sesuai filter export (+ batch), untuk
+ * kebutuhan audit.
+ *
+ * ZIP langsung di-stream ke response (tanpa file sementara); baris diambil
+ * per potongan lewat keyset, bukan entity sekaligus. Total ukuran file
+ * dibatasi; file yang tidak masuk tetap tercatat di manifest.csv beserta
+ * alasannya.
+ */
+@Slf4j
+@Service
+public class CertificateBundleService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final String MANIFEST_HEADER = "certification_id,nip,employee_name,cert_code,level,sub_field,"
+            + "status,valid_until,original_file_name,zip_entry,size_bytes,sha256,result\n";
+
+    enum Result {
+        INCLUDED, MISSING, SKIPPED_SIZE_CAP
+    }
+
+    private final CertificateFileRepository fileRepo;
+    private final FileStore fileStore;
+    private final long maxBytes;
+    private final Semaphore running;
+
+    public CertificateBundleService(
+            CertificateFileRepository fileRepo,
+            FileStore fileStore,
+            @Value("${app.file-storage.bundle.max-mb:2048}") long maxMb,
+            @Value("${app.file-storage.bundle.max-concurrent:2}") int maxConcurrent) {
+        this.fileRepo = fileRepo;
+        this.fileStore = fileStore;
+        this.maxBytes = Math.max(1, maxMb) * 1024 * 1024;
+        this.running = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    public void writeBundle(
+            List<Long> employeeIds,
+            List<String> certCodes,
+            List<Integer> levels,
+            List<String> subCodes,
+            List<Long> institutionIds,
+            List<String> statuses,
+            String search,
+            LocalDate certDateStart,
+            LocalDate certDateEnd,
+            LocalDate validUntilStart,
+            LocalDate validUntilEnd,
+            Long batchId,
+            List<Long> allowedCertIds,
+            HttpServletResponse response) throws IOException {
+
+        Specification<EmployeeCertification> spec = EmployeeCertificationSpecification.filtered(
+                employeeIds, certCodes, levels, subCodes, institutionIds, statuses, search,
+                certDateStart, certDateEnd, validUntilStart, validUntilEnd,
+                allowedCertIds)
+                .and(EmployeeCertificationSpecification.byBatchId(batchId));
+
+        // Bundle besar makan disk I/O + bandwidth; batasi yang jalan bersamaan
+        if (!running.tryAcquire())
+            throw new ServiceBusyException("Download ZIP lain sedang berjalan, silakan coba lagi nanti.", 30);
+        try {
+            String filename = "certificate-files-" + LocalDate.now() + ".zip";
+            response.setContentType("application/zip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(filename).build().toString());
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+
+            write(spec, response.getOutputStream());
+        } finally {
+            running.release();
+        }
+    }
+
+    void write(Specification<EmployeeCertification> spec, OutputStream out) throws IOException {
+        ByteArrayOutputStream manifest = new ByteArrayOutputStream();
+        manifest.write(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF }); // BOM supaya Excel baca UTF-8
+        manifest.write(MANIFEST_HEADER.getBytes(StandardCharsets.UTF_8));
+
+        Set<String> usedNames = new HashSet<>();
+        long included = 0;
+        long includedBytes = 0;
+        long rows = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // PDF / JPG / PNG sudah terkompresi: simpan apa adanya, hemat CPU
+        zip.setLevel(Deflater.NO_COMPRESSION);
+
+        long afterId = 0;
+        List<CertificateFileRow> chunk;
+        do {
+            chunk = fileRepo.findChunk(spec, afterId, CHUNK_SIZE);
+            for (CertificateFileRow row : chunk) {
+                afterId = row.id();
+                rows++;
+
+                String entryName = null;
+                Long size = null;
+                Result result;
+                Resource resource = load(row.fileUrl());
+                if (resource == null || !resource.exists()) {
+                    result = Result.MISSING;
+                } else {
+                    size = row.fileSize() != null ? row.fileSize() : resource.contentLength();
+                    if (includedBytes + size > maxBytes) {
+                        result = Result.SKIPPED_SIZE_CAP;
+                    } else {
+                        entryName = uniqueName(entryName(row), usedNames);
+                        zip.putNextEntry(new ZipEntry(entryName));
+                        copy(resource, zip);
+                        zip.closeEntry();
+                        includedBytes += size;
+                        included++;
+                        result = Result.INCLUDED;
+                    }
+                }
+                manifest.write(manifestLine(row, entryName, size, result).getBytes(StandardCharsets.UTF_8));
+            }
+        } while (chunk.size() == CHUNK_SIZE);
+
+        zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(new ZipEntry("manifest.csv"));
+        manifest.writeTo(zip);
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+
+        log.info("ZIP sertifikat: {} dari {} file ({} MB)", included, rows, includedBytes / (1024 * 1024));
+    }
+
+    private Resource load(String fileUrl) {
+        try {
+            return fileStore.load(fileUrl);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("File {} tidak bisa dibuka: {}", fileUrl, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void copy(Resource resource, ZipOutputStream zip) throws IOException {
+        if (resource.isFile()) {
+            try (FileChannel in = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+                // jangan di-close: akan ikut menutup ZipOutputStream
+                WritableByteChannel target = Channels.newChannel(zip);
+                long pos = 0;
+                long size = in.size();
+                while (pos < size) {
+                    long n = in.transferTo(pos, size - pos, target);
+                    if (n <= 0)
+                        break;
+                    pos += n;
+                }
+            }
+        } else {
+            try (InputStream in = resource.getInputStream()) {
+                in.transferTo(zip);
+            }
+        }
+    }
+
+    // <NIP>/<KODE>_L<level>_<SUB>_<id>.<ext>
+    static String entryName(CertificateFileRow row) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(safe(row.nip() != null ? row.nip() : "unknown")).append('/');
+        sb.append(safe(row.certCode() != null ? row.certCode() : "CERT"));
+        if (row.level() != null)
+            sb.append("_L").append(row.level());
+        if (row.subCode() != null && !row.subCode().isBlank())
+            sb.append('_').append(safe(row.subCode()));
+        sb.append('_').append(row.id());
+
+        String source = row.fileName() != null ? row.fileName() : row.fileUrl();
+        int dot = source != null ? source.lastIndexOf('.') : -1;
+        if (dot >= 0 && source.length() - dot <= 6)
+            sb.append(safe(source.substring(dot).toLowerCase()));
+        return sb.toString();
+    }
+
+    private static String uniqueName(String name, Set<String> used) {
+        String candidate = name;
+        for (int i = 2; !used.add(candidate); i++)
+            candidate = name + "_" + i;
+        return candidate;
+    }
+
+    private static String safe(String s) {
+        return s.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String manifestLine(CertificateFileRow row, String entryName, Long size, Result result) {
+        return String.join(",",
+                String.valueOf(row.id()),
+                csv(row.nip()),
+                csv(row.employeeName()),
+                csv(row.certCode()),
+                row.level() != null ? String.valueOf(row.level()) : "",
+                csv(row.subCode()),
+                row.status() != null ? row.status().name() : "",
+                row.validUntil() != null ? row.validUntil().toString() : "",
+                csv(row.fileName()),
+                csv(entryName),
+                size != null ? String.valueOf(size) : "",
+                csv(row.fileSha256()),
+                result.name()) + "\n";
+    }
+
+    private static String csv(String v) {
+        if (v == null)
+            return "";
+        // cegah formula injection saat dibuka di Excel
+        if (!v.isEmpty() && "=+-@".indexOf(v.charAt(0)) >= 0)
+            v = "'" + v;
+        if (v.contains(",") || v.contains("\"") || v.contains("\n") || v.contains("\r"))
+            return "\"" + v.replace("\"", "\"\"") + "\"";
+        return v;
+    }
+}
@@ -6,6 +6,7 @@ import com.bankmega.certification.entity.CertificationLevel;
 import com.bankmega.certification.exception.ConflictException;
 import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.CertificationLevelRepository;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -18,6 +19,7 @@ import java.util.List;
 public class CertificationLevelService {
 
     private final CertificationLevelRepository repo;
+    private final ReferenceDataCache referenceData;
 
     public List<CertificationLevelResponse> getAll() {
         return repo.findByDeletedAtIsNull().stream()
@@ -45,7 +47,9 @@ public class CertificationLevelService {
                 .name(req.getName())
                 .build();
 
-        return toResponse(repo.save(java.util.Objects.requireNonNull(lvl)));
+        CertificationLevel saved = repo.save(java.util.Objects.requireNonNull(lvl));
+        referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION_LEVEL);
+        return toResponse(saved);
     }
 
     public CertificationLevelResponse update(Long id, CertificationLevelRequest req) {
@@ -62,7 +66,9 @@ public class CertificationLevelService {
         lvl.setLevel(req.getLevel());
         lvl.setName(req.getName());
 
-        return toResponse(repo.save(lvl));
+        CertificationLevel saved = repo.save(lvl);
+        referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION_LEVEL);
+        return toResponse(saved);
     }
 
     public void softDelete(Long id) {
@@ -70,6 +76,7 @@ public class CertificationLevelService {
                 .orElseThrow(() -> new NotFoundException("Certification level not found"));
         lvl.setDeletedAt(Instant.now());
         repo.save(lvl);
+        referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION_LEVEL);
     }
 
     private CertificationLevelResponse toResponse(CertificationLevel lvl) {
@@ -0,0 +1,224 @@
+package com.bankmega.certification.service;
+
+import com.bankmega.certification.entity.EmployeeCertification;
+import com.bankmega.certification.entity.Notification;
+import com.bankmega.certification.entity.NotificationRun;
+import com.bankmega.certification.entity.NotificationTemplate;
+import com.bankmega.certification.repository.EmployeeCertificationRepository;
+import com.bankmega.certification.repository.JdbcCertificationNotificationRepository;
+import com.bankmega.certification.repository.JdbcCertificationNotificationRepository.ClaimedPartition;
+import com.bankmega.certification.repository.JdbcCertificationNotificationRepository.InsertedNotification;
+import com.bankmega.certification.repository.JdbcCertificationNotificationRepository.NewNotification;
+import com.bankmega.certification.repository.JdbcCertificationNotificationRepository.PendingCount;
+import com.bankmega.certification.repository.NotificationRunRepository;
+import com.bankmega.certification.service.NotificationTemplateService.RenderedTemplate;
+import com.bankmega.certification.service.email_outbox.EmailOutboxService;
+import com.bankmega.certification.service.email_outbox.EmailOutboxService.OutboundEmail;
+import com.bankmega.certification.service.notification_inbox.NotificationStreamService;
+import com.bankmega.certification.service.notification_inbox.UnreadCountCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Run CERT_REMINDER / EXPIRED_NOTICE secara paralel. Beberapa worker masing-
+ * masing mengklaim partisi sertifikat (FOR UPDATE SKIP LOCKED), render
+ * template, insert notifikasi sekaligus dan antrikan email-nya di satu
+ * transaksi per partisi. Statistik run disimpan ke notification_runs.
+ */
+@Slf4j
+@Service
+public class CertificationNotificationRunner {
+
+    private final JdbcCertificationNotificationRepository jdbcRepo;
+    private final EmployeeCertificationRepository certRepo;
+    private final NotificationRunRepository runRepo;
+    private final NotificationTemplateService templateService;
+    private final EmailOutboxService emailOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final UnreadCountCache unreadCounts;
+    private final NotificationStreamService notificationStream;
+
+    private final int workers;
+    private final int partitionSize;
+    private final ThreadPoolTaskExecutor executor;
+
+    public CertificationNotificationRunner(
+            JdbcCertificationNotificationRepository jdbcRepo,
+            EmployeeCertificationRepository certRepo,
+            NotificationRunRepository runRepo,
+            NotificationTemplateService templateService,
+            EmailOutboxService emailOutbox,
+            TransactionTemplate transactionTemplate,
+            UnreadCountCache unreadCounts,
+            NotificationStreamService notificationStream,
+            @Value("${app.notification.run.workers:4}") int workers,
+            @Value("${app.notification.run.partition-size:200}") int partitionSize) {
+        this.jdbcRepo = jdbcRepo;
+        this.certRepo = certRepo;
+        this.runRepo = runRepo;
+        this.templateService = templateService;
+        this.emailOutbox = emailOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.unreadCounts = unreadCounts;
+        this.notificationStream = notificationStream;
+        this.workers = Math.max(1, workers);
+        // batasi jumlah parameter per INSERT multi-row
+        this.partitionSize = Math.min(Math.max(1, partitionSize), 1000);
+
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(this.workers);
+        ex.setMaxPoolSize(this.workers);
+        ex.setQueueCapacity(this.workers);
+        ex.setThreadNamePrefix("CertNotif-");
+        ex.setKeepAliveSeconds(60);
+        ex.setAllowCoreThreadTimeOut(true);
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ex.initialize();
+        this.executor = ex;
+    }
+
+    private static final class RunStats {
+        final AtomicInteger sent = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger partitions = new AtomicInteger();
+        // partisi yang gagal tidak diklaim ulang di run yang sama
+        final Set<Long> failedIds = ConcurrentHashMap.newKeySet();
+    }
+
+    public NotificationRun run(Notification.Type type) {
+        final NotificationTemplate.Code code = switch (type) {
+            case CERT_REMINDER -> NotificationTemplate.Code.CERT_REMINDER;
+            case EXPIRED_NOTICE -> NotificationTemplate.Code.EXPIRED_NOTICE;
+            default -> throw new IllegalArgumentException("Tipe tidak didukung untuk run sertifikat: " + type);
+        };
+        final LocalDate today = LocalDate.now();
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long start = System.nanoTime();
+
+        PendingCount pending = jdbcRepo.countPending(type, today);
+        RunStats stats = new RunStats();
+        int threads = Math.min(workers, Math.max(1, (pending.deliverable() + partitionSize - 1) / partitionSize));
+
+        if (pending.deliverable() > 0) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(CompletableFuture.runAsync(() -> drain(type, code, today, stats), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+
+        // tanpa email / rule tidak pernah diklaim, jadi dihitung skipped di sini
+        stats.skipped.addAndGet(pending.total() - pending.deliverable());
+
+        NotificationRun run = runRepo.save(NotificationRun.builder()
+                .type(type)
+                .due(pending.total())
+                .sent(stats.sent.get())
+                .skipped(stats.skipped.get())
+                .failed(stats.failed.get())
+                .partitions(stats.partitions.get())
+                .workers(threads)
+                .durationMs((System.nanoTime() - start) / 1_000_000)
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .build());
+
+        log.info("Run {} selesai: due={}, sent={}, skipped={}, failed={}, partitions={}, workers={}, {} ms",
+                type, run.getDue(), run.getSent(), run.getSkipped(), run.getFailed(), run.getPartitions(),
+                run.getWorkers(), run.getDurationMs());
+        return run;
+    }
+
+    private void drain(Notification.Type type, NotificationTemplate.Code code, LocalDate today, RunStats stats) {
+        while (true) {
+            Integer claimed = transactionTemplate.execute(status -> {
+                ClaimedPartition claim = jdbcRepo.claimPartition(type, today, partitionSize, stats.failedIds);
+                if (claim.locked() == 0)
+                    return 0;
+                List<Long> ids = claim.ids();
+                if (ids.isEmpty())
+                    return claim.locked();
+                stats.partitions.incrementAndGet();
+                try {
+                    processPartition(type, code, ids, stats);
+                } catch (RuntimeException e) {
+                    status.setRollbackOnly();
+                    stats.failedIds.addAll(ids);
+                    stats.failed.addAndGet(ids.size());
+                    log.error("Partisi {} ({} sertifikat) gagal diproses: {}", type, ids.size(), e.getMessage(), e);
+                }
+                return claim.locked();
+            });
+            if (claimed == null || claimed == 0)
+                return;
+        }
+    }
+
+    private void processPartition(Notification.Type type, NotificationTemplate.Code code, List<Long> ids,
+            RunStats stats) {
+        List<EmployeeCertification> certs = certRepo.findForNotificationByIdIn(ids);
+
+        List<NewNotification> rows = new ArrayList<>(certs.size());
+        Map<Long, NewNotification> rowByCert = new HashMap<>(certs.size() * 2);
+        Map<Long, OutboundEmail> emailByCert = new HashMap<>(certs.size() * 2);
+        for (EmployeeCertification cert : certs) {
+            var employee = cert.getEmployee();
+            RenderedTemplate rendered = templateService.render(code, employee,
+                    NotificationTemplateService.certExtras(NotificationService.buildCertificationFullName(cert),
+                            cert.getValidUntil(), null, null));
+            NewNotification row = new NewNotification(employee.getId(), rendered.title(), rendered.bodyPlain(),
+                    cert.getId());
+            rows.add(row);
+            rowByCert.put(cert.getId(), row);
+            emailByCert.put(cert.getId(), new OutboundEmail(null, null, employee.getEmail(), rendered.title(),
+                    NotificationService.wrapEmailHtml(rendered.bodyHtml())));
+        }
+
+        List<InsertedNotification> inserted = jdbcRepo.insertNotifications(type, rows);
+        List<OutboundEmail> emails = new ArrayList<>(inserted.size());
+        List<Notification> created = new ArrayList<>(inserted.size());
+        for (InsertedNotification n : inserted) {
+            OutboundEmail e = emailByCert.get(n.certificationId());
+            emails.add(new OutboundEmail(n.id(), n.createdAt(), e.to(), e.subject(), e.html()));
+            NewNotification row = rowByCert.get(n.certificationId());
+            created.add(Notification.builder()
+                    .id(n.id())
+                    .userId(n.userId())
+                    .title(row.title())
+                    .message(row.message())
+                    .type(type)
+                    .relatedEntity("EmployeeCertification")
+                    .relatedEntityId(n.certificationId())
+                    .createdAt(n.createdAt())
+                    .sentAt(n.createdAt())
+                    .build());
+        }
+        emailOutbox.enqueue(emails);
+        unreadCounts.adjustAll(inserted.stream()
+                .collect(Collectors.toMap(InsertedNotification::userId, n -> 1L, Long::sum)));
+        notificationStream.publish(created);
+
+        stats.sent.addAndGet(inserted.size());
+        // kolom dedupe ternyata sudah terisi (defensif; baris dikunci sejak klaim)
+        stats.skipped.addAndGet(ids.size() - inserted.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -5,6 +5,7 @@ import com.bankmega.certification.dto.CertificationRuleResponse;
 import com.bankmega.certification.entity.*;
 import com.bankmega.certification.repository.*;
 import com.bankmega.certification.specification.CertificationRuleSpecification;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
@@ -24,6 +25,7 @@ public class CertificationRuleService {
         private final CertificationLevelRepository levelRepo;
         private final SubFieldRepository subFieldRepo;
         private final CertificationRuleHistoryService historyService;
+        private final ReferenceDataCache referenceData;
 
         // 🔹 Mapper entity -> DTO
         private CertificationRuleResponse toResponse(CertificationRule entity) {
@@ -151,6 +153,7 @@ public class CertificationRuleService {
 
                 CertificationRule saved = ruleRepo.save(Objects.requireNonNull(entity));
                 historyService.snapshot(saved, CertificationRuleHistory.ActionType.CREATED);
+                referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION_RULE);
 
                 return toResponse(saved);
         }
@@ -183,6 +186,7 @@ public class CertificationRuleService {
 
                 CertificationRule saved = ruleRepo.save(existing);
                 historyService.snapshot(saved, CertificationRuleHistory.ActionType.UPDATED);
+                referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION_RULE);
 
                 return toResponse(saved);
         }
@@ -197,6 +201,7 @@ public class CertificationRuleService {
 
                 CertificationRule saved = ruleRepo.save(rule);
                 historyService.snapshot(saved, CertificationRuleHistory.ActionType.UPDATED);
+                referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION_RULE);
 
                 return toResponse(saved);
         }
@@ -212,5 +217,6 @@ public class CertificationRuleService {
 
                 CertificationRule saved = ruleRepo.save(existing);
                 historyService.snapshot(saved, CertificationRuleHistory.ActionType.DELETED);
+                referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION_RULE);
         }
 }
@@ -6,6 +6,7 @@ import com.bankmega.certification.entity.Certification;
 import com.bankmega.certification.exception.ConflictException;
 import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.CertificationRepository;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -18,6 +19,7 @@ import java.util.List;
 public class CertificationService {
 
     private final CertificationRepository repo;
+    private final ReferenceDataCache referenceData;
 
     public List<CertificationResponse> getAll() {
         return repo.findByDeletedAtIsNull().stream()
@@ -45,7 +47,9 @@ public class CertificationService {
                 .name(req.getName())
                 .build();
 
-        return toResponse(repo.save(java.util.Objects.requireNonNull(cert)));
+        Certification saved = repo.save(java.util.Objects.requireNonNull(cert));
+        referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION);
+        return toResponse(saved);
     }
 
     public CertificationResponse update(Long id, CertificationRequest req) {
@@ -62,7 +66,9 @@ public class CertificationService {
         cert.setCode(req.getCode());
         cert.setName(req.getName());
 
-        return toResponse(repo.save(cert));
+        Certification saved = repo.save(cert);
+        referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION);
+        return toResponse(saved);
     }
 
     public void softDelete(Long id) {
@@ -71,6 +77,7 @@ public class CertificationService {
 
         cert.setDeletedAt(Instant.now());
         repo.save(cert);
+        referenceData.invalidate(ReferenceDataCache.Type.CERTIFICATION);
     }
 
     private CertificationResponse toResponse(Certification c) {
@@ -7,6 +7,7 @@ import com.bankmega.certification.exception.ConflictException;
 import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.DivisionRepository;
 import com.bankmega.certification.repository.EmployeeRepository;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,7 @@ public class DivisionService {
 
     private final DivisionRepository repo;
     private final EmployeeRepository employeeRepo;
+    private final ReferenceDataCache referenceData;
 
     public List<DivisionResponse> getAll() {
         return repo.findAllByOrderByIsActiveDescNameAsc().stream()
@@ -55,6 +57,7 @@ public class DivisionService {
                         .createdAt(Instant.now())
                         .updatedAt(Instant.now())
                         .build())));
+        referenceData.invalidate(ReferenceDataCache.Type.DIVISION);
         return mapToResponse(d);
     }
 
@@ -72,7 +75,9 @@ public class DivisionService {
 
         d.setIsActive(!d.getIsActive());
         d.setUpdatedAt(Instant.now());
-        return mapToResponse(repo.save(d));
+        Division saved = repo.save(d);
+        referenceData.invalidate(ReferenceDataCache.Type.DIVISION);
+        return mapToResponse(saved);
     }
 
     private DivisionResponse mapToResponse(Division d) {
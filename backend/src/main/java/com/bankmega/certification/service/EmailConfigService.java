@@ -3,11 +3,13 @@ package com.bankmega.certification.service;
 import com.bankmega.certification.dto.EmailConfigRequestDTO;
 import com.bankmega.certification.dto.EmailConfigResponseDTO;
 import com.bankmega.certification.entity.EmailConfig;
+import com.bankmega.certification.event.EmailConfigChangedEvent;
 import com.bankmega.certification.repository.EmailConfigRepository;
 import com.bankmega.certification.security.AESUtil;
+import com.bankmega.certification.service.mail_sender.MailSenderHolder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,7 +17,6 @@ import org.springframework.transaction.annotation.Transactional;
 import jakarta.mail.internet.MimeMessage;
 import java.util.List;
 import java.util.Objects;
-import java.util.Properties;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,6 +25,8 @@ import java.util.stream.Collectors;
 public class EmailConfigService {
 
     private final EmailConfigRepository repository;
+    private final MailSenderHolder mailSenderHolder;
+    private final ApplicationEventPublisher eventPublisher;
 
     public EmailConfigResponseDTO getActiveConfig() {
         EmailConfig config = getActiveConfigEntity();
@@ -58,13 +61,11 @@ public class EmailConfigService {
                 .build();
 
         repository.save(Objects.requireNonNull(config));
+        // sender di-swap setelah commit (EmailConfigChangedListener)
+        eventPublisher.publishEvent(new EmailConfigChangedEvent(config.getId()));
         return mapToResponse(config);
     }
 
-    public JavaMailSenderImpl createMailSenderFromActive() {
-        return buildSender(getActiveConfigEntity());
-    }
-
     // =========================
     // Helpers
     // =========================
@@ -96,28 +97,6 @@ public class EmailConfigService {
         }
     }
 
-    private JavaMailSenderImpl buildSender(EmailConfig config) {
-        String realPassword = AESUtil.decrypt(config.getPassword());
-
-        JavaMailSenderImpl sender = new JavaMailSenderImpl();
-        sender.setHost(config.getHost());
-        sender.setPort(config.getPort());
-        sender.setUsername(config.getUsername());
-        sender.setPassword(realPassword);
-
-        Properties props = sender.getJavaMailProperties();
-        boolean hasAuth = config.getUsername() != null && !config.getUsername().isBlank();
-
-        props.put("mail.smtp.auth", String.valueOf(hasAuth));
-        props.put("mail.smtp.starttls.enable", String.valueOf(Boolean.TRUE.equals(config.getUseTls())));
-        props.put("mail.smtp.timeout", "30000");
-        props.put("mail.smtp.connectiontimeout", "30000");
-        props.put("mail.smtp.writetimeout", "30000");
-        props.put("mail.smtp.ssl.trust", config.getHost());
-
-        return sender;
-    }
-
     public void testConnection(String to) {
         testConnection(to, null, null);
     }
@@ -127,13 +106,11 @@ public class EmailConfigService {
             throw new IllegalArgumentException("Email tujuan tidak boleh kosong");
 
         try {
-            JavaMailSenderImpl sender = createMailSenderFromActive();
-
-            MimeMessage message = sender.createMimeMessage();
+            // sender config aktif yang sudah jadi, bukan bangun baru per test
+            MimeMessage message = mailSenderHolder.current().createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            String fromAddr = Objects.requireNonNull(Objects.toString(sender.getUsername(), "no-reply@megacert.local"));
-            helper.setFrom(fromAddr);
+            helper.setFrom(mailSenderHolder.fromAddress());
             helper.setTo(to);
 
             String defaultSubject = "Test SMTP Mega Certification";
@@ -156,11 +133,13 @@ public class EmailConfigService {
                     "Dikirim otomatis oleh <b>Mega Certification System</b></p></div>";
 
             helper.setText(html, true);
-            sender.send(message);
+            mailSenderHolder.send(message);
 
             log.info("Test email OK ke {}", to);
 
         } catch (Exception e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
             log.error("Gagal test email {}: {}", to, e.getMessage());
             throw new RuntimeException("Gagal mengirim test email: " + e.getMessage());
         }
@@ -370,6 +370,8 @@ public class EmployeeCertificationService {
             ec.setFileUrl(null);
             ec.setFileName(null);
             ec.setFileType(null);
+            ec.setFileSize(null);
+            ec.setFileSha256(null);
         } else {
             if (isReupload) {
                 fileStorageService.deleteCertificate(ec.getId());
@@ -547,17 +549,10 @@ public class EmployeeCertificationService {
             LocalDate validUntilEnd,
             List<Long> allowedCertIds) {
 
-        return EmployeeCertificationSpecification.notDeleted()
-                .and(EmployeeCertificationSpecification.byEmployeeIds(employeeIds))
-                .and(EmployeeCertificationSpecification.byCertCodes(certCodes))
-                .and(EmployeeCertificationSpecification.byLevels(levels))
-                .and(EmployeeCertificationSpecification.bySubCodes(subCodes))
-                .and(EmployeeCertificationSpecification.byInstitutionIds(institutionIds))
-                .and(EmployeeCertificationSpecification.byStatuses(statuses))
-                .and(EmployeeCertificationSpecification.bySearch(search))
-                .and(EmployeeCertificationSpecification.byCertDateRange(certDateStart, certDateEnd))
-                .and(EmployeeCertificationSpecification.byValidUntilRange(validUntilStart, validUntilEnd))
-                .and(EmployeeCertificationSpecification.byAllowedCertificationIds(allowedCertIds));
+        return EmployeeCertificationSpecification.filtered(
+                employeeIds, certCodes, levels, subCodes, institutionIds, statuses, search,
+                certDateStart, certDateEnd, validUntilStart, validUntilEnd,
+                allowedCertIds);
     }
 
     private byte[] buildCertificationExcel(List<EmployeeCertificationResponse> data) {
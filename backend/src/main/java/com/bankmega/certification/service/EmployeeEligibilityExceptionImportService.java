@@ -4,6 +4,8 @@ import com.bankmega.certification.dto.EmployeeEligibilityExceptionImportLogRespo
 import com.bankmega.certification.dto.EmployeeEligibilityExceptionImportResponse;
 import com.bankmega.certification.entity.*;
 import com.bankmega.certification.repository.*;
+import com.bankmega.certification.service.import_session.ImportSessionStore;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -15,6 +17,7 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.*;
@@ -24,21 +27,71 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class EmployeeEligibilityExceptionImportService {
 
+    private static final int ID_CHUNK = 1000;
+
     private final EmployeeRepository employeeRepo;
-    private final CertificationRuleRepository ruleRepo;
     private final EmployeeEligibilityExceptionRepository exceptionRepo;
+    private final JdbcEmployeeEligibilityExceptionRepository exceptionBatchRepo;
     private final EligibilityExceptionImportLogRepository logRepo;
     private final EmployeeEligibilityService eligibilityService;
+    private final ImportSessionStore sessionStore;
+    private final ReferenceDataCache referenceData;
 
     public EmployeeEligibilityExceptionImportResponse dryRun(MultipartFile file, User user) throws Exception {
-        return process(file, true, user);
+        ImportSessionStore.Upload upload = readUpload(file);
+        List<RowDto> rows = sessionStore
+                .peek(ImportSessionStore.Kind.ELIGIBILITY_EXCEPTION, userId(user), upload.hash(), Session.class)
+                .map(Session::rows)
+                .orElseGet(() -> parse(upload.bytes()));
+
+        ImportPlan plan = buildPlan(rows);
+        sessionStore.put(ImportSessionStore.Kind.ELIGIBILITY_EXCEPTION, userId(user), upload.hash(),
+                new Session(rows, plan), rows.size());
+
+        return plan.toResponse(file.getOriginalFilename(), true, rows.isEmpty()
+                ? "Tidak ada data"
+                : String.format("Dry run selesai. Baru: %d, reactivate: %d, update: %d, nonaktif: %d, skip: %d",
+                        plan.created, plan.reactivated, plan.updated, plan.deactivated,
+                        Math.max(0, plan.processed - (plan.created + plan.reactivated + plan.updated
+                                + plan.deactivated + plan.errors))));
     }
 
     @Transactional
     public EmployeeEligibilityExceptionImportResponse confirm(MultipartFile file, User user) throws Exception {
-        EmployeeEligibilityExceptionImportResponse response = process(file, false, user);
-        response.setMessage("Import exception berhasil oleh " + (user != null ? user.getUsername() : "-"));
-        return response;
+        ImportSessionStore.Upload upload = readUpload(file);
+
+        // Pakai plan hasil dry run (file identik) kalau masih ada; kalau tidak,
+        // parse + plan ulang
+        ImportPlan plan = sessionStore
+                .take(ImportSessionStore.Kind.ELIGIBILITY_EXCEPTION, userId(user), upload.hash(), Session.class)
+                .map(Session::plan)
+                .orElseGet(() -> buildPlan(parse(upload.bytes())));
+
+        if (plan.processed == 0) {
+            return plan.toResponse(file.getOriginalFilename(), false, "Tidak ada data");
+        }
+
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User tidak boleh null saat simpan import log");
+        }
+
+        apply(plan);
+
+        EmployeeEligibilityExceptionImportLog log = EmployeeEligibilityExceptionImportLog.builder()
+                .user(user)
+                .fileName(file.getOriginalFilename())
+                .totalProcessed(plan.processed)
+                .totalCreated(plan.created)
+                .totalUpdated(plan.updated + plan.reactivated)
+                .totalDeactivated(plan.deactivated)
+                .totalErrors(plan.errors)
+                .dryRun(false)
+                .createdAt(Instant.now())
+                .build();
+        logRepo.save(java.util.Objects.requireNonNull(log));
+
+        return plan.toResponse(file.getOriginalFilename(), false,
+                "Import exception berhasil oleh " + user.getUsername());
     }
 
     public List<EmployeeEligibilityExceptionImportLogResponse> getAllLogsDto() {
@@ -64,17 +117,21 @@ public class EmployeeEligibilityExceptionImportService {
                 .build();
     }
 
-    private EmployeeEligibilityExceptionImportResponse process(MultipartFile file, boolean dryRun, User user)
-            throws Exception {
+    private static Long userId(User user) {
+        return user != null ? user.getId() : null;
+    }
+
+    private ImportSessionStore.Upload readUpload(MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File tidak boleh kosong");
         }
+        return ImportSessionStore.read(file);
+    }
 
+    private List<RowDto> parse(byte[] bytes) {
         List<RowDto> rows = new ArrayList<>();
-        Set<String> nips = new LinkedHashSet<>();
-        Set<RuleKey> ruleKeys = new LinkedHashSet<>();
 
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
             Sheet sheet = workbook.getSheetAt(0);
             DataFormatter fmt = new DataFormatter();
 
@@ -91,48 +148,53 @@ public class EmployeeEligibilityExceptionImportService {
                 String activeFlag = getCellValue(row.getCell(6), fmt);
 
                 rows.add(new RowDto(row.getRowNum() + 1, nip, name, certCode, levelStr, subCode, notes, activeFlag));
-
-                if (!nip.isBlank())
-                    nips.add(nip.trim());
-                if (!certCode.isBlank()) {
-                    Integer lvl = parseLevel(levelStr);
-                    ruleKeys.add(new RuleKey(certCode.trim(), lvl, emptyToNull(subCode)));
-                }
             }
         } catch (IOException e) {
             throw new IllegalArgumentException("Invalid file format", e);
         }
+        return rows;
+    }
 
-        int processed = 0, created = 0, reactivated = 0, updated = 0, deactivated = 0, errors = 0;
-        List<String> errorDetails = new ArrayList<>();
-        Set<Long> affectedEmployeeIds = new LinkedHashSet<>();
+    // Read-only: simulasi perubahan per (employee, rule); hasil akhir jadi daftar
+    // operasi yang diterapkan saat confirm
+    private ImportPlan buildPlan(List<RowDto> rows) {
+        ImportPlan plan = new ImportPlan();
+        if (rows.isEmpty())
+            return plan;
 
-        if (rows.isEmpty()) {
-            return EmployeeEligibilityExceptionImportResponse.builder()
-                    .fileName(file.getOriginalFilename())
-                    .dryRun(dryRun)
-                    .processed(0)
-                    .created(0)
-                    .updated(0)
-                    .deactivated(0)
-                    .errors(0)
-                    .errorDetails(List.of())
-                    .message("Tidak ada data")
-                    .build();
+        Set<String> nips = new LinkedHashSet<>();
+        Set<String> codes = new LinkedHashSet<>();
+        for (RowDto r : rows) {
+            if (!r.nip().isBlank())
+                nips.add(r.nip().trim());
+            if (!r.certCode().isBlank())
+                codes.add(r.certCode().trim());
         }
 
         Map<String, Employee> empByNip = employeeRepo.findByNipIn(new ArrayList<>(nips)).stream()
                 .collect(Collectors.toMap(Employee::getNip, e -> e, (a, b) -> a, LinkedHashMap::new));
 
+        ReferenceDataCache.Index<CertificationRule> rules = referenceData.rules();
         Map<String, List<CertificationRule>> rulesByCode = new LinkedHashMap<>();
-        for (String code : ruleKeys.stream().map(RuleKey::code).collect(Collectors.toCollection(LinkedHashSet::new))) {
-            rulesByCode.put(code, ruleRepo.findByCertification_CodeIgnoreCaseAndDeletedAtIsNull(code));
+        for (String code : codes) {
+            rulesByCode.put(code, rules.group(code));
+        }
+
+        // Exception existing (termasuk soft-deleted) untuk semua pegawai di file, sekali query per chunk
+        Map<ExceptionKey, ExceptionState> states = new LinkedHashMap<>();
+        List<Long> empIds = empByNip.values().stream().map(Employee::getId).toList();
+        for (int i = 0; i < empIds.size(); i += ID_CHUNK) {
+            for (EmployeeEligibilityExceptionRepository.ExceptionSnapshot x : exceptionRepo
+                    .findSnapshotsByEmployeeIdIn(empIds.subList(i, Math.min(i + ID_CHUNK, empIds.size())))) {
+                states.putIfAbsent(new ExceptionKey(x.getEmployeeId(), x.getCertificationRuleId()),
+                        ExceptionState.of(x));
+            }
         }
 
         Map<RuleKey, CertificationRule> ruleCache = new HashMap<>();
 
         for (RowDto r : rows) {
-            processed++;
+            plan.processed++;
             try {
                 if (r.nip().isBlank() || r.certCode().isBlank()) {
                     throw new IllegalArgumentException("NIP & CertificationCode wajib diisi");
@@ -155,123 +217,88 @@ public class EmployeeEligibilityExceptionImportService {
                 CertificationRule rule = resolveRule(key, rulesByCode, ruleCache);
 
                 boolean shouldActive = parseActiveFlag(r.activeFlag());
-                Instant now = Instant.now();
-
-                if (!dryRun)
-                    affectedEmployeeIds.add(emp.getId()); // employee ini eligibility-nya perlu di-sync
-
-                EmployeeEligibilityException ex = exceptionRepo
-                        .findFirstByEmployeeIdAndCertificationRuleId(emp.getId(), rule.getId())
-                        .orElse(null);
-
-                if (ex == null) {
-                    created++;
-                    if (!dryRun) {
-                        EmployeeEligibilityException nu = EmployeeEligibilityException.builder()
-                                .employee(emp)
-                                .certificationRule(rule)
-                                .isActive(shouldActive)
-                                .notes(nullIfBlank(r.notes()))
-                                .createdAt(now)
-                                .updatedAt(now)
-                                .build();
-                        exceptionRepo.save(java.util.Objects.requireNonNull(nu));
-                    }
+                String newNotes = nullIfBlank(r.notes());
+
+                ExceptionKey exKey = new ExceptionKey(emp.getId(), rule.getId());
+                ExceptionState st = states.get(exKey);
+
+                plan.affectedEmployeeIds.add(emp.getId()); // employee ini eligibility-nya perlu di-sync
+
+                if (st == null) {
+                    plan.created++;
+                    states.put(exKey, new ExceptionState(null, shouldActive, newNotes, false, true));
                     continue;
                 }
 
-                if (ex.getDeletedAt() != null) {
-                    reactivated++;
-                    if (!dryRun) {
-                        ex.setDeletedAt(null);
-                        ex.setIsActive(shouldActive);
-                        ex.setNotes(nullIfBlank(r.notes()));
-                        ex.setUpdatedAt(now);
-                        exceptionRepo.save(ex);
-                    }
+                if (st.deleted) {
+                    plan.reactivated++;
+                    st.deleted = false;
+                    st.active = shouldActive;
+                    st.notes = newNotes;
+                    st.dirty = true;
                     continue;
                 }
 
-                if (!shouldActive && Boolean.TRUE.equals(ex.getIsActive())) {
-                    deactivated++;
-                    if (!dryRun) {
-                        ex.setIsActive(false);
-                        ex.setDeletedAt(now);
-                        ex.setUpdatedAt(now);
-                        exceptionRepo.save(ex);
-                    }
+                if (!shouldActive && Boolean.TRUE.equals(st.active)) {
+                    plan.deactivated++;
+                    st.active = false;
+                    st.deleted = true;
+                    st.dirty = true;
                     continue;
                 }
 
                 boolean needUpdate = false;
-                String newNotes = nullIfBlank(r.notes());
-                if (!Objects.equals(ex.getNotes(), newNotes)) {
-                    ex.setNotes(newNotes);
+                if (!Objects.equals(st.notes, newNotes)) {
+                    st.notes = newNotes;
                     needUpdate = true;
                 }
-                if (!Objects.equals(ex.getIsActive(), shouldActive)) {
-                    if (shouldActive
-                            && ("RESIGN".equalsIgnoreCase(safe(emp.getStatus())) || emp.getDeletedAt() != null)) {
-                        throw new IllegalArgumentException(
-                                "Tidak bisa mengaktifkan exception untuk pegawai RESIGN/non-aktif: " + r.nip());
-                    }
-                    ex.setIsActive(shouldActive);
+                if (!Objects.equals(st.active, shouldActive)) {
+                    st.active = shouldActive;
                     needUpdate = true;
                 }
 
                 if (needUpdate) {
-                    updated++;
-                    if (!dryRun) {
-                        ex.setUpdatedAt(now);
-                        exceptionRepo.save(ex);
-                    }
+                    plan.updated++;
+                    st.dirty = true;
                 }
 
             } catch (Exception e) {
-                errors++;
-                errorDetails.add("Row " + r.row() + ": ERROR → " + e.getMessage());
+                plan.errors++;
+                plan.errorDetails.add("Row " + r.row() + ": ERROR → " + e.getMessage());
             }
         }
 
-        if (!dryRun) {
-            if (user == null || user.getId() == null) {
-                throw new IllegalArgumentException("User tidak boleh null saat simpan import log");
-            }
+        for (Map.Entry<ExceptionKey, ExceptionState> e : states.entrySet()) {
+            ExceptionState st = e.getValue();
+            if (st == null || !st.dirty)
+                continue;
+            plan.changes.add(new PlannedChange(st.id, e.getKey().employeeId(), e.getKey().ruleId(),
+                    st.active, st.notes, st.deleted));
+        }
 
-            EmployeeEligibilityExceptionImportLog log = EmployeeEligibilityExceptionImportLog.builder()
-                    .user(user)
-                    .fileName(file.getOriginalFilename())
-                    .totalProcessed(processed)
-                    .totalCreated(created)
-                    .totalUpdated(updated + reactivated)
-                    .totalDeactivated(deactivated)
-                    .totalErrors(errors)
-                    .dryRun(false)
-                    .createdAt(Instant.now())
-                    .build();
-            logRepo.save(java.util.Objects.requireNonNull(log));
+        return plan;
+    }
 
-            // auto refresh eligibility setelah import confirm
-            for (Long empId : affectedEmployeeIds) {
-                eligibilityService.refreshEligibilityForEmployee(empId);
+    // Tulis plan lewat JDBC batch, lalu refresh eligibility sekali untuk semua pegawai terdampak
+    private void apply(ImportPlan plan) {
+        List<JdbcEmployeeEligibilityExceptionRepository.NewException> inserts = new ArrayList<>();
+        List<JdbcEmployeeEligibilityExceptionRepository.ExceptionUpdate> updates = new ArrayList<>();
+        for (PlannedChange c : plan.changes) {
+            boolean active = Boolean.TRUE.equals(c.active());
+            if (c.exceptionId() == null) {
+                inserts.add(new JdbcEmployeeEligibilityExceptionRepository.NewException(
+                        c.employeeId(), c.ruleId(), active, c.notes(), c.deleted()));
+            } else {
+                updates.add(new JdbcEmployeeEligibilityExceptionRepository.ExceptionUpdate(
+                        c.exceptionId(), active, c.notes(), c.deleted()));
             }
         }
 
-        return EmployeeEligibilityExceptionImportResponse.builder()
-                .fileName(file.getOriginalFilename())
-                .dryRun(dryRun)
-                .processed(processed)
-                .created(created)
-                .updated(updated + reactivated)
-                .deactivated(deactivated)
-                .errors(errors)
-                .errorDetails(errorDetails)
-                .message(dryRun
-                        ? String.format("Dry run selesai. Baru: %d, reactivate: %d, update: %d, nonaktif: %d, skip: %d",
-                                created, reactivated, updated, deactivated,
-                                Math.max(0, processed - (created + reactivated + updated + deactivated + errors)))
-                        : "Import selesai oleh " + (user != null ? user.getUsername() : "-"))
-                .build();
+        exceptionBatchRepo.batchInsert(inserts);
+        exceptionBatchRepo.batchUpdate(updates);
+
+        // auto refresh eligibility setelah import confirm
+        eligibilityService.refreshEligibilityForEmployees(plan.affectedEmployeeIds);
     }
 
     private static String safe(String s) {
@@ -397,4 +424,59 @@ public class EmployeeEligibilityExceptionImportService {
 
     private record RuleKey(String code, Integer level, String subCode) {
     }
+
+    private record ExceptionKey(Long employeeId, Long ruleId) {
+    }
+
+    // exceptionId null → exception baru
+    private record PlannedChange(Long exceptionId, Long employeeId, Long ruleId, Boolean active, String notes,
+            boolean deleted) {
+    }
+
+    private record Session(List<RowDto> rows, ImportPlan plan) {
+    }
+
+    // State exception selama simulasi (nilai awal dari DB, lalu di-update per baris)
+    private static final class ExceptionState {
+        final Long id;
+        Boolean active;
+        String notes;
+        boolean deleted;
+        boolean dirty;
+
+        ExceptionState(Long id, Boolean active, String notes, boolean deleted, boolean dirty) {
+            this.id = id;
+            this.active = active;
+            this.notes = notes;
+            this.deleted = deleted;
+            this.dirty = dirty;
+        }
+
+        static ExceptionState of(EmployeeEligibilityExceptionRepository.ExceptionSnapshot ex) {
+            return new ExceptionState(ex.getId(), ex.getIsActive(), ex.getNotes(), ex.getDeletedAt() != null,
+                    false);
+        }
+    }
+
+    private static class ImportPlan {
+        int processed = 0, created = 0, reactivated = 0, updated = 0, deactivated = 0, errors = 0;
+
+        List<String> errorDetails = new ArrayList<>();
+        List<PlannedChange> changes = new ArrayList<>();
+        Set<Long> affectedEmployeeIds = new LinkedHashSet<>();
+
+        EmployeeEligibilityExceptionImportResponse toResponse(String fileName, boolean dryRun, String message) {
+            return EmployeeEligibilityExceptionImportResponse.builder()
+                    .fileName(fileName)
+                    .dryRun(dryRun)
+                    .processed(processed)
+                    .created(created)
+                    .updated(updated + reactivated)
+                    .deactivated(deactivated)
+                    .errors(errors)
+                    .errorDetails(errorDetails)
+                    .message(message)
+                    .build();
+        }
+    }
 }
@@ -423,41 +423,81 @@ public class EmployeeEligibilityService {
     public void refreshEligibilityForJobPosition(Long jobPositionId) {
         if (jobPositionId == null)
             return;
+        refreshEligibilityForJobPositions(List.of(jobPositionId));
+    }
 
-        // Optimized: Use EntityGraph to load employees with positions in single query
-        List<Employee> employees = employeeRepo.findWithRelationsByStatusIgnoreCaseNotAndDeletedAtIsNull("RESIGN")
-                .stream()
-                .filter(e -> {
-                    EmployeePosition primary = e.getPrimaryPosition();
-                    EmployeePosition secondary = e.getSecondaryPosition();
-                    boolean matchPrimary = primary != null
-                            && primary.getJobPosition() != null
-                            && Objects.equals(primary.getJobPosition().getId(), jobPositionId);
-                    boolean matchSecondary = secondary != null
-                            && secondary.getJobPosition() != null
-                            && Objects.equals(secondary.getJobPosition().getId(), jobPositionId);
-                    return matchPrimary || matchSecondary;
-                })
-                .toList();
+    /**
+     * Refresh eligibility untuk semua pegawai aktif yang memegang salah satu job
+     * position di {@code jobPositionIds}. Semua data dimuat sekali (bulk), bukan
+     * per pegawai. Return jumlah eligibility yang disimpan.
+     */
+    @Transactional
+    public int refreshEligibilityForJobPositions(Collection<Long> jobPositionIds) {
+        if (jobPositionIds == null || jobPositionIds.isEmpty())
+            return 0;
+
+        Set<Long> jobIds = jobPositionIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (jobIds.isEmpty())
+            return 0;
 
+        // Optimized: only employees holding the affected jobs, positions fetched in
+        // the same query
+        List<Employee> employees = employeeRepo.findActiveWithRelationsByJobPositionIdIn(jobIds);
         if (employees.isEmpty())
-            return;
+            return 0;
+
+        return syncLoadedEmployees(employees);
+    }
+
+    /**
+     * Refresh eligibility untuk sekumpulan pegawai sekaligus (mis. hasil import
+     * exception). Pegawai resign eligibility-nya dinonaktifkan. Return jumlah
+     * eligibility yang disimpan.
+     */
+    @Transactional
+    public int refreshEligibilityForEmployees(Collection<Long> employeeIds) {
+        if (employeeIds == null || employeeIds.isEmpty())
+            return 0;
+
+        Set<Long> ids = employeeIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (ids.isEmpty())
+            return 0;
+
+        return syncLoadedEmployees(employeeRepo.findWithRelationsByIdIn(ids));
+    }
+
+    // Sync eligibility untuk pegawai yang positions-nya sudah di-load; data
+    // pendukung (eligibility, mapping, exception) dimuat bulk sekali
+    private int syncLoadedEmployees(List<Employee> employees) {
+        if (employees.isEmpty())
+            return 0;
+
+        Set<Long> employeeIds = employees.stream().map(Employee::getId).collect(Collectors.toSet());
+
+        Map<Long, List<EmployeeEligibility>> eligByEmployeeId = eligibilityRepo.findByEmployeeIdIn(employeeIds)
+                .stream()
+                .collect(Collectors.groupingBy(ee -> ee.getEmployee().getId()));
 
-        // Refresh eligibility for each employee
         Map<Long, List<CertificationRule>> jobRuleMap = jobCertMappingRepo.findWithRelationsByDeletedAtIsNull().stream()
                 .collect(Collectors.groupingBy(
                         j -> j.getJobPosition().getId(),
                         Collectors.mapping(JobCertificationMapping::getCertificationRule, Collectors.toList())));
 
         Map<Long, List<CertificationRule>> exceptionRuleMap = exceptionRepo
-                .findWithRelationsByDeletedAtIsNullAndIsActiveTrue().stream()
+                .findWithRelationsByEmployeeIdInAndIsActiveTrueAndDeletedAtIsNull(employeeIds).stream()
                 .collect(Collectors.groupingBy(
                         ex -> ex.getEmployee().getId(),
                         Collectors.mapping(EmployeeEligibilityException::getCertificationRule, Collectors.toList())));
 
         List<EmployeeEligibility> toSave = new ArrayList<>();
+        List<Employee> activeEmployees = new ArrayList<>();
         for (Employee employee : employees) {
-            List<EmployeeEligibility> existingElig = eligibilityRepo.findByEmployeeId(employee.getId());
+            List<EmployeeEligibility> existingElig = eligByEmployeeId.getOrDefault(employee.getId(), List.of());
+            if (isResigned(employee)) {
+                toSave.addAll(deactivateEligibilitiesForEmployee(employee, existingElig));
+                continue;
+            }
+            activeEmployees.add(employee);
             toSave.addAll(syncEligibilitiesForEmployee(employee, existingElig, jobRuleMap, exceptionRuleMap));
         }
 
@@ -465,7 +505,10 @@ public class EmployeeEligibilityService {
             eligibilityRepo.saveAll(toSave);
         }
 
-        syncWithCertifications(employees);
+        if (!activeEmployees.isEmpty()) {
+            syncWithCertifications(activeEmployees);
+        }
+        return toSave.size();
     }
 
     private boolean isResigned(Employee e) {
@@ -2,25 +2,29 @@ package com.bankmega.certification.service;
 
 import com.bankmega.certification.entity.EmployeeCertification;
 import com.bankmega.certification.repository.EmployeeCertificationRepository;
+import com.bankmega.certification.repository.JdbcCertificateFileRefRepository;
+import com.bankmega.certification.service.file_storage.FileResponseWriter;
+import com.bankmega.certification.service.file_storage.FileStore;
+import com.bankmega.certification.service.file_storage.ImageVariantCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 import java.util.Set;
 
@@ -29,8 +33,6 @@ import java.util.Set;
 @Slf4j
 public class FileStorageService {
 
-    private static final String STORAGE_DIR = "C:/Users/nakul/Documents/Magang/Project/MegaCertification/storage";
-
     // Supported content types
     private static final Set<String> ALLOWED_IMAGE_TYPES = Set.of(
             "image/png", "image/jpg", "image/jpeg", "image/gif", "image/webp", "image/bmp");
@@ -38,6 +40,9 @@ public class FileStorageService {
             "application/pdf");
 
     private final EmployeeCertificationRepository certificationRepo;
+    private final JdbcCertificateFileRefRepository fileRefRepo;
+    private final FileStore fileStore;
+    private final ImageVariantCache imageVariants;
 
     // ================== SAVE ==================
     public String save(Long certificationId, MultipartFile file) {
@@ -45,17 +50,6 @@ public class FileStorageService {
             EmployeeCertification ec = certificationRepo.findById(Objects.requireNonNull(certificationId))
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Certification not found"));
 
-            String nip = ec.getEmployee().getNip();
-            String certCode = ec.getCertificationRule().getCertification().getCode();
-
-            Integer levelCode = ec.getCertificationRule().getCertificationLevel() != null
-                    ? ec.getCertificationRule().getCertificationLevel().getLevel()
-                    : null;
-
-            String subCode = ec.getCertificationRule().getSubField() != null
-                    ? ec.getCertificationRule().getSubField().getCode()
-                    : null;
-
             String originalName = file.getOriginalFilename();
             String contentType = file.getContentType();
 
@@ -66,41 +60,25 @@ public class FileStorageService {
                         "Hanya file gambar (PNG, JPG, JPEG, GIF, WebP) atau PDF yang diperbolehkan");
             }
 
-            String extension = "";
-            if (originalName != null && originalName.contains(".")) {
-                extension = originalName.substring(originalName.lastIndexOf("."));
-            }
-
-            String timestamp = LocalDateTime.now()
-                    .format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-
-            StringBuilder newFileName = new StringBuilder();
-            newFileName.append(nip).append("_").append(certCode);
-
-            if (levelCode != null) {
-                newFileName.append("_L").append(levelCode);
-            }
-            if (subCode != null && !subCode.isBlank()) {
-                newFileName.append("_").append(subCode);
-            }
-
-            newFileName.append("_").append(timestamp).append(extension);
+            // 🔹 streaming ke storage, key = SHA-256 isi file → scan yang sama di-upload ulang disimpan sekali
+            FileStore.StoredFile stored = writeContent(file);
+            String key = stored.key();
 
-            Path storagePath = Paths.get(STORAGE_DIR);
-            if (!Files.exists(storagePath)) {
-                Files.createDirectories(storagePath);
-            }
-
-            Path filePath = storagePath.resolve(newFileName.toString());
-            file.transferTo(Objects.requireNonNull(filePath.toFile()));
-
-            ec.setFileUrl(newFileName.toString()); // simpan hanya nama file
+            ec.setFileUrl(key); // key relatif terhadap root storage
             ec.setFileName(originalName);
             ec.setFileType(contentType);
+            ec.setFileSize(stored.size());
+            ec.setFileSha256(stored.sha256());
             certificationRepo.save(ec);
 
-            log.info("File saved successfully: {}", newFileName);
-            return newFileName.toString();
+            log.info("File saved successfully: {} ({} bytes{})", key, stored.size(),
+                    stored.reused() ? ", sudah ada di storage" : "");
+
+            // 🔹 thumbnail + preview disiapkan di background
+            if (ImageVariantCache.supports(contentType)) {
+                imageVariants.warmUp(stored.sha256(), fileStore.load(key));
+            }
+            return key;
 
         } catch (IOException e) {
             log.error("Failed to save file", e);
@@ -108,16 +86,43 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Tulis isi upload (content-addressed) lalu kunci key-nya sampai transaksi
+     * selesai. Kalau file yang dipakai ulang ternyata baru saja dihapus (reference
+     * count 0) sebelum lock didapat, tulis ulang sekali.
+     */
+    private FileStore.StoredFile writeContent(MultipartFile file) throws IOException {
+        FileStore.StoredFile stored;
+        try (InputStream in = file.getInputStream()) {
+            stored = fileStore.writeContent(in);
+        }
+        fileRefRepo.lockFile(stored.key());
+        if (stored.reused() && !fileStore.exists(stored.key())) {
+            try (InputStream in = file.getInputStream()) {
+                stored = fileStore.writeContent(in);
+            }
+        }
+        return stored;
+    }
+
     // ================== DELETE ==================
+    // Satu file bisa dipakai beberapa sertifikat (isi sama): hapus dari storage hanya kalau tidak ada baris lain
     public void deleteCertificate(Long certificationId) {
         EmployeeCertification ec = certificationRepo.findById(Objects.requireNonNull(certificationId))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Certification not found"));
 
-        if (ec.getFileUrl() != null) {
-            Path filePath = Paths.get(STORAGE_DIR).resolve(ec.getFileUrl());
+        if (ec.getFileUrl() != null && !ec.getFileUrl().isBlank()) {
             try {
-                boolean deleted = Files.deleteIfExists(filePath);
-                log.info("File deletion result for {}: {}", ec.getFileUrl(), deleted);
+                fileRefRepo.lockFile(ec.getFileUrl());
+                long otherRefs = fileRefRepo.countOtherReferences(ec.getFileUrl(), ec.getId());
+                if (otherRefs > 0) {
+                    log.info("File {} masih dipakai {} sertifikat lain, tidak dihapus", ec.getFileUrl(), otherRefs);
+                } else {
+                    boolean deleted = fileStore.delete(ec.getFileUrl());
+                    log.info("File deletion result for {}: {}", ec.getFileUrl(), deleted);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("File URL tidak valid, dilewati: {}", ec.getFileUrl());
             } catch (IOException e) {
                 log.error("Failed to delete file from storage", e);
                 throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Gagal menghapus file dari storage",
@@ -129,11 +134,23 @@ public class FileStorageService {
         ec.setFileUrl(null);
         ec.setFileName(null);
         ec.setFileType(null);
+        ec.setFileSize(null);
+        ec.setFileSha256(null);
         certificationRepo.save(ec);
     }
 
     // ================== SERVE FILE (Preview / Download) ==================
-    public ResponseEntity<Resource> serveFile(Long certificationId, boolean download) {
+    // ETag (hash isi file) + Last-Modified → 304; Range → 206; isi di-stream lewat FileChannel
+    // variant thumb / preview → JPEG kecil dari cache (gambar saja; PDF / WebP tetap file asli)
+    public void serveFile(Long certificationId, boolean download, String variant, HttpServletRequest request,
+            HttpServletResponse response) {
+        ImageVariantCache.Variant requestedVariant;
+        try {
+            requestedVariant = ImageVariantCache.Variant.parse(variant);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
         EmployeeCertification ec = certificationRepo.findById(Objects.requireNonNull(certificationId))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Certification not found"));
 
@@ -143,59 +160,79 @@ public class FileStorageService {
         }
 
         try {
-            Path filePath = Paths.get(STORAGE_DIR).resolve(ec.getFileUrl());
-            log.info("Attempting to serve file: {}", filePath);
+            Resource resource = fileStore.load(ec.getFileUrl());
 
-            if (!Files.exists(filePath)) {
-                log.error("File not found at path: {}", filePath);
+            if (!resource.exists()) {
+                log.error("File not found: {}", resource.getDescription());
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File tidak ditemukan di storage");
             }
 
-            Resource resource = new UrlResource(Objects.requireNonNull(filePath.toUri()));
-
-            if (!resource.exists() || !resource.isReadable()) {
-                log.error("Resource not readable: {}", filePath);
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File tidak dapat dibaca");
-            }
-
             // Determine content type
+            String storedName = resource.getFilename();
             String contentType = ec.getFileType();
             if (contentType == null || contentType.isBlank()) {
-                // Try to probe file content type
-                try {
-                    contentType = Files.probeContentType(filePath);
-                } catch (IOException e) {
-                    contentType = "application/octet-stream";
-                }
+                // Tebak dari ekstensi file
+                contentType = MediaTypeFactory.getMediaType(storedName)
+                        .map(MediaType::toString)
+                        .orElse("application/octet-stream");
             }
 
-            String fileNameToUse = download
-                    ? (ec.getFileName() != null ? ec.getFileName() : ec.getFileUrl())
-                    : ec.getFileUrl();
-
-            String contentDisposition = download
-                    ? "attachment; filename=\"" + fileNameToUse + "\""
-                    : "inline; filename=\"" + fileNameToUse + "\"";
+            // key = hash isi file, jadi preview juga pakai nama asli upload
+            String fileNameToUse = ec.getFileName() != null ? ec.getFileName() : storedName;
+
+            if (requestedVariant != null && ImageVariantCache.supports(contentType)) {
+                String sourceKey = ImageVariantCache.sourceKey(ec.getFileSha256(), ec.getFileUrl(), resource);
+                Path variantPath = loadVariant(certificationId, sourceKey, resource, requestedVariant);
+                if (variantPath != null) {
+                    String variantName = baseName(fileNameToUse) + "-" + requestedVariant.key + ".jpg";
+                    FileResponseWriter.write(new FileSystemResource(variantPath),
+                            sourceKey + "-" + requestedVariant.key, MediaType.IMAGE_JPEG,
+                            contentDisposition(download, variantName), request, response);
+                    return;
+                }
+            }
 
-            log.info("Serving file: {} with content-type: {}", fileNameToUse, contentType);
+            log.debug("Serving file: {} with content-type: {}", fileNameToUse, contentType);
 
-            return ResponseEntity.ok()
-                    .contentType(
-                            MediaType.parseMediaType(contentType != null ? contentType : "application/octet-stream"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                    .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
-                    .header(HttpHeaders.PRAGMA, "no-cache")
-                    .header(HttpHeaders.EXPIRES, "0")
-                    .body(resource);
+            FileResponseWriter.write(resource, ec.getFileSha256(), MediaType.parseMediaType(contentType),
+                    contentDisposition(download, fileNameToUse), request, response);
 
         } catch (ResponseStatusException e) {
             throw e; // Re-throw ResponseStatusException as-is
         } catch (Exception e) {
+            if (response.isCommitted()) {
+                // biasanya browser / PDF viewer menutup koneksi di tengah transfer
+                log.debug("Transfer file certification id {} terputus: {}", certificationId, e.getMessage());
+                return;
+            }
             log.error("Failed to serve file for certification id: {}", certificationId, e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Gagal membuka file sertifikat", e);
         }
     }
 
+    // null kalau gambar tidak bisa diproses (rusak / format aneh) → layani file asli
+    private Path loadVariant(Long certificationId, String sourceKey, Resource source,
+            ImageVariantCache.Variant variant) {
+        try {
+            return imageVariants.get(sourceKey, source, variant);
+        } catch (IOException e) {
+            log.warn("Gagal membuat {} untuk certification id {}: {}", variant.key, certificationId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String contentDisposition(boolean download, String fileName) {
+        return (download ? ContentDisposition.attachment() : ContentDisposition.inline())
+                .filename(fileName, StandardCharsets.UTF_8)
+                .build()
+                .toString();
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName != null ? fileName.lastIndexOf('.') : -1;
+        return dot > 0 ? fileName.substring(0, dot) : (fileName != null ? fileName : "file");
+    }
+
     // ================== CHECK IF FILE EXISTS ==================
     public boolean hasFile(@NonNull Long certificationId) {
         return certificationRepo.findById(Objects.requireNonNull(certificationId))
@@ -208,8 +245,12 @@ public class FileStorageService {
         return certificationRepo.findById(Objects.requireNonNull(certificationId))
                 .filter(ec -> ec.getFileUrl() != null && !ec.getFileUrl().isBlank())
                 .map(ec -> {
-                    Path filePath = Paths.get(STORAGE_DIR).resolve(ec.getFileUrl());
-                    return Files.exists(filePath);
+                    try {
+                        return fileStore.exists(ec.getFileUrl());
+                    } catch (IOException | IllegalArgumentException e) {
+                        log.warn("Gagal cek file {}: {}", ec.getFileUrl(), e.getMessage());
+                        return false;
+                    }
                 })
                 .orElse(false);
     }
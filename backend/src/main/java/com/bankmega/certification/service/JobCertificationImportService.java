@@ -3,10 +3,13 @@ package com.bankmega.certification.service;
 import com.bankmega.certification.dto.JobCertImportResponse;
 import com.bankmega.certification.dto.JobCertImportLogResponse;
 import com.bankmega.certification.entity.*;
+import com.bankmega.certification.repository.JdbcJobCertificationMappingRepository;
 import com.bankmega.certification.repository.JobCertificationImportLogRepository;
 import com.bankmega.certification.repository.JobCertificationMappingRepository;
 import com.bankmega.certification.repository.JobPositionRepository;
-import com.bankmega.certification.repository.CertificationRuleRepository;
+import com.bankmega.certification.repository.UserRepository;
+import com.bankmega.certification.service.import_session.ImportSessionStore;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -18,6 +21,7 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.Objects;
@@ -28,20 +32,59 @@ public class JobCertificationImportService {
 
     private final JobCertificationImportLogRepository logRepo;
     private final JobPositionRepository jobPositionRepo;
-    private final CertificationRuleRepository ruleRepo;
     private final JobCertificationMappingRepository mappingRepo;
+    private final JdbcJobCertificationMappingRepository mappingBatchRepo;
+    private final EmployeeEligibilityService eligibilityService;
+    private final ImportSessionStore sessionStore;
+    private final ReferenceDataCache referenceData;
+    private final UserRepository userRepo;
     // private final PicCertificationScopeRepository scopeRepo; // kalau mau
     // validasi PIC scope
 
-    public JobCertImportResponse dryRun(MultipartFile file, User user) {
-        return process(file, true, user);
+    public JobCertImportResponse dryRun(MultipartFile file, Long userId) {
+        ImportSessionStore.Upload upload = readUpload(file);
+        List<ImportRow> rows = sessionStore
+                .peek(ImportSessionStore.Kind.JOB_CERTIFICATION, userId, upload.hash(), Session.class)
+                .map(Session::rows)
+                .orElseGet(() -> parse(upload.bytes()));
+
+        ImportPlan plan = buildPlan(rows);
+        sessionStore.put(ImportSessionStore.Kind.JOB_CERTIFICATION, userId, upload.hash(),
+                new Session(rows, plan), rows.size());
+
+        return plan.toResponse(file.getOriginalFilename(), true,
+                "Dry run completed. Job baru terdeteksi: " + plan.newJobNames.size());
     }
 
     @Transactional
-    public JobCertImportResponse confirm(MultipartFile file, User user) {
-        JobCertImportResponse response = process(file, false, user);
-        response.setMessage("Import berhasil. ⚠️ Jangan lupa refresh eligibility secara manual.");
-        return response;
+    public JobCertImportResponse confirm(MultipartFile file, Long userId) {
+        ImportSessionStore.Upload upload = readUpload(file);
+
+        // Pakai plan hasil dry run (file identik) kalau masih ada; kalau tidak,
+        // parse + plan ulang
+        ImportPlan plan = sessionStore
+                .take(ImportSessionStore.Kind.JOB_CERTIFICATION, userId, upload.hash(), Session.class)
+                .map(Session::plan)
+                .orElseGet(() -> buildPlan(parse(upload.bytes())));
+
+        int refreshed = apply(plan);
+
+        JobCertificationImportLog log = JobCertificationImportLog.builder()
+                .user(userRepo.getReferenceById(Objects.requireNonNull(userId)))
+                .fileName(file.getOriginalFilename())
+                .totalProcessed(plan.processed)
+                .totalInserted(plan.inserted)
+                .totalReactivated(plan.reactivated)
+                .totalSkipped(plan.skipped)
+                .totalErrors(plan.errors)
+                .dryRun(false)
+                .build();
+        logRepo.save(Objects.requireNonNull(log));
+
+        return plan.toResponse(file.getOriginalFilename(), false,
+                "Import completed. Job baru dibuat: " + plan.newJobNames.size()
+                        + ". Eligibility di-refresh untuk " + plan.affectedJobIds.size()
+                        + " jabatan (" + refreshed + " data).");
     }
 
     public List<JobCertificationImportLog> getAllLogs() {
@@ -52,122 +95,168 @@ public class JobCertificationImportService {
         return logRepo.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
-    private JobCertImportResponse process(MultipartFile file, boolean dryRun, User user) {
-        List<String> errorDetails = new ArrayList<>();
-        int processed = 0, inserted = 0, reactivated = 0, skipped = 0, errors = 0;
-        int newJobs = 0; // 🔥 tambahan counter job baru
+    private ImportSessionStore.Upload readUpload(MultipartFile file) {
+        try {
+            return ImportSessionStore.read(file);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid file format", e);
+        }
+    }
 
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
+    private List<ImportRow> parse(byte[] bytes) {
+        List<ImportRow> rows = new ArrayList<>();
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
             Sheet sheet = workbook.getSheetAt(0);
 
             for (Row row : sheet) {
                 if (row.getRowNum() == 0)
                     continue; // skip header
-                processed++;
 
-                try {
-                    String jobName = getCellValue(row.getCell(0));
-                    String certCode = getCellValue(row.getCell(1));
-                    String levelStr = getCellValue(row.getCell(2));
-                    String subField = getCellValue(row.getCell(3));
-                    String status = getCellValue(row.getCell(4));
+                rows.add(new ImportRow(
+                        row.getRowNum(),
+                        getCellValue(row.getCell(0)),
+                        getCellValue(row.getCell(1)),
+                        getCellValue(row.getCell(2)),
+                        getCellValue(row.getCell(3)),
+                        getCellValue(row.getCell(4))));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid file format", e);
+        }
+        return rows;
+    }
 
-                    if (jobName.isBlank() || certCode.isBlank()) {
-                        throw new IllegalArgumentException("Job name & cert code wajib diisi");
-                    }
+    // 🔹 Read-only: hitung apa yang akan di-insert/reactivate, belum nulis apa-apa
+    private ImportPlan buildPlan(List<ImportRow> rows) {
+        ImportPlan plan = new ImportPlan();
 
-                    // 🔹 Cari CertificationRule
-                    CertificationRule rule = findRuleUnique(certCode, levelStr, subField);
-
-                    // 🔹 Cari JobPosition
-                    Optional<JobPosition> jobOpt = jobPositionRepo.findByNameIgnoreCase(jobName.trim());
-                    JobPosition job;
-                    if (jobOpt.isEmpty()) {
-                        if (dryRun) {
-                            // simulate job baru
-                            newJobs++;
-                            job = JobPosition.builder()
-                                    .id(-1L) // dummy ID supaya gak null
-                                    .name(jobName.trim())
-                                    .build();
-                        } else {
-                            job = jobPositionRepo.save(Objects.requireNonNull(
-                                    JobPosition.builder().name(jobName.trim()).build()));
-                            newJobs++;
-                        }
-                    } else {
-                        job = jobOpt.get();
-                    }
+        // 🔹 Master dari cache bersama, mapping existing di-preload sekali
+        ReferenceDataCache.Index<JobPosition> jobs = referenceData.jobPositions();
+        ReferenceDataCache.Index<CertificationRule> rules = referenceData.rules();
+
+        Map<JobRuleKey, JobCertificationMappingRepository.MappingKey> mappingByKey = new HashMap<>();
+        for (JobCertificationMappingRepository.MappingKey m : mappingRepo.findAllKeys()) {
+            mappingByKey.put(new JobRuleKey(m.getJobPositionId(), m.getCertificationRuleId()), m);
+        }
+
+        // kombinasi yang sudah direncanakan dari baris sebelumnya di file ini → index di plan
+        Map<Object, Integer> plannedInserts = new HashMap<>();
+        Map<JobRuleKey, Integer> plannedReactivations = new HashMap<>();
+
+        for (ImportRow row : rows) {
+            plan.processed++;
 
-                    // 🔹 Cek mapping existing
-                    Optional<JobCertificationMapping> existing = mappingRepo.findByJobPositionAndCertificationRule(job,
-                            rule);
-
-                    if (existing.isEmpty()) {
-                        if (!dryRun) {
-                            JobCertificationMapping mapping = JobCertificationMapping.builder()
-                                    .jobPosition(job)
-                                    .certificationRule(rule)
-                                    .isActive(!"INACTIVE".equalsIgnoreCase(status))
-                                    .build();
-                            mappingRepo.save(Objects.requireNonNull(mapping));
-                        }
-                        inserted++;
+            try {
+                if (row.jobName().isBlank() || row.certCode().isBlank()) {
+                    throw new IllegalArgumentException("Job name & cert code wajib diisi");
+                }
+
+                boolean active = !"INACTIVE".equalsIgnoreCase(row.status());
+
+                // 🔹 Cari CertificationRule
+                CertificationRule rule = findRuleUnique(rules, row.certCode(), row.levelStr(), row.subField());
+
+                // 🔹 Cari JobPosition (job baru dibuat saat apply, di-key pakai nama)
+                String jobName = row.jobName().trim();
+                Long jobId = jobs.byKey(jobName).map(JobPosition::getId).orElse(null);
+                if (jobId == null) {
+                    plan.newJobNames.putIfAbsent(norm(jobName), jobName);
+                    planInsert(plan, plannedInserts, new NewJobRuleKey(norm(jobName), rule.getId()),
+                            new PlannedInsert(null, norm(jobName), rule.getId(), active));
+                    continue;
+                }
+
+                // 🔹 Cek mapping existing (DB atau baris sebelumnya di file ini)
+                JobRuleKey key = new JobRuleKey(jobId, rule.getId());
+                JobCertificationMappingRepository.MappingKey existing = mappingByKey.get(key);
+
+                if (existing == null) {
+                    planInsert(plan, plannedInserts, key, new PlannedInsert(jobId, null, rule.getId(), active));
+                } else if (existing.getDeletedAt() != null || !Boolean.TRUE.equals(existing.getIsActive())) {
+                    Integer idx = plannedReactivations.get(key);
+                    JdbcJobCertificationMappingRepository.Reactivation reactivation =
+                            new JdbcJobCertificationMappingRepository.Reactivation(existing.getId(), active);
+                    if (idx == null) {
+                        plannedReactivations.put(key, plan.reactivations.size());
+                        plan.reactivations.add(reactivation);
+                        plan.affectedJobIds.add(jobId);
+                        plan.reactivated++;
+                    } else if (plan.reactivations.get(idx).active()) {
+                        plan.skipped++;
                     } else {
-                        JobCertificationMapping mapping = existing.get();
-                        if (mapping.getDeletedAt() != null || !mapping.getIsActive()) {
-                            if (!dryRun) {
-                                mapping.setDeletedAt(null);
-                                mapping.setIsActive(!"INACTIVE".equalsIgnoreCase(status));
-                                mappingRepo.save(mapping);
-                            }
-                            reactivated++;
-                        } else {
-                            skipped++;
-                        }
+                        // baris sebelumnya INACTIVE → baris ini yang berlaku
+                        plan.reactivations.set(idx, reactivation);
+                        plan.reactivated++;
                     }
+                } else {
+                    plan.skipped++;
+                }
+
+            } catch (Exception e) {
+                plan.errors++;
+                plan.errorDetails.add("Row " + row.rowNum() + ": " + e.getMessage());
+            }
+        }
 
-                } catch (Exception e) {
-                    errors++;
-                    errorDetails.add("Row " + row.getRowNum() + ": " + e.getMessage());
+        return plan;
+    }
+
+    // 🔹 Kombinasi yang sama muncul lagi di file: sama seperti proses per baris dulu,
+    // kalau rencana sebelumnya sudah aktif → skip; kalau masih INACTIVE → baris ini
+    // yang berlaku (dihitung reactivated)
+    private static void planInsert(ImportPlan plan, Map<Object, Integer> planned, Object key, PlannedInsert insert) {
+        Integer idx = planned.get(key);
+        if (idx == null) {
+            planned.put(key, plan.inserts.size());
+            plan.inserts.add(insert);
+            plan.inserted++;
+        } else if (plan.inserts.get(idx).active()) {
+            plan.skipped++;
+        } else {
+            plan.inserts.set(idx, insert);
+            plan.reactivated++;
+        }
+    }
+
+    // 🔹 Tulis plan ke DB (batch) + refresh eligibility sekali untuk job terdampak
+    private int apply(ImportPlan plan) {
+        Map<String, Long> newJobIds = new HashMap<>();
+        if (!plan.newJobNames.isEmpty()) {
+            List<JobPosition> jobsToCreate = new ArrayList<>();
+            for (Map.Entry<String, String> e : plan.newJobNames.entrySet()) {
+                // bisa saja sudah dibuat orang lain sejak dry run
+                Optional<JobPosition> found = jobPositionRepo.findByNameIgnoreCase(e.getValue());
+                if (found.isPresent()) {
+                    newJobIds.put(e.getKey(), found.get().getId());
+                } else {
+                    jobsToCreate.add(JobPosition.builder().name(e.getValue()).build());
                 }
             }
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Invalid file format", e);
+            for (JobPosition saved : jobPositionRepo.saveAll(jobsToCreate)) {
+                newJobIds.put(norm(saved.getName()), saved.getId());
+            }
+            if (!jobsToCreate.isEmpty()) {
+                referenceData.invalidate(ReferenceDataCache.Type.JOB_POSITION);
+            }
         }
 
-        // 🔹 Save log
-        if (!dryRun) {
-            JobCertificationImportLog log = JobCertificationImportLog.builder()
-                    .user(user)
-                    .fileName(file.getOriginalFilename())
-                    .totalProcessed(processed)
-                    .totalInserted(inserted)
-                    .totalReactivated(reactivated)
-                    .totalSkipped(skipped)
-                    .totalErrors(errors)
-                    .dryRun(false)
-                    .build();
-            logRepo.save(Objects.requireNonNull(log));
+        Set<Long> affectedJobIds = new HashSet<>(plan.affectedJobIds);
+        List<JdbcJobCertificationMappingRepository.NewMapping> newMappings = new ArrayList<>(plan.inserts.size());
+        for (PlannedInsert p : plan.inserts) {
+            Long jobId = p.jobId() != null ? p.jobId() : newJobIds.get(p.newJobKey());
+            newMappings.add(new JdbcJobCertificationMappingRepository.NewMapping(jobId, p.ruleId(), p.active()));
+            affectedJobIds.add(jobId);
         }
+        mappingBatchRepo.batchInsert(newMappings);
+        mappingBatchRepo.batchReactivate(plan.reactivations);
 
-        return JobCertImportResponse.builder()
-                .fileName(file.getOriginalFilename())
-                .dryRun(dryRun)
-                .processed(processed)
-                .inserted(inserted)
-                .reactivated(reactivated)
-                .skipped(skipped)
-                .errors(errors)
-                .errorDetails(errorDetails)
-                .message(dryRun
-                        ? "Dry run completed. Job baru terdeteksi: " + newJobs
-                        : "Import completed. Job baru dibuat: " + newJobs)
-                .build();
+        plan.affectedJobIds.addAll(affectedJobIds);
+        return eligibilityService.refreshEligibilityForJobPositions(affectedJobIds);
     }
 
-    // 🔹 Helper buat cari CertificationRule
-    private CertificationRule findRuleUnique(String certCode, String levelStr, String subFieldCode) {
+    // 🔹 Helper buat cari CertificationRule dari index cache
+    private CertificationRule findRuleUnique(ReferenceDataCache.Index<CertificationRule> rules, String certCode,
+            String levelStr, String subFieldCode) {
         Integer tmpLevel = null;
         try {
             if (levelStr != null && !levelStr.isBlank()) {
@@ -181,15 +270,18 @@ public class JobCertificationImportService {
 
         String subCode = (subFieldCode == null || subFieldCode.isBlank()) ? null : subFieldCode.trim();
 
-        return ruleRepo
-                .findByCertification_CodeIgnoreCaseAndCertificationLevel_LevelAndSubField_CodeIgnoreCaseAndDeletedAtIsNull(
-                        certCode.trim(),
-                        level,
-                        subCode)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Certification Rule tidak ditemukan untuk code=" + certCode
-                                + ", level=" + level
-                                + ", subField=" + subCode));
+        CertificationRule rule = rules.byKey(ReferenceDataCache.ruleKey(certCode, level, subCode)).orElse(null);
+        if (rule == null) {
+            throw new IllegalArgumentException(
+                    "Certification Rule tidak ditemukan untuk code=" + certCode
+                            + ", level=" + level
+                            + ", subField=" + subCode);
+        }
+        return rule;
+    }
+
+    private static String norm(String s) {
+        return s == null ? "" : s.trim().toLowerCase();
     }
 
     private String getCellValue(Cell cell) {
@@ -278,4 +370,47 @@ public class JobCertificationImportService {
                 .map(this::toResponse)
                 .toList();
     }
+
+    private record JobRuleKey(Long jobPositionId, Long ruleId) {
+    }
+
+    private record NewJobRuleKey(String jobName, Long ruleId) {
+    }
+
+    // jobId null → job baru, di-resolve lewat newJobKey saat apply
+    private record PlannedInsert(Long jobId, String newJobKey, Long ruleId, boolean active) {
+    }
+
+    private record ImportRow(int rowNum, String jobName, String certCode, String levelStr, String subField,
+            String status) {
+    }
+
+    private record Session(List<ImportRow> rows, ImportPlan plan) {
+    }
+
+    private static class ImportPlan {
+        int processed = 0, inserted = 0, reactivated = 0, skipped = 0, errors = 0;
+
+        List<String> errorDetails = new ArrayList<>();
+
+        // norm(name) → nama asli, urut sesuai file
+        Map<String, String> newJobNames = new LinkedHashMap<>();
+        List<PlannedInsert> inserts = new ArrayList<>();
+        List<JdbcJobCertificationMappingRepository.Reactivation> reactivations = new ArrayList<>();
+        Set<Long> affectedJobIds = new HashSet<>();
+
+        JobCertImportResponse toResponse(String fileName, boolean dryRun, String message) {
+            return JobCertImportResponse.builder()
+                    .fileName(fileName)
+                    .dryRun(dryRun)
+                    .processed(processed)
+                    .inserted(inserted)
+                    .reactivated(reactivated)
+                    .skipped(skipped)
+                    .errors(errors)
+                    .errorDetails(errorDetails)
+                    .message(message)
+                    .build();
+        }
+    }
 }
@@ -7,6 +7,7 @@ import com.bankmega.certification.exception.ConflictException;
 import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.EmployeeRepository;
 import com.bankmega.certification.repository.JobPositionRepository;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,7 @@ public class JobPositionService {
 
     private final JobPositionRepository repo;
     private final EmployeeRepository employeeRepo;
+    private final ReferenceDataCache referenceData;
 
     public List<JobPositionResponse> getAll() {
         return repo.findAllByOrderByIsActiveDescNameAsc().stream()
@@ -58,6 +60,7 @@ public class JobPositionService {
                         .createdAt(Instant.now())
                         .updatedAt(Instant.now())
                         .build())));
+        referenceData.invalidate(ReferenceDataCache.Type.JOB_POSITION);
         return mapToResponse(jp);
     }
 
@@ -75,7 +78,9 @@ public class JobPositionService {
 
         jp.setIsActive(!jp.getIsActive());
         jp.setUpdatedAt(Instant.now());
-        return mapToResponse(repo.save(jp));
+        JobPosition saved = repo.save(jp);
+        referenceData.invalidate(ReferenceDataCache.Type.JOB_POSITION);
+        return mapToResponse(saved);
     }
 
     private JobPositionResponse mapToResponse(JobPosition jp) {
@@ -0,0 +1,133 @@
+package com.bankmega.certification.service;
+
+import com.bankmega.certification.repository.JdbcNotificationPartitionRepository;
+import com.bankmega.certification.repository.JdbcNotificationPartitionRepository.Partition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Perawatan partisi bulanan notifications (job harian):
+ * - siapkan partisi beberapa bulan ke depan supaya insert tidak jatuh ke DEFAULT;
+ * - partisi yang lebih tua dari retensi di-ARCHIVE (detach + pindah schema)
+ * atau di-DROP.
+ *
+ * Kalau tabel belum dipartisi (mis. local dengan ddl-auto), retensi mode DROP
+ * dijalankan sebagai DELETE bertahap; mode ARCHIVE dilewati.
+ */
+@Slf4j
+@Service
+public class NotificationPartitionService {
+
+    // key advisory lock job ini (bebas, asal unik di aplikasi)
+    private static final long LOCK_KEY = 0x4E4F544946L; // "NOTIF"
+    private static final int DELETE_CHUNK = 5000;
+
+    public enum Mode {
+        ARCHIVE, DROP
+    }
+
+    private final JdbcNotificationPartitionRepository partitionRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int retentionMonths;
+    private final int premakeMonths;
+    private final Mode mode;
+    private final String archiveSchema;
+
+    public NotificationPartitionService(
+            JdbcNotificationPartitionRepository partitionRepo,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.notification.retention.enabled:true}") boolean enabled,
+            @Value("${app.notification.retention.months:24}") int retentionMonths,
+            @Value("${app.notification.retention.premake-months:3}") int premakeMonths,
+            @Value("${app.notification.retention.mode:ARCHIVE}") String mode,
+            @Value("${app.notification.retention.archive-schema:archive}") String archiveSchema) {
+        this.partitionRepo = partitionRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.retentionMonths = Math.max(1, retentionMonths);
+        this.premakeMonths = Math.max(1, premakeMonths);
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.archiveSchema = archiveSchema.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Scheduled(cron = "${app.notification.retention.cron:0 30 2 * * *}")
+    public void maintain() {
+        if (!enabled)
+            return;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!partitionRepo.tryLock(LOCK_KEY)) {
+                    log.info("[Retention] Job notifikasi sedang jalan di instance lain, skip");
+                    return;
+                }
+                if (partitionRepo.isPartitioned()) {
+                    maintainPartitions(YearMonth.now());
+                } else {
+                    purgeUnpartitioned();
+                }
+            });
+        } catch (Exception e) {
+            log.error("[Retention] Gagal merawat partisi notifications: {}", e.getMessage(), e);
+        }
+    }
+
+    private void maintainPartitions(YearMonth current) {
+        List<Partition> partitions = partitionRepo.listMonthly();
+        Set<YearMonth> existing = partitions.stream().map(Partition::month).collect(Collectors.toSet());
+
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.contains(month)) {
+                partitionRepo.createMonthly(month);
+                log.info("[Retention] Partisi notifications {} dibuat", month);
+            }
+        }
+
+        // bulan ini + (retensi - 1) bulan sebelumnya dipertahankan
+        YearMonth oldestKept = current.minusMonths(retentionMonths - 1L);
+        List<Partition> expired = partitions.stream()
+                .filter(p -> p.month().isBefore(oldestKept))
+                .sorted(Comparator.comparing(Partition::month))
+                .toList();
+
+        for (Partition p : expired) {
+            partitionRepo.detach(p);
+            if (mode == Mode.ARCHIVE) {
+                partitionRepo.moveToSchema(p, archiveSchema);
+                log.info("[Retention] Partisi {} diarsipkan ke schema {}", p.name(), archiveSchema);
+            } else {
+                partitionRepo.drop(p);
+                log.info("[Retention] Partisi {} di-drop", p.name());
+            }
+        }
+    }
+
+    private void purgeUnpartitioned() {
+        if (mode != Mode.DROP) {
+            log.debug("[Retention] notifications belum dipartisi; mode ARCHIVE dilewati");
+            return;
+        }
+        LocalDateTime cutoff = YearMonth.now().minusMonths(retentionMonths - 1L).atDay(1).atStartOfDay();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = partitionRepo.deleteOlderThan(cutoff, DELETE_CHUNK);
+            total += deleted;
+        } while (deleted >= DELETE_CHUNK);
+        if (total > 0)
+            log.info("[Retention] {} notifikasi sebelum {} dihapus", total, cutoff);
+    }
+}
@@ -8,6 +8,7 @@ import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.NotificationScheduleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
@@ -16,7 +17,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
@@ -25,6 +29,22 @@ public class NotificationScheduleService {
 
     private final NotificationScheduleRepository repo;
 
+    // Lama lease satu run; node yang mati di tengah run diambil alih setelah ini lewat
+    @Value("${app.notification.schedule.lease-minutes:30}")
+    private long leaseMinutes;
+
+    // naik tiap jadwal diubah; scheduler reload cache kalau versinya beda
+    private final AtomicLong version = new AtomicLong();
+
+    public long version() {
+        return version.get();
+    }
+
+    // ================== GET ALL (ENTITY, untuk scheduler) ==================
+    public List<NotificationSchedule> getAllEntities() {
+        return repo.findAll(Sort.by(Sort.Order.asc("type")));
+    }
+
     // ================== GET ALL (DTO) ==================
     public List<NotificationScheduleResponse> getAll() {
         log.info("Mengambil semua jadwal notifikasi...");
@@ -62,6 +82,7 @@ public class NotificationScheduleService {
         schedule.setUpdatedAt(LocalDateTime.now());
 
         NotificationSchedule saved = repo.saveAndFlush(schedule);
+        version.incrementAndGet();
         log.info("Jadwal notifikasi {} disimpan/diupdate (active={}, time={}, skipWeekend={})",
                 req.getType(), saved.getActive(), saved.getTime(), saved.getSkipWeekend());
 
@@ -126,6 +147,30 @@ public class NotificationScheduleService {
         }
     }
 
+    // ================== KLAIM RUN (LEASE DB) ==================
+    /**
+     * Lease run dengan jadwal {@code dueAt} kalau node ini yang berhak menjalankannya;
+     * kosong kalau run itu sudah selesai atau masih dipegang node lain. Nilai lease
+     * dipakai lagi di {@link #completeRun} / {@link #releaseRun}.
+     */
+    public Optional<LocalDateTime> tryClaimRun(NotificationTemplate.Code type, LocalDateTime dueAt) {
+        // presisi milidetik supaya sama persis dengan yang tersimpan di Postgres (mikrodetik)
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime leaseUntil = now.plusMinutes(Math.max(1, leaseMinutes));
+        return repo.claimRun(type, dueAt, now, leaseUntil) == 1 ? Optional.of(leaseUntil) : Optional.empty();
+    }
+
+    /** Run selesai: last_run diisi dan lease dilepas. */
+    public void completeRun(NotificationTemplate.Code type, LocalDateTime leaseUntil) {
+        if (repo.completeRun(type, leaseUntil, LocalDateTime.now()) == 0)
+            log.warn("Lease run {} sudah kedaluwarsa / diambil alih sebelum run selesai", type);
+    }
+
+    /** Run gagal: lease dilepas tanpa mengisi last_run, jadi run dikejar lagi. */
+    public void releaseRun(NotificationTemplate.Code type, LocalDateTime leaseUntil) {
+        repo.releaseRun(type, leaseUntil);
+    }
+
     // ================== UPDATE LAST RUN ==================
     public void markExecuted(NotificationSchedule schedule) {
         if (schedule == null)
@@ -1,6 +1,7 @@
 package com.bankmega.certification.service;
 
-import com.bankmega.certification.dto.NotificationScheduleResponse;
+import com.bankmega.certification.entity.NotificationRun;
+import com.bankmega.certification.entity.NotificationSchedule;
 import com.bankmega.certification.entity.NotificationTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,8 +10,22 @@ import org.springframework.stereotype.Service;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Optional;
+
+/**
+ * Scheduler notifikasi yang aman dijalankan di banyak instance.
+ *
+ * Jadwal di-cache beserta waktu jalan berikutnya (reload kalau jadwal diubah
+ * lewat service ini, atau tiap {@link #RELOAD_INTERVAL} untuk perubahan dari
+ * node lain). Tick cuma membandingkan jam; run yang terlewat (GC pause, restart)
+ * dikejar pakai last_run selama masih di hari yang sama. Sebelum eksekusi,
+ * node harus menang klaim lease di DB, jadi satu run = satu node. last_run baru
+ * diisi setelah run selesai tanpa gagal; run yang gagal (atau node yang mati di
+ * tengah run, setelah lease-nya kedaluwarsa) dikejar lagi saat jadwal di-reload.
+ * Run ulang aman karena sertifikat yang sudah dinotifikasi tidak diproses lagi.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -20,47 +35,108 @@ public class NotificationSchedulerService {
     private final NotificationService notificationService;
 
     private static final DateTimeFormatter HHMM = DateTimeFormatter.ofPattern("HH:mm");
+    private static final Duration RELOAD_INTERVAL = Duration.ofMinutes(5);
+
+    private record Plan(NotificationTemplate.Code type, LocalTime time, boolean skipWeekend, LocalDateTime nextFire) {
+        Plan next(LocalDateTime after) {
+            return new Plan(type, time, skipWeekend, nextOccurrence(time, skipWeekend, after));
+        }
+    }
+
+    // hanya disentuh thread scheduler
+    private List<Plan> plans = List.of();
+    private long loadedVersion = -1;
+    private LocalDateTime loadedAt = LocalDateTime.MIN;
 
     @Scheduled(cron = "0 * * * * *")
     public void tick() {
-        LocalDate today = LocalDate.now();
-        LocalTime now = LocalTime.now().withSecond(0).withNano(0);
-        boolean weekend = isWeekend(today);
-
-        log.info("[Scheduler] Checking notification schedules at {}", LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        List<Plan> current = plans(now);
+
+        List<Plan> updated = new ArrayList<>(current.size());
+        for (Plan plan : current) {
+            if (now.isBefore(plan.nextFire())) {
+                updated.add(plan);
+                continue;
+            }
+            try {
+                fire(plan);
+            } catch (Exception ex) {
+                log.error("Scheduler error for {}: {}", plan.type(), ex.getMessage(), ex);
+            }
+            updated.add(plan.next(now));
+        }
+        plans = List.copyOf(updated);
+    }
 
-        List<NotificationScheduleResponse> schedules = scheduleService.getAll();
-        if (schedules == null || schedules.isEmpty())
+    private void fire(Plan plan) {
+        Optional<LocalDateTime> lease = scheduleService.tryClaimRun(plan.type(), plan.nextFire());
+        if (lease.isEmpty()) {
+            log.info("Jadwal {} ({}) sudah dijalankan / diklaim node lain, skip", plan.type(), plan.nextFire());
             return;
+        }
+        log.info("Jadwal {} waktunya jalan (target={})", plan.type(), plan.nextFire());
+        NotificationRun run;
+        try {
+            run = execute(plan.type(), false);
+        } catch (RuntimeException e) {
+            scheduleService.releaseRun(plan.type(), lease.get());
+            throw e;
+        }
+        if (run != null && run.getFailed() > 0) {
+            // partisi yang gagal belum ditandai dinotifikasi; run berikutnya mengambilnya lagi
+            log.warn("Jadwal {}: {} sertifikat gagal diproses, run akan diulang", plan.type(), run.getFailed());
+            scheduleService.releaseRun(plan.type(), lease.get());
+            return;
+        }
+        scheduleService.completeRun(plan.type(), lease.get());
+    }
+
+    private List<Plan> plans(LocalDateTime now) {
+        long version = scheduleService.version();
+        if (version == loadedVersion && now.isBefore(loadedAt.plus(RELOAD_INTERVAL)))
+            return plans;
 
-        for (NotificationScheduleResponse sch : schedules) {
+        List<Plan> loaded = new ArrayList<>();
+        for (NotificationSchedule sch : scheduleService.getAllEntities()) {
+            if (!Boolean.TRUE.equals(sch.getActive()) || sch.getTime() == null || sch.getTime().isBlank())
+                continue;
+
+            LocalTime runAt;
             try {
-                if (sch.getActive() == null || !sch.getActive())
-                    continue;
-                if (Boolean.TRUE.equals(sch.getSkipWeekend()) && weekend)
-                    continue;
-
-                String timeStr = sch.getTime();
-                if (timeStr == null || timeStr.isBlank())
-                    continue;
-
-                LocalTime runAt;
-                try {
-                    runAt = LocalTime.parse(timeStr, HHMM);
-                } catch (Exception e) {
-                    log.warn("Invalid schedule time {} for type {}", timeStr, sch.getType());
-                    continue;
-                }
-
-                if (now.equals(runAt)) {
-                    log.info("Jadwal {} waktunya jalan (now={}, target={})",
-                            sch.getType(), now.format(HHMM), timeStr);
-                    execute(sch.getType(), false);
-                    scheduleService.markExecuted(sch.getType()); // last_run
-                }
-            } catch (Exception ex) {
-                log.error("Scheduler error for {}: {}", sch.getType(), ex.getMessage(), ex);
+                runAt = LocalTime.parse(sch.getTime().trim(), HHMM);
+            } catch (Exception e) {
+                log.warn("Invalid schedule time {} for type {}", sch.getTime(), sch.getType());
+                continue;
             }
+            boolean skipWeekend = Boolean.TRUE.equals(sch.getSkipWeekend());
+
+            // Kejar run hari ini yang terlewat; handler memproses data "hari ini",
+            // jadi run hari-hari sebelumnya tidak dikejar
+            LocalDateTime todayRun = now.toLocalDate().atTime(runAt);
+            boolean missedToday = !todayRun.isAfter(now)
+                    && !(skipWeekend && isWeekend(todayRun.toLocalDate()))
+                    && (sch.getLastRun() == null || sch.getLastRun().isBefore(todayRun));
+            LocalDateTime nextFire = missedToday ? todayRun : nextOccurrence(runAt, skipWeekend, now);
+            loaded.add(new Plan(sch.getType(), runAt, skipWeekend, nextFire));
+        }
+
+        log.info("[Scheduler] {} jadwal aktif dimuat: {}", loaded.size(), loaded.stream()
+                .map(p -> p.type() + "@" + p.nextFire())
+                .toList());
+        plans = List.copyOf(loaded);
+        loadedVersion = version;
+        loadedAt = now;
+        return plans;
+    }
+
+    private static LocalDateTime nextOccurrence(LocalTime time, boolean skipWeekend, LocalDateTime after) {
+        LocalDate day = after.toLocalDate();
+        while (true) {
+            LocalDateTime candidate = day.atTime(time);
+            if (candidate.isAfter(after) && !(skipWeekend && isWeekend(day)))
+                return candidate;
+            day = day.plusDays(1);
         }
     }
 
@@ -79,27 +155,31 @@ public class NotificationSchedulerService {
 
     // ================= internal =================
 
-    private void execute(NotificationTemplate.Code type, boolean force) {
+    /** @return statistik run, atau null untuk jenis yang tidak punya run */
+    private NotificationRun execute(NotificationTemplate.Code type, boolean force) {
         log.info("{} Eksekusi jadwal notifikasi {} (force={})",
                 force ? "[Manual]" : "[Auto]", type, force);
 
         switch (type) {
             case CERT_REMINDER -> {
-                notificationService.processCertReminder();
+                NotificationRun run = notificationService.processCertReminder();
                 log.info("Handler CERT_REMINDER executed.");
+                return run;
             }
             case EXPIRED_NOTICE -> {
-                notificationService.processCertExpired();
+                NotificationRun run = notificationService.processCertExpired();
                 log.info("Handler EXPIRED_NOTICE executed.");
+                return run;
             }
             case BATCH_NOTIFICATION -> {
                 log.info("BATCH_NOTIFICATION is not executed globally via scheduler.");
             }
             default -> log.warn("Unsupported schedule type: {}", type);
         }
+        return null;
     }
 
-    private boolean isWeekend(LocalDate d) {
+    private static boolean isWeekend(LocalDate d) {
         DayOfWeek w = d.getDayOfWeek();
         return (w == DayOfWeek.SATURDAY || w == DayOfWeek.SUNDAY);
     }
@@ -5,31 +5,34 @@ import com.bankmega.certification.entity.Employee;
 import com.bankmega.certification.entity.EmployeeBatch;
 import com.bankmega.certification.entity.EmployeeCertification;
 import com.bankmega.certification.entity.Notification;
+import com.bankmega.certification.entity.NotificationRun;
 import com.bankmega.certification.entity.NotificationTemplate;
 import com.bankmega.certification.entity.PicCertificationScope;
+import com.bankmega.certification.exception.BadRequestException;
 import com.bankmega.certification.repository.BatchRepository;
 import com.bankmega.certification.repository.EmployeeBatchRepository;
-import com.bankmega.certification.repository.EmployeeCertificationRepository;
 import com.bankmega.certification.repository.EmployeeRepository;
 import com.bankmega.certification.repository.NotificationRepository;
 import com.bankmega.certification.repository.PicCertificationScopeRepository;
+import com.bankmega.certification.service.email_outbox.EmailOutboxService;
+import com.bankmega.certification.service.email_outbox.EmailOutboxService.OutboundEmail;
+import com.bankmega.certification.service.NotificationTemplateService.RenderedTemplate;
+import com.bankmega.certification.service.notification_inbox.NotificationStreamService;
+import com.bankmega.certification.service.notification_inbox.UnreadCountCache;
 import com.bankmega.certification.specification.NotificationSpecification;
 
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
-import java.time.LocalDate;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -39,11 +42,14 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final EmployeeCertificationRepository employeeCertificationRepository;
     private final EmployeeBatchRepository employeeBatchRepository;
     private final BatchRepository batchRepository;
     private final NotificationTemplateService templateService;
-    private final JavaMailSenderImpl reusableMailSender;
+    private final EmailOutboxService emailOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final CertificationNotificationRunner certificationRunner;
+    private final UnreadCountCache unreadCounts;
+    private final NotificationStreamService notificationStream;
 
     private final EmployeeRepository employeeRepository; // map employee for admin/pic view
     private final PicCertificationScopeRepository picCertificationScopeRepository; // pic scope repo
@@ -70,12 +76,17 @@ public class NotificationService {
                 .sentAt(LocalDateTime.now())
                 .build();
 
-        notificationRepository.save(java.util.Objects.requireNonNull(notif));
-
-        if (!isBlank(email)) {
-            sendEmailAsync(email, title, messageEmailHtml);
-        }
-        return notif;
+        // Notifikasi + antrian email satu transaksi; kirim SMTP-nya oleh worker outbox
+        return transactionTemplate.execute(status -> {
+            notificationRepository.save(java.util.Objects.requireNonNull(notif));
+            unreadCounts.adjust(userId, 1);
+            notificationStream.publish(List.of(notif));
+            if (!isBlank(email)) {
+                emailOutbox.enqueue(List.of(new OutboundEmail(notif.getId(), notif.getCreatedAt(), email, title,
+                        wrapEmailHtml(messageEmailHtml))));
+            }
+            return notif;
+        });
     }
 
     public Notification sendNotification(
@@ -153,46 +164,11 @@ public class NotificationService {
         return list.stream().collect(Collectors.toMap(Employee::getId, e -> e, (a, b) -> a));
     }
 
-    @Async
-    public void sendEmailAsync(String to, String subject, String htmlContent) {
-        for (int attempt = 1; attempt <= 2; attempt++) {
-            try {
-                final MimeMessage message = reusableMailSender.createMimeMessage();
-                final MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-                final String fromAddr = java.util.Objects
-                        .requireNonNull(Objects.toString(getUsernameSafe(), "no-reply@megacert.local"));
-                helper.setFrom(fromAddr);
-                helper.setTo(java.util.Objects.requireNonNull(to));
-                helper.setSubject(java.util.Objects.requireNonNull(subject));
-
-                final String html = "<div style='font-family:Arial,sans-serif;line-height:1.6;font-size:14px'>"
-                        + htmlContent
-                        + "<br><p style='font-size:12px;color:gray;margin-top:8px;'>--<br>"
-                        + "Dikirim otomatis oleh <b>Mega Certification System</b></p></div>";
-
-                helper.setText(html, true);
-                reusableMailSender.send(message);
-                log.info("Email notifikasi terkirim ke {}", to);
-                return;
-            } catch (Exception e) {
-                if (attempt == 2) {
-                    log.error("Email gagal ke {} setelah {} kali coba", to, attempt, e);
-                } else {
-                    log.warn("Gagal kirim email ke {} (attempt {})", to, attempt, e);
-                }
-            }
-        }
-    }
-
-    private String getUsernameSafe() {
-        try {
-            if (reusableMailSender instanceof org.springframework.mail.javamail.JavaMailSenderImpl senderImpl) {
-                return senderImpl.getUsername();
-            }
-        } catch (Exception ignored) {
-        }
-        return null;
+    static String wrapEmailHtml(String htmlContent) {
+        return "<div style='font-family:Arial,sans-serif;line-height:1.6;font-size:14px'>"
+                + Objects.toString(htmlContent, "")
+                + "<br><p style='font-size:12px;color:gray;margin-top:8px;'>--<br>"
+                + "Dikirim otomatis oleh <b>Mega Certification System</b></p></div>";
     }
 
     public void sendCertificationReminder(Employee employee, EmployeeCertification cert) {
@@ -202,51 +178,22 @@ public class NotificationService {
             return;
 
         final String certName = buildCertificationFullName(cert);
-        final String subject = templateService.generateTitle(
-                NotificationTemplate.Code.CERT_REMINDER, employee, certName, cert.getValidUntil(), null, null);
-        final String bodyPlain = templateService.generateMessage(
-                NotificationTemplate.Code.CERT_REMINDER, employee, certName, cert.getValidUntil(), null, null);
-
-        Map<String, String> vars = buildCommonVars(employee);
-        vars.put("{{namaSertifikasi}}", certName);
-        vars.put("{{berlakuSampai}}", formatDateId(cert.getValidUntil()));
-
-        final String bodyHtml = buildHtmlWithBold(bodyPlain, vars);
+        final RenderedTemplate rendered = templateService.render(NotificationTemplate.Code.CERT_REMINDER, employee,
+                NotificationTemplateService.certExtras(certName, cert.getValidUntil(), null, null));
 
         sendNotification(
                 employee.getId(),
                 employee.getEmail(),
-                subject,
-                bodyPlain,
-                bodyHtml,
+                rendered.title(),
+                rendered.bodyPlain(),
+                rendered.bodyHtml(),
                 Notification.Type.CERT_REMINDER,
                 "EmployeeCertification",
                 cert.getId());
     }
 
-    public void processCertReminder() {
-        final LocalDate today = LocalDate.now();
-        final List<EmployeeCertification> due = employeeCertificationRepository
-                .findByReminderDateAndDeletedAtIsNull(today);
-
-        if (due == null || due.isEmpty())
-            return;
-
-        final List<Notification> already = notificationRepository
-                .findByTypeAndRelatedEntity(Notification.Type.CERT_REMINDER, "EmployeeCertification");
-
-        final Set<String> sentPairs = already.stream()
-                .map(n -> n.getUserId() + "-" + n.getRelatedEntityId())
-                .collect(Collectors.toSet());
-
-        final List<EmployeeCertification> toSend = due.stream()
-                .filter(c -> c.getEmployee() != null)
-                .filter(c -> !sentPairs.contains(c.getEmployee().getId() + "-" + c.getId()))
-                .collect(Collectors.toList());
-
-        for (EmployeeCertification c : toSend) {
-            sendCertificationReminder(c.getEmployee(), c);
-        }
+    public NotificationRun processCertReminder() {
+        return certificationRunner.run(Notification.Type.CERT_REMINDER);
     }
 
     public void sendCertificationExpired(Employee employee, EmployeeCertification cert) {
@@ -256,52 +203,22 @@ public class NotificationService {
             return;
 
         final String certName = buildCertificationFullName(cert);
-        final String subject = templateService.generateTitle(
-                NotificationTemplate.Code.EXPIRED_NOTICE, employee, certName, cert.getValidUntil(), null, null);
-        final String bodyPlain = templateService.generateMessage(
-                NotificationTemplate.Code.EXPIRED_NOTICE, employee, certName, cert.getValidUntil(), null, null);
-
-        Map<String, String> vars = buildCommonVars(employee);
-        vars.put("{{namaSertifikasi}}", certName);
-        vars.put("{{berlakuSampai}}", formatDateId(cert.getValidUntil()));
-
-        final String bodyHtml = buildHtmlWithBold(bodyPlain, vars);
+        final RenderedTemplate rendered = templateService.render(NotificationTemplate.Code.EXPIRED_NOTICE, employee,
+                NotificationTemplateService.certExtras(certName, cert.getValidUntil(), null, null));
 
         sendNotification(
                 employee.getId(),
                 employee.getEmail(),
-                subject,
-                bodyPlain,
-                bodyHtml,
+                rendered.title(),
+                rendered.bodyPlain(),
+                rendered.bodyHtml(),
                 Notification.Type.EXPIRED_NOTICE,
                 "EmployeeCertification",
                 cert.getId());
     }
 
-    public void processCertExpired() {
-        final LocalDate today = LocalDate.now();
-
-        final List<EmployeeCertification> expired = employeeCertificationRepository
-                .findByValidUntilLessThanEqualAndDeletedAtIsNull(today);
-
-        if (expired == null || expired.isEmpty())
-            return;
-
-        final List<Notification> already = notificationRepository
-                .findByTypeAndRelatedEntity(Notification.Type.EXPIRED_NOTICE, "EmployeeCertification");
-
-        final Set<String> sentPairs = already.stream()
-                .map(n -> n.getUserId() + "-" + n.getRelatedEntityId())
-                .collect(Collectors.toSet());
-
-        final List<EmployeeCertification> toSend = expired.stream()
-                .filter(c -> c.getEmployee() != null)
-                .filter(c -> !sentPairs.contains(c.getEmployee().getId() + "-" + c.getId()))
-                .toList();
-
-        for (EmployeeCertification c : toSend) {
-            sendCertificationExpired(c.getEmployee(), c);
-        }
+    public NotificationRun processCertExpired() {
+        return certificationRunner.run(Notification.Type.EXPIRED_NOTICE);
     }
 
     public int notifyParticipantsByBatch(Long batchId, EmployeeBatch.Status onlyStatus) {
@@ -336,22 +253,13 @@ public class NotificationService {
             extras.put("{{mulaiTanggal}}", batch.getStartDate());
             extras.put("{{jenisBatch}}", mapJenisBatch(batch.getType()));
 
-            final String subject = templateService.generateTitle(
+            final RenderedTemplate rendered = templateService.render(
                     NotificationTemplate.Code.BATCH_NOTIFICATION, emp, extras);
-            final String bodyPlain = templateService.generateMessage(
-                    NotificationTemplate.Code.BATCH_NOTIFICATION, emp, extras);
-
-            Map<String, String> vars = buildCommonVars(emp);
-            vars.put("{{namaBatch}}", Objects.toString(extras.get("{{namaBatch}}"), "-"));
-            vars.put("{{mulaiTanggal}}", formatDateId((LocalDate) extras.get("{{mulaiTanggal}}")));
-            vars.put("{{jenisBatch}}", Objects.toString(extras.get("{{jenisBatch}}"), "-"));
-
-            final String bodyHtml = buildHtmlWithBold(bodyPlain, vars);
 
             Notification notif = Notification.builder()
                     .userId(emp.getId())
-                    .title(subject)
-                    .message(bodyPlain)
+                    .title(rendered.title())
+                    .message(rendered.bodyPlain())
                     .type(Notification.Type.BATCH_NOTIFICATION)
                     .isRead(false)
                     .relatedEntity("Batch")
@@ -361,18 +269,26 @@ public class NotificationService {
                     .build();
 
             notificationsToSave.add(notif);
-            emailRequests.add(new EmailRequest(emp.getEmail(), subject, bodyHtml));
+            emailRequests.add(new EmailRequest(notif, emp.getEmail(), rendered.title(), rendered.bodyHtml()));
         }
 
-        if (!notificationsToSave.isEmpty()) {
-            notificationRepository.saveAll(notificationsToSave);
-            log.info("Bulk saved {} notifications for batch {}", notificationsToSave.size(), batchId);
-        }
+        if (notificationsToSave.isEmpty())
+            return 0;
 
-        // Send emails async
-        for (EmailRequest req : emailRequests) {
-            sendEmailAsync(req.to, req.subject, req.html);
-        }
+        // Simpan notifikasi + antrikan email dalam satu transaksi; worker outbox
+        // yang kirim, jadi request tidak menunggu SMTP
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationRepository.saveAll(notificationsToSave);
+            unreadCounts.adjustAll(notificationsToSave.stream()
+                    .collect(Collectors.toMap(Notification::getUserId, n -> 1L, Long::sum)));
+            notificationStream.publish(notificationsToSave);
+            emailOutbox.enqueue(emailRequests.stream()
+                    .map(r -> new OutboundEmail(r.notification().getId(), r.notification().getCreatedAt(), r.to(),
+                            r.subject(), wrapEmailHtml(r.html())))
+                    .toList());
+        });
+        log.info("Bulk saved {} notifications for batch {}, {} emails queued", notificationsToSave.size(),
+                batchId, emailRequests.size());
 
         return notificationsToSave.size();
     }
@@ -388,30 +304,21 @@ public class NotificationService {
         extras.put("{{mulaiTanggal}}", batch.getStartDate());
         extras.put("{{jenisBatch}}", mapJenisBatch(batch.getType()));
 
-        final String subject = templateService.generateTitle(
+        final RenderedTemplate rendered = templateService.render(
                 NotificationTemplate.Code.BATCH_NOTIFICATION, employee, extras);
-        final String bodyPlain = templateService.generateMessage(
-                NotificationTemplate.Code.BATCH_NOTIFICATION, employee, extras);
-
-        Map<String, String> vars = buildCommonVars(employee);
-        vars.put("{{namaBatch}}", Objects.toString(extras.get("{{namaBatch}}"), "-"));
-        vars.put("{{mulaiTanggal}}", formatDateId((LocalDate) extras.get("{{mulaiTanggal}}")));
-        vars.put("{{jenisBatch}}", Objects.toString(extras.get("{{jenisBatch}}"), "-"));
-
-        final String bodyHtml = buildHtmlWithBold(bodyPlain, vars);
 
         sendNotification(
                 employee.getId(),
                 employee.getEmail(),
-                subject,
-                bodyPlain,
-                bodyHtml,
+                rendered.title(),
+                rendered.bodyPlain(),
+                rendered.bodyHtml(),
                 Notification.Type.BATCH_NOTIFICATION,
                 "Batch",
                 batch.getId());
     }
 
-    private record EmailRequest(String to, String subject, String html) {
+    private record EmailRequest(Notification notification, String to, String subject, String html) {
     }
 
     public List<Notification> getUserNotifications(Long userId) {
@@ -420,23 +327,77 @@ public class NotificationService {
     }
 
     public List<Notification> getLatestNotifications(Long userId, int limit) {
-        if (limit <= 0) {
-            limit = 5;
-        } else if (limit > 50) {
-            limit = 50;
+        return notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId,
+                PageRequest.of(0, clampLimit(limit, 5)));
+    }
+
+    public record InboxPage(List<Notification> items, String nextCursor) {
+    }
+
+    /**
+     * Inbox dengan cursor (keyset) paging: tiap halaman satu query LIMIT di
+     * index (user_id, created_at DESC, id DESC), tanpa OFFSET / COUNT.
+     */
+    public InboxPage getInbox(Long userId, int limit, String cursor) {
+        final int size = clampLimit(limit, 20);
+        // ambil satu ekstra untuk tahu masih ada halaman berikutnya
+        final Pageable page = PageRequest.of(0, size + 1);
+
+        List<Notification> rows;
+        if (isBlank(cursor)) {
+            rows = notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, page);
+        } else {
+            InboxCursor c = InboxCursor.decode(cursor);
+            rows = notificationRepository.findInboxAfter(userId, c.createdAt(), c.id(), page);
         }
 
-        final List<Notification> list = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        if (list == null || list.isEmpty()) {
-            return Collections.<Notification>emptyList();
+        if (rows.size() <= size)
+            return new InboxPage(rows, null);
+
+        List<Notification> items = rows.subList(0, size);
+        Notification last = items.get(size - 1);
+        return new InboxPage(List.copyOf(items), new InboxCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    private record InboxCursor(LocalDateTime createdAt, Long id) {
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "_" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static InboxCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('_');
+                return new InboxCursor(LocalDateTime.parse(raw.substring(0, sep)),
+                        Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Cursor notifikasi tidak valid");
+            }
         }
-        return list.stream()
-                .limit(limit)
-                .toList();
+    }
+
+    private static int clampLimit(int limit, int defaultLimit) {
+        if (limit <= 0)
+            return defaultLimit;
+        return Math.min(limit, 50);
     }
 
     public void markAsRead(Long notificationId, Long currentUserId) {
-        notificationRepository.findById(java.util.Objects.requireNonNull(notificationId)).ifPresent(n -> {
+        markAsRead(notificationId, null, currentUserId);
+    }
+
+    /**
+     * {@code createdAt} (dari response inbox) membatasi lookup ke partisi bulan
+     * notifikasi itu; tanpa itu lookup by id membaca index di semua partisi.
+     */
+    public void markAsRead(Long notificationId, LocalDateTime createdAt, Long currentUserId) {
+        java.util.Objects.requireNonNull(notificationId);
+        Optional<Notification> found = createdAt != null
+                ? notificationRepository.findByIdAndCreatedAtGreaterThanEqual(notificationId,
+                        createdAt.toLocalDate().atStartOfDay())
+                : notificationRepository.findById(notificationId);
+        found.ifPresent(n -> {
             if (!Objects.equals(n.getUserId(), currentUserId)) {
                 throw new AccessDeniedException("Tidak boleh mengubah notifikasi user lain");
             }
@@ -445,12 +406,32 @@ public class NotificationService {
                 n.setRead(true);
                 n.setReadAt(LocalDateTime.now());
                 notificationRepository.save(n);
+                unreadCounts.adjust(currentUserId, -1);
+                notificationStream.publishUnreadCount(currentUserId);
             }
         });
     }
 
+    // Notifikasi user lain / yang sudah dibaca otomatis tidak ikut ter-update
+    public int markManyAsRead(Long currentUserId, Collection<Long> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty())
+            return 0;
+        int updated = notificationRepository.markReadByIds(currentUserId, new LinkedHashSet<>(notificationIds),
+                LocalDateTime.now());
+        unreadCounts.adjust(currentUserId, -updated);
+        notificationStream.publishUnreadCount(currentUserId);
+        return updated;
+    }
+
+    public int markAllAsRead(Long currentUserId) {
+        int updated = notificationRepository.markAllRead(currentUserId, LocalDateTime.now());
+        unreadCounts.reset(currentUserId);
+        notificationStream.publishUnreadCount(currentUserId);
+        return updated;
+    }
+
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadCounts.get(userId, () -> notificationRepository.countByUserIdAndIsReadFalse(userId));
     }
 
     private String mapJenisBatch(Batch.BatchType type) {
@@ -472,7 +453,7 @@ public class NotificationService {
         return s == null || s.trim().isEmpty();
     }
 
-    private String buildCertificationFullName(EmployeeCertification cert) {
+    static String buildCertificationFullName(EmployeeCertification cert) {
         final var rule = cert.getCertificationRule();
         if (rule == null)
             return "-";
@@ -483,51 +464,4 @@ public class NotificationService {
             name += " (" + rule.getSubField().getName() + ")";
         return name;
     }
-
-    private Map<String, String> buildCommonVars(Employee emp) {
-        Map<String, String> m = new LinkedHashMap<>();
-        m.put("{{sapaan}}", computeSalutation(emp));
-        m.put("{{nama}}", emp != null ? nullSafe(emp.getName()) : "-");
-        return m;
-    }
-
-    private String computeSalutation(Employee emp) {
-        return "Bapak/Ibu";
-    }
-
-    private String nullSafe(Object o) {
-        return o == null ? "-" : o.toString();
-    }
-
-    private String formatDateId(LocalDate date) {
-        if (date == null)
-            return "-";
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("d MMMM yyyy", Locale.forLanguageTag("id-ID"));
-        return date.format(fmt);
-    }
-
-    private String buildHtmlWithBold(String plain, Map<String, String> variables) {
-        String html = htmlEscape(Objects.toString(plain, ""));
-        for (Map.Entry<String, String> e : variables.entrySet()) {
-            String val = e.getValue();
-            if (isBlank(val))
-                continue;
-            String escapedVal = htmlEscape(val);
-            html = html.replace(escapedVal, "<b>" + escapedVal + "</b>");
-        }
-        html = html.replace("\r\n", "\n").replace("\n", "<br/>");
-        return html;
-    }
-
-    private String htmlEscape(String s) {
-        if (s == null)
-            return "";
-        String out = s;
-        out = out.replace("&", "&amp;");
-        out = out.replace("<", "&lt;");
-        out = out.replace(">", "&gt;");
-        out = out.replace("\"", "&quot;");
-        out = out.replace("'", "&#039;");
-        return out;
-    }
 }
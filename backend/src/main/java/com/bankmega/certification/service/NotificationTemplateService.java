@@ -4,17 +4,21 @@ import com.bankmega.certification.entity.Employee;
 import com.bankmega.certification.entity.NotificationTemplate;
 import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.NotificationTemplateRepository;
+import com.bankmega.certification.service.notification_template.CompiledTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAccessor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -23,6 +27,9 @@ public class NotificationTemplateService {
 
     private final NotificationTemplateRepository repository;
 
+    private static final long CACHE_TTL_MS = 5 * 60 * 1000L;
+    private final Map<NotificationTemplate.Code, Compiled> compiledCache = new ConcurrentHashMap<>();
+
     private static final Locale ID_LOCALE = Locale.forLanguageTag("id-ID");
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("d MMMM yyyy", ID_LOCALE);
 
@@ -67,13 +74,63 @@ public class NotificationTemplateService {
         template.setUpdatedBy(updatedBy);
         template.setUpdatedAt(LocalDateTime.now());
         NotificationTemplate updated = repository.save(template);
+        evictCompiled(template.getCode());
 
         log.info("Template {} berhasil diupdate", template.getCode());
         return updated;
     }
 
+    // ================== COMPILED CACHE ==================
+    private record Compiled(CompiledTemplate title, CompiledTemplate body, long loadedAt) {
+    }
+
+    /**
+     * Template hasil parse per code. Dibuang saat updateTemplate (lagi setelah
+     * transaksi selesai); TTL supaya instance lain ikut dapat perubahan.
+     */
+    private Compiled compiled(NotificationTemplate.Code code) {
+        Compiled c = compiledCache.get(code);
+        if (c != null && System.currentTimeMillis() - c.loadedAt() < CACHE_TTL_MS)
+            return c;
+
+        NotificationTemplate template = repository.findByCode(code)
+                .orElseThrow(() -> new NotFoundException("Template notifikasi tidak ditemukan untuk kode: " + code));
+        c = new Compiled(CompiledTemplate.compile(template.getTitle()), CompiledTemplate.compile(template.getBody()),
+                System.currentTimeMillis());
+        compiledCache.put(code, c);
+        log.debug("🧩 Template {} di-compile ulang", code);
+        return c;
+    }
+
+    private void evictCompiled(NotificationTemplate.Code code) {
+        compiledCache.remove(code);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    compiledCache.remove(code);
+                }
+            });
+        }
+    }
+
+    // ================== RENDER (TITLE + BODY PLAIN/HTML) ==================
+    public record RenderedTemplate(String title, String bodyPlain, String bodyHtml) {
+    }
+
+    /**
+     * Render judul + isi (plain dan HTML dengan nilai variabel di-bold) dalam
+     * satu pass. Variabel dasar {{sapaan}} dan {{nama}} selalu ada; extras boleh
+     * LocalDate/LocalDateTime/String/Number.
+     */
+    public RenderedTemplate render(NotificationTemplate.Code code, Employee employee, Map<String, ?> extras) {
+        Compiled c = compiled(code);
+        Map<String, String> vars = buildVars(employee, extras);
+        CompiledTemplate.Rendered body = c.body().render(vars);
+        return new RenderedTemplate(c.title().renderPlain(vars), body.plain(), body.html());
+    }
+
     // ================== GENERATE (TITLE/BODY) ==================
-    @Transactional(readOnly = true)
     public String generateTitle(
             NotificationTemplate.Code code,
             Employee employee,
@@ -81,11 +138,10 @@ public class NotificationTemplateService {
             LocalDate berlakuSampai,
             String namaBatch,
             LocalDate mulaiTanggal) {
-        NotificationTemplate template = getTemplateByCode(code);
-        return replaceVariables(template.getTitle(), employee, namaSertifikasi, berlakuSampai, namaBatch, mulaiTanggal);
+        return compiled(code).title().renderPlain(
+                buildVars(employee, certExtras(namaSertifikasi, berlakuSampai, namaBatch, mulaiTanggal)));
     }
 
-    @Transactional(readOnly = true)
     public String generateMessage(
             NotificationTemplate.Code code,
             Employee employee,
@@ -93,82 +149,50 @@ public class NotificationTemplateService {
             LocalDate berlakuSampai,
             String namaBatch,
             LocalDate mulaiTanggal) {
-        NotificationTemplate template = getTemplateByCode(code);
-        return replaceVariables(template.getBody(), employee, namaSertifikasi, berlakuSampai, namaBatch, mulaiTanggal);
+        return compiled(code).body().renderPlain(
+                buildVars(employee, certExtras(namaSertifikasi, berlakuSampai, namaBatch, mulaiTanggal)));
     }
 
-    @Transactional(readOnly = true)
     public String generateTitle(
             NotificationTemplate.Code code,
             Employee employee,
             Map<String, Object> extras) {
-        NotificationTemplate template = getTemplateByCode(code);
-        return renderWithExtras(template.getTitle(), employee, extras);
+        return compiled(code).title().renderPlain(buildVars(employee, extras));
     }
 
-    @Transactional(readOnly = true)
     public String generateMessage(
             NotificationTemplate.Code code,
             Employee employee,
             Map<String, Object> extras) {
-        NotificationTemplate template = getTemplateByCode(code);
-        return renderWithExtras(template.getBody(), employee, extras);
+        return compiled(code).body().renderPlain(buildVars(employee, extras));
     }
 
-    // ================== VARIABLE REPLACEMENT ==================
-    private String replaceVariables(
-            String text,
-            Employee employee,
+    // ================== VARIABLES ==================
+    public static Map<String, Object> certExtras(
             String namaSertifikasi,
             LocalDate berlakuSampai,
             String namaBatch,
             LocalDate mulaiTanggal) {
-        if (isBlank(text))
-            return "-";
-
-        Map<String, String> baseVars = new LinkedHashMap<>();
-        baseVars.put("{{sapaan}}", getSapaan(employee));
-        baseVars.put("{{nama}}", safe(employee != null ? employee.getName() : null));
-        baseVars.put("{{namaSertifikasi}}", safe(namaSertifikasi));
-        baseVars.put("{{berlakuSampai}}", formatTanggal(berlakuSampai));
-        baseVars.put("{{namaBatch}}", safe(namaBatch));
-        baseVars.put("{{mulaiTanggal}}", formatTanggal(mulaiTanggal));
-
-        String result = applyVariables(text, baseVars);
-
-        log.debug("🧩 Template processed: {}", result);
-        return result;
+        Map<String, Object> extras = new HashMap<>(8);
+        extras.put("{{namaSertifikasi}}", isBlank(namaSertifikasi) ? null : namaSertifikasi);
+        extras.put("{{berlakuSampai}}", berlakuSampai);
+        extras.put("{{namaBatch}}", isBlank(namaBatch) ? null : namaBatch);
+        extras.put("{{mulaiTanggal}}", mulaiTanggal);
+        return extras;
     }
 
-    private String renderWithExtras(String text, Employee employee, Map<String, Object> extras) {
-        if (isBlank(text))
-            return "-";
-
+    private Map<String, String> buildVars(Employee employee, Map<String, ?> extras) {
         // Variabel dasar tetap tersedia
-        Map<String, String> vars = new LinkedHashMap<>();
+        Map<String, String> vars = new HashMap<>(8);
         vars.put("{{sapaan}}", getSapaan(employee));
         vars.put("{{nama}}", safe(employee != null ? employee.getName() : null));
 
-        // Tambahan dari extras (boleh LocalDate/LocalDateTime/String/Number)
-        if (extras != null && !extras.isEmpty()) {
-            for (Map.Entry<String, Object> e : extras.entrySet()) {
-                String key = e.getKey();
-                Object val = e.getValue();
-                vars.put(key, stringify(val));
+        if (extras != null) {
+            for (Map.Entry<String, ?> e : extras.entrySet()) {
+                vars.put(e.getKey(), stringify(e.getValue()));
             }
         }
-
-        String result = applyVariables(text, vars);
-        log.debug("🧩 Template processed (extras): {}", result);
-        return result;
-    }
-
-    private String applyVariables(String template, Map<String, String> vars) {
-        String result = template;
-        for (var entry : vars.entrySet()) {
-            result = result.replace(entry.getKey(), entry.getValue());
-        }
-        return result;
+        return vars;
     }
 
     // ================== UTIL ==================
@@ -211,7 +235,7 @@ public class NotificationTemplateService {
         return (!isBlank(val)) ? val : "-";
     }
 
-    private boolean isBlank(String s) {
+    private static boolean isBlank(String s) {
         return s == null || s.trim().isEmpty();
     }
 }
@@ -5,11 +5,11 @@ import com.bankmega.certification.entity.User;
 import com.bankmega.certification.exception.ConflictException;
 import com.bankmega.certification.repository.PasswordResetTokenRepository;
 import com.bankmega.certification.repository.UserRepository;
+import com.bankmega.certification.service.mail_sender.MailSenderHolder;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.crypto.bcrypt.BCrypt;
@@ -22,7 +22,6 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -33,7 +32,7 @@ public class PasswordResetService {
 
     private final UserRepository userRepo;
     private final PasswordResetTokenRepository tokenRepo;
-    private final JavaMailSender reusableMailSender; // bean dari MailSenderConfig
+    private final MailSenderHolder mailSenderHolder; // sender ikut config email aktif
 
     // Saran: ganti ke http saat dev biar gak ribet SSL
     @Value("${app.frontend.base-url:http://localhost:5173}")
@@ -179,17 +178,10 @@ public class PasswordResetService {
                 """.formatted(resetLink);
 
         try {
-            // Check if mail sender is actually usable/configured properly before trying
-            if (reusableMailSender == null) {
-                log.warn("JavaMailSender is null, skipping email sending");
-                return;
-            }
-
-            MimeMessage message = reusableMailSender.createMimeMessage();
+            MimeMessage message = mailSenderHolder.current().createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            String fromAddr = Objects.requireNonNull(Objects.toString(getUsernameSafe(), "no-reply@megacert.local"));
-            helper.setFrom(fromAddr);
+            helper.setFrom(mailSenderHolder.fromAddress());
             helper.setTo(to);
             helper.setSubject(subject);
 
@@ -203,7 +195,7 @@ public class PasswordResetService {
                     + "Dikirim otomatis oleh <b>Mega Certification System</b></p></div>";
 
             helper.setText(html, true);
-            reusableMailSender.send(message);
+            mailSenderHolder.send(message);
             log.info("Email reset password terkirim ke {}", to);
         } catch (Exception e) {
             // Log error but DO NOT THROW, so the API returns 200 OK
@@ -214,16 +206,6 @@ public class PasswordResetService {
         }
     }
 
-    private String getUsernameSafe() {
-        try {
-            if (reusableMailSender instanceof org.springframework.mail.javamail.JavaMailSenderImpl senderImpl) {
-                return senderImpl.getUsername();
-            }
-        } catch (Exception ignored) {
-        }
-        return null;
-    }
-
     private static String trimToNull(String s) {
         if (s == null)
             return null;
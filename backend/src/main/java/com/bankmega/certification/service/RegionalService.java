@@ -7,6 +7,7 @@ import com.bankmega.certification.exception.ConflictException;
 import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.EmployeeRepository;
 import com.bankmega.certification.repository.RegionalRepository;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,7 @@ public class RegionalService {
 
     private final RegionalRepository repo;
     private final EmployeeRepository employeeRepo;
+    private final ReferenceDataCache referenceData;
 
     // Ambil semua (dropdown)
     public List<RegionalResponse> getAll() {
@@ -62,6 +64,7 @@ public class RegionalService {
                         .createdAt(Instant.now())
                         .updatedAt(Instant.now())
                         .build())));
+        referenceData.invalidate(ReferenceDataCache.Type.REGIONAL);
         return mapToResponse(r);
     }
 
@@ -80,7 +83,9 @@ public class RegionalService {
 
         r.setIsActive(!r.getIsActive());
         r.setUpdatedAt(Instant.now());
-        return mapToResponse(repo.save(r));
+        Regional saved = repo.save(r);
+        referenceData.invalidate(ReferenceDataCache.Type.REGIONAL);
+        return mapToResponse(saved);
     }
 
     private RegionalResponse mapToResponse(Regional r) {
@@ -8,6 +8,7 @@ import com.bankmega.certification.exception.ConflictException;
 import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.CertificationRepository;
 import com.bankmega.certification.repository.SubFieldRepository;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -21,6 +22,7 @@ public class SubFieldService {
 
     private final SubFieldRepository repo;
     private final CertificationRepository certRepo;
+    private final ReferenceDataCache referenceData;
 
     public List<SubFieldResponse> getAll() {
         return repo.findWithCertificationByDeletedAtIsNull().stream()
@@ -58,7 +60,9 @@ public class SubFieldService {
                 .certification(cert)
                 .build();
 
-        return toResponse(repo.save(java.util.Objects.requireNonNull(sf)));
+        SubField saved = repo.save(java.util.Objects.requireNonNull(sf));
+        referenceData.invalidate(ReferenceDataCache.Type.SUB_FIELD);
+        return toResponse(saved);
     }
 
     public SubFieldResponse update(Long id, SubFieldRequest req) {
@@ -80,7 +84,9 @@ public class SubFieldService {
         sf.setName(req.getName());
         sf.setCertification(cert);
 
-        return toResponse(repo.save(sf));
+        SubField saved = repo.save(sf);
+        referenceData.invalidate(ReferenceDataCache.Type.SUB_FIELD);
+        return toResponse(saved);
     }
 
     public void softDelete(Long id) {
@@ -88,6 +94,7 @@ public class SubFieldService {
                 .orElseThrow(() -> new NotFoundException("SubField not found"));
         sf.setDeletedAt(Instant.now());
         repo.save(sf);
+        referenceData.invalidate(ReferenceDataCache.Type.SUB_FIELD);
     }
 
     private SubFieldResponse toResponse(SubField sf) {
@@ -7,6 +7,7 @@ import com.bankmega.certification.exception.ConflictException;
 import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.EmployeeRepository;
 import com.bankmega.certification.repository.UnitRepository;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,7 @@ public class UnitService {
 
     private final UnitRepository repo;
     private final EmployeeRepository employeeRepo;
+    private final ReferenceDataCache referenceData;
 
     public List<UnitResponse> getAll() {
         return repo.findAllByOrderByIsActiveDescNameAsc().stream()
@@ -55,6 +57,7 @@ public class UnitService {
                         .createdAt(Instant.now())
                         .updatedAt(Instant.now())
                         .build())));
+        referenceData.invalidate(ReferenceDataCache.Type.UNIT);
         return mapToResponse(u);
     }
 
@@ -72,7 +75,9 @@ public class UnitService {
 
         u.setIsActive(!u.getIsActive());
         u.setUpdatedAt(Instant.now());
-        return mapToResponse(repo.save(u));
+        Unit saved = repo.save(u);
+        referenceData.invalidate(ReferenceDataCache.Type.UNIT);
+        return mapToResponse(saved);
     }
 
     private UnitResponse mapToResponse(Unit u) {
@@ -12,6 +12,8 @@ import com.bankmega.certification.exception.NotFoundException;
 import com.bankmega.certification.repository.EmployeeRepository;
 import com.bankmega.certification.repository.RoleRepository;
 import com.bankmega.certification.repository.UserRepository;
+import com.bankmega.certification.security.BulkPasswordHasher;
+import com.bankmega.certification.security.PrincipalCache;
 import com.bankmega.certification.specification.UserSpecification;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -39,6 +41,8 @@ public class UserService {
     private final UserRepository userRepo;
     private final RoleRepository roleRepo;
     private final EmployeeRepository empRepo;
+    private final BulkPasswordHasher bulkHasher;
+    private final PrincipalCache principalCache; // principal JWT filter, evict tiap user berubah
 
     @PersistenceContext
     private EntityManager em;
@@ -218,6 +222,7 @@ public class UserService {
         }
 
         boolean changed = false;
+        String oldUsername = user.getUsername();
 
         // username
         if (req.getUsername() != null) {
@@ -282,6 +287,7 @@ public class UserService {
         }
 
         user.setUpdatedAt(Instant.now());
+        principalCache.evict(oldUsername);
 
         try {
             return toResponse(userRepo.save(user));
@@ -309,6 +315,7 @@ public class UserService {
         user.setDeletedAt(Instant.now());
         user.setUpdatedAt(Instant.now());
         userRepo.save(user);
+        principalCache.evict(user.getUsername());
     }
 
     @Transactional
@@ -328,6 +335,7 @@ public class UserService {
 
         user.setIsActive(!user.getIsActive());
         user.setUpdatedAt(Instant.now());
+        principalCache.evict(user.getUsername());
         return toResponse(userRepo.save(user));
     }
 
@@ -344,6 +352,7 @@ public class UserService {
         user.setIsFirstLogin(false);
         user.setUpdatedAt(Instant.now());
         userRepo.save(user);
+        principalCache.evict(user.getUsername());
     }
 
     // ===================== BATCH OPS (AFTER COMMIT import) =====================
@@ -476,11 +485,10 @@ public class UserService {
                 continue;
             }
 
-            // C) bener-bener belum ada → create baru
+            // C) bener-bener belum ada → create baru (password di-hash paralel di bawah)
             User nu = User.builder()
                     .username(nip)
                     .email(e.getEmail()) // boleh null/duplikat
-                    .password(hashBulk(nip))
                     .role(rolePegawai)
                     .employee(empRepo.getReferenceById(Objects.requireNonNull(e.getId())))
                     .isActive(true)
@@ -491,6 +499,15 @@ public class UserService {
             toCreate.add(nu);
         }
 
+        // password awal = NIP; BCrypt semua akun baru sekaligus di pool paralel
+        if (!toCreate.isEmpty()) {
+            List<String> hashes = bulkHasher.hashAll(toCreate.stream().map(User::getUsername).toList(),
+                    BCRYPT_COST_BULK);
+            for (int i = 0; i < toCreate.size(); i++) {
+                toCreate.get(i).setPassword(hashes.get(i));
+            }
+        }
+
         // dedup toUpdate by id
         toUpdate = new ArrayList<>(toUpdate.stream()
                 .collect(Collectors.toMap(User::getId, u -> u, (a, b) -> b, LinkedHashMap::new))
@@ -499,6 +516,8 @@ public class UserService {
         int affected = 0;
         affected += batchSaveUsers(toCreate);
         affected += batchSaveUsers(toUpdate);
+        if (!toUpdate.isEmpty())
+            principalCache.evictAll();
         return affected;
     }
 
@@ -537,6 +556,8 @@ public class UserService {
             if (any)
                 total += batchSaveUsers(users);
         }
+        if (total > 0)
+            principalCache.evictAll();
         return total;
     }
 
@@ -595,10 +616,6 @@ public class UserService {
         return n;
     }
 
-    private static String hashBulk(String raw) {
-        return BCrypt.hashpw(raw, BCrypt.gensalt(BCRYPT_COST_BULK));
-    }
-
     private static User newer(User a, User b) {
         Instant ua = a.getUpdatedAt(), ub = b.getUpdatedAt();
         if (ua == null && ub == null)
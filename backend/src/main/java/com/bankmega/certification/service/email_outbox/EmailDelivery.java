@@ -0,0 +1,98 @@
+package com.bankmega.certification.service.email_outbox;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Kirim grup email HTML lewat satu koneksi dari {@link SmtpTransportPool}.
+ * Tidak ada retry antar-waktu di sini; hasil per pesan dikembalikan dan
+ * retry + backoff diurus {@link EmailOutboxWorker}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailDelivery {
+
+    private final SmtpTransportPool pool;
+
+    public record Message(String to, String subject, String html) {
+    }
+
+    /**
+     * Pesan belum dicoba sama sekali karena koneksi grup sudah mati; worker
+     * mengembalikannya ke antrean tanpa menghitung attempt.
+     */
+    public static class NotAttemptedException extends Exception {
+        public NotAttemptedException(Exception cause) {
+            super("Belum dikirim, koneksi SMTP grup gagal: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Kirim semua pesan berurutan di satu koneksi. Return error per index
+     * (null = terkirim, {@link NotAttemptedException} = belum dicoba), urutan
+     * sama dengan input.
+     */
+    public List<Exception> sendAll(List<Message> messages) throws InterruptedException {
+        Exception[] errors = new Exception[messages.size()];
+        SmtpTransportPool.Connection conn = pool.borrow();
+        long start = System.nanoTime();
+        int sent = 0;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                try {
+                    sendWithReconnect(conn, messages.get(i));
+                    sent++;
+                } catch (Exception e) {
+                    errors[i] = e;
+                    if (!conn.isOpen()) {
+                        // relay tidak bisa dihubungi: sisa grup tidak dicoba (jangan tunggu
+                        // timeout connect satu per satu) dan tidak dihitung gagal
+                        NotAttemptedException skipped = new NotAttemptedException(e);
+                        for (int j = i + 1; j < messages.size(); j++) {
+                            errors[j] = skipped;
+                        }
+                        break;
+                    }
+                }
+            }
+        } finally {
+            conn.recordGroup(sent, System.nanoTime() - start);
+            pool.release(conn);
+        }
+        return Arrays.asList(errors);
+    }
+
+    private void sendWithReconnect(SmtpTransportPool.Connection conn, Message m) throws MessagingException {
+        MimeMessage mime = build(m);
+        try {
+            conn.send(mime);
+        } catch (SendFailedException e) {
+            throw e; // alamat ditolak relay, koneksi masih sehat
+        } catch (MessagingException e) {
+            // koneksi putus / ditutup relay: buka ulang lalu coba sekali lagi
+            log.debug("SMTP connection #{} failed ({}), reconnecting", conn.slot(), e.getMessage());
+            conn.reconnect();
+            conn.send(mime);
+        }
+    }
+
+    private MimeMessage build(Message m) throws MessagingException {
+        MimeMessage message = new MimeMessage(pool.session());
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(pool.fromAddress());
+        helper.setTo(Objects.requireNonNull(m.to()));
+        helper.setSubject(Objects.requireNonNull(m.subject()));
+        helper.setText(Objects.requireNonNull(m.html()), true);
+        return message;
+    }
+}
@@ -0,0 +1,49 @@
+package com.bankmega.certification.service.email_outbox;
+
+import com.bankmega.certification.repository.JdbcEmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Antrikan email ke email_outbox. Ikut transaksi pemanggil, jadi email hanya
+ * ada kalau Notification-nya ikut commit. Worker dibangunkan setelah commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private final JdbcEmailOutboxRepository outboxRepo;
+    private final EmailOutboxWorker worker;
+
+    /** {@code notificationCreatedAt} = kunci partisi notifikasinya (boleh null). */
+    public record OutboundEmail(Long notificationId, LocalDateTime notificationCreatedAt, String to, String subject,
+            String html) {
+    }
+
+    public int enqueue(List<OutboundEmail> emails) {
+        if (emails == null || emails.isEmpty())
+            return 0;
+
+        int inserted = outboxRepo.batchInsert(emails.stream()
+                .map(e -> new JdbcEmailOutboxRepository.NewEmail(e.notificationId(), e.notificationCreatedAt(), e.to(),
+                        e.subject(), e.html()))
+                .toList());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    worker.wakeUp();
+                }
+            });
+        } else {
+            worker.wakeUp();
+        }
+        return inserted;
+    }
+}
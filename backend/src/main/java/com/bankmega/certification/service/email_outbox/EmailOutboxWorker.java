@@ -0,0 +1,214 @@
+package com.bankmega.certification.service.email_outbox;
+
+import com.bankmega.certification.repository.JdbcEmailOutboxRepository;
+import com.bankmega.certification.repository.JdbcEmailOutboxRepository.ClaimedEmail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Kuras email_outbox: klaim satu batch (SKIP LOCKED), bagi jadi satu grup per
+ * thread (tiap grup lewat satu koneksi {@link SmtpTransportPool}), lalu tandai
+ * SENT / jadwalkan ulang dengan backoff / FAILED kalau attempt habis. Pesan
+ * yang belum sempat dicoba (koneksi grup mati) dikembalikan tanpa makan attempt.
+ *
+ * Drain jalan di satu thread dispatcher; dipicu oleh polling berkala dan oleh
+ * enqueue setelah commit, jadi pemanggil tidak pernah menunggu SMTP.
+ */
+@Slf4j
+@Component
+public class EmailOutboxWorker {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final JdbcEmailOutboxRepository outboxRepo;
+    private final EmailDelivery delivery;
+
+    private final int threads;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseSeconds;
+    private final long backoffBaseSeconds;
+
+    private final ThreadPoolTaskExecutor senders;
+    private final ExecutorService dispatcher;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean wakeRequested = new AtomicBoolean(false);
+
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+
+    public EmailOutboxWorker(
+            JdbcEmailOutboxRepository outboxRepo,
+            EmailDelivery delivery,
+            @Value("${app.mail.outbox.workers:4}") int workers,
+            @Value("${app.mail.outbox.batch-size:200}") int batchSize,
+            @Value("${app.mail.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${app.mail.outbox.lease-seconds:300}") long leaseSeconds,
+            @Value("${app.mail.outbox.backoff-base-seconds:30}") long backoffBaseSeconds,
+            MeterRegistry registry) {
+        this.outboxRepo = outboxRepo;
+        this.delivery = delivery;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.leaseSeconds = Math.max(30, leaseSeconds);
+        this.backoffBaseSeconds = Math.max(1, backoffBaseSeconds);
+
+        this.threads = Math.max(1, workers);
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(threads);
+        ex.setMaxPoolSize(threads);
+        ex.setQueueCapacity(this.batchSize);
+        ex.setThreadNamePrefix("EmailSender-");
+        ex.setKeepAliveSeconds(120);
+        ex.setAllowCoreThreadTimeOut(true);
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ex.initialize();
+        this.senders = ex;
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "EmailOutbox-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.sentCounter = Counter.builder("email.outbox.sent").register(registry);
+        this.retryCounter = Counter.builder("email.outbox.retry").register(registry);
+        this.failedCounter = Counter.builder("email.outbox.failed").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /** Minta drain secepatnya (non-blocking). */
+    public void wakeUp() {
+        wakeRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(this::drainLoop);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                log.warn("Email outbox dispatcher rejected drain: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            while (wakeRequested.getAndSet(false)) {
+                int claimed;
+                do {
+                    claimed = drainOnce();
+                } while (claimed >= batchSize);
+            }
+        } catch (Exception e) {
+            log.error("Email outbox drain failed", e);
+        } finally {
+            draining.set(false);
+            // wakeUp yang datang pas di ujung loop jangan sampai hilang
+            if (wakeRequested.get())
+                wakeUp();
+        }
+    }
+
+    int drainOnce() {
+        List<ClaimedEmail> batch = outboxRepo.claim(batchSize, LocalDateTime.now().minusSeconds(leaseSeconds));
+        if (batch.isEmpty())
+            return 0;
+
+        // Satu grup per thread; tiap grup dikirim lewat satu koneksi SMTP pool
+        int groups = Math.min(threads, batch.size());
+        int groupSize = (batch.size() + groups - 1) / groups;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(groups);
+        for (int from = 0; from < batch.size(); from += groupSize) {
+            List<ClaimedEmail> group = batch.subList(from, Math.min(from + groupSize, batch.size()));
+            futures.add(CompletableFuture.runAsync(() -> deliver(group), senders));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        return batch.size();
+    }
+
+    private void deliver(List<ClaimedEmail> group) {
+        List<Exception> errors;
+        try {
+            errors = delivery.sendAll(group.stream()
+                    .map(m -> new EmailDelivery.Message(m.recipient(), m.subject(), m.body()))
+                    .toList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // belum ada yang terkirim; biarkan lease habis lalu diklaim ulang
+            return;
+        }
+
+        List<Long> sentIds = new ArrayList<>(group.size());
+        List<Long> untriedIds = new ArrayList<>();
+        String untriedError = null;
+        for (int i = 0; i < group.size(); i++) {
+            ClaimedEmail msg = group.get(i);
+            Exception e = errors.get(i);
+            if (e == null) {
+                sentIds.add(msg.id());
+            } else if (e instanceof EmailDelivery.NotAttemptedException) {
+                untriedIds.add(msg.id());
+                untriedError = truncate(e.getMessage());
+            } else {
+                handleFailure(msg, e);
+            }
+        }
+        outboxRepo.markSent(sentIds);
+        sentCounter.increment(sentIds.size());
+        if (!untriedIds.isEmpty()) {
+            // kembali ke PENDING tanpa makan attempt; tunda sebentar supaya tidak langsung diklaim lagi
+            outboxRepo.release(untriedIds, untriedError, LocalDateTime.now().plusSeconds(backoffBaseSeconds));
+            log.warn("{} email belum dicoba karena koneksi SMTP gagal, dikembalikan ke antrean", untriedIds.size());
+        }
+    }
+
+    private void handleFailure(ClaimedEmail msg, Exception e) {
+        String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+        if (msg.attempts() >= maxAttempts) {
+            outboxRepo.markFailed(msg.id(), msg.notificationId(), msg.notificationCreatedAt(), error);
+            failedCounter.increment();
+            log.error("Email gagal ke {} setelah {} kali coba (outbox {})", msg.recipient(), msg.attempts(),
+                    msg.id(), e);
+        } else {
+            LocalDateTime next = LocalDateTime.now().plusSeconds(backoffSeconds(msg.attempts()));
+            outboxRepo.markRetry(msg.id(), error, next);
+            retryCounter.increment();
+            log.warn("Gagal kirim email ke {} (attempt {}), dicoba lagi {}: {}", msg.recipient(),
+                    msg.attempts(), next, error);
+        }
+    }
+
+    // 30s, 60s, 120s, ... maks 1 jam
+    long backoffSeconds(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 16);
+        return Math.min(backoffBaseSeconds << shift, 3600);
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= MAX_ERROR_LENGTH ? s : s.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,194 @@
+package com.bankmega.certification.service.email_outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import com.bankmega.certification.service.mail_sender.MailSenderHolder;
+import com.bankmega.certification.service.mail_sender.SmtpRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool kecil koneksi SMTP yang sudah login (STARTTLS/SSL + AUTH sekali),
+ * dipakai ulang untuk banyak pesan. Koneksi dibuka ulang kalau putus, sudah
+ * idle terlalu lama (relay biasanya menutup sepihak), atau sudah mengirim
+ * {@code max-messages-per-connection} pesan. Kalau {@link MailSenderHolder}
+ * men-swap sender (config email berubah), tiap koneksi pindah ke sender baru
+ * di pemakaian berikutnya. Semua kirim ikut {@link SmtpRateLimiter}.
+ *
+ * Metrik per slot koneksi (tag {@code connection}): jumlah connect, pesan
+ * terkirim, dan waktu kirim per grup.
+ */
+@Slf4j
+@Component
+public class SmtpTransportPool {
+
+    private final MailSenderHolder mailSenders;
+    private final SmtpRateLimiter rateLimiter;
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> all = new ArrayList<>();
+    private final int maxMessagesPerConnection;
+    private final long maxIdleNanos;
+
+    public SmtpTransportPool(
+            MailSenderHolder mailSenders,
+            SmtpRateLimiter rateLimiter,
+            @Value("${app.mail.smtp.pool-size:${app.mail.outbox.workers:4}}") int poolSize,
+            @Value("${app.mail.smtp.max-messages-per-connection:200}") int maxMessagesPerConnection,
+            @Value("${app.mail.smtp.max-idle-seconds:30}") long maxIdleSeconds,
+            MeterRegistry registry) {
+        this.mailSenders = mailSenders;
+        this.rateLimiter = rateLimiter;
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        this.maxIdleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, maxIdleSeconds));
+
+        int size = Math.max(1, poolSize);
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            Connection c = new Connection(slot, registry);
+            all.add(c);
+            idle.add(c);
+        }
+    }
+
+    /** Ambil koneksi; tunggu kalau semua sedang dipakai. */
+    public Connection borrow() throws InterruptedException {
+        return idle.take();
+    }
+
+    public void release(Connection c) {
+        c.lastUsedNanos = System.nanoTime();
+        idle.offer(c);
+    }
+
+    public Session session() {
+        return mailSenders.current().getSession();
+    }
+
+    public String fromAddress() {
+        return mailSenders.fromAddress();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Connection c : all) {
+            c.close();
+        }
+    }
+
+    /** Satu slot koneksi SMTP. Hanya dipakai satu thread selama dipinjam. */
+    public final class Connection {
+        private final int slot;
+        private final Counter connects;
+        private final Counter messages;
+        private final Timer groupTimer;
+
+        private Transport transport;
+        private long generation;
+        private int sentOnTransport;
+        private long lastUsedNanos = System.nanoTime();
+
+        private Connection(int slot, MeterRegistry registry) {
+            this.slot = slot;
+            String tag = String.valueOf(slot);
+            this.connects = Counter.builder("email.smtp.connects").tag("connection", tag)
+                    .description("SMTP connects (incl. reconnects) per pooled connection")
+                    .register(registry);
+            this.messages = Counter.builder("email.smtp.messages").tag("connection", tag)
+                    .description("Messages sent per pooled connection")
+                    .register(registry);
+            this.groupTimer = Timer.builder("email.smtp.group.duration").tag("connection", tag)
+                    .description("Wall time to send one message group over a pooled connection")
+                    .register(registry);
+        }
+
+        public int slot() {
+            return slot;
+        }
+
+        /**
+         * Pastikan transport siap. Cek isConnected() (NOOP) cuma kalau koneksi
+         * sudah idle lama, biar tidak nambah round trip tiap grup.
+         */
+        public void ensureConnected() throws MessagingException {
+            boolean stale = System.nanoTime() - lastUsedNanos > maxIdleNanos;
+            if (transport != null && generation == mailSenders.generation()
+                    && sentOnTransport < maxMessagesPerConnection
+                    && (!stale || transport.isConnected())) {
+                return;
+            }
+            reconnect();
+        }
+
+        public void reconnect() throws MessagingException {
+            close();
+            MailSenderHolder.Active active = mailSenders.active();
+            JavaMailSenderImpl mailSender = active.sender();
+            // protocol sender null kalau tidak di-set; fallback sama seperti JavaMailSenderImpl.connectTransport
+            String protocol = mailSender.getProtocol();
+            if (protocol == null)
+                protocol = mailSender.getSession().getProperty("mail.transport.protocol");
+            if (protocol == null)
+                protocol = JavaMailSenderImpl.DEFAULT_PROTOCOL;
+            Transport t = mailSender.getSession().getTransport(protocol);
+            t.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            transport = t;
+            generation = active.generation();
+            sentOnTransport = 0;
+            connects.increment();
+            log.debug("SMTP connection #{} opened to {}:{}", slot, mailSender.getHost(), mailSender.getPort());
+        }
+
+        public void send(MimeMessage message) throws MessagingException {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MessagingException("Interrupted while waiting for SMTP rate limit", e);
+            }
+            ensureConnected();
+            message.saveChanges();
+            transport.sendMessage(message, message.getAllRecipients());
+            sentOnTransport++;
+            lastUsedNanos = System.nanoTime();
+            messages.increment();
+        }
+
+        public boolean isOpen() {
+            return transport != null;
+        }
+
+        void recordGroup(int count, long elapsedNanos) {
+            groupTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (count > 0) {
+                double ms = elapsedNanos / 1_000_000.0;
+                log.info("Sent {} emails over SMTP connection #{} in {} ms ({} /s)", count, slot, Math.round(ms),
+                        ms > 0 ? Math.round(count * 1000.0 / ms) : count);
+            }
+        }
+
+        void close() {
+            if (transport == null)
+                return;
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // koneksi memang sudah putus
+            }
+            transport = null;
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.bankmega.certification.service.EmployeeCertificationService;
 import com.bankmega.certification.service.EmployeeEligibilityService;
 import com.bankmega.certification.service.EmployeeHistoryService;
 import com.bankmega.certification.service.UserService;
+import com.bankmega.certification.service.import_session.ImportSessionStore;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -20,11 +22,12 @@ import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -46,15 +49,12 @@ public class EmployeeImportProcessor {
     private final EmployeeCertificationService certificationService;
     private final UserService userService;
     private final RoleRepository roleRepo;
+    private final ImportSessionStore sessionStore;
+    private final ReferenceDataCache referenceData;
 
     @PersistenceContext
     private EntityManager em;
 
-    private final Map<String, Regional> regionalCache = new ConcurrentHashMap<>();
-    private final Map<String, Division> divisionCache = new ConcurrentHashMap<>();
-    private final Map<String, Unit> unitCache = new ConcurrentHashMap<>();
-    private final Map<String, JobPosition> jobCache = new ConcurrentHashMap<>();
-
     private Role pegawaiRole;
 
     private static final int BATCH_SIZE = 500;
@@ -72,8 +72,16 @@ public class EmployeeImportProcessor {
 
     @Transactional(readOnly = true)
     public EmployeeImportResponse dryRun(MultipartFile file, User user) throws Exception {
-        preloadMasters();
-        ImportPlan plan = buildPlan(file, true, true);
+        ImportSessionStore.Upload upload = ImportSessionStore.read(file);
+        List<ImportRow> rows = sessionStore
+                .peek(ImportSessionStore.Kind.EMPLOYEE, userId(user), upload.hash(), Session.class)
+                .map(Session::rows)
+                .orElseGet(() -> parseExcel(upload.bytes()));
+
+        ImportPlan plan = buildPlan(rows, true, true);
+        sessionStore.put(ImportSessionStore.Kind.EMPLOYEE, userId(user), upload.hash(),
+                new Session(rows, PlanSummary.of(plan)), rows.size());
+
         EmployeeImportResponse res = plan.toResponse(file.getOriginalFilename(), true);
         res.setMessage(String.format(
                 "Dry run selesai. Ditemukan: %d data diproses, %d baru, %d update/mutasi, %d resign, %d error.",
@@ -84,8 +92,20 @@ public class EmployeeImportProcessor {
 
     @Transactional
     public EmployeeImportResponse confirm(MultipartFile file, User user) throws Exception {
-        preloadMasters();
-        ImportPlan plan = buildPlan(file, false, true);
+        ImportSessionStore.Upload upload = ImportSessionStore.read(file);
+        Optional<Session> session = sessionStore.take(ImportSessionStore.Kind.EMPLOYEE, userId(user),
+                upload.hash(), Session.class);
+        List<ImportRow> rows = session.map(Session::rows).orElseGet(() -> parseExcel(upload.bytes()));
+
+        ImportPlan plan = buildPlan(rows, false, true);
+
+        // Plan pegawai dihitung ulang terhadap data terkini (entity managed); kalau
+        // hasilnya beda dari yang direview saat dry run, batalkan (rollback)
+        if (session.isPresent() && !session.get().summary().equals(PlanSummary.of(plan))) {
+            throw new IllegalStateException("Data pegawai berubah sejak dry run (review: "
+                    + session.get().summary() + ", sekarang: " + PlanSummary.of(plan)
+                    + "). Silakan jalankan dry run ulang.");
+        }
 
         batchSave(plan.newEmployees, empRepo::saveAll);
         batchSave(plan.rehiredEmployees, empRepo::saveAll);
@@ -156,19 +176,7 @@ public class EmployeeImportProcessor {
         return res;
     }
 
-    public void preloadMasters() {
-        if (regionalCache.isEmpty())
-            regionalRepo.findAll().forEach(r -> regionalCache.put(norm(r.getName()), r));
-        if (divisionCache.isEmpty())
-            divisionRepo.findAll().forEach(d -> divisionCache.put(norm(d.getName()), d));
-        if (unitCache.isEmpty())
-            unitRepo.findAll().forEach(u -> unitCache.put(norm(u.getName()), u));
-        if (jobCache.isEmpty())
-            jobRepo.findAll().forEach(j -> jobCache.put(norm(j.getName()), j));
-    }
-
-    private ImportPlan buildPlan(MultipartFile file, boolean dryRun, boolean strictGuard) throws Exception {
-        List<ImportRow> rows = parseExcel(file);
+    private ImportPlan buildPlan(List<ImportRow> rows, boolean dryRun, boolean strictGuard) {
         ImportPlan plan = new ImportPlan();
         if (rows.isEmpty())
             return plan;
@@ -209,6 +217,8 @@ public class EmployeeImportProcessor {
         Map<String, Employee> existingByNip = empRepo.findWithPositionsByNipIn(importedNips).stream()
                 .collect(Collectors.toMap(Employee::getNip, Function.identity()));
 
+        Masters masters = new Masters(!dryRun);
+
         for (ImportRow r : rows) {
             try {
                 // Validation: Primary fields must not be empty
@@ -221,15 +231,15 @@ public class EmployeeImportProcessor {
                     continue;
                 }
 
-                Regional regional = resolveRegional(r.regionalName, !dryRun);
-                Division division = resolveDivision(r.divisionName, !dryRun);
-                Unit unit = resolveUnit(r.unitName, !dryRun);
-                JobPosition job = resolveJob(r.jobName, !dryRun);
+                Regional regional = masters.regional(r.regionalName);
+                Division division = masters.division(r.divisionName);
+                Unit unit = masters.unit(r.unitName);
+                JobPosition job = masters.job(r.jobName);
 
-                Regional regional2 = resolveRegional(r.regionalName2, !dryRun);
-                Division division2 = resolveDivision(r.divisionName2, !dryRun);
-                Unit unit2 = resolveUnit(r.unitName2, !dryRun);
-                JobPosition job2 = resolveJob(r.jobName2, !dryRun);
+                Regional regional2 = masters.regional(r.regionalName2);
+                Division division2 = masters.division(r.divisionName2);
+                Unit unit2 = masters.unit(r.unitName2);
+                JobPosition job2 = masters.job(r.jobName2);
 
                 Employee existing = existingByNip.get(r.nip);
 
@@ -495,15 +505,9 @@ public class EmployeeImportProcessor {
         return plan;
     }
 
-    private List<ImportRow> parseExcel(MultipartFile file) throws Exception {
-        // ... (truncated for brevity, logic remains same)
-        return parseExcelInternal(file);
-    }
-
-    // Helper to avoid duplicate code in replacement
-    private List<ImportRow> parseExcelInternal(MultipartFile file) throws Exception {
+    private List<ImportRow> parseExcel(byte[] bytes) {
         List<ImportRow> out = new ArrayList<>();
-        try (Workbook wb = new XSSFWorkbook(file.getInputStream())) {
+        try (Workbook wb = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
             Sheet sheet = wb.getSheetAt(0);
             DataFormatter fmt = new DataFormatter();
 
@@ -551,6 +555,8 @@ public class EmployeeImportProcessor {
                         regionalName, divisionName, unitName, jobName, effDate,
                         regionalName2, divisionName2, unitName2, jobName2, effDate2));
             }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid file format", e);
         }
         return out;
     }
@@ -566,6 +572,11 @@ public class EmployeeImportProcessor {
         return t;
     }
 
+    // session dry run milik user yang upload; user lain dengan file identik tidak ikut memakainya
+    private static Long userId(User user) {
+        return user != null ? user.getId() : null;
+    }
+
     private void saveImportLog(User user, MultipartFile file, ImportPlan plan) {
         logRepo.save(Objects.requireNonNull(EmployeeImportLog.builder()
                 .user(user)
@@ -648,52 +659,69 @@ public class EmployeeImportProcessor {
         return null;
     }
 
-    private Regional resolveRegional(String name, boolean createIfMissing) {
-        return resolveCached(name, regionalCache, regionalRepo::findByNameIgnoreCase,
-                n -> createIfMissing ? regionalRepo.save(Objects.requireNonNull(Regional.builder().name(n).build()))
-                        : null);
-    }
+    // Snapshot master data untuk satu import. Master baru yang dibuat saat
+    // confirm disimpan lokal dulu; cache bersama baru di-refresh setelah commit
+    private final class Masters {
+        private final ReferenceDataCache.Index<Regional> regionals = referenceData.regionals();
+        private final ReferenceDataCache.Index<Division> divisions = referenceData.divisions();
+        private final ReferenceDataCache.Index<Unit> units = referenceData.units();
+        private final ReferenceDataCache.Index<JobPosition> jobs = referenceData.jobPositions();
 
-    private Division resolveDivision(String name, boolean createIfMissing) {
-        return resolveCached(name, divisionCache, divisionRepo::findByNameIgnoreCase,
-                n -> createIfMissing ? divisionRepo.save(Objects.requireNonNull(Division.builder().name(n).build()))
-                        : null);
-    }
+        private final Map<String, Object> created = new HashMap<>();
+        private final boolean createIfMissing;
 
-    private Unit resolveUnit(String name, boolean createIfMissing) {
-        return resolveCached(name, unitCache, unitRepo::findByNameIgnoreCase,
-                n -> createIfMissing ? unitRepo.save(Objects.requireNonNull(Unit.builder().name(n).build())) : null);
-    }
+        Masters(boolean createIfMissing) {
+            this.createIfMissing = createIfMissing;
+        }
 
-    private JobPosition resolveJob(String name, boolean createIfMissing) {
-        return resolveCached(name, jobCache, jobRepo::findByNameIgnoreCase,
-                n -> createIfMissing ? jobRepo.save(Objects.requireNonNull(JobPosition.builder().name(n).build()))
-                        : null);
-    }
+        Regional regional(String name) {
+            return resolve(name, ReferenceDataCache.Type.REGIONAL, regionals, regionalRepo::findByNameIgnoreCase,
+                    n -> regionalRepo.save(Objects.requireNonNull(Regional.builder().name(n).build())));
+        }
 
-    private <T> T resolveCached(
-            String name,
-            Map<String, T> cache,
-            java.util.function.Function<String, Optional<T>> finder,
-            java.util.function.Function<String, T> creator) {
-        if (name == null || name.isBlank())
-            return null;
-        String key = norm(name);
-        T cached = cache.get(key);
-        if (cached != null)
-            return cached;
-
-        Optional<T> found = finder.apply(name);
-        if (found.isPresent()) {
-            T val = found.get();
-            cache.put(key, val);
-            return val;
+        Division division(String name) {
+            return resolve(name, ReferenceDataCache.Type.DIVISION, divisions, divisionRepo::findByNameIgnoreCase,
+                    n -> divisionRepo.save(Objects.requireNonNull(Division.builder().name(n).build())));
+        }
+
+        Unit unit(String name) {
+            return resolve(name, ReferenceDataCache.Type.UNIT, units, unitRepo::findByNameIgnoreCase,
+                    n -> unitRepo.save(Objects.requireNonNull(Unit.builder().name(n).build())));
+        }
+
+        JobPosition job(String name) {
+            return resolve(name, ReferenceDataCache.Type.JOB_POSITION, jobs, jobRepo::findByNameIgnoreCase,
+                    n -> jobRepo.save(Objects.requireNonNull(JobPosition.builder().name(n).build())));
         }
 
-        T created = creator.apply(name);
-        if (created != null)
-            cache.put(key, created);
-        return created;
+        @SuppressWarnings("unchecked")
+        private <T> T resolve(
+                String name,
+                ReferenceDataCache.Type type,
+                ReferenceDataCache.Index<T> index,
+                Function<String, Optional<T>> finder,
+                Function<String, T> creator) {
+            if (name == null || name.isBlank())
+                return null;
+            Optional<T> cached = index.byKey(name);
+            if (cached.isPresent())
+                return cached.get();
+            if (!createIfMissing)
+                return null; // dry run: master baru, nanti dibuat saat confirm
+
+            String key = type + ":" + norm(name);
+            T local = (T) created.get(key);
+            if (local != null)
+                return local;
+
+            // bisa saja sudah dibuat orang lain setelah snapshot diambil
+            T val = finder.apply(name).orElseGet(() -> {
+                referenceData.invalidate(type);
+                return creator.apply(name);
+            });
+            created.put(key, val);
+            return val;
+        }
     }
 
     private String norm(String s) {
@@ -824,6 +852,17 @@ public class EmployeeImportProcessor {
             String regionalName2, String divisionName2, String unitName2, String jobName2, LocalDate effectiveDate2) {
     }
 
+    private record Session(List<ImportRow> rows, PlanSummary summary) {
+    }
+
+    // Ringkasan plan yang direview user saat dry run
+    private record PlanSummary(int processed, int created, int updated, int mutated, int resigned, int rehired,
+            int errors) {
+        static PlanSummary of(ImportPlan p) {
+            return new PlanSummary(p.processed, p.created, p.updated, p.mutated, p.resigned, p.rehired, p.errors);
+        }
+    }
+
     private static class ImportPlan {
         int processed = 0, created = 0, updated = 0, mutated = 0, resigned = 0, rehired = 0, errors = 0;
 
@@ -0,0 +1,54 @@
+package com.bankmega.certification.service.file_storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/** Salin stream ke file lewat FileChannel sambil menghitung SHA-256. */
+final class ChannelCopy {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    record Result(long size, String sha256) {
+    }
+
+    private ChannelCopy() {
+    }
+
+    /** Tulis ke {@code target} (harus sudah ada / boleh ditimpa) lalu fsync. */
+    static Result copy(InputStream content, Path target) throws IOException {
+        MessageDigest sha = sha256();
+        long size = 0;
+        try (ReadableByteChannel src = Channels.newChannel(content);
+                FileChannel dst = FileChannel.open(target, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (src.read(buf) >= 0) {
+                buf.flip();
+                sha.update(buf.duplicate());
+                while (buf.hasRemaining())
+                    size += dst.write(buf);
+                buf.clear();
+            }
+            // isi harus sudah di disk sebelum file di-rename ke tempatnya
+            dst.force(true);
+        }
+        return new Result(size, HexFormat.of().formatHex(sha.digest()));
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 tidak tersedia", e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.bankmega.certification.service.file_storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Kirim file sertifikat ke browser: ETag + Last-Modified (304 kalau tidak
+ * berubah), satu HTTP Range (206) untuk PDF besar, dan isi file di-stream
+ * dengan {@link FileChannel#transferTo} tanpa buffer per request.
+ *
+ * Cache-Control {@code private, no-cache}: browser boleh menyimpan, tapi tiap
+ * pemakaian tetap revalidasi ke server (jadi tetap lewat cek JWT); cache
+ * bersama (proxy) tidak boleh menyimpan.
+ */
+public final class FileResponseWriter {
+
+    static final String CACHE_CONTROL = "private, no-cache";
+
+    private FileResponseWriter() {
+    }
+
+    /** ETag kuat dari SHA-256 isi file; file lama tanpa hash pakai ETag lemah ukuran + waktu ubah. */
+    public static String etagOf(String sha256, long size, long lastModified) {
+        if (sha256 != null && !sha256.isBlank())
+            return "\"" + sha256 + "\"";
+        return "W/\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    public static void write(Resource resource, String sha256, MediaType contentType, String contentDisposition,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        long length = resource.contentLength();
+        // resolusi Last-Modified di HTTP = detik
+        long lastModified = resource.lastModified() / 1000 * 1000;
+        String etag = etagOf(sha256, length, lastModified);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // If-None-Match / If-Modified-Since → 304 (If-Match gagal → 412); ETag + Last-Modified ikut diset
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified))
+            return;
+
+        long start = 0;
+        long count = length;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            if (start >= length) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            long end = Math.min(range.getRangeEnd(length), length - 1);
+            count = end - start + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count == 0)
+            return;
+        copy(resource, start, count, response.getOutputStream());
+    }
+
+    /**
+     * Range yang akan dilayani, atau null = kirim file utuh. Multi-range, header
+     * rusak, dan If-Range yang tidak cocok dilayani sebagai file utuh (RFC 9110).
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(request, etag, lastModified))
+            return null;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null)
+            return true;
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+            return !etag.startsWith("W/") && ifRange.equals(etag); // If-Range butuh ETag kuat
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void copy(Resource resource, long start, long count, OutputStream os) throws IOException {
+        if (resource.isFile()) {
+            try (FileChannel in = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(os);
+                long pos = start;
+                long end = start + count;
+                while (pos < end) {
+                    long n = in.transferTo(pos, end - pos, out);
+                    if (n <= 0)
+                        break; // file mengecil di tengah jalan
+                    pos += n;
+                }
+            }
+        } else {
+            try (InputStream in = resource.getInputStream()) {
+                StreamUtils.copyRange(in, os, start, start + count - 1);
+            }
+        }
+        os.flush();
+    }
+}
@@ -0,0 +1,47 @@
+package com.bankmega.certification.service.file_storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Penyimpanan file sertifikat. Key = path relatif dengan '/' (yang disimpan di
+ * {@code file_url}); backend-nya filesystem lokal atau object store
+ * ({@code app.file-storage.type}).
+ */
+public interface FileStore {
+
+    /**
+     * Hasil tulis: ukuran + SHA-256 (hex) dihitung sambil streaming.
+     * {@code reused} = isi yang sama sudah tersimpan, tidak ditulis ulang.
+     */
+    record StoredFile(String key, long size, String sha256, boolean reused) {
+    }
+
+    /**
+     * Simpan isi di {@link #contentKey(String)} dari SHA-256-nya sendiri: isi yang
+     * sama hanya disimpan sekali. Kalau sudah ada, file sementara dibuang dan
+     * {@link StoredFile#reused()} true. Pembaca tidak pernah melihat file setengah
+     * jadi: file baru terlihat setelah selesai ditulis semua.
+     */
+    StoredFile writeContent(InputStream content) throws IOException;
+
+    /** File di {@code key}; {@link Resource#exists()} false kalau tidak ada. */
+    Resource load(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /** @return false kalau memang sudah tidak ada */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Key content-addressed "ab/cd/<sha256>" (tanpa ekstensi; tipe ada di
+     * file_type). Bersharding supaya satu folder tidak berisi ratusan ribu file.
+     */
+    static String contentKey(String sha256) {
+        if (sha256 == null || !sha256.matches("[0-9a-f]{64}"))
+            throw new IllegalArgumentException("SHA-256 tidak valid: " + sha256);
+        return sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+}
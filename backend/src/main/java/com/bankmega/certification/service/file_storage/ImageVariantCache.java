@@ -0,0 +1,418 @@
+package com.bankmega.certification.service.file_storage;
+
+import com.bankmega.certification.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Thumbnail / preview JPEG dari scan sertifikat (ImageIO murni), supaya layar
+ * list tidak menarik file resolusi penuh per baris.
+ *
+ * Derivative disimpan di disk per hash file sumber ({@code <hash>-thumb.jpg}),
+ * jadi file yang di-upload ulang otomatis dapat derivative baru. Total ukuran
+ * cache dibatasi; yang paling lama tidak dipakai dihapus duluan. Dibuat di
+ * background setelah upload, atau saat pertama diminta.
+ */
+@Slf4j
+@Component
+public class ImageVariantCache {
+
+    public enum Variant {
+        THUMB("thumb", 320, 0.80f), PREVIEW("preview", 1600, 0.85f);
+
+        public final String key;
+        final int maxSide;
+        final float quality;
+
+        Variant(String key, int maxSide, float quality) {
+            this.key = key;
+            this.maxSide = maxSide;
+            this.quality = quality;
+        }
+
+        /** null / "original" = file asli. */
+        public static Variant parse(String value) {
+            if (value == null || value.isBlank() || value.equalsIgnoreCase("original"))
+                return null;
+            for (Variant v : values()) {
+                if (v.key.equalsIgnoreCase(value.trim()))
+                    return v;
+            }
+            throw new IllegalArgumentException("Variant tidak dikenal: " + value + " (thumb|preview|original)");
+        }
+    }
+
+    // WebP tidak didukung ImageIO bawaan → tetap dilayani file asli
+    private static final Set<String> SUPPORTED_TYPES = Set.of(
+            "image/png", "image/jpg", "image/jpeg", "image/gif", "image/bmp");
+    // Tolak "decompression bomb" sebelum di-decode
+    private static final long MAX_SOURCE_PIXELS = 150_000_000L;
+    private static final Duration TOUCH_INTERVAL = Duration.ofHours(1);
+    private static final String BUSY_MESSAGE = "Thumbnail sedang dibuat, silakan coba lagi sebentar.";
+
+    private final Path dir;
+    private final long maxBytes;
+    private final long timeoutMs;
+    private final boolean eager;
+    private final ThreadPoolTaskExecutor executor;
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Map<String, CompletableFuture<Path>> inflight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Timer generateTimer;
+
+    public ImageVariantCache(
+            @Value("${app.file-storage.variants.path:${app.file-storage.path:./storage}/.variants}") String path,
+            @Value("${app.file-storage.variants.max-mb:512}") long maxMb,
+            @Value("${app.file-storage.variants.threads:2}") int threads,
+            @Value("${app.file-storage.variants.timeout-ms:10000}") long timeoutMs,
+            @Value("${app.file-storage.variants.eager:true}") boolean eager,
+            MeterRegistry registry) throws IOException {
+        this.dir = Path.of(path).toAbsolutePath().normalize();
+        this.maxBytes = Math.max(1, maxMb) * 1024 * 1024;
+        this.timeoutMs = Math.max(100, timeoutMs);
+        this.eager = eager;
+        Files.createDirectories(dir);
+        totalBytes.set(scanSize());
+
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(Math.max(1, threads));
+        ex.setMaxPoolSize(Math.max(1, threads));
+        ex.setQueueCapacity(200);
+        ex.setThreadNamePrefix("ImageVariant-");
+        ex.setKeepAliveSeconds(60);
+        ex.setAllowCoreThreadTimeOut(true);
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        ex.initialize();
+        this.executor = ex;
+
+        this.hits = Counter.builder("file.variant.cache").tag("result", "hit")
+                .description("Image variants served from the disk cache")
+                .register(registry);
+        this.misses = Counter.builder("file.variant.cache").tag("result", "miss")
+                .description("Image variants that had to be generated")
+                .register(registry);
+        this.evictions = Counter.builder("file.variant.cache.evictions")
+                .description("Image variants removed to keep the cache under its size limit")
+                .register(registry);
+        this.generateTimer = Timer.builder("file.variant.generate.duration")
+                .description("Time to decode, scale and encode one image variant")
+                .register(registry);
+        Gauge.builder("file.variant.cache.bytes", totalBytes, AtomicLong::get)
+                .description("Bytes used by cached image variants")
+                .register(registry);
+    }
+
+    public static boolean supports(String contentType) {
+        return contentType != null && SUPPORTED_TYPES.contains(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Key cache file sumber: SHA-256 isinya, atau untuk file lama tanpa hash,
+     * hash dari key + ukuran + waktu ubah.
+     */
+    public static String sourceKey(String sha256, String fileKey, Resource source) throws IOException {
+        if (sha256 != null && !sha256.isBlank())
+            return sha256;
+        String identity = fileKey + ":" + source.contentLength() + ":" + source.lastModified();
+        return HexFormat.of().formatHex(ChannelCopy.sha256().digest(identity.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * File derivative; dibuat dulu kalau belum ada. Pool penuh / terlalu lama →
+     * {@link ServiceBusyException} (pembuatan tetap lanjut di background).
+     */
+    public Path get(String sourceKey, Resource source, Variant variant) throws IOException {
+        Path target = pathOf(sourceKey, variant);
+        if (Files.isRegularFile(target)) {
+            hits.increment();
+            touch(target);
+            return target;
+        }
+
+        misses.increment();
+        CompletableFuture<Path> future;
+        try {
+            future = generateOnce(sourceKey, source, variant);
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException(BUSY_MESSAGE, 2);
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceBusyException(BUSY_MESSAGE, 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(BUSY_MESSAGE, 2);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException u)
+                throw u.getCause();
+            if (cause instanceof IOException io)
+                throw io;
+            throw new IOException("Gagal membuat " + variant.key + " untuk " + sourceKey, cause);
+        }
+    }
+
+    /** Buat semua variant di background (setelah upload); dilewati kalau pool penuh. */
+    public void warmUp(String sourceKey, Resource source) {
+        if (!eager)
+            return;
+        for (Variant v : Variant.values()) {
+            if (Files.isRegularFile(pathOf(sourceKey, v)))
+                continue;
+            try {
+                generateOnce(sourceKey, source, v).exceptionally(e -> {
+                    log.warn("Gagal membuat {} untuk {}: {}", v.key, sourceKey, e.getMessage());
+                    return null;
+                });
+            } catch (TaskRejectedException e) {
+                log.debug("Pool variant penuh, {} untuk {} dibuat saat diminta", v.key, sourceKey);
+            }
+        }
+    }
+
+    // Satu file sumber + variant cuma dibuat sekali walau diminta banyak request bersamaan
+    private CompletableFuture<Path> generateOnce(String sourceKey, Resource source, Variant variant) {
+        String key = sourceKey + "-" + variant.key;
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inflight.putIfAbsent(key, created);
+        if (existing != null)
+            return existing;
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(generateTimer.recordCallable(() -> generate(source, pathOf(sourceKey, variant),
+                            variant)));
+                } catch (Throwable t) {
+                    created.completeExceptionally(t);
+                } finally {
+                    inflight.remove(key, created);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inflight.remove(key, created);
+            throw e;
+        }
+        return created;
+    }
+
+    private Path generate(Resource source, Path target, Variant variant) throws IOException {
+        if (Files.isRegularFile(target))
+            return target;
+
+        BufferedImage image = scale(read(source, variant.maxSide), variant.maxSide);
+
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "variant-", ".part");
+        try {
+            writeJpeg(image, tmp, variant);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        if (totalBytes.addAndGet(Files.size(target)) > maxBytes)
+            evict();
+        return target;
+    }
+
+    // Decode dengan subsampling: gambar 6000px untuk thumb 320px cukup dibaca ~640px
+    private static BufferedImage read(Resource source, int maxSide) throws IOException {
+        try (InputStream in = source.isFile() ? null : source.getInputStream();
+                ImageInputStream iis = source.isFile()
+                        ? new FileImageInputStream(source.getFile())
+                        : new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext())
+                throw new IOException("Format gambar tidak dikenali: " + source.getDescription());
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if ((long) w * h > MAX_SOURCE_PIXELS)
+                    throw new IOException("Gambar terlalu besar (" + w + "x" + h + "): " + source.getDescription());
+                ImageReadParam param = reader.getDefaultReadParam();
+                int sub = Math.max(1, Math.max(w, h) / (2 * maxSide));
+                if (sub > 1)
+                    param.setSourceSubsampling(sub, sub, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Turun bertahap ½ lalu ke ukuran akhir: bilinear tetap tajam tanpa biaya bicubic
+    private static BufferedImage scale(BufferedImage src, int maxSide) {
+        double ratio = Math.min(1.0, maxSide / (double) Math.max(src.getWidth(), src.getHeight()));
+        int tw = Math.max(1, (int) Math.round(src.getWidth() * ratio));
+        int th = Math.max(1, (int) Math.round(src.getHeight() * ratio));
+
+        BufferedImage cur = src;
+        int cw = src.getWidth();
+        int ch = src.getHeight();
+        do {
+            cw = cw / 2 >= tw ? cw / 2 : tw;
+            ch = ch / 2 >= th ? ch / 2 : th;
+            BufferedImage next = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // PNG transparan → latar putih (JPEG tanpa alpha)
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, cw, ch);
+                g.drawImage(cur, 0, 0, cw, ch, null);
+            } finally {
+                g.dispose();
+            }
+            cur = next;
+        } while (cw != tw || ch != th);
+        return cur;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target, Variant variant) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(variant.quality);
+            if (variant == Variant.PREVIEW)
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT); // tampil bertahap di browser
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    Path pathOf(String sourceKey, Variant variant) {
+        if (!sourceKey.matches("[0-9a-f]{64}"))
+            throw new IllegalArgumentException("Key sumber tidak valid: " + sourceKey);
+        return dir.resolve(sourceKey.substring(0, 2)).resolve(sourceKey + "-" + variant.key + ".jpg");
+    }
+
+    // mtime = waktu terakhir dipakai (untuk LRU); di-update paling sering sejam sekali
+    private static void touch(Path p) {
+        try {
+            Instant now = Instant.now();
+            if (Files.getLastModifiedTime(p).toInstant().isBefore(now.minus(TOUCH_INTERVAL)))
+                Files.setLastModifiedTime(p, FileTime.from(now));
+        } catch (IOException e) {
+            log.debug("Gagal update mtime {}: {}", p, e.getMessage());
+        }
+    }
+
+    /** Hapus yang paling lama tidak dipakai sampai cache ≤ 90% batas. */
+    synchronized void evict() {
+        record Cached(Path path, long size, FileTime lastUsed) {
+        }
+        List<Cached> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.filter(p -> p.toString().endsWith(".jpg")).forEach(p -> {
+                try {
+                    files.add(new Cached(p, Files.size(p), Files.getLastModifiedTime(p)));
+                } catch (NoSuchFileException ignore) {
+                    // sudah dihapus thread lain
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Gagal scan cache variant {}: {}", dir, e.getMessage());
+            return;
+        }
+
+        long total = files.stream().mapToLong(Cached::size).sum();
+        long target = maxBytes / 10 * 9;
+        files.sort(Comparator.comparing(Cached::lastUsed));
+        int removed = 0;
+        for (Cached c : files) {
+            if (total <= target)
+                break;
+            try {
+                if (Files.deleteIfExists(c.path())) {
+                    total -= c.size();
+                    removed++;
+                }
+            } catch (IOException e) {
+                log.debug("Gagal hapus {}: {}", c.path(), e.getMessage());
+            }
+        }
+        totalBytes.set(total);
+        evictions.increment(removed);
+        if (removed > 0)
+            log.info("Cache variant gambar: {} file dihapus, sisa {} MB", removed, total / (1024 * 1024));
+    }
+
+    private long scanSize() throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            return walk.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,118 @@
+package com.bankmega.certification.service.file_storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * File sertifikat di filesystem lokal (volume {@code FILE_STORAGE_PATH}).
+ *
+ * Upload ditulis dulu ke {@code <root>/.tmp} lalu di-rename atomik ke
+ * tempatnya, jadi file yang terlihat selalu lengkap. Sisa file .part dari
+ * proses yang mati di tengah upload dibersihkan saat start.
+ */
+@Slf4j
+public class LocalFileStore implements FileStore {
+
+    static final String TMP_DIR = ".tmp";
+    private static final Duration STALE_TMP_AGE = Duration.ofHours(1);
+
+    private final Path root;
+    private final Path tmpDir;
+
+    public LocalFileStore(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.tmpDir = this.root.resolve(TMP_DIR);
+        Files.createDirectories(tmpDir);
+        purgeStaleTemp();
+        log.info("File storage lokal di {}", this.root);
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    @Override
+    public StoredFile writeContent(InputStream content) throws IOException {
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            ChannelCopy.Result r = ChannelCopy.copy(content, tmp);
+            String key = FileStore.contentKey(r.sha256());
+            Path target = resolve(key);
+            if (Files.isRegularFile(target) && Files.size(target) == r.size()) {
+                // mtime diperbarui supaya rekonsiliasi tidak mengarantina blob yang baru dipakai lagi
+                try {
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    return new StoredFile(key, r.size(), r.sha256(), true);
+                } catch (NoSuchFileException e) {
+                    // baru saja dikarantina / dihapus: tulis ulang dari file sementara
+                }
+            }
+            Files.createDirectories(target.getParent());
+            moveIntoPlace(tmp, target);
+            return new StoredFile(key, r.size(), r.sha256(), false);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public Resource load(String key) {
+        return new FileSystemResource(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Path absolut untuk key; menolak key yang keluar dari root ("..", absolut)
+     * atau masuk ke folder internal (.tmp, .variants, .quarantine).
+     */
+    public Path resolve(String key) {
+        if (key == null || key.isBlank() || key.indexOf('\\') >= 0 || key.startsWith("/") || key.startsWith("."))
+            throw new IllegalArgumentException("Key file tidak valid: " + key);
+        Path p = root.resolve(key).normalize();
+        if (!p.startsWith(root) || p.equals(root) || p.startsWith(tmpDir))
+            throw new IllegalArgumentException("Key file tidak valid: " + key);
+        return p;
+    }
+
+    private static void moveIntoPlace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void purgeStaleTemp() {
+        Instant cutoff = Instant.now().minus(STALE_TMP_AGE);
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(tmpDir, "*.part")) {
+            for (Path p : parts) {
+                if (Files.getLastModifiedTime(p).toInstant().isBefore(cutoff))
+                    Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            log.warn("Gagal membersihkan file sementara di {}: {}", tmpDir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.bankmega.certification.service.file_storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Operasi minimal ke object store (S3 / MinIO / dsb.) yang dibutuhkan
+ * {@link ObjectStoreFileStore}. Implementasinya disediakan sebagai bean kalau
+ * {@code app.file-storage.type=object}.
+ */
+public interface ObjectStoreClient {
+
+    record ObjectInfo(long size, Instant lastModified) {
+    }
+
+    /** Upload isi file {@code content}; object baru terlihat setelah upload selesai. */
+    void putObject(String key, Path content, long size, String sha256) throws IOException;
+
+    /** @throws java.nio.file.NoSuchFileException kalau object tidak ada */
+    InputStream getObject(String key) throws IOException;
+
+    /** null kalau object tidak ada. */
+    ObjectInfo headObject(String key) throws IOException;
+
+    /** @return false kalau object memang tidak ada */
+    boolean deleteObject(String key) throws IOException;
+}
@@ -0,0 +1,116 @@
+package com.bankmega.certification.service.file_storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * File sertifikat di object store. Upload di-stream dulu ke file sementara
+ * lokal (sambil di-hash) supaya ukuran + checksum sudah diketahui sebelum
+ * PUT; object store sendiri yang menjamin object baru terlihat utuh.
+ */
+public class ObjectStoreFileStore implements FileStore {
+
+    private final ObjectStoreClient client;
+    private final Path stagingDir;
+
+    public ObjectStoreFileStore(ObjectStoreClient client, Path stagingDir) throws IOException {
+        this.client = client;
+        this.stagingDir = stagingDir;
+        Files.createDirectories(stagingDir);
+    }
+
+    @Override
+    public StoredFile writeContent(InputStream content) throws IOException {
+        Path tmp = Files.createTempFile(stagingDir, "upload-", ".part");
+        try {
+            ChannelCopy.Result r = ChannelCopy.copy(content, tmp);
+            String key = FileStore.contentKey(r.sha256());
+            ObjectStoreClient.ObjectInfo existing = client.headObject(key);
+            if (existing != null && existing.size() == r.size())
+                return new StoredFile(key, r.size(), r.sha256(), true);
+            client.putObject(key, tmp, r.size(), r.sha256());
+            return new StoredFile(key, r.size(), r.sha256(), false);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public Resource load(String key) {
+        checkKey(key);
+        return new ObjectResource(key);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        checkKey(key);
+        return client.headObject(key) != null;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        checkKey(key);
+        return client.deleteObject(key);
+    }
+
+    private static void checkKey(String key) {
+        if (key == null || key.isBlank() || key.startsWith("/") || key.indexOf('\\') >= 0
+                || ("/" + key + "/").contains("/../"))
+            throw new IllegalArgumentException("Key file tidak valid: " + key);
+    }
+
+    private class ObjectResource extends AbstractResource {
+        private final String key;
+
+        ObjectResource(String key) {
+            this.key = key;
+        }
+
+        private ObjectStoreClient.ObjectInfo info() throws IOException {
+            ObjectStoreClient.ObjectInfo info = client.headObject(key);
+            if (info == null)
+                throw new FileNotFoundException(getDescription() + " tidak ditemukan");
+            return info;
+        }
+
+        @Override
+        public boolean exists() {
+            try {
+                return client.headObject(key) != null;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return info().size();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return info().lastModified().toEpochMilli();
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return client.getObject(key);
+        }
+
+        @Override
+        public String getDescription() {
+            return "object [" + key + "]";
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.bankmega.certification.service.file_storage;
+
+import com.bankmega.certification.repository.JdbcCertificateFileRefRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToLongFunction;
+
+/**
+ * Rekonsiliasi folder storage vs {@code employee_certifications.file_url}
+ * (job harian + bisa dipicu admin):
+ * - MISSING: baris punya file_url tapi file-nya tidak ada;
+ * - ORPHANED: file di storage yang tidak dirujuk baris mana pun (mis. sisa
+ * upload yang transaksinya gagal);
+ * - SIZE_MISMATCH: ukuran file beda dengan file_size yang tercatat.
+ *
+ * Folder di-walk paralel per shard, lalu baris DB di-stream lewat cursor dan
+ * dicocokkan ke map hasil walk (hash join). Orphan opsional dipindah ke
+ * {@code .quarantine/<waktu>/}, tidak pernah dihapus. Karena blob
+ * content-addressed bisa dirujuk lagi oleh upload baru setelah walk, tiap orphan
+ * dipindah di transaksinya sendiri di bawah lock file yang sama dengan upload,
+ * setelah reference count dan mtime-nya dicek ulang. Hanya untuk storage lokal.
+ */
+@Slf4j
+@Service
+public class StorageReconciler {
+
+    // key advisory lock job ini (bebas, asal unik di aplikasi)
+    private static final long LOCK_KEY = 0x53544F52L; // "STOR"
+    static final String QUARANTINE_DIR = ".quarantine";
+
+    public enum Status {
+        COMPLETED, SKIPPED_LOCKED, UNSUPPORTED, FAILED
+    }
+
+    public record SizeMismatch(long certificationId, String fileUrl, long recordedSize, long actualSize) {
+    }
+
+    public record Report(
+            Status status,
+            Instant startedAt,
+            Instant finishedAt,
+            long filesScanned,
+            long bytesScanned,
+            long rowsScanned,
+            long missingCount,
+            long orphanCount,
+            long sizeMismatchCount,
+            long quarantinedCount,
+            List<Long> missingCertificationIds,
+            List<String> orphanedFiles,
+            List<SizeMismatch> sizeMismatches,
+            String message) {
+
+        static Report of(Status status, Instant startedAt, String message) {
+            return new Report(status, startedAt, Instant.now(), 0, 0, 0, 0, 0, 0, 0,
+                    List.of(), List.of(), List.of(), message);
+        }
+
+        Report withQuarantined(long quarantined) {
+            return new Report(status, startedAt, Instant.now(), filesScanned, bytesScanned, rowsScanned,
+                    missingCount, orphanCount, sizeMismatchCount, quarantined, missingCertificationIds,
+                    orphanedFiles, sizeMismatches, message);
+        }
+    }
+
+    private record DiskFile(long size, Instant lastModified) {
+    }
+
+    // hasil scan + daftar orphan lengkap (report hanya menyimpan sampai reportLimit)
+    private record Scan(Report report, List<String> orphans) {
+    }
+
+    private final FileStore fileStore;
+    private final JdbcCertificateFileRefRepository refRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final boolean quarantineOnSchedule;
+    private final Duration orphanGrace;
+    private final int reportLimit;
+
+    private final ThreadPoolTaskExecutor walkers;
+    private final ThreadPoolTaskExecutor runner;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicReference<Report> lastReport = new AtomicReference<>();
+
+    public StorageReconciler(
+            FileStore fileStore,
+            JdbcCertificateFileRefRepository refRepo,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.file-storage.reconcile.enabled:true}") boolean enabled,
+            @Value("${app.file-storage.reconcile.threads:4}") int threads,
+            @Value("${app.file-storage.reconcile.quarantine:false}") boolean quarantineOnSchedule,
+            @Value("${app.file-storage.reconcile.orphan-grace-minutes:60}") long orphanGraceMinutes,
+            @Value("${app.file-storage.reconcile.report-limit:1000}") int reportLimit,
+            MeterRegistry registry) {
+        this.fileStore = fileStore;
+        this.refRepo = refRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.quarantineOnSchedule = quarantineOnSchedule;
+        this.orphanGrace = Duration.ofMinutes(Math.max(0, orphanGraceMinutes));
+        this.reportLimit = Math.max(0, reportLimit);
+
+        this.walkers = executor("StorageScan-", Math.max(1, threads));
+        this.runner = executor("StorageReconcile-", 1);
+
+        gauge(registry, "file.storage.missing", "Certificate rows whose file is missing (last reconciliation)",
+                Report::missingCount);
+        gauge(registry, "file.storage.orphaned", "Stored files not referenced by any certificate (last reconciliation)",
+                Report::orphanCount);
+        gauge(registry, "file.storage.size_mismatch", "Stored files whose size differs from file_size (last reconciliation)",
+                Report::sizeMismatchCount);
+    }
+
+    private static ThreadPoolTaskExecutor executor(String prefix, int threads) {
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(threads);
+        ex.setMaxPoolSize(threads);
+        ex.setQueueCapacity(threads == 1 ? 0 : Integer.MAX_VALUE);
+        ex.setThreadNamePrefix(prefix);
+        ex.setKeepAliveSeconds(60);
+        ex.setAllowCoreThreadTimeOut(true);
+        ex.initialize();
+        return ex;
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, ToLongFunction<Report> value) {
+        Gauge.builder(name, lastReport, r -> r.get() != null ? value.applyAsLong(r.get()) : 0)
+                .description(description)
+                .register(registry);
+    }
+
+    public Report lastReport() {
+        return lastReport.get();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @Scheduled(cron = "${app.file-storage.reconcile.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        if (enabled)
+            run(quarantineOnSchedule);
+    }
+
+    /** Jalankan di background; false kalau sudah ada yang jalan. */
+    public boolean startAsync(boolean quarantine) {
+        if (running.get())
+            return false;
+        try {
+            runner.execute(() -> run(quarantine));
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    public Report run(boolean quarantine) {
+        if (!running.compareAndSet(false, true))
+            return lastReport.get();
+        Instant startedAt = Instant.now();
+        Report report;
+        try {
+            if (!(fileStore instanceof LocalFileStore local)) {
+                report = Report.of(Status.UNSUPPORTED, startedAt, "Rekonsiliasi hanya untuk storage lokal");
+            } else {
+                report = reconcile(local.root(), quarantine, startedAt);
+            }
+        } catch (Exception e) {
+            log.error("[Storage] Rekonsiliasi gagal: {}", e.getMessage(), e);
+            report = Report.of(Status.FAILED, startedAt, e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        lastReport.set(report);
+        return report;
+    }
+
+    private Report reconcile(Path root, boolean quarantine, Instant startedAt) throws IOException {
+        // 1) walk folder storage paralel (tanpa transaksi DB)
+        Map<String, DiskFile> disk = walk(root);
+        long filesScanned = disk.size();
+        long bytesScanned = disk.values().stream().mapToLong(DiskFile::size).sum();
+
+        // 2) stream file_url dari DB lalu cocokkan (di satu transaksi + advisory lock antar instance)
+        Scan scan = transactionTemplate.execute(status -> {
+            if (!refRepo.tryLock(LOCK_KEY))
+                return new Scan(Report.of(Status.SKIPPED_LOCKED, startedAt, "Rekonsiliasi sedang jalan di instance lain"),
+                        List.of());
+
+            List<Long> missing = new ArrayList<>();
+            List<SizeMismatch> mismatches = new ArrayList<>();
+            long[] counts = new long[3]; // rows, missing, mismatch
+            // file content-addressed bisa dirujuk banyak baris
+            Map<String, DiskFile> matched = new HashMap<>();
+
+            refRepo.streamFileRefs(ref -> {
+                counts[0]++;
+                DiskFile f = disk.remove(ref.fileUrl());
+                if (f != null)
+                    matched.put(ref.fileUrl(), f);
+                else
+                    f = matched.get(ref.fileUrl());
+                if (f == null) {
+                    // bisa jadi di-upload setelah walk; cek ulang langsung ke disk
+                    if (!existsNow(ref.fileUrl())) {
+                        counts[1]++;
+                        if (missing.size() < reportLimit)
+                            missing.add(ref.certificationId());
+                    }
+                } else if (ref.fileSize() != null && ref.fileSize() != f.size()) {
+                    counts[2]++;
+                    if (mismatches.size() < reportLimit)
+                        mismatches.add(new SizeMismatch(ref.certificationId(), ref.fileUrl(), ref.fileSize(),
+                                f.size()));
+                }
+            });
+
+            // sisa map = file tanpa baris; yang baru ditulis mungkin transaksinya belum commit
+            Instant graceCutoff = Instant.now().minus(orphanGrace);
+            List<String> orphans = disk.entrySet().stream()
+                    .filter(e -> e.getValue().lastModified().isBefore(graceCutoff))
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .toList();
+
+            return new Scan(new Report(Status.COMPLETED, startedAt, Instant.now(), filesScanned, bytesScanned,
+                    counts[0], counts[1], orphans.size(), counts[2], 0,
+                    List.copyOf(missing),
+                    orphans.size() > reportLimit ? orphans.subList(0, reportLimit) : orphans,
+                    List.copyOf(mismatches),
+                    null), orphans);
+        });
+        if (scan == null)
+            return null;
+
+        // 3) karantina di luar transaksi scan: satu transaksi pendek per file, supaya upload tidak
+        // menunggu lock selama seluruh daftar orphan diproses
+        Report report = scan.report();
+        if (quarantine && report.status() == Status.COMPLETED && !scan.orphans().isEmpty())
+            report = report.withQuarantined(quarantine(root, scan.orphans()));
+
+        if (report.status() == Status.COMPLETED && report.status() == Status.COMPLETED) {
+            log.info("[Storage] Rekonsiliasi selesai: {} file, {} baris; missing={}, orphan={}, size mismatch={}, "
+                    + "dikarantina={}", report.filesScanned(), report.rowsScanned(), report.missingCount(),
+                    report.orphanCount(), report.sizeMismatchCount(), report.quarantinedCount());
+        }
+        return report;
+    }
+
+    /** Walk root: file langsung di root (key lama) + tiap folder shard sebagai task terpisah. */
+    private Map<String, DiskFile> walk(Path root) throws IOException {
+        Map<String, DiskFile> files = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+
+        try (DirectoryStream<Path> top = Files.newDirectoryStream(root)) {
+            for (Path p : top) {
+                String name = p.getFileName().toString();
+                if (name.startsWith("."))
+                    continue; // .tmp, .variants, .quarantine
+                BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                if (attrs.isRegularFile()) {
+                    files.put(name, new DiskFile(attrs.size(), attrs.lastModifiedTime().toInstant()));
+                } else if (attrs.isDirectory()) {
+                    tasks.add(CompletableFuture.runAsync(() -> walkTree(root, p, files), walkers));
+                }
+            }
+        }
+
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        return files;
+    }
+
+    private static void walkTree(Path root, Path dir, Map<String, DiskFile> files) {
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile())
+                        files.put(keyOf(root, file), new DiskFile(attrs.size(), attrs.lastModifiedTime().toInstant()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    log.warn("[Storage] Gagal baca {}: {}", file, e.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String keyOf(Path root, Path file) {
+        return root.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private boolean existsNow(String key) {
+        try {
+            return Files.isRegularFile(((LocalFileStore) fileStore).resolve(key));
+        } catch (IllegalArgumentException e) {
+            return false; // file_url tidak valid = dianggap hilang
+        }
+    }
+
+    private long quarantine(Path root, List<String> orphans) {
+        Path target = root.resolve(QUARANTINE_DIR)
+                .resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        long moved = 0;
+        for (String key : orphans) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> quarantineOne(root, target, key))))
+                moved++;
+        }
+        if (moved > 0)
+            log.info("[Storage] {} file orphan dipindah ke {}", moved, target);
+        return moved;
+    }
+
+    /**
+     * Pindahkan satu orphan di bawah lock file (sama dengan upload/hapus). Hasil
+     * walk sudah basi: upload dengan isi sama bisa merujuk blob ini lagi (dan
+     * memperbarui mtime-nya) setelah walk, jadi reference count dan mtime dicek
+     * ulang tepat sebelum dipindah.
+     */
+    private Boolean quarantineOne(Path root, Path target, String key) {
+        refRepo.lockFile(key);
+        if (refRepo.countOtherReferences(key, -1) > 0) {
+            log.info("[Storage] {} sudah dirujuk lagi, tidak dikarantina", key);
+            return false;
+        }
+        Path src = root.resolve(key);
+        Path dst = target.resolve(key);
+        try {
+            Instant graceCutoff = Instant.now().minus(orphanGrace);
+            if (!Files.getLastModifiedTime(src).toInstant().isBefore(graceCutoff))
+                return false; // baru ditulis / dipakai ulang, transaksinya mungkin belum commit
+            Files.createDirectories(dst.getParent());
+            try {
+                Files.move(src, dst, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(src, dst);
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false; // sudah dihapus / dikarantina instance lain
+        } catch (IOException e) {
+            log.warn("[Storage] Gagal karantina {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdown();
+        walkers.shutdown();
+    }
+}
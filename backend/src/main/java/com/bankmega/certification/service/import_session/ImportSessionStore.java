@@ -0,0 +1,149 @@
+package com.bankmega.certification.service.import_session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Simpan hasil parse + plan dari dry run import, di-key pakai user + SHA-256
+ * isi file. Confirm dengan file yang sama oleh user yang sama tinggal ambil
+ * plan yang sudah direview tanpa parse ulang workbook; user lain yang upload
+ * file identik punya session sendiri. Tanpa user id tidak ada session.
+ *
+ * Dibatasi TTL, jumlah session, dan total baris (proxy memori). Kalau lewat
+ * batas, session paling lama tidak dipakai dibuang duluan (LRU).
+ */
+@Slf4j
+@Component
+public class ImportSessionStore {
+
+    public enum Kind {
+        EMPLOYEE, JOB_CERTIFICATION, ELIGIBILITY_EXCEPTION
+    }
+
+    private record Key(Kind kind, Long userId, String hash) {
+    }
+
+    private record Entry(Object payload, int rows, Instant expiresAt) {
+    }
+
+    private final Duration ttl;
+    private final int maxSessions;
+    private final long maxTotalRows;
+    private final Clock clock;
+
+    // access-order → iterasi dari yang paling lama tidak dipakai
+    private final LinkedHashMap<Key, Entry> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalRows = 0;
+
+    public ImportSessionStore(
+            @Value("${app.import.session.ttl-minutes:30}") long ttlMinutes,
+            @Value("${app.import.session.max-sessions:20}") int maxSessions,
+            @Value("${app.import.session.max-total-rows:200000}") long maxTotalRows) {
+        this(Duration.ofMinutes(ttlMinutes), maxSessions, maxTotalRows, Clock.systemUTC());
+    }
+
+    ImportSessionStore(Duration ttl, int maxSessions, long maxTotalRows, Clock clock) {
+        this.ttl = ttl;
+        this.maxSessions = Math.max(1, maxSessions);
+        this.maxTotalRows = Math.max(1, maxTotalRows);
+        this.clock = clock;
+    }
+
+    /** Baca semua byte upload + hitung hash-nya sekali. */
+    public static Upload read(MultipartFile file) throws IOException {
+        byte[] bytes = file.getBytes();
+        return new Upload(bytes, sha256(bytes));
+    }
+
+    public record Upload(byte[] bytes, String hash) {
+    }
+
+    public synchronized void put(Kind kind, Long userId, String hash, Object payload, int rows) {
+        if (userId == null || hash == null || payload == null)
+            return;
+        if (rows > maxTotalRows) {
+            log.info("Import session {} not cached: {} rows exceeds cap {}", kind, rows, maxTotalRows);
+            return;
+        }
+        evictExpired();
+
+        Key key = new Key(kind, userId, hash);
+        Entry old = sessions.remove(key);
+        if (old != null)
+            totalRows -= old.rows();
+
+        while (!sessions.isEmpty() && (sessions.size() >= maxSessions || totalRows + rows > maxTotalRows)) {
+            removeEldest();
+        }
+
+        sessions.put(key, new Entry(payload, rows, clock.instant().plus(ttl)));
+        totalRows += rows;
+    }
+
+    /** Lihat session tanpa menghapus (dipakai dry run ulang). */
+    public synchronized <T> Optional<T> peek(Kind kind, Long userId, String hash, Class<T> type) {
+        evictExpired();
+        Entry e = sessions.get(new Key(kind, userId, hash));
+        return e != null && type.isInstance(e.payload()) ? Optional.of(type.cast(e.payload())) : Optional.empty();
+    }
+
+    /** Ambil dan hapus session (dipakai confirm, sekali pakai). */
+    public synchronized <T> Optional<T> take(Kind kind, Long userId, String hash, Class<T> type) {
+        evictExpired();
+        Entry e = sessions.remove(new Key(kind, userId, hash));
+        if (e == null)
+            return Optional.empty();
+        totalRows -= e.rows();
+        return type.isInstance(e.payload()) ? Optional.of(type.cast(e.payload())) : Optional.empty();
+    }
+
+    public synchronized int size() {
+        evictExpired();
+        return sessions.size();
+    }
+
+    public synchronized long totalRows() {
+        return totalRows;
+    }
+
+    private void evictExpired() {
+        Instant now = clock.instant();
+        Iterator<Map.Entry<Key, Entry>> it = sessions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (!now.isBefore(e.getValue().expiresAt())) {
+                totalRows -= e.getValue().rows();
+                it.remove();
+            }
+        }
+    }
+
+    private void removeEldest() {
+        Iterator<Map.Entry<Key, Entry>> it = sessions.entrySet().iterator();
+        Map.Entry<Key, Entry> eldest = it.next();
+        totalRows -= eldest.getValue().rows();
+        it.remove();
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
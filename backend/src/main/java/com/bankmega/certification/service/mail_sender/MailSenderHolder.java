@@ -0,0 +1,140 @@
+package com.bankmega.certification.service.mail_sender;
+
+import com.bankmega.certification.entity.EmailConfig;
+import com.bankmega.certification.repository.EmailConfigRepository;
+import com.bankmega.certification.security.AESUtil;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Satu-satunya sumber {@link JavaMailSenderImpl} aplikasi (pengganti bean
+ * reusableMailSender yang dibangun sekali saat startup).
+ *
+ * Sender dibangun dari EmailConfig aktif (password didekripsi sekali) lalu
+ * di-swap secara atomik kalau konfigurasi berubah: langsung setelah saveConfig
+ * commit, dan lewat pengecekan berkala untuk perubahan dari instance lain.
+ * Pemanggil yang sedang memegang sender lama tetap bisa menyelesaikan kirimnya;
+ * koneksi {@code SmtpTransportPool} membuka ulang begitu {@link #generation()}
+ * berubah.
+ */
+@Slf4j
+@Component
+public class MailSenderHolder {
+
+    private static final String DEFAULT_FROM = "no-reply@megacert.local";
+
+    private final EmailConfigRepository repository;
+    private final SmtpRateLimiter rateLimiter;
+    private final AtomicReference<Active> active = new AtomicReference<>();
+
+    public MailSenderHolder(EmailConfigRepository repository, SmtpRateLimiter rateLimiter) {
+        this.repository = repository;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /** Sender yang sedang dipakai + generation-nya (naik tiap swap). */
+    public record Active(long generation, Long configId, Instant updatedAt, JavaMailSenderImpl sender) {
+    }
+
+    /** Sender aktif beserta generation-nya; dibangun saat pertama dipakai. */
+    public Active active() {
+        Active a = active.get();
+        return a != null ? a : load();
+    }
+
+    /** Sender untuk konfigurasi aktif. */
+    public JavaMailSenderImpl current() {
+        return active().sender();
+    }
+
+    /** Naik tiap kali sender di-swap; 0 = belum pernah dibangun. */
+    public long generation() {
+        Active a = active.get();
+        return a != null ? a.generation() : 0L;
+    }
+
+    public String fromAddress() {
+        String username = current().getUsername();
+        return username != null && !username.isBlank() ? username : DEFAULT_FROM;
+    }
+
+    /** Kirim satu pesan di luar outbox (reset password, test email), ikut rate limit bersama. */
+    public void send(MimeMessage message) throws InterruptedException {
+        rateLimiter.acquire();
+        current().send(message);
+    }
+
+    /**
+     * Baca EmailConfig aktif dan swap sender kalau berbeda dari yang dipegang.
+     * Bangun sender baru hanya kalau id / updatedAt berubah.
+     */
+    public void reload() {
+        load();
+    }
+
+    private synchronized Active load() {
+        EmailConfig config = repository.findByActiveTrue()
+                .orElseThrow(() -> new IllegalStateException("Tidak ada konfigurasi email aktif"));
+
+        Active current = active.get();
+        if (current != null && Objects.equals(current.configId(), config.getId())
+                && Objects.equals(current.updatedAt(), config.getUpdatedAt())) {
+            return current;
+        }
+
+        JavaMailSenderImpl sender = build(config);
+        sender.getSession(); // siapkan Session sekarang, bukan di kirim pertama
+        Active next = new Active(current != null ? current.generation() + 1 : 1L, config.getId(),
+                config.getUpdatedAt(), sender);
+        active.set(next);
+        log.info("Mail sender {} dipakai: {}:{} (config #{})", current == null ? "dibangun" : "diganti",
+                config.getHost(), config.getPort(), config.getId());
+        return next;
+    }
+
+    // Perubahan config dari instance lain
+    @Scheduled(fixedDelayString = "#{${app.mail.sender.refresh-seconds:60} * 1000}")
+    public void refresh() {
+        if (active.get() == null)
+            return; // belum pernah dipakai, nanti dibangun on-demand
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Gagal cek ulang konfigurasi email: {}", e.getMessage());
+        }
+    }
+
+    private static JavaMailSenderImpl build(EmailConfig config) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost(config.getHost());
+        sender.setPort(config.getPort());
+        sender.setUsername(config.getUsername());
+        sender.setPassword(AESUtil.decrypt(config.getPassword()));
+
+        Properties props = sender.getJavaMailProperties();
+        boolean hasAuth = config.getUsername() != null && !config.getUsername().isBlank();
+        props.put("mail.smtp.auth", String.valueOf(hasAuth));
+
+        if (Boolean.TRUE.equals(config.getUseTls())) {
+            props.put("mail.smtp.starttls.enable", "true");
+            props.put("mail.smtp.ssl.enable", "false");
+        } else {
+            props.put("mail.smtp.ssl.enable", "true");
+            props.put("mail.smtp.starttls.enable", "false");
+        }
+
+        props.put("mail.smtp.ssl.trust", config.getHost());
+        props.put("mail.smtp.connectiontimeout", "30000");
+        props.put("mail.smtp.timeout", "30000");
+        props.put("mail.smtp.writetimeout", "30000");
+        return sender;
+    }
+}
@@ -0,0 +1,83 @@
+package com.bankmega.certification.service.mail_sender;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batas kirim SMTP bersama untuk semua pengirim (outbox, reset password, test
+ * email): maks {@code per-second} pesan per detik dan {@code per-minute} pesan
+ * per menit, supaya relay tidak mulai menolak (421 / 450) di tengah run besar.
+ *
+ * Dua token bucket. Token diambil di muka (boleh minus), lalu pemanggil tidur
+ * sampai utangnya lunas, jadi antrean pemanggil dilayani berurutan tanpa spin.
+ * Nilai &lt;= 0 mematikan batas tersebut.
+ */
+@Component
+public class SmtpRateLimiter {
+
+    private final Bucket perSecond;
+    private final Bucket perMinute;
+    private final Counter throttled;
+    private final Timer waitTimer;
+
+    public SmtpRateLimiter(
+            @Value("${app.mail.rate.per-second:10}") double perSecond,
+            @Value("${app.mail.rate.per-minute:300}") int perMinute,
+            MeterRegistry registry) {
+        this.perSecond = perSecond > 0 ? new Bucket(Math.max(1, perSecond), perSecond) : null;
+        this.perMinute = perMinute > 0 ? new Bucket(perMinute, perMinute / 60.0) : null;
+        this.throttled = Counter.builder("email.smtp.throttled")
+                .description("Messages that had to wait for the shared SMTP rate limit")
+                .register(registry);
+        this.waitTimer = Timer.builder("email.smtp.throttle.wait")
+                .description("Time spent waiting for the shared SMTP rate limit")
+                .register(registry);
+    }
+
+    /** Tunggu sampai satu pesan boleh dikirim. */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos <= 0)
+            return;
+        throttled.increment();
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        long wait = 0;
+        if (perSecond != null)
+            wait = Math.max(wait, perSecond.take(now));
+        if (perMinute != null)
+            wait = Math.max(wait, perMinute.take(now));
+        return wait;
+    }
+
+    /** Hanya disentuh di dalam {@link #reserve()}. */
+    private static final class Bucket {
+        final double capacity;
+        final double refillPerNano;
+        double tokens;
+        long lastNanos = System.nanoTime();
+
+        Bucket(double capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        /** Ambil satu token; return lama tunggu (ns) sampai token itu benar-benar ada. */
+        long take(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastNanos) * refillPerNano);
+            lastNanos = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / refillPerNano);
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.bankmega.certification.service.notification_inbox;
+
+import com.bankmega.certification.dto.NotificationResponse;
+import com.bankmega.certification.entity.Notification;
+import com.bankmega.certification.repository.NotificationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Push notifikasi baru + jumlah unread ke browser lewat SSE, pengganti polling
+ * /latest dan /unread-count.
+ *
+ * - Koneksi per user dibatasi; koneksi paling lama ditutup kalau lewat batas.
+ * - Heartbeat berkala supaya proxy tidak memutus koneksi idle.
+ * - Reconnect dengan Last-Event-ID (= id notifikasi) me-replay yang terlewat.
+ * - Notifikasi yang dibuat instance lain ditangkap sweep di tiap heartbeat
+ * (satu query per instance, bukan per tab). Tiap tab hanya menerima yang
+ * lebih baru dari Last-Event-ID-nya, atau kalau tanpa Last-Event-ID, yang
+ * dibuat sejak tab subscribe; isi sebelumnya sudah diambil lewat /latest.
+ *
+ * Query + pemilihan event jalan di satu thread dispatcher (pusher); event-nya
+ * masuk antrean kecil per tab yang ditulis ke socket oleh pool writer, paling
+ * banyak satu task per tab. SseEmitter.send bisa blok kalau buffer TCP client
+ * penuh: yang tertahan hanya tab itu (dan satu thread writer). Kalau antreannya
+ * lewat batas, tab diputus; client reconnect dengan Last-Event-ID dan dapat replay.
+ * Thread yang commit tidak pernah menunggu socket client.
+ */
+@Slf4j
+@Service
+public class NotificationStreamService {
+
+    private static final int REPLAY_LIMIT = 50;
+    // Replay hanya untuk reconnect; yang lebih lama ada di inbox. Sekalian
+    // jadi batas created_at supaya partisi lama tidak dibaca
+    private static final Duration REPLAY_MAX_AGE = Duration.ofDays(1);
+    private static final int RECENT_IDS_PER_CONNECTION = 256;
+    private static final int SWEEP_CHUNK = 1000;
+
+    private final NotificationRepository notificationRepository;
+    private final UnreadCountCache unreadCounts;
+    private final int maxConnectionsPerUser;
+    private final long timeoutMs;
+    private final Duration sweepLookback;
+    private final int maxBacklog;
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService pusher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "NotificationStream-push");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService writers;
+    private volatile LocalDateTime lastSweep = LocalDateTime.now();
+
+    public NotificationStreamService(
+            NotificationRepository notificationRepository,
+            UnreadCountCache unreadCounts,
+            @Value("${app.notification.stream.max-connections-per-user:5}") int maxConnectionsPerUser,
+            @Value("${app.notification.stream.timeout-minutes:30}") long timeoutMinutes,
+            @Value("${app.notification.stream.heartbeat-seconds:25}") long heartbeatSeconds,
+            @Value("${app.notification.stream.writer-threads:4}") int writerThreads,
+            @Value("${app.notification.stream.max-backlog:64}") int maxBacklog) {
+        this.notificationRepository = notificationRepository;
+        this.unreadCounts = unreadCounts;
+        this.maxConnectionsPerUser = Math.max(1, maxConnectionsPerUser);
+        this.timeoutMs = Duration.ofMinutes(Math.max(1, timeoutMinutes)).toMillis();
+        // transaksi yang commit telat tetap kena sweep berikutnya
+        this.sweepLookback = Duration.ofSeconds(Math.max(5, heartbeatSeconds) * 2);
+        this.maxBacklog = Math.max(1, maxBacklog);
+
+        AtomicInteger seq = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), r -> {
+            Thread t = new Thread(r, "NotificationStream-write-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Satu tab browser. floorId/recentIds hanya disentuh thread pusher; outbox,
+     * draining dan closed dijaga monitor objek ini.
+     */
+    private static final class Subscriber {
+        final Long userId;
+        final SseEmitter emitter;
+        // batas bawah: id > floorId kalau reconnect dengan Last-Event-ID, selain itu createdAt >= subscribedAt
+        final Long floorId;
+        final LocalDateTime subscribedAt;
+        final Set<Long> recentIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > RECENT_IDS_PER_CONNECTION;
+            }
+        });
+        final Deque<SseEmitter.SseEventBuilder> outbox = new ArrayDeque<>();
+        boolean draining;
+        boolean closed;
+
+        Subscriber(Long userId, SseEmitter emitter, Long floorId, LocalDateTime subscribedAt) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.floorId = floorId;
+            this.subscribedAt = subscribedAt;
+        }
+
+        boolean wants(Notification n) {
+            if (recentIds.contains(n.getId()))
+                return false;
+            if (floorId != null)
+                return n.getId() > floorId;
+            return n.getCreatedAt() == null || !n.getCreatedAt().isBefore(subscribedAt);
+        }
+    }
+
+    // ================== SUBSCRIBE ==================
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber sub = new Subscriber(userId, emitter, lastEventId, LocalDateTime.now());
+
+        List<Subscriber> list = subscribers.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>());
+        list.add(sub);
+        while (list.size() > maxConnectionsPerUser) {
+            Subscriber oldest = list.remove(0);
+            close(oldest);
+        }
+
+        emitter.onCompletion(() -> remove(sub));
+        emitter.onTimeout(() -> remove(sub));
+        emitter.onError(e -> remove(sub));
+
+        // replay + unread awal dikirim dari thread pusher, setelah emitter dikembalikan
+        pusher.execute(() -> {
+            if (lastEventId != null) {
+                List<Notification> missed = notificationRepository
+                        .findByUserIdAndIdGreaterThanAndCreatedAtGreaterThanEqualOrderByIdAsc(userId, lastEventId,
+                                LocalDateTime.now().minus(REPLAY_MAX_AGE), PageRequest.of(0, REPLAY_LIMIT));
+                for (Notification n : missed) {
+                    if (!sendNotification(sub, n))
+                        return;
+                }
+            }
+            sendUnread(sub, unreadCount(userId));
+        });
+        return emitter;
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void remove(Subscriber sub) {
+        subscribers.computeIfPresent(sub.userId, (k, list) -> {
+            list.remove(sub);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    public int connectionCount() {
+        return subscribers.values().stream().mapToInt(List::size).sum();
+    }
+
+    // ================== PUBLISH ==================
+    /**
+     * Push notifikasi yang baru dibuat ke user yang sedang terhubung. Kalau ada
+     * transaksi aktif, dikirim setelah commit.
+     */
+    public void publish(Collection<Notification> created) {
+        if (created == null || created.isEmpty() || subscribers.isEmpty())
+            return;
+        List<Notification> snapshot = created.stream()
+                .filter(n -> n.getId() != null && subscribers.containsKey(n.getUserId()))
+                .toList();
+        if (snapshot.isEmpty())
+            return;
+
+        Runnable push = () -> pusher.execute(() -> deliver(snapshot));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    push.run();
+                }
+            });
+        } else {
+            push.run();
+        }
+    }
+
+    /** Push jumlah unread terbaru (misal setelah mark-read). */
+    public void publishUnreadCount(Long userId) {
+        if (userId == null || !subscribers.containsKey(userId))
+            return;
+        Runnable push = () -> pusher.execute(() -> {
+            long count = unreadCount(userId);
+            for (Subscriber sub : subscribers.getOrDefault(userId, List.of()))
+                sendUnread(sub, count);
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    push.run();
+                }
+            });
+        } else {
+            push.run();
+        }
+    }
+
+    // ================== HEARTBEAT + SWEEP ==================
+    @Scheduled(fixedDelayString = "#{${app.notification.stream.heartbeat-seconds:25} * 1000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty())
+            return;
+        LocalDateTime sweepFrom = lastSweep.minus(sweepLookback);
+        lastSweep = LocalDateTime.now();
+        pusher.execute(() -> {
+            sweep(sweepFrom);
+            for (List<Subscriber> list : subscribers.values()) {
+                for (Subscriber sub : list)
+                    enqueue(sub, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    // Notifikasi dari instance lain: satu query untuk semua user yang terhubung
+    private void sweep(LocalDateTime from) {
+        List<Long> userIds = new ArrayList<>(subscribers.keySet());
+        for (int i = 0; i < userIds.size(); i += SWEEP_CHUNK) {
+            List<Long> chunk = userIds.subList(i, Math.min(i + SWEEP_CHUNK, userIds.size()));
+            List<Notification> recent = notificationRepository
+                    .findByUserIdInAndCreatedAtGreaterThanEqualOrderByIdAsc(chunk, from);
+            deliver(recent);
+        }
+    }
+
+    // ================== PILIH EVENT (thread pusher) ==================
+    private void deliver(List<Notification> notifications) {
+        Map<Long, List<Notification>> byUser = notifications.stream()
+                .collect(Collectors.groupingBy(Notification::getUserId, LinkedHashMap::new, Collectors.toList()));
+
+        for (Map.Entry<Long, List<Notification>> e : byUser.entrySet()) {
+            List<Subscriber> subs = subscribers.getOrDefault(e.getKey(), List.of());
+            if (subs.isEmpty())
+                continue;
+            boolean anySent = false;
+            for (Subscriber sub : subs) {
+                for (Notification n : e.getValue()) {
+                    if (!sub.wants(n))
+                        continue;
+                    if (!sendNotification(sub, n))
+                        break;
+                    anySent = true;
+                }
+            }
+            if (anySent) {
+                long count = unreadCount(e.getKey());
+                for (Subscriber sub : subs)
+                    sendUnread(sub, count);
+            }
+        }
+    }
+
+    private boolean sendNotification(Subscriber sub, Notification n) {
+        if (!enqueue(sub, SseEmitter.event()
+                .id(String.valueOf(n.getId()))
+                .name("notification")
+                .data(toResponse(n))))
+            return false;
+        sub.recentIds.add(n.getId());
+        return true;
+    }
+
+    private void sendUnread(Subscriber sub, long count) {
+        enqueue(sub, SseEmitter.event().name("unread-count").data(count));
+    }
+
+    // ================== ANTREAN PER TAB (thread writer) ==================
+    /** @return false kalau tab sudah ditutup, atau diputus karena antreannya penuh */
+    private boolean enqueue(Subscriber sub, SseEmitter.SseEventBuilder event) {
+        boolean full;
+        synchronized (sub) {
+            if (sub.closed)
+                return false;
+            full = sub.outbox.size() >= maxBacklog;
+            if (!full) {
+                sub.outbox.add(event);
+                if (sub.draining)
+                    return true;
+                sub.draining = true;
+            }
+        }
+        if (full) {
+            // client tidak membaca (tab tertahan / jaringan macet)
+            log.debug("[Stream] Antrean user {} penuh ({} event), koneksi diputus", sub.userId, maxBacklog);
+            remove(sub);
+            close(sub);
+            return false;
+        }
+        writers.execute(() -> drain(sub));
+        return true;
+    }
+
+    /**
+     * Tutup tab tanpa menunggu socket-nya: complete() memakai lock yang sama
+     * dengan send(), jadi yang memanggilnya selalu task drain tab itu sendiri.
+     */
+    private void close(Subscriber sub) {
+        synchronized (sub) {
+            if (sub.closed)
+                return;
+            sub.closed = true;
+            sub.outbox.clear();
+            if (sub.draining)
+                return; // drain yang sedang jalan menutup setelah send-nya kembali
+            sub.draining = true;
+        }
+        writers.execute(() -> drain(sub));
+    }
+
+    private void drain(Subscriber sub) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            synchronized (sub) {
+                if (sub.closed) {
+                    event = null;
+                } else {
+                    event = sub.outbox.poll();
+                    if (event == null) {
+                        sub.draining = false;
+                        return;
+                    }
+                }
+            }
+            if (event == null) {
+                sub.emitter.complete();
+                return;
+            }
+            try {
+                sub.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                synchronized (sub) {
+                    sub.closed = true;
+                    sub.outbox.clear();
+                }
+                remove(sub);
+                sub.emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+
+    private long unreadCount(Long userId) {
+        return unreadCounts.get(userId, () -> notificationRepository.countByUserIdAndIsReadFalse(userId));
+    }
+
+    private static NotificationResponse toResponse(Notification n) {
+        return NotificationResponse.builder()
+                .id(n.getId())
+                .title(n.getTitle())
+                .message(n.getMessage())
+                .read(n.isRead())
+                .readAt(n.getReadAt())
+                .createdAt(n.getCreatedAt())
+                .sentAt(n.getSentAt())
+                .relatedEntity(n.getRelatedEntity())
+                .relatedEntityId(n.getRelatedEntityId())
+                .type(n.getType() != null ? n.getType().name() : null)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pusher.shutdownNow();
+        writers.shutdownNow();
+        subscribers.values().forEach(list -> list.forEach(s -> s.emitter.complete()));
+    }
+}
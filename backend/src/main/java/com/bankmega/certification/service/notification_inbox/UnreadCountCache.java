@@ -0,0 +1,127 @@
+package com.bankmega.certification.service.notification_inbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache jumlah notifikasi belum dibaca per user, supaya /unread-count dan
+ * push stream tidak COUNT tiap kali. Counter di-update saat notifikasi dibuat / dibaca (setelah
+ * commit); TTL supaya perubahan dari instance lain tetap ikut terbaca.
+ *
+ * Dibatasi jumlah user (LRU), hasil COUNT yang berjalan bareng perubahan
+ * counter tidak disimpan.
+ */
+@Component
+public class UnreadCountCache {
+
+    private record Entry(long count, Instant expiresAt) {
+    }
+
+    private final Duration ttl;
+    private final int maxUsers;
+    private final Clock clock;
+
+    // access-order → yang paling lama tidak dipakai dibuang duluan
+    private final LinkedHashMap<Long, Entry> counts = new LinkedHashMap<>(256, 0.75f, true);
+    private long generation = 0;
+
+    public UnreadCountCache(
+            @Value("${app.notification.unread-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.notification.unread-cache.max-users:10000}") int maxUsers) {
+        this(Duration.ofSeconds(Math.max(1, ttlSeconds)), maxUsers, Clock.systemUTC());
+    }
+
+    UnreadCountCache(Duration ttl, int maxUsers, Clock clock) {
+        this.ttl = ttl;
+        this.maxUsers = Math.max(1, maxUsers);
+        this.clock = clock;
+    }
+
+    public long get(Long userId, LongSupplier loader) {
+        long startGeneration;
+        synchronized (this) {
+            Entry e = counts.get(userId);
+            if (e != null && clock.instant().isBefore(e.expiresAt()))
+                return e.count();
+            startGeneration = generation;
+        }
+
+        long loaded = loader.getAsLong();
+        synchronized (this) {
+            if (generation == startGeneration) {
+                counts.put(userId, new Entry(loaded, clock.instant().plus(ttl)));
+                trim();
+            }
+        }
+        return loaded;
+    }
+
+    /** Tambah/kurangi counter user setelah transaksi commit. */
+    public void adjust(Long userId, long delta) {
+        if (userId == null || delta == 0)
+            return;
+        afterCommit(() -> apply(Map.of(userId, delta)));
+    }
+
+    public void adjustAll(Map<Long, Long> deltas) {
+        if (deltas == null || deltas.isEmpty())
+            return;
+        afterCommit(() -> apply(deltas));
+    }
+
+    public void reset(Long userId) {
+        if (userId == null)
+            return;
+        afterCommit(() -> {
+            synchronized (this) {
+                generation++;
+                counts.put(userId, new Entry(0, clock.instant().plus(ttl)));
+                trim();
+            }
+        });
+    }
+
+    public synchronized void evict(Long userId) {
+        generation++;
+        counts.remove(userId);
+    }
+
+    private synchronized void apply(Map<Long, Long> deltas) {
+        generation++;
+        for (Map.Entry<Long, Long> d : deltas.entrySet()) {
+            Entry e = counts.get(d.getKey());
+            if (e != null)
+                counts.put(d.getKey(), new Entry(Math.max(0, e.count() + d.getValue()), e.expiresAt()));
+        }
+    }
+
+    private void trim() {
+        var it = counts.entrySet().iterator();
+        while (counts.size() > maxUsers && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bankmega.certification.service.notification_template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template notifikasi yang sudah di-parse jadi daftar segmen (literal /
+ * variabel {@code {{nama}}}). Parse sekali per versi template, lalu render per
+ * penerima cukup satu pass tanpa {@code String.replace} berantai.
+ *
+ * Variabel yang tidak ada di map dibiarkan apa adanya (sama seperti perilaku
+ * replace lama). Output HTML: literal di-escape, nilai variabel di-escape lalu
+ * di-bold, newline jadi {@code <br/>}.
+ */
+public final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    public record Rendered(String plain, String html) {
+    }
+
+    // literal != null -> segmen literal, selain itu variabel (key lengkap termasuk kurung)
+    private record Segment(String literal, String variable) {
+    }
+
+    private final List<Segment> segments;
+    private final int literalLength;
+
+    private CompiledTemplate(List<Segment> segments, int literalLength) {
+        this.segments = segments;
+        this.literalLength = literalLength;
+    }
+
+    public static CompiledTemplate compile(String text) {
+        String src = (text == null || text.isBlank()) ? "-" : text;
+        List<Segment> segments = new ArrayList<>();
+        int literalLength = 0;
+        int pos = 0;
+        while (pos < src.length()) {
+            int open = src.indexOf(OPEN, pos);
+            int close = open < 0 ? -1 : src.indexOf(CLOSE, open + OPEN.length());
+            if (open < 0 || close < 0) {
+                segments.add(new Segment(src.substring(pos), null));
+                literalLength += src.length() - pos;
+                break;
+            }
+            if (open > pos) {
+                segments.add(new Segment(src.substring(pos, open), null));
+                literalLength += open - pos;
+            }
+            segments.add(new Segment(null, src.substring(open, close + CLOSE.length())));
+            pos = close + CLOSE.length();
+        }
+        return new CompiledTemplate(List.copyOf(segments), literalLength);
+    }
+
+    public String renderPlain(Map<String, String> vars) {
+        StringBuilder plain = new StringBuilder(literalLength + 64);
+        for (Segment s : segments) {
+            plain.append(s.literal() != null ? s.literal() : valueOf(s.variable(), vars));
+        }
+        return plain.toString();
+    }
+
+    /** Render plain dan HTML-bold sekaligus dalam satu pass. */
+    public Rendered render(Map<String, String> vars) {
+        StringBuilder plain = new StringBuilder(literalLength + 64);
+        StringBuilder html = new StringBuilder(literalLength + 128);
+        for (Segment s : segments) {
+            if (s.literal() != null) {
+                plain.append(s.literal());
+                appendHtml(html, s.literal());
+                continue;
+            }
+            String value = vars.get(s.variable());
+            if (value == null) {
+                plain.append(s.variable());
+                appendHtml(html, s.variable());
+            } else {
+                plain.append(value);
+                if (value.isBlank()) {
+                    appendHtml(html, value);
+                } else {
+                    html.append("<b>");
+                    appendHtml(html, value);
+                    html.append("</b>");
+                }
+            }
+        }
+        return new Rendered(plain.toString(), html.toString());
+    }
+
+    private static String valueOf(String variable, Map<String, String> vars) {
+        String value = vars.get(variable);
+        return value != null ? value : variable;
+    }
+
+    private static void appendHtml(StringBuilder out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#039;");
+                case '\r' -> {
+                    // \r\n dihitung satu baris
+                    if (i + 1 >= s.length() || s.charAt(i + 1) != '\n')
+                        out.append(c);
+                }
+                case '\n' -> out.append("<br/>");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.bankmega.certification.service.reference_data;
+
+import com.bankmega.certification.entity.*;
+import com.bankmega.certification.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache master data (org unit, jabatan, sertifikasi, level, sub bidang, rule)
+ * yang dipakai bareng oleh import (pegawai, mapping jabatan, exception). Tiap
+ * tipe disimpan sebagai snapshot immutable dengan index id + key ternormalisasi
+ * (trim + lowercase).
+ *
+ * Mapper response tidak lewat sini: master-nya sudah ikut ter-load lewat
+ * relasi EAGER / EntityGraph di query yang sama, jadi cache tidak menghemat query.
+ *
+ * Snapshot dimuat lazy dan punya versi. Service master data wajib panggil
+ * {@link #invalidate(Type...)} setiap kali menulis; kalau di dalam transaksi,
+ * versi dinaikkan lagi setelah transaksi selesai supaya data yang sempat
+ * dimuat sebelum commit tidak nyangkut.
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache {
+
+    public enum Type {
+        REGIONAL, DIVISION, UNIT, JOB_POSITION,
+        CERTIFICATION_RULE, SUB_FIELD, CERTIFICATION_LEVEL, CERTIFICATION;
+
+        // rule menyimpan certification/level/sub field di dalamnya, jadi ikut basi
+        private Set<Type> withDependents() {
+            return switch (this) {
+                case CERTIFICATION -> EnumSet.of(CERTIFICATION, SUB_FIELD, CERTIFICATION_RULE);
+                case CERTIFICATION_LEVEL, SUB_FIELD -> EnumSet.of(this, CERTIFICATION_RULE);
+                default -> EnumSet.of(this);
+            };
+        }
+    }
+
+    private final Map<Type, Slot<?>> slots = new EnumMap<>(Type.class);
+    private final Slot<Regional> regionals;
+    private final Slot<Division> divisions;
+    private final Slot<Unit> units;
+    private final Slot<JobPosition> jobPositions;
+    private final Slot<Certification> certifications;
+    private final Slot<CertificationLevel> levels;
+    private final Slot<SubField> subFields;
+    private final Slot<CertificationRule> rules;
+
+    public ReferenceDataCache(
+            RegionalRepository regionalRepo,
+            DivisionRepository divisionRepo,
+            UnitRepository unitRepo,
+            JobPositionRepository jobPositionRepo,
+            CertificationRepository certificationRepo,
+            CertificationLevelRepository levelRepo,
+            SubFieldRepository subFieldRepo,
+            CertificationRuleRepository ruleRepo) {
+        regionals = register(Type.REGIONAL, regionalRepo::findAll, Regional::getId, Regional::getName, null);
+        divisions = register(Type.DIVISION, divisionRepo::findAll, Division::getId, Division::getName, null);
+        units = register(Type.UNIT, unitRepo::findAll, Unit::getId, Unit::getName, null);
+        jobPositions = register(Type.JOB_POSITION, jobPositionRepo::findAll,
+                JobPosition::getId, JobPosition::getName, null);
+        certifications = register(Type.CERTIFICATION, certificationRepo::findByDeletedAtIsNull,
+                Certification::getId, Certification::getCode, null);
+        levels = register(Type.CERTIFICATION_LEVEL, levelRepo::findByDeletedAtIsNull,
+                CertificationLevel::getId, l -> l.getLevel() == null ? null : String.valueOf(l.getLevel()), null);
+        subFields = register(Type.SUB_FIELD, subFieldRepo::findWithCertificationByDeletedAtIsNull,
+                SubField::getId, SubField::getCode, null);
+        rules = register(Type.CERTIFICATION_RULE, ruleRepo::findWithRelationsByDeletedAtIsNull,
+                CertificationRule::getId, ReferenceDataCache::ruleKey,
+                r -> r.getCertification() != null ? r.getCertification().getCode() : null);
+    }
+
+    // ===================== Akses snapshot =====================
+
+    /** Index by id + nama. */
+    public Index<Regional> regionals() {
+        return regionals.get();
+    }
+
+    /** Index by id + nama. */
+    public Index<Division> divisions() {
+        return divisions.get();
+    }
+
+    /** Index by id + nama. */
+    public Index<Unit> units() {
+        return units.get();
+    }
+
+    /** Index by id + nama. */
+    public Index<JobPosition> jobPositions() {
+        return jobPositions.get();
+    }
+
+    /** Index by id + kode (hanya yang belum dihapus). */
+    public Index<Certification> certifications() {
+        return certifications.get();
+    }
+
+    /** Index by id + angka level (hanya yang belum dihapus). */
+    public Index<CertificationLevel> levels() {
+        return levels.get();
+    }
+
+    /** Index by id + kode (hanya yang belum dihapus). */
+    public Index<SubField> subFields() {
+        return subFields.get();
+    }
+
+    /**
+     * Index by id + {@link #ruleKey(String, Integer, String)}, group by kode
+     * sertifikasi (hanya yang belum dihapus, relasi sudah ter-load).
+     */
+    public Index<CertificationRule> rules() {
+        return rules.get();
+    }
+
+    /** Key rule: kode sertifikasi + level + kode sub bidang (boleh null). */
+    public static String ruleKey(String certCode, Integer level, String subFieldCode) {
+        return normalize(certCode) + "|" + (level == null ? "" : level) + "|" + normalize(subFieldCode);
+    }
+
+    static String ruleKey(CertificationRule r) {
+        return ruleKey(
+                r.getCertification() != null ? r.getCertification().getCode() : null,
+                r.getCertificationLevel() != null ? r.getCertificationLevel().getLevel() : null,
+                r.getSubField() != null ? r.getSubField().getCode() : null);
+    }
+
+    public static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase();
+    }
+
+    // ===================== Invalidation =====================
+
+    /**
+     * Tandai snapshot basi. Dipanggil setelah tulis master data; kalau ada
+     * transaksi aktif, diulang lagi setelah commit/rollback.
+     */
+    public void invalidate(Type... types) {
+        Set<Type> affected = EnumSet.noneOf(Type.class);
+        for (Type t : types) {
+            affected.addAll(t.withDependents());
+        }
+        bump(affected);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bump(affected);
+                }
+            });
+        }
+    }
+
+    public long version(Type type) {
+        return slots.get(type).version.get();
+    }
+
+    private void bump(Set<Type> types) {
+        for (Type t : types) {
+            slots.get(t).invalidate();
+        }
+        log.debug("Reference data invalidated: {}", types);
+    }
+
+    private <T> Slot<T> register(Type type, Supplier<List<T>> loader, Function<T, Long> id,
+            Function<T, String> key, Function<T, String> group) {
+        Slot<T> slot = new Slot<>(type, loader, id, key, group);
+        slots.put(type, slot);
+        return slot;
+    }
+
+    // ===================== Snapshot =====================
+
+    /** Snapshot immutable; aman dibaca dari banyak thread. */
+    public static final class Index<T> {
+        private final long version;
+        private final List<T> all;
+        private final Map<Long, T> byId;
+        private final Map<String, T> byKey;
+        private final Map<String, List<T>> byGroup;
+
+        private Index(long version, List<T> items, Function<T, Long> id, Function<T, String> key,
+                Function<T, String> group) {
+            Map<Long, T> ids = new HashMap<>(items.size() * 2);
+            Map<String, T> keys = new HashMap<>(items.size() * 2);
+            Map<String, List<T>> groups = new HashMap<>();
+            for (T item : items) {
+                ids.put(id.apply(item), item);
+                String k = key.apply(item);
+                if (k != null && !k.isBlank())
+                    keys.putIfAbsent(normalize(k), item);
+                if (group != null) {
+                    groups.computeIfAbsent(normalize(group.apply(item)), g -> new ArrayList<>()).add(item);
+                }
+            }
+            groups.replaceAll((g, list) -> List.copyOf(list));
+
+            this.version = version;
+            this.all = List.copyOf(items);
+            this.byId = Map.copyOf(ids);
+            this.byKey = Map.copyOf(keys);
+            this.byGroup = Map.copyOf(groups);
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public List<T> all() {
+            return all;
+        }
+
+        public Optional<T> byId(Long id) {
+            return id == null ? Optional.empty() : Optional.ofNullable(byId.get(id));
+        }
+
+        /** Lookup by key; input dinormalisasi dulu (trim + lowercase). */
+        public Optional<T> byKey(String key) {
+            if (key == null || key.isBlank())
+                return Optional.empty();
+            return Optional.ofNullable(byKey.get(normalize(key)));
+        }
+
+        public List<T> group(String group) {
+            return byGroup.getOrDefault(normalize(group), List.of());
+        }
+    }
+
+    private static final class Slot<T> {
+        private final Type type;
+        private final Supplier<List<T>> loader;
+        private final Function<T, Long> id;
+        private final Function<T, String> key;
+        private final Function<T, String> group;
+
+        private final AtomicLong version = new AtomicLong();
+        private volatile Index<T> snapshot;
+
+        private Slot(Type type, Supplier<List<T>> loader, Function<T, Long> id, Function<T, String> key,
+                Function<T, String> group) {
+            this.type = type;
+            this.loader = loader;
+            this.id = id;
+            this.key = key;
+            this.group = group;
+        }
+
+        Index<T> get() {
+            Index<T> s = snapshot;
+            if (s != null && s.version == version.get())
+                return s;
+
+            synchronized (this) {
+                long v = version.get();
+                s = snapshot;
+                if (s != null && s.version == v)
+                    return s;
+
+                long start = System.nanoTime();
+                Index<T> loaded = new Index<>(v, loader.get(), id, key, group);
+                // kalau ada invalidate selama load, hasil ini tetap dipakai caller
+                // sekarang tapi tidak disimpan
+                if (version.get() == v)
+                    snapshot = loaded;
+                log.debug("Loaded {} {} rows (v{}) in {} ms", loaded.all.size(), type, v,
+                        (System.nanoTime() - start) / 1_000_000);
+                return loaded;
+            }
+        }
+
+        void invalidate() {
+            version.incrementAndGet();
+            snapshot = null;
+        }
+    }
+}
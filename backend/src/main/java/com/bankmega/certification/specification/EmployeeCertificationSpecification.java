@@ -1,6 +1,7 @@
 // src/main/java/com/bankmega/certification/specification/EmployeeCertificationSpecification.java
 package com.bankmega.certification.specification;
 
+import com.bankmega.certification.entity.EmployeeBatch;
 import com.bankmega.certification.entity.EmployeeCertification;
 import jakarta.persistence.criteria.JoinType;
 import org.springframework.data.jpa.domain.Specification;
@@ -131,4 +132,49 @@ public class EmployeeCertificationSpecification {
             return root.get("certificationRule").get("certification").get("id").in(allowedCertIds);
         };
     }
+
+    // Sertifikat peserta batch (yang belum dihapus) untuk rule sertifikasi batch tersebut
+    public static Specification<EmployeeCertification> byBatchId(Long batchId) {
+        return (root, query, cb) -> {
+            if (batchId == null || query == null) {
+                return cb.conjunction();
+            }
+            var sq = query.subquery(Long.class);
+            var eb = sq.from(EmployeeBatch.class);
+            sq.select(eb.get("id")).where(
+                    cb.equal(eb.get("batch").get("id"), batchId),
+                    cb.isNull(eb.get("deletedAt")),
+                    cb.equal(eb.get("employee"), root.get("employee")),
+                    cb.equal(eb.get("batch").get("certificationRule"), root.get("certificationRule")));
+            return cb.exists(sq);
+        };
+    }
+
+    // Filter list / export sertifikat pegawai
+    public static Specification<EmployeeCertification> filtered(
+            List<Long> employeeIds,
+            List<String> certCodes,
+            List<Integer> levels,
+            List<String> subCodes,
+            List<Long> institutionIds,
+            List<String> statuses,
+            String search,
+            LocalDate certDateStart,
+            LocalDate certDateEnd,
+            LocalDate validUntilStart,
+            LocalDate validUntilEnd,
+            List<Long> allowedCertIds) {
+
+        return notDeleted()
+                .and(byEmployeeIds(employeeIds))
+                .and(byCertCodes(certCodes))
+                .and(byLevels(levels))
+                .and(bySubCodes(subCodes))
+                .and(byInstitutionIds(institutionIds))
+                .and(byStatuses(statuses))
+                .and(bySearch(search))
+                .and(byCertDateRange(certDateStart, certDateEnd))
+                .and(byValidUntilRange(validUntilStart, validUntilEnd))
+                .and(byAllowedCertificationIds(allowedCertIds));
+    }
 }
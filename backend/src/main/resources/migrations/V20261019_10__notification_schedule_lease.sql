@@ -0,0 +1,14 @@
+-- Migration: Lease untuk run notification_schedules
+-- Date: 2026-10-19
+-- Description: Klaim run dulu langsung mengisi last_run sebelum handler jalan, jadi kalau
+-- node mati / handler gagal di tengah run, reminder hari itu hilang (at-most-once).
+-- Sekarang klaim hanya mengambil lease (lease_until) yang bisa diambil alih node lain
+-- setelah kedaluwarsa; last_run baru diisi setelah run selesai tanpa gagal. Run ulang aman
+-- karena dedupe reminder_notified_at / expired_notified_at (V20261019_9).
+
+BEGIN;
+
+-- Step 1: Kolom lease (NULL = tidak ada run yang sedang jalan)
+ALTER TABLE notification_schedules ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP;
+
+COMMIT;
@@ -0,0 +1,25 @@
+-- Migration: Dedupe notifikasi reminder / expired di database
+-- Date: 2026-10-19
+-- Description: Satu sertifikat hanya boleh dapat satu CERT_REMINDER dan satu EXPIRED_NOTICE
+-- per user. Scheduler pakai anti-join (NOT EXISTS) ke index ini, dan index UNIQUE-nya
+-- menolak insert ganda kalau dua proses jalan bersamaan.
+-- BATCH_NOTIFICATION sengaja tidak ikut: batch yang sama boleh diumumkan ulang.
+
+-- Step 1: Buang duplikat lama (simpan notifikasi paling awal per sertifikat/user)
+DELETE FROM notifications n
+ USING notifications keep
+ WHERE n.type IN ('CERT_REMINDER', 'EXPIRED_NOTICE')
+   AND keep.type = n.type
+   AND keep.related_entity = n.related_entity
+   AND keep.related_entity_id = n.related_entity_id
+   AND keep.user_id = n.user_id
+   AND keep.id < n.id;
+
+-- Step 2: Index non-unique untuk semua tipe (juga dibuat Hibernate di local)
+CREATE INDEX IF NOT EXISTS idx_notifications_dedupe
+    ON notifications (type, related_entity, related_entity_id, user_id);
+
+-- Step 3: Unique parsial untuk tipe yang hanya boleh dikirim sekali
+CREATE UNIQUE INDEX IF NOT EXISTS uq_notifications_cert_once
+    ON notifications (type, related_entity, related_entity_id, user_id)
+    WHERE type IN ('CERT_REMINDER', 'EXPIRED_NOTICE');
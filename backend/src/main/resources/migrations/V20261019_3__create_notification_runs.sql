@@ -0,0 +1,20 @@
+-- Migration: Statistik run reminder / expired
+-- Date: 2026-10-19
+-- Description: Satu baris per run CERT_REMINDER / EXPIRED_NOTICE (due, sent, skipped,
+-- failed, durasi) supaya bisa dipantau tanpa membaca log
+
+CREATE TABLE IF NOT EXISTS notification_runs (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    due INTEGER NOT NULL,
+    sent INTEGER NOT NULL,
+    skipped INTEGER NOT NULL,
+    failed INTEGER NOT NULL,
+    partitions INTEGER NOT NULL,
+    workers INTEGER NOT NULL,
+    duration_ms BIGINT NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_runs_type_started ON notification_runs(type, started_at);
@@ -0,0 +1,13 @@
+-- Migration: Index inbox notifikasi
+-- Date: 2026-10-19
+-- Description: Inbox (top-N + cursor) dibaca lewat (user_id, created_at DESC, id DESC) dengan
+-- LIMIT; index user_id lama tercakup oleh prefix-nya. COUNT unread pakai index parsial.
+
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created
+    ON notifications (user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_notifications_user_unread
+    ON notifications (user_id)
+    WHERE is_read = false;
+
+DROP INDEX IF EXISTS idx_notifications_user;
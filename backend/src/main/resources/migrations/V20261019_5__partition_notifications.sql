@@ -0,0 +1,77 @@
+-- Migration: Partisi bulanan notifications
+-- Date: 2026-10-19
+-- Description: notifications jadi tabel partisi RANGE (created_at) per bulan supaya query
+-- dengan filter tanggal hanya membaca partisi terkait, dan retensi cukup detach/drop
+-- partisi lama (lihat NotificationPartitionService). Partisi bulan depan dibuat otomatis
+-- oleh job; partisi DEFAULT hanya jaring pengaman.
+--
+-- Catatan: unique index di tabel partisi wajib memuat created_at, jadi
+-- uq_notifications_cert_once (V20261019_2) tidak dibawa. Dedupe reminder/expired dijaga
+-- oleh run yang mengunci employee_certifications lalu cek ulang anti-join.
+
+BEGIN;
+
+-- Step 1: Pindahkan tabel lama
+ALTER TABLE notifications RENAME TO notifications_legacy;
+
+CREATE SEQUENCE IF NOT EXISTS notifications_pk_seq;
+
+-- Step 2: Tabel partisi (PK wajib memuat kolom partisi)
+CREATE TABLE notifications (
+    id BIGINT NOT NULL DEFAULT nextval('notifications_pk_seq'),
+    user_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message TEXT NOT NULL,
+    is_read BOOLEAN NOT NULL DEFAULT false,
+    read_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    sent_at TIMESTAMP,
+    success BOOLEAN,
+    error_message VARCHAR(255),
+    type VARCHAR(50),
+    related_entity VARCHAR(255),
+    related_entity_id BIGINT,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE notifications_pk_seq OWNED BY notifications.id;
+
+-- Step 3: Satu partisi per bulan, dari data tertua sampai 3 bulan ke depan
+DO $$
+DECLARE
+    m DATE := date_trunc('month', COALESCE((SELECT min(created_at) FROM notifications_legacy), now()))::date;
+    last_month DATE := (date_trunc('month', now()) + interval '3 months')::date;
+BEGIN
+    WHILE m <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+            'notifications_p' || to_char(m, 'YYYY_MM'), m, (m + interval '1 month')::date);
+        m := (m + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+CREATE TABLE IF NOT EXISTS notifications_default PARTITION OF notifications DEFAULT;
+
+-- Step 4: Salin data + lanjutkan sequence id
+INSERT INTO notifications (id, user_id, title, message, is_read, read_at, created_at, sent_at, success,
+                           error_message, type, related_entity, related_entity_id)
+SELECT id, user_id, title, message, is_read, read_at, created_at, sent_at, success,
+       error_message, type, related_entity, related_entity_id
+  FROM notifications_legacy;
+
+SELECT setval('notifications_pk_seq', COALESCE((SELECT max(id) FROM notifications), 0) + 1, false);
+
+DROP TABLE notifications_legacy;
+
+-- Step 5: Index (otomatis dibuat di tiap partisi)
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created
+    ON notifications (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_notifications_user_unread
+    ON notifications (user_id)
+    WHERE is_read = false;
+CREATE INDEX IF NOT EXISTS idx_notifications_is_read ON notifications (is_read);
+CREATE INDEX IF NOT EXISTS idx_notifications_created ON notifications (created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_notifications_dedupe
+    ON notifications (type, related_entity, related_entity_id, user_id);
+
+COMMIT;
@@ -0,0 +1,14 @@
+-- Migration: State token bucket rate limiter bersama
+-- Date: 2026-10-19
+-- Description: Dipakai kalau app.rate-limit.store=jdbc, supaya batas login /
+-- forgot-password / reset berlaku bersama di semua instance backend. Bucket idle
+-- dihapus berkala oleh aplikasi.
+
+CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_buckets (
+    bucket_key VARCHAR(255) PRIMARY KEY,
+    tokens DOUBLE PRECISION NOT NULL,
+    allowed BOOLEAN NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_buckets_updated ON rate_limit_buckets(updated_at);
@@ -0,0 +1,8 @@
+-- Migration: Ukuran + checksum file sertifikat
+-- Date: 2026-10-19
+-- Description: Diisi saat upload (SHA-256 dihitung sambil streaming ke storage).
+-- File lama tetap NULL sampai di-upload ulang. Upload baru disimpan di folder
+-- bersharding (file_url = "ab/cd/nama_file"); file_url lama tanpa folder tetap valid.
+
+ALTER TABLE employee_certifications ADD COLUMN IF NOT EXISTS file_size BIGINT;
+ALTER TABLE employee_certifications ADD COLUMN IF NOT EXISTS file_sha256 VARCHAR(64);
@@ -0,0 +1,9 @@
+-- Migration: Deduplikasi file sertifikat (content-addressed)
+-- Date: 2026-10-19
+-- Description: Upload baru disimpan di file_url = "ab/cd/<sha256 isi file>", jadi
+-- beberapa sertifikat bisa merujuk file yang sama. Saat hapus / upload ulang,
+-- file fisik hanya dihapus kalau tidak ada baris lain (termasuk soft-deleted)
+-- dengan file_url yang sama; index ini untuk hitungan referensi tersebut.
+-- File lama (nama per upload) tetap dipakai apa adanya.
+
+CREATE INDEX IF NOT EXISTS idx_ec_file_url ON employee_certifications (file_url);
@@ -0,0 +1,49 @@
+-- Migration: Dedupe reminder / expired di luar tabel notifications
+-- Date: 2026-10-19
+-- Description: Sejak notifications dipartisi (V20261019_5), partisi lama di-archive/drop
+-- oleh job retensi. Kalau dedupe masih anti-join ke notifications, sertifikat yang masih
+-- expired lolos lagi setelah partisinya hilang dan dapat EXPIRED_NOTICE kedua. Status
+-- "sudah dinotifikasi" sekarang disimpan di employee_certifications, yang tidak kena retensi.
+--
+-- email_outbox.notification_created_at: UPDATE notifications dari worker outbox bisa
+-- dibatasi created_at, jadi hanya partisi terkait yang dibaca.
+
+BEGIN;
+
+-- Step 1: Kolom dedupe
+ALTER TABLE employee_certifications ADD COLUMN IF NOT EXISTS reminder_notified_at TIMESTAMP;
+ALTER TABLE employee_certifications ADD COLUMN IF NOT EXISTS expired_notified_at TIMESTAMP;
+
+-- Step 2: Isi dari notifikasi yang sudah terkirim (semua partisi masih ada saat migrasi)
+UPDATE employee_certifications c
+   SET reminder_notified_at = n.first_at
+  FROM (SELECT related_entity_id, user_id, min(created_at) AS first_at
+          FROM notifications
+         WHERE type = 'CERT_REMINDER' AND related_entity = 'EmployeeCertification'
+         GROUP BY related_entity_id, user_id) n
+ WHERE n.related_entity_id = c.id
+   AND n.user_id = c.employee_id
+   AND c.reminder_notified_at IS NULL;
+
+UPDATE employee_certifications c
+   SET expired_notified_at = n.first_at
+  FROM (SELECT related_entity_id, user_id, min(created_at) AS first_at
+          FROM notifications
+         WHERE type = 'EXPIRED_NOTICE' AND related_entity = 'EmployeeCertification'
+         GROUP BY related_entity_id, user_id) n
+ WHERE n.related_entity_id = c.id
+   AND n.user_id = c.employee_id
+   AND c.expired_notified_at IS NULL;
+
+-- Step 3: Index parsial untuk run (hanya yang belum dinotifikasi)
+CREATE INDEX IF NOT EXISTS idx_ec_reminder_pending
+    ON employee_certifications (reminder_date)
+    WHERE reminder_notified_at IS NULL AND deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_ec_expired_pending
+    ON employee_certifications (valid_until)
+    WHERE expired_notified_at IS NULL AND deleted_at IS NULL;
+
+-- Step 4: created_at notifikasi di outbox (baris lama dibiarkan NULL)
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS notification_created_at TIMESTAMP;
+
+COMMIT;
@@ -0,0 +1,68 @@
+package com.bankmega.certification.repository;
+
+import com.bankmega.certification.entity.Notification;
+import com.bankmega.certification.repository.JdbcCertificationNotificationRepository.NewNotification;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/** Tanpa database: yang dicek SQL + parameter yang dikirim ke Postgres. */
+@DisplayName("JdbcCertificationNotificationRepository Tests")
+class JdbcCertificationNotificationRepositoryTest {
+
+    private final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+    private final JdbcCertificationNotificationRepository repo = new JdbcCertificationNotificationRepository(jdbc);
+
+    @Test
+    @DisplayName("Claim and recheck use the dedupe column, not the retained notifications table")
+    void claimPartition_UsesDedupeColumn() {
+        when(jdbc.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(1L, 2L), List.of(2L));
+
+        var claim = repo.claimPartition(Notification.Type.EXPIRED_NOTICE, LocalDate.of(2026, 10, 19), 100, null);
+
+        assertEquals(2, claim.locked());
+        assertEquals(List.of(2L), claim.ids());
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbc, times(2)).queryForList(sql.capture(), any(SqlParameterSource.class), eq(Long.class));
+        sql.getAllValues().forEach(s -> {
+            assertTrue(s.contains("c.expired_notified_at IS NULL"), s);
+            assertFalse(s.contains("FROM notifications"), s);
+        });
+    }
+
+    @Test
+    @DisplayName("Insert marks the certificates and only creates notifications for rows it marked")
+    @SuppressWarnings("unchecked")
+    void insertNotifications_MarksThenInserts() {
+        when(jdbc.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class))).thenReturn(List.of());
+
+        repo.insertNotifications(Notification.Type.CERT_REMINDER, List.of(
+                new NewNotification(10L, "T", "M", 100L),
+                new NewNotification(11L, "T", "M", 101L)));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbc).query(sql.capture(), params.capture(), any(RowMapper.class));
+        String s = sql.getValue();
+        assertTrue(s.contains("SET reminder_notified_at = :now"), s);
+        assertTrue(s.contains("WHERE id IN (:ids) AND reminder_notified_at IS NULL"), s);
+        assertTrue(s.contains("JOIN marked k ON k.id = v.cert_id AND k.employee_id = v.user_id"), s);
+        assertTrue(s.contains("RETURNING id, user_id, related_entity_id, created_at"), s);
+        assertEquals(List.of(100L, 101L), params.getValue().getValue("ids"));
+
+        repo.insertNotifications(Notification.Type.CERT_REMINDER, List.of());
+        verifyNoMoreInteractions(jdbc);
+    }
+}
@@ -0,0 +1,113 @@
+package com.bankmega.certification.repository;
+
+import com.bankmega.certification.repository.JdbcEmailOutboxRepository.ClaimedEmail;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/** Tanpa database: yang dicek SQL + parameter yang dikirim ke Postgres. */
+@DisplayName("JdbcEmailOutboxRepository Tests")
+class JdbcEmailOutboxRepositoryTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 10, 19, 8, 30);
+
+    private final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+    private final JdbcEmailOutboxRepository repo = new JdbcEmailOutboxRepository(jdbc);
+
+    @Test
+    @DisplayName("Claim skips locked rows, bumps attempts and maps the returned rows")
+    @SuppressWarnings("unchecked")
+    void claim_SkipLockedAndIncrementsAttempts() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(5L);
+        when(rs.getObject("notification_id", Long.class)).thenReturn(50L);
+        when(rs.getTimestamp("notification_created_at")).thenReturn(Timestamp.valueOf(CREATED));
+        when(rs.getString("recipient")).thenReturn("a@bankmega.com");
+        when(rs.getString("subject")).thenReturn("Subject");
+        when(rs.getString("body")).thenReturn("<p>Body</p>");
+        when(rs.getInt("attempts")).thenReturn(2);
+        when(jdbc.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenAnswer(inv -> List.of(((RowMapper<ClaimedEmail>) inv.getArgument(2)).mapRow(rs, 0)));
+
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(5);
+        List<ClaimedEmail> claimed = repo.claim(25, staleBefore);
+
+        assertEquals(List.of(new ClaimedEmail(5L, 50L, CREATED, "a@bankmega.com", "Subject", "<p>Body</p>", 2)), claimed);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbc).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertTrue(sql.getValue().contains("FOR UPDATE SKIP LOCKED"));
+        assertTrue(sql.getValue().contains("attempts = o.attempts + 1"));
+        assertTrue(sql.getValue().contains("status = 'SENDING' AND locked_at < :staleBefore"));
+        assertEquals(25, params.getValue().getValue("limit"));
+        assertEquals(Timestamp.valueOf(staleBefore), params.getValue().getValue("staleBefore"));
+    }
+
+    @Test
+    @DisplayName("Mark sent / retry / failed only touch rows still in SENDING")
+    void mark_GuardsOnSendingStatus() {
+        repo.markSent(List.of());
+        verifyNoInteractions(jdbc);
+
+        repo.markSent(List.of(1L, 2L));
+        repo.markRetry(3L, "timeout", LocalDateTime.now().plusSeconds(30));
+        repo.markFailed(4L, null, null, "rejected");
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbc, times(3)).update(sql.capture(), any(SqlParameterSource.class));
+        assertTrue(sql.getAllValues().get(0).contains("SET status = 'SENT'"));
+        assertTrue(sql.getAllValues().get(1).contains("SET status = 'PENDING'"));
+        assertTrue(sql.getAllValues().get(2).contains("SET status = 'FAILED'"));
+        sql.getAllValues().forEach(s -> assertTrue(s.contains("status = 'SENDING'"), s));
+    }
+
+    @Test
+    @DisplayName("Release returns claimed rows to PENDING and gives back the claim's attempt")
+    void release_RestoresAttempt() {
+        repo.release(List.of(), "x", LocalDateTime.now());
+        verifyNoInteractions(jdbc);
+
+        repo.release(List.of(7L, 8L), "connect refused", LocalDateTime.now().plusSeconds(30));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbc).update(sql.capture(), params.capture());
+        assertTrue(sql.getValue().contains("SET status = 'PENDING', attempts = GREATEST(attempts - 1, 0)"));
+        assertTrue(sql.getValue().contains("status = 'SENDING'"));
+        assertEquals(List.of(7L, 8L), params.getValue().getValue("ids"));
+    }
+
+    @Test
+    @DisplayName("Mark failed also flags the in-app notification, bounded to its partition when known")
+    void markFailed_FlagsNotification() {
+        repo.markFailed(4L, 40L, CREATED, "rejected");
+        repo.markFailed(5L, 50L, null, "rejected");
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbc, times(4)).update(sql.capture(), params.capture());
+        assertTrue(sql.getAllValues().get(1).startsWith("UPDATE notifications"));
+        assertTrue(sql.getAllValues().get(1).contains("created_at >= :createdFrom"));
+        assertEquals(40L, params.getAllValues().get(1).getValue("notificationId"));
+        assertEquals(Timestamp.valueOf(CREATED.toLocalDate().atStartOfDay()),
+                params.getAllValues().get(1).getValue("createdFrom"));
+
+        // baris outbox lama tanpa created_at
+        assertTrue(sql.getAllValues().get(3).startsWith("UPDATE notifications"));
+        assertFalse(sql.getAllValues().get(3).contains("created_at"));
+    }
+}
@@ -123,4 +123,33 @@ class JwtUtilTest {
         assertTrue(JwtUtil.isValid(token, TEST_USERNAME));
         assertNull(JwtUtil.getEmployeeId(token));
     }
+
+    @Test
+    @DisplayName("verify should return typed claims from a single parse")
+    void verify_ShouldReturnTypedClaims() {
+        String token = JwtUtil.generateToken(TEST_USERNAME, TEST_ROLE, TEST_USER_ID, TEST_EMPLOYEE_ID);
+
+        JwtUtil.JwtClaims claims = JwtUtil.verify(token);
+
+        assertEquals(TEST_USERNAME, claims.username());
+        assertEquals(TEST_ROLE, claims.role());
+        assertEquals(TEST_USER_ID, claims.userId());
+        assertEquals(TEST_EMPLOYEE_ID, claims.employeeId());
+        assertTrue(JwtUtil.isValid(claims, TEST_USERNAME));
+    }
+
+    @Test
+    @DisplayName("verify should reuse cached claims but still reject tampered tokens")
+    void verify_WithCacheEnabled_ShouldReuseClaimsAndRejectTampered() {
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", 10);
+        jwtUtil.init();
+        String token = JwtUtil.generateToken(TEST_USERNAME, TEST_ROLE, TEST_USER_ID, TEST_EMPLOYEE_ID);
+
+        JwtUtil.JwtClaims first = JwtUtil.verify(token);
+        assertSame(first, JwtUtil.verify(token));
+
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+        assertFalse(JwtUtil.isValid(tampered, TEST_USERNAME));
+    }
 }
@@ -0,0 +1,132 @@
+package com.bankmega.certification.security;
+
+import com.bankmega.certification.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LoginPasswordVerifier Tests")
+class LoginPasswordVerifierTest {
+
+    private static final String RAW = "Rahasia123!";
+    private static final String LOW_COST_HASH = BCrypt.hashpw(RAW, BCrypt.gensalt(4));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private LoginPasswordVerifier verifier;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (verifier != null)
+            verifier.shutdown();
+    }
+
+    // threads=1, target cost 5 supaya test cepat
+    private LoginPasswordVerifier verifier(int queueCapacity, long timeoutMs) {
+        verifier = new LoginPasswordVerifier(1, queueCapacity, timeoutMs, 7, 5, 4, registry);
+        return verifier;
+    }
+
+    /** Tahan satu-satunya thread login, lalu isi antrean dengan {@code queued} tugas. */
+    private void saturateLoginPool(int queued) {
+        ThreadPoolTaskExecutor pool = (ThreadPoolTaskExecutor) ReflectionTestUtils.getField(verifier, "executor");
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        });
+        for (int i = 0; i < queued; i++)
+            pool.execute(this::awaitRelease);
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Hash upgrades are skipped while logins are queued and run once the queue drains")
+    void upgradeAsync_BacksOffWhileLoginsQueued() throws Exception {
+        verifier(4, 5000);
+        assertTrue(verifier.needsUpgrade(LOW_COST_HASH));
+        saturateLoginPool(1);
+
+        AtomicReference<String> stored = new AtomicReference<>();
+        verifier.upgradeAsync(RAW, stored::set);
+        assertEquals(1.0, registry.counter("password.hash.login.upgrade.skipped").count());
+
+        release.countDown();
+        ThreadPoolTaskExecutor pool = (ThreadPoolTaskExecutor) ReflectionTestUtils.getField(verifier, "executor");
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (pool.getQueueSize() > 0 || pool.getActiveCount() > 0)
+                Thread.sleep(10);
+        });
+
+        CompletableFuture<String> upgraded = new CompletableFuture<>();
+        verifier.upgradeAsync(RAW, upgraded::complete);
+        String hash = upgraded.get(5, TimeUnit.SECONDS);
+
+        assertNull(stored.get());
+        assertEquals(5, LoginPasswordVerifier.costOf(hash));
+        assertTrue(BCrypt.checkpw(RAW, hash));
+        // counter naik setelah store selesai
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (registry.counter("password.hash.login.upgraded").count() < 1.0)
+                Thread.sleep(10);
+        });
+    }
+
+    @Test
+    @DisplayName("A full login queue is rejected immediately with 503 and Retry-After")
+    void matches_QueueFull_ServiceBusy() {
+        verifier(1, 5000);
+        saturateLoginPool(1);
+
+        ServiceBusyException e = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> assertThrows(ServiceBusyException.class, () -> verifier.matches(RAW, LOW_COST_HASH)));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals("7", e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, registry.counter("password.hash.login.rejected").count());
+    }
+
+    @Test
+    @DisplayName("A login that waits longer than the timeout is rejected with 503 and Retry-After")
+    void matches_Timeout_ServiceBusy() {
+        verifier(4, 100);
+        saturateLoginPool(0);
+
+        ServiceBusyException e = assertThrows(ServiceBusyException.class, () -> verifier.matches(RAW, LOW_COST_HASH));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals("7", e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, registry.counter("password.hash.login.rejected").count());
+
+        release.countDown();
+        assertTrue(verifier.matches(RAW, LOW_COST_HASH));
+    }
+}
@@ -1,6 +1,8 @@
 package com.bankmega.certification.security;
 
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,10 +11,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import com.bankmega.certification.security.rate_limit.InMemoryRateLimitStore;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,7 +44,7 @@ class RateLimitingFilterTest {
 
     @BeforeEach
     void setUp() {
-        filter = new RateLimitingFilter();
+        filter = new RateLimitingFilter(new InMemoryRateLimitStore(1000));
         ReflectionTestUtils.setField(filter, "maxRequests", 3);
         ReflectionTestUtils.setField(filter, "durationSeconds", 60);
     }
@@ -102,4 +111,141 @@ class RateLimitingFilterTest {
 
         verify(filterChain, times(4)).doFilter(request, response);
     }
+
+    @Test
+    @DisplayName("Login attempts for one username should be limited across IPs")
+    void sameUsernameFromDifferentIPs_ShouldBeLimited() throws Exception {
+        ReflectionTestUtils.setField(filter, "usernameRequests", 2);
+        ReflectionTestUtils.setField(filter, "usernameDurationSeconds", 300);
+
+        int passed = 0;
+        MockHttpServletResponse last = null;
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/auth/login");
+            req.setRemoteAddr("10.0.0." + i);
+            req.setContentType("application/json");
+            req.setContent("{\"username\":\"Alice\",\"password\":\"x\"}".getBytes());
+            last = new MockHttpServletResponse();
+            FilterChain chain = mock(FilterChain.class);
+            filter.doFilterInternal(req, last, chain);
+            passed += mockingDetails(chain).getInvocations().size();
+        }
+
+        assertEquals(2, passed);
+        assertEquals(429, last.getStatus());
+        assertNotNull(last.getHeader("Retry-After"));
+    }
+
+    @Test
+    @DisplayName("Peeked JSON body can be read with a ReadListener (non-blocking IO)")
+    void cachedBody_ReadListener_BufferedBody() throws Exception {
+        byte[] body = "{\"username\":\"Alice\",\"password\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/auth/login");
+        req.setContentType("application/json");
+        req.setContent(body);
+
+        RecordingReadListener listener = readAsync(RateLimitingFilter.CachedBodyRequest.wrap(req));
+
+        assertArrayEquals(body, listener.read.toByteArray());
+        assertTrue(listener.allDataRead);
+        assertNull(listener.error);
+    }
+
+    @Test
+    @DisplayName("Body larger than the peek is read with a ReadListener through the original stream")
+    void cachedBody_ReadListener_DelegatesRemainder() throws Exception {
+        byte[] body = ("{\"note\":\"" + "x".repeat(10_000) + "\"}").getBytes(StandardCharsets.UTF_8);
+        AsyncInputStream raw = new AsyncInputStream(body);
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return raw;
+            }
+        };
+        req.setContentType("application/json");
+
+        RateLimitingFilter.CachedBodyRequest cached = RateLimitingFilter.CachedBodyRequest.wrap(req);
+        RecordingReadListener listener = readAsync(cached);
+        // container: data tersedia, lalu stream habis
+        raw.listener.onDataAvailable();
+        raw.listener.onAllDataRead();
+
+        assertArrayEquals(body, listener.read.toByteArray());
+        assertTrue(listener.allDataRead);
+    }
+
+    private static RecordingReadListener readAsync(HttpServletRequest req) throws Exception {
+        ServletInputStream in = req.getInputStream();
+        RecordingReadListener listener = new RecordingReadListener(in);
+        in.setReadListener(listener);
+        return listener;
+    }
+
+    /** Baca selama isReady(), seperti servlet non-blocking. */
+    private static final class RecordingReadListener implements ReadListener {
+        final ServletInputStream in;
+        final ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean allDataRead;
+        Throwable error;
+
+        RecordingReadListener(ServletInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            byte[] buf = new byte[1024];
+            while (in.isReady() && !in.isFinished()) {
+                int n = in.read(buf);
+                if (n < 0)
+                    break;
+                read.write(buf, 0, n);
+            }
+        }
+
+        @Override
+        public void onAllDataRead() {
+            allDataRead = true;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+    }
+
+    /** Stream container yang menyimpan ReadListener-nya. */
+    private static final class AsyncInputStream extends ServletInputStream {
+        final ByteArrayInputStream data;
+        ReadListener listener;
+
+        AsyncInputStream(byte[] body) {
+            this.data = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() {
+            return data.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return data.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return data.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            this.listener = readListener;
+        }
+    }
 }
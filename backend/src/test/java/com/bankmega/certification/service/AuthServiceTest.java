@@ -9,12 +9,15 @@ import com.bankmega.certification.entity.Role;
 import com.bankmega.certification.entity.User;
 import com.bankmega.certification.repository.UserRepository;
 import com.bankmega.certification.security.JwtUtil;
+import com.bankmega.certification.security.LoginPasswordVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -35,6 +38,10 @@ class AuthServiceTest {
     @Mock
     private PasswordResetService passwordResetService;
 
+    @Spy
+    private LoginPasswordVerifier passwordVerifier = new LoginPasswordVerifier(1, 4, 5000, 5, 10, 16,
+            new SimpleMeterRegistry());
+
     @InjectMocks
     private AuthService authService;
 
@@ -85,6 +92,25 @@ class AuthServiceTest {
         assertFalse(response.getToken().isEmpty());
     }
 
+    @Test
+    @DisplayName("Login with a low-cost hash should upgrade it in the background")
+    void login_WithLowCostHash_ShouldUpgradeHash() {
+        String lowCostHash = BCrypt.hashpw("TestPassword123", BCrypt.gensalt(4));
+        activeUser.setPassword(lowCostHash);
+
+        LoginRequest request = new LoginRequest();
+        request.setUsername("testuser");
+        request.setPassword("TestPassword123");
+
+        when(userRepository.findByUsernameAndDeletedAtIsNull("testuser"))
+                .thenReturn(Optional.of(activeUser));
+
+        assertNotNull(authService.login(request));
+
+        verify(userRepository, timeout(5000)).upgradePasswordHash(eq(1L), eq(lowCostHash),
+                argThat(h -> h.startsWith("$2a$10$") && BCrypt.checkpw("TestPassword123", h)));
+    }
+
     @Test
     @DisplayName("Login with null username should throw BAD_REQUEST")
     void login_WithNullUsername_ShouldThrowBadRequest() {
@@ -0,0 +1,75 @@
+package com.bankmega.certification.service;
+
+import com.bankmega.certification.entity.EmployeeCertification;
+import com.bankmega.certification.repository.CertificateFileRepository;
+import com.bankmega.certification.repository.CertificateFileRepository.CertificateFileRow;
+import com.bankmega.certification.service.file_storage.LocalFileStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("CertificateBundleService Tests")
+class CertificateBundleServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static CertificateFileRow row(long id, String nip, String key, long size) {
+        return new CertificateFileRow(id, nip, "Pegawai " + id, "BSMR", 2, null,
+                EmployeeCertification.Status.ACTIVE, LocalDate.of(2027, 1, 1), key, "scan.pdf",
+                "application/pdf", size, null);
+    }
+
+    @Test
+    @DisplayName("Streams matching files into the ZIP and records every row in manifest.csv")
+    void write_IncludesFilesMissingAndSizeCap() throws Exception {
+        LocalFileStore store = new LocalFileStore(tempDir);
+        byte[] small = "a".repeat(600 * 1024).getBytes(StandardCharsets.US_ASCII);
+        byte[] other = "b".repeat(600 * 1024).getBytes(StandardCharsets.US_ASCII);
+        String one = store.writeContent(new ByteArrayInputStream(small)).key();
+        String three = store.writeContent(new ByteArrayInputStream(other)).key();
+
+        CertificateFileRepository repo = mock(CertificateFileRepository.class);
+        when(repo.findChunk(any(), eq(0L), anyInt())).thenReturn(List.of(
+                row(1, "1001", one, small.length),
+                row(2, "1002", "aa/bb/missing.pdf", 10),
+                row(3, "1003", three, other.length)));
+
+        // cap 1 MB: file kedua yang ada melewati batas
+        CertificateBundleService service = new CertificateBundleService(repo, store, 1, 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(null, out);
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry e; (e = zip.getNextEntry()) != null;)
+                entries.put(e.getName(), zip.readAllBytes());
+        }
+
+        assertEquals(List.of("1001/BSMR_L2_1.pdf", "manifest.csv"), List.copyOf(entries.keySet()));
+        assertArrayEquals(small, entries.get("1001/BSMR_L2_1.pdf"));
+
+        String manifest = new String(entries.get("manifest.csv"), StandardCharsets.UTF_8);
+        String[] lines = manifest.split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].startsWith("1,1001,") && lines[1].endsWith(",INCLUDED"));
+        assertTrue(lines[2].startsWith("2,1002,") && lines[2].endsWith(",MISSING"));
+        assertTrue(lines[3].startsWith("3,1003,") && lines[3].endsWith(",SKIPPED_SIZE_CAP"));
+        verify(repo, times(1)).findChunk(any(), anyLong(), anyInt());
+    }
+}
@@ -0,0 +1,124 @@
+package com.bankmega.certification.service;
+
+import com.bankmega.certification.dto.JobCertImportResponse;
+import com.bankmega.certification.entity.Certification;
+import com.bankmega.certification.entity.CertificationLevel;
+import com.bankmega.certification.entity.CertificationRule;
+import com.bankmega.certification.entity.JobPosition;
+import com.bankmega.certification.repository.*;
+import com.bankmega.certification.repository.JdbcJobCertificationMappingRepository.NewMapping;
+import com.bankmega.certification.repository.JdbcJobCertificationMappingRepository.Reactivation;
+import com.bankmega.certification.service.import_session.ImportSessionStore;
+import com.bankmega.certification.service.reference_data.ReferenceDataCache;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("JobCertificationImportService Tests")
+class JobCertificationImportServiceTest {
+
+    private JobCertificationMappingRepository mappingRepo;
+    private JdbcJobCertificationMappingRepository mappingBatchRepo;
+    private ImportSessionStore sessionStore;
+    private JobCertificationImportService service;
+
+    @BeforeEach
+    void setUp() {
+        JobPositionRepository jobPositionRepo = mock(JobPositionRepository.class);
+        CertificationRuleRepository ruleRepo = mock(CertificationRuleRepository.class);
+        when(jobPositionRepo.findAll()).thenReturn(List.of(JobPosition.builder().id(10L).name("Teller").build()));
+        when(ruleRepo.findWithRelationsByDeletedAtIsNull()).thenReturn(List.of(CertificationRule.builder()
+                .id(7L)
+                .certification(Certification.builder().id(1L).code("BSMR").build())
+                .certificationLevel(CertificationLevel.builder().id(2L).level(2).build())
+                .build()));
+
+        ReferenceDataCache referenceData = new ReferenceDataCache(mock(RegionalRepository.class),
+                mock(DivisionRepository.class), mock(UnitRepository.class), jobPositionRepo,
+                mock(CertificationRepository.class), mock(CertificationLevelRepository.class),
+                mock(SubFieldRepository.class), ruleRepo);
+
+        mappingRepo = mock(JobCertificationMappingRepository.class);
+        mappingBatchRepo = mock(JdbcJobCertificationMappingRepository.class);
+        sessionStore = new ImportSessionStore(30, 20, 200_000);
+        service = new JobCertificationImportService(mock(JobCertificationImportLogRepository.class), jobPositionRepo,
+                mappingRepo, mappingBatchRepo, mock(EmployeeEligibilityService.class),
+                sessionStore, referenceData, mock(UserRepository.class));
+    }
+
+    @Test
+    @DisplayName("Later duplicate row wins over an earlier INACTIVE row for a new mapping")
+    void confirm_DuplicateRowAfterInactiveInsert_LastRowWins() throws Exception {
+        when(mappingRepo.findAllKeys()).thenReturn(List.of());
+
+        JobCertImportResponse res = service.confirm(xlsx(
+                new String[] { "Teller", "BSMR", "2", "", "INACTIVE" },
+                new String[] { "teller ", "BSMR", "2", "", "ACTIVE" }), 1L);
+
+        verify(mappingBatchRepo).batchInsert(List.of(new NewMapping(10L, 7L, true)));
+        assertEquals(1, res.getInserted());
+        assertEquals(1, res.getReactivated());
+        assertEquals(0, res.getSkipped());
+    }
+
+    @Test
+    @DisplayName("Duplicate row after an ACTIVE reactivation is skipped, after INACTIVE it applies")
+    void confirm_DuplicateRowsOnExistingMapping() throws Exception {
+        JobCertificationMappingRepository.MappingKey existing = mock(JobCertificationMappingRepository.MappingKey.class);
+        when(existing.getId()).thenReturn(99L);
+        when(existing.getJobPositionId()).thenReturn(10L);
+        when(existing.getCertificationRuleId()).thenReturn(7L);
+        when(existing.getIsActive()).thenReturn(false);
+        when(mappingRepo.findAllKeys()).thenReturn(List.of(existing));
+
+        JobCertImportResponse res = service.confirm(xlsx(
+                new String[] { "Teller", "BSMR", "2", "", "INACTIVE" },
+                new String[] { "Teller", "BSMR", "2", "", "ACTIVE" },
+                new String[] { "Teller", "BSMR", "2", "", "INACTIVE" }), 1L);
+
+        verify(mappingBatchRepo).batchReactivate(List.of(new Reactivation(99L, true)));
+        assertEquals(0, res.getInserted());
+        assertEquals(2, res.getReactivated());
+        assertEquals(1, res.getSkipped());
+    }
+
+    @Test
+    @DisplayName("Confirm by another user with the same file does not consume the dry-run session")
+    void confirm_OtherUser_DoesNotTakeDryRunSession() throws Exception {
+        when(mappingRepo.findAllKeys()).thenReturn(List.of());
+        MockMultipartFile file = xlsx(new String[] { "Teller", "BSMR", "2", "", "ACTIVE" });
+
+        service.dryRun(file, 1L);
+        assertEquals(1, sessionStore.size());
+
+        service.confirm(file, 2L);
+        assertEquals(1, sessionStore.size());
+
+        service.confirm(file, 1L);
+        assertEquals(0, sessionStore.size());
+    }
+
+    private static MockMultipartFile xlsx(String[]... rows) throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = wb.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("Job Position");
+            for (int i = 0; i < rows.length; i++) {
+                Row row = sheet.createRow(i + 1);
+                for (int c = 0; c < rows[i].length; c++)
+                    row.createCell(c).setCellValue(rows[i][c]);
+            }
+            wb.write(out);
+            return new MockMultipartFile("file", "mapping.xlsx", null, out.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.bankmega.certification.service;
+
+import com.bankmega.certification.entity.NotificationRun;
+import com.bankmega.certification.entity.NotificationSchedule;
+import com.bankmega.certification.entity.NotificationTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("NotificationSchedulerService Tests")
+class NotificationSchedulerServiceTest {
+
+    private static final NotificationTemplate.Code TYPE = NotificationTemplate.Code.CERT_REMINDER;
+
+    private NotificationScheduleService scheduleService;
+    private NotificationService notificationService;
+    private NotificationSchedulerService scheduler;
+    private final LocalDateTime lease = LocalDateTime.now().plusMinutes(30);
+
+    @BeforeEach
+    void setUp() {
+        scheduleService = mock(NotificationScheduleService.class);
+        notificationService = mock(NotificationService.class);
+        scheduler = new NotificationSchedulerService(scheduleService, notificationService);
+
+        // 00:00 setiap hari, belum pernah jalan -> run hari ini selalu terlewat dan dikejar
+        when(scheduleService.getAllEntities()).thenReturn(List.of(NotificationSchedule.builder()
+                .type(TYPE).active(true).time("00:00").skipWeekend(false).build()));
+    }
+
+    private static NotificationRun run(int failed) {
+        return NotificationRun.builder().due(3).sent(3 - failed).skipped(0).failed(failed).build();
+    }
+
+    @Test
+    @DisplayName("A successful run sets last_run by completing its lease")
+    void tick_Success_CompletesLease() {
+        when(scheduleService.tryClaimRun(eq(TYPE), any())).thenReturn(Optional.of(lease));
+        when(notificationService.processCertReminder()).thenReturn(run(0));
+
+        scheduler.tick();
+
+        verify(scheduleService).completeRun(TYPE, lease);
+        verify(scheduleService, never()).releaseRun(any(), any());
+        verify(scheduleService, never()).markExecuted(any(NotificationTemplate.Code.class));
+    }
+
+    @Test
+    @DisplayName("A run that throws releases the lease and leaves last_run untouched")
+    void tick_Failure_ReleasesLease() {
+        when(scheduleService.tryClaimRun(eq(TYPE), any())).thenReturn(Optional.of(lease));
+        when(notificationService.processCertReminder()).thenThrow(new IllegalStateException("db down"));
+
+        assertDoesNotThrow(scheduler::tick);
+
+        verify(scheduleService).releaseRun(TYPE, lease);
+        verify(scheduleService, never()).completeRun(any(), any());
+    }
+
+    @Test
+    @DisplayName("A run with failed partitions releases the lease so it is retried")
+    void tick_FailedPartitions_ReleasesLease() {
+        when(scheduleService.tryClaimRun(eq(TYPE), any())).thenReturn(Optional.of(lease));
+        when(notificationService.processCertReminder()).thenReturn(run(1));
+
+        scheduler.tick();
+
+        verify(scheduleService).releaseRun(TYPE, lease);
+        verify(scheduleService, never()).completeRun(any(), any());
+    }
+
+    @Test
+    @DisplayName("A run leased by another node is skipped")
+    void tick_Claimed_Skips() {
+        when(scheduleService.tryClaimRun(eq(TYPE), any())).thenReturn(Optional.empty());
+
+        scheduler.tick();
+
+        verify(notificationService, never()).processCertReminder();
+        verify(scheduleService, never()).completeRun(any(), any());
+        verify(scheduleService, never()).releaseRun(any(), any());
+    }
+}
@@ -0,0 +1,113 @@
+package com.bankmega.certification.service;
+
+import com.bankmega.certification.entity.Notification;
+import com.bankmega.certification.exception.BadRequestException;
+import com.bankmega.certification.repository.BatchRepository;
+import com.bankmega.certification.repository.EmployeeBatchRepository;
+import com.bankmega.certification.repository.EmployeeRepository;
+import com.bankmega.certification.repository.NotificationRepository;
+import com.bankmega.certification.repository.PicCertificationScopeRepository;
+import com.bankmega.certification.service.email_outbox.EmailOutboxService;
+import com.bankmega.certification.service.notification_inbox.NotificationStreamService;
+import com.bankmega.certification.service.notification_inbox.UnreadCountCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("NotificationService Tests")
+class NotificationServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 19, 8, 0);
+
+    private NotificationRepository notificationRepository;
+    private UnreadCountCache unreadCounts;
+    private NotificationStreamService notificationStream;
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        unreadCounts = mock(UnreadCountCache.class);
+        notificationStream = mock(NotificationStreamService.class);
+        service = new NotificationService(notificationRepository, mock(EmployeeBatchRepository.class),
+                mock(BatchRepository.class), mock(NotificationTemplateService.class), mock(EmailOutboxService.class),
+                mock(TransactionTemplate.class), mock(CertificationNotificationRunner.class), unreadCounts,
+                notificationStream, mock(EmployeeRepository.class), mock(PicCertificationScopeRepository.class));
+    }
+
+    private static Notification notif(long id, LocalDateTime createdAt) {
+        return Notification.builder().id(id).userId(1L).title("T").message("M").createdAt(createdAt).build();
+    }
+
+    @Test
+    @DisplayName("Inbox pages by (createdAt, id) cursor and stops when no extra row comes back")
+    void getInbox_CursorPaging() {
+        when(notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(notif(9, T0), notif(8, T0), notif(7, T0.minusMinutes(1))));
+
+        NotificationService.InboxPage first = service.getInbox(1L, 2, null);
+
+        assertEquals(List.of(9L, 8L), first.items().stream().map(Notification::getId).toList());
+        assertNotNull(first.nextCursor());
+        verify(notificationRepository).findByUserIdOrderByCreatedAtDescIdDesc(1L, PageRequest.of(0, 3));
+
+        when(notificationRepository.findInboxAfter(eq(1L), eq(T0), eq(8L), any(Pageable.class)))
+                .thenReturn(List.of(notif(7, T0.minusMinutes(1))));
+
+        NotificationService.InboxPage second = service.getInbox(1L, 2, first.nextCursor());
+
+        assertEquals(List.of(7L), second.items().stream().map(Notification::getId).toList());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    @DisplayName("A tampered cursor is a bad request")
+    void getInbox_InvalidCursor() {
+        assertThrows(BadRequestException.class, () -> service.getInbox(1L, 20, "bukan-cursor"));
+    }
+
+    @Test
+    @DisplayName("Bulk mark-read dedupes ids, adjusts the unread count by the rows updated and pushes it")
+    void markManyAsRead_AdjustsUnreadCount() {
+        when(notificationRepository.markReadByIds(eq(1L), anyCollection(), any())).thenReturn(2);
+
+        assertEquals(2, service.markManyAsRead(1L, List.of(5L, 5L, 6L)));
+
+        verify(notificationRepository).markReadByIds(eq(1L), eq(Set.of(5L, 6L)), any());
+        verify(unreadCounts).adjust(1L, -2);
+        verify(notificationStream).publishUnreadCount(1L);
+
+        assertEquals(0, service.markManyAsRead(1L, List.of()));
+        verifyNoMoreInteractions(notificationRepository);
+    }
+
+    @Test
+    @DisplayName("Mark-read with createdAt looks up from that day; other users' notifications are refused")
+    void markAsRead_BoundedLookupAndOwnership() {
+        Notification n = notif(5, T0);
+        when(notificationRepository.findByIdAndCreatedAtGreaterThanEqual(5L, T0.toLocalDate().atStartOfDay()))
+                .thenReturn(Optional.of(n));
+
+        service.markAsRead(5L, T0, 1L);
+
+        assertTrue(n.isRead());
+        verify(notificationRepository, never()).findById(any());
+        verify(unreadCounts).adjust(1L, -1);
+
+        when(notificationRepository.findById(6L)).thenReturn(Optional.of(notif(6, T0)));
+        assertThrows(AccessDeniedException.class, () -> service.markAsRead(6L, 2L));
+    }
+}
@@ -0,0 +1,56 @@
+package com.bankmega.certification.service.email_outbox;
+
+import com.bankmega.certification.repository.JdbcEmailOutboxRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayName("EmailOutboxService Tests")
+class EmailOutboxServiceTest {
+
+    private final JdbcEmailOutboxRepository outboxRepo = mock(JdbcEmailOutboxRepository.class);
+    private final EmailOutboxWorker worker = mock(EmailOutboxWorker.class);
+    private final EmailOutboxService service = new EmailOutboxService(outboxRepo, worker);
+
+    private static final List<EmailOutboxService.OutboundEmail> EMAILS = List.of(
+            new EmailOutboxService.OutboundEmail(1L, LocalDateTime.of(2026, 10, 19, 8, 0), "a@bankmega.com",
+                    "Subject", "<p>Body</p>"));
+
+    @Test
+    @DisplayName("Inside a transaction the worker is woken only after commit")
+    void enqueue_InTransaction_WakesAfterCommit() {
+        when(outboxRepo.batchInsert(anyList())).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(1, service.enqueue(EMAILS));
+            verify(worker, never()).wakeUp();
+
+            List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+            syncs.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            verify(worker, never()).wakeUp();
+
+            syncs.forEach(TransactionSynchronization::afterCommit);
+            verify(worker).wakeUp();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Without a transaction the worker is woken immediately; empty input is a no-op")
+    void enqueue_WithoutTransaction() {
+        service.enqueue(EMAILS);
+        verify(worker).wakeUp();
+
+        assertEquals(0, service.enqueue(List.of()));
+        verify(outboxRepo, times(1)).batchInsert(anyList());
+    }
+}
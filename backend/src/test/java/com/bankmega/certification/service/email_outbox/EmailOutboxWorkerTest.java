@@ -0,0 +1,108 @@
+package com.bankmega.certification.service.email_outbox;
+
+import com.bankmega.certification.repository.JdbcEmailOutboxRepository;
+import com.bankmega.certification.repository.JdbcEmailOutboxRepository.ClaimedEmail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.SendFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("EmailOutboxWorker Tests")
+class EmailOutboxWorkerTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 10, 19, 8, 0);
+
+    private JdbcEmailOutboxRepository outboxRepo;
+    private EmailDelivery delivery;
+    private EmailOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepo = mock(JdbcEmailOutboxRepository.class);
+        delivery = mock(EmailDelivery.class);
+        // 1 thread → satu grup, urutan hasil = urutan klaim
+        worker = new EmailOutboxWorker(outboxRepo, delivery, 1, 10, 3, 300, 30, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    private static ClaimedEmail claimed(long id, int attempts) {
+        return new ClaimedEmail(id, 100 + id, CREATED, "user" + id + "@bankmega.com", "Subject", "<p>Body</p>",
+                attempts);
+    }
+
+    @Test
+    @DisplayName("Marks sent messages, reschedules failures with backoff and fails them at max attempts")
+    void drainOnce_StateTransitions() throws Exception {
+        when(outboxRepo.claim(eq(10), any())).thenReturn(List.of(claimed(1, 1), claimed(2, 1), claimed(3, 3)));
+        SendFailedException rejected = new SendFailedException("550 mailbox unavailable");
+        when(delivery.sendAll(anyList())).thenReturn(Arrays.asList(null, rejected, rejected));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(3, worker.drainOnce());
+
+        verify(outboxRepo).markSent(List.of(1L));
+
+        ArgumentCaptor<LocalDateTime> next = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepo).markRetry(eq(2L), contains("550 mailbox unavailable"), next.capture());
+        assertFalse(next.getValue().isBefore(before.plusSeconds(30)));
+        assertTrue(next.getValue().isBefore(before.plusSeconds(35)));
+
+        verify(outboxRepo).markFailed(eq(3L), eq(103L), eq(CREATED), contains("SendFailedException"));
+        verify(outboxRepo, never()).markRetry(eq(3L), any(), any());
+    }
+
+    @Test
+    @DisplayName("Messages not attempted on a dead connection go back to the queue without using an attempt")
+    void drainOnce_UntriedMessagesReleased() throws Exception {
+        when(outboxRepo.claim(eq(10), any())).thenReturn(List.of(claimed(1, 1), claimed(2, 3), claimed(3, 3)));
+        jakarta.mail.MessagingException down = new jakarta.mail.MessagingException("connect refused");
+        EmailDelivery.NotAttemptedException skipped = new EmailDelivery.NotAttemptedException(down);
+        when(delivery.sendAll(anyList())).thenReturn(Arrays.asList(down, skipped, skipped));
+
+        worker.drainOnce();
+
+        verify(outboxRepo).markRetry(eq(1L), contains("connect refused"), any());
+        verify(outboxRepo).release(eq(List.of(2L, 3L)), contains("connect refused"), any());
+        // attempts sudah di batas, tapi belum dicoba → tidak boleh FAILED
+        verify(outboxRepo, never()).markFailed(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Claims with a lease cut-off and does nothing when the outbox is empty")
+    void drainOnce_EmptyBatch() throws Exception {
+        when(outboxRepo.claim(anyInt(), any())).thenReturn(List.of());
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(0, worker.drainOnce());
+
+        ArgumentCaptor<LocalDateTime> staleBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepo).claim(eq(10), staleBefore.capture());
+        assertFalse(staleBefore.getValue().isAfter(before.minusSeconds(299)));
+        verifyNoInteractions(delivery);
+    }
+
+    @Test
+    @DisplayName("Backoff doubles per attempt and is capped at one hour")
+    void backoff_DoublesAndCaps() {
+        assertEquals(30, worker.backoffSeconds(1));
+        assertEquals(60, worker.backoffSeconds(2));
+        assertEquals(120, worker.backoffSeconds(3));
+        assertEquals(3600, worker.backoffSeconds(8));
+        assertEquals(3600, worker.backoffSeconds(100));
+    }
+}
@@ -0,0 +1,187 @@
+package com.bankmega.certification.service.email_outbox;
+
+import com.bankmega.certification.service.mail_sender.MailSenderHolder;
+import com.bankmega.certification.service.mail_sender.SmtpRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Provider;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.URLName;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("SmtpTransportPool Tests")
+class SmtpTransportPoolTest {
+
+    private MailSenderHolder mailSenders;
+    private JavaMailSenderImpl sender;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FakeTransport.reset();
+        Session session = Session.getInstance(new Properties());
+        session.setProvider(new Provider(Provider.Type.TRANSPORT, "smtp", FakeTransport.class.getName(), "test", "1"));
+        sender = new JavaMailSenderImpl();
+        sender.setSession(session);
+        sender.setHost("relay.test");
+        sender.setPort(25);
+
+        mailSenders = mock(MailSenderHolder.class);
+        when(mailSenders.current()).thenReturn(sender);
+        when(mailSenders.fromAddress()).thenReturn("noreply@bankmega.com");
+        activeGeneration(1);
+
+        pool = new SmtpTransportPool(mailSenders, mock(SmtpRateLimiter.class), 1, 2, 30, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private void activeGeneration(long generation) {
+        when(mailSenders.generation()).thenReturn(generation);
+        when(mailSenders.active()).thenReturn(new MailSenderHolder.Active(generation, 1L, Instant.now(), sender));
+    }
+
+    private MimeMessage message() throws MessagingException {
+        MimeMessage m = new MimeMessage(pool.session());
+        m.setFrom(new InternetAddress("noreply@bankmega.com"));
+        m.setRecipients(Message.RecipientType.TO, "user@bankmega.com");
+        m.setSubject("Test");
+        m.setText("body");
+        return m;
+    }
+
+    @Test
+    @DisplayName("Reuses one transport and reconnects after max messages per connection")
+    void send_ReconnectsAfterMaxMessages() throws Exception {
+        SmtpTransportPool.Connection conn = pool.borrow();
+        for (int i = 0; i < 3; i++)
+            conn.send(message());
+        pool.release(conn);
+
+        assertEquals(3, FakeTransport.sent.get());
+        assertEquals(2, FakeTransport.connects.get()); // max 2 pesan per koneksi
+    }
+
+    @Test
+    @DisplayName("Moves to the new sender when the mail sender generation changes")
+    void send_ReconnectsOnGenerationChange() throws Exception {
+        SmtpTransportPool.Connection conn = pool.borrow();
+        conn.send(message());
+        activeGeneration(2);
+        conn.send(message());
+        pool.release(conn);
+
+        assertEquals(2, FakeTransport.connects.get());
+    }
+
+    @Test
+    @DisplayName("Checks a stale idle connection and reconnects only if the relay dropped it")
+    void send_StaleIdleConnection() throws Exception {
+        SmtpTransportPool.Connection conn = pool.borrow();
+        conn.send(message());
+        pool.release(conn);
+
+        conn = pool.borrow();
+        ReflectionTestUtils.setField(conn, "lastUsedNanos", System.nanoTime() - Duration.ofMinutes(5).toNanos());
+        conn.send(message()); // relay masih hidup → tetap koneksi lama
+        assertEquals(1, FakeTransport.connects.get());
+
+        ReflectionTestUtils.setField(conn, "lastUsedNanos", System.nanoTime() - Duration.ofMinutes(5).toNanos());
+        FakeTransport.alive.set(false);
+        conn.send(message());
+        pool.release(conn);
+
+        assertEquals(2, FakeTransport.connects.get());
+        assertEquals(3, FakeTransport.sent.get());
+    }
+
+    @Test
+    @DisplayName("A failed group releases its connection and leaves untried messages as not attempted")
+    void sendAll_DeadConnection_ReleasesAndSkipsRest() throws Exception {
+        EmailDelivery delivery = new EmailDelivery(pool);
+        FakeTransport.failSends.set(true);
+        FakeTransport.failConnects.set(true);
+
+        List<EmailDelivery.Message> group = List.of(
+                new EmailDelivery.Message("a@bankmega.com", "S", "<p>1</p>"),
+                new EmailDelivery.Message("b@bankmega.com", "S", "<p>2</p>"),
+                new EmailDelivery.Message("c@bankmega.com", "S", "<p>3</p>"));
+        List<Exception> errors = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> delivery.sendAll(group));
+
+        assertInstanceOf(MessagingException.class, errors.get(0));
+        assertInstanceOf(EmailDelivery.NotAttemptedException.class, errors.get(1));
+        assertInstanceOf(EmailDelivery.NotAttemptedException.class, errors.get(2));
+
+        // pool size 1: kalau koneksi tidak dikembalikan, grup berikutnya menunggu selamanya
+        FakeTransport.failSends.set(false);
+        FakeTransport.failConnects.set(false);
+        List<Exception> next = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> delivery.sendAll(group));
+        next.forEach(e -> assertNull(e));
+    }
+
+    /** Transport palsu yang didaftarkan lewat Provider session. */
+    public static class FakeTransport extends Transport {
+        static final AtomicInteger connects = new AtomicInteger();
+        static final AtomicInteger sent = new AtomicInteger();
+        static final AtomicBoolean alive = new AtomicBoolean(true);
+        static final AtomicBoolean failSends = new AtomicBoolean();
+        static final AtomicBoolean failConnects = new AtomicBoolean();
+
+        public FakeTransport(Session session, URLName urlname) {
+            super(session, urlname);
+        }
+
+        static void reset() {
+            connects.set(0);
+            sent.set(0);
+            alive.set(true);
+            failSends.set(false);
+            failConnects.set(false);
+        }
+
+        @Override
+        protected boolean protocolConnect(String host, int port, String user, String password)
+                throws MessagingException {
+            if (failConnects.get())
+                throw new MessagingException("connect refused");
+            connects.incrementAndGet();
+            alive.set(true);
+            return true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return super.isConnected() && alive.get();
+        }
+
+        @Override
+        public void sendMessage(Message msg, Address[] addresses) throws MessagingException {
+            if (failSends.get())
+                throw new MessagingException("connection reset");
+            sent.incrementAndGet();
+        }
+    }
+}
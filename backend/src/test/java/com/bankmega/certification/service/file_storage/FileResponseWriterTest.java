@@ -0,0 +1,100 @@
+package com.bankmega.certification.service.file_storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FileResponseWriter Tests")
+class FileResponseWriterTest {
+
+    private static final String SHA = "ab".repeat(32);
+    private static final byte[] CONTENT = "0123456789".repeat(1_000).getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    private FileSystemResource resource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = tempDir.resolve("cert.pdf");
+        Files.write(file, CONTENT);
+        resource = new FileSystemResource(file);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileResponseWriter.write(resource, SHA, MediaType.APPLICATION_PDF, "inline; filename=\"cert.pdf\"",
+                request, response);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Full response carries a strong ETag and private revalidation headers")
+    void fullResponse() throws Exception {
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/file"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"" + SHA + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("private, no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    @DisplayName("Matching If-None-Match returns 304 without a body")
+    void ifNoneMatch_Returns304() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + SHA + "\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Single byte range returns 206 with only that slice")
+    void range_Returns206() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"" + SHA + "\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 100-199/" + CONTENT.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 100, 200), response.getContentAsByteArray());
+    }
+
+    @Test
+    @DisplayName("Stale If-Range or unsatisfiable range are handled per RFC")
+    void range_StaleOrUnsatisfiable() throws Exception {
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/file");
+        stale.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"old\"");
+        MockHttpServletResponse full = serve(stale);
+        assertEquals(200, full.getStatus());
+        assertEquals(CONTENT.length, full.getContentAsByteArray().length);
+
+        MockHttpServletRequest beyond = new MockHttpServletRequest("GET", "/file");
+        beyond.addHeader(HttpHeaders.RANGE, "bytes=" + CONTENT.length + "-");
+        MockHttpServletResponse unsatisfiable = serve(beyond);
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */" + CONTENT.length, unsatisfiable.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+}
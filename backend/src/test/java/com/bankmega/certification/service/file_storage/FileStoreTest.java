@@ -0,0 +1,159 @@
+package com.bankmega.certification.service.file_storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FileStore Tests")
+class FileStoreTest {
+
+    private static final byte[] CONTENT = "%PDF-1.4 sertifikat".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Local store writes into a sharded folder with size and SHA-256")
+    void local_WriteLoadDelete() throws Exception {
+        LocalFileStore store = new LocalFileStore(tempDir);
+
+        FileStore.StoredFile stored = store.writeContent(new ByteArrayInputStream(CONTENT));
+        String key = stored.key();
+
+        assertTrue(key.matches("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}"));
+        assertEquals(CONTENT.length, stored.size());
+        assertEquals(sha256(CONTENT), stored.sha256());
+        assertArrayEquals(CONTENT, Files.readAllBytes(tempDir.resolve(key)));
+        assertTrue(store.exists(key));
+        try (InputStream in = store.load(key).getInputStream()) {
+            assertArrayEquals(CONTENT, in.readAllBytes());
+        }
+        // tidak ada sisa file sementara
+        try (var parts = Files.list(tempDir.resolve(LocalFileStore.TMP_DIR))) {
+            assertEquals(0, parts.count());
+        }
+
+        assertTrue(store.delete(key));
+        assertFalse(store.exists(key));
+        assertFalse(store.load(key).exists());
+    }
+
+    @Test
+    @DisplayName("Content-addressed writes store identical uploads once")
+    void local_WriteContentDeduplicates() throws Exception {
+        LocalFileStore store = new LocalFileStore(tempDir);
+
+        FileStore.StoredFile first = store.writeContent(new ByteArrayInputStream(CONTENT));
+        FileStore.StoredFile second = store.writeContent(new ByteArrayInputStream(CONTENT));
+
+        String sha = sha256(CONTENT);
+        assertEquals(sha.substring(0, 2) + "/" + sha.substring(2, 4) + "/" + sha, first.key());
+        assertFalse(first.reused());
+        assertEquals(first.key(), second.key());
+        assertTrue(second.reused());
+        assertArrayEquals(CONTENT, Files.readAllBytes(tempDir.resolve(first.key())));
+        try (var files = Files.list(tempDir.resolve(first.key()).getParent());
+                var parts = Files.list(tempDir.resolve(LocalFileStore.TMP_DIR))) {
+            assertEquals(1, files.count());
+            assertEquals(0, parts.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Local store keeps reading legacy unsharded keys")
+    void local_LegacyFlatKey() throws Exception {
+        Files.write(tempDir.resolve("legacy.pdf"), CONTENT);
+        LocalFileStore store = new LocalFileStore(tempDir);
+
+        assertTrue(store.exists("legacy.pdf"));
+    }
+
+    @Test
+    @DisplayName("Local store rejects keys outside the storage root")
+    void local_RejectsTraversal() throws Exception {
+        LocalFileStore store = new LocalFileStore(tempDir);
+
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("/etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve(".tmp/upload-1.part"));
+    }
+
+    @Test
+    @DisplayName("Object store backend streams, hashes and uploads through the client")
+    void objectStore_WriteLoadDelete() throws Exception {
+        InMemoryObjectStoreClient client = new InMemoryObjectStoreClient();
+        ObjectStoreFileStore store = new ObjectStoreFileStore(client, tempDir.resolve("staging"));
+
+        FileStore.StoredFile stored = store.writeContent(new ByteArrayInputStream(CONTENT));
+        String key = stored.key();
+
+        assertFalse(stored.reused());
+        assertEquals(FileStore.contentKey(sha256(CONTENT)), key);
+        assertTrue(store.writeContent(new ByteArrayInputStream(CONTENT)).reused());
+        assertEquals(sha256(CONTENT), stored.sha256());
+        assertEquals(sha256(CONTENT), client.checksums.get(key));
+        assertEquals(CONTENT.length, store.load(key).contentLength());
+        try (InputStream in = store.load(key).getInputStream()) {
+            assertArrayEquals(CONTENT, in.readAllBytes());
+        }
+        try (var parts = Files.list(tempDir.resolve("staging"))) {
+            assertEquals(0, parts.count());
+        }
+
+        assertTrue(store.delete(key));
+        assertFalse(store.exists(key));
+        assertThrows(IllegalArgumentException.class, () -> store.load("a/../../x"));
+    }
+
+    private static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(ChannelCopy.sha256().digest(data));
+    }
+
+    /** Stand-in object store di memori. */
+    private static class InMemoryObjectStoreClient implements ObjectStoreClient {
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final Map<String, String> checksums = new ConcurrentHashMap<>();
+
+        @Override
+        public void putObject(String key, Path content, long size, String sha256) throws IOException {
+            byte[] data = Files.readAllBytes(content);
+            assertEquals(size, data.length);
+            objects.put(key, data);
+            checksums.put(key, sha256);
+        }
+
+        @Override
+        public InputStream getObject(String key) throws IOException {
+            byte[] data = objects.get(key);
+            if (data == null)
+                throw new NoSuchFileException(key);
+            return new ByteArrayInputStream(data);
+        }
+
+        @Override
+        public ObjectInfo headObject(String key) {
+            byte[] data = objects.get(key);
+            return data != null ? new ObjectInfo(data.length, Instant.now()) : null;
+        }
+
+        @Override
+        public boolean deleteObject(String key) {
+            checksums.remove(key);
+            return objects.remove(key) != null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.bankmega.certification.service.file_storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ImageVariantCache Tests")
+class ImageVariantCacheTest {
+
+    private static final String SOURCE_KEY = "cd".repeat(32);
+
+    @TempDir
+    Path tempDir;
+
+    private ImageVariantCache cache;
+    private FileSystemResource source;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new ImageVariantCache(tempDir.resolve("variants").toString(), 1, 1, 10_000, false,
+                new SimpleMeterRegistry());
+
+        BufferedImage scan = new BufferedImage(2400, 1600, BufferedImage.TYPE_INT_ARGB);
+        Path png = tempDir.resolve("scan.png");
+        ImageIO.write(scan, "png", png.toFile());
+        source = new FileSystemResource(png);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    @DisplayName("Thumbnail is a downscaled JPEG cached by source hash")
+    void thumb_GeneratedOnceThenCached() throws Exception {
+        Path thumb = cache.get(SOURCE_KEY, source, ImageVariantCache.Variant.THUMB);
+
+        assertTrue(thumb.getFileName().toString().startsWith(SOURCE_KEY + "-thumb"));
+        BufferedImage img = ImageIO.read(thumb.toFile());
+        assertEquals(320, img.getWidth());
+        assertEquals(213, img.getHeight(), 1); // rasio 3:2, pembulatan setelah subsampling
+
+        FileTime generated = Files.getLastModifiedTime(thumb);
+        assertEquals(thumb, cache.get(SOURCE_KEY, source, ImageVariantCache.Variant.THUMB));
+        assertEquals(generated, Files.getLastModifiedTime(thumb));
+    }
+
+    @Test
+    @DisplayName("Variant parameter accepts thumb, preview and original only")
+    void parseVariant() {
+        assertNull(ImageVariantCache.Variant.parse(null));
+        assertNull(ImageVariantCache.Variant.parse("original"));
+        assertEquals(ImageVariantCache.Variant.PREVIEW, ImageVariantCache.Variant.parse("Preview"));
+        assertThrows(IllegalArgumentException.class, () -> ImageVariantCache.Variant.parse("../x"));
+        assertThrows(IllegalArgumentException.class,
+                () -> cache.pathOf("../../etc", ImageVariantCache.Variant.THUMB));
+    }
+
+    @Test
+    @DisplayName("Eviction removes least recently used variants first")
+    void evict_RemovesOldestFirst() throws Exception {
+        Path old = cache.pathOf("00".repeat(32), ImageVariantCache.Variant.PREVIEW);
+        Path recent = cache.pathOf("11".repeat(32), ImageVariantCache.Variant.PREVIEW);
+        Files.createDirectories(old.getParent());
+        Files.createDirectories(recent.getParent());
+        Files.write(old, new byte[700 * 1024]);
+        Files.write(recent, new byte[700 * 1024]);
+        Files.setLastModifiedTime(old, FileTime.from(Instant.now().minusSeconds(3600)));
+
+        cache.evict();
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(recent));
+    }
+}
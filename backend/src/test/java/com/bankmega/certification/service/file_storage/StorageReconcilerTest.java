@@ -0,0 +1,142 @@
+package com.bankmega.certification.service.file_storage;
+
+import com.bankmega.certification.repository.JdbcCertificateFileRefRepository;
+import com.bankmega.certification.repository.JdbcCertificateFileRefRepository.FileRef;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("StorageReconciler Tests")
+class StorageReconcilerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private void put(String key, int size) throws IOException {
+        Path p = tempDir.resolve(key);
+        Files.createDirectories(p.getParent());
+        Files.write(p, new byte[size]);
+    }
+
+    @Test
+    @DisplayName("Reports missing, orphaned and size-mismatched files and quarantines old orphans")
+    @SuppressWarnings("unchecked")
+    void run_ClassifiesFilesAndQuarantinesOrphans() throws Exception {
+        LocalFileStore store = new LocalFileStore(tempDir);
+        // key lama (nama file) dari sebelum upload content-addressed
+        put("aa/bb/ok.pdf", 10);
+        put("aa/cc/resized.pdf", 20);
+        put("legacy.pdf", 5);
+        put("dd/ee/old-orphan.pdf", 7);
+        put("dd/ee/fresh-orphan.pdf", 7);
+        Files.setLastModifiedTime(tempDir.resolve("dd/ee/old-orphan.pdf"),
+                FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+        Files.writeString(tempDir.resolve(".tmp/upload-x.part"), "ignored");
+
+        JdbcCertificateFileRefRepository repo = mock(JdbcCertificateFileRefRepository.class);
+        when(repo.tryLock(anyLong())).thenReturn(true);
+        doAnswer(inv -> {
+            Consumer<FileRef> c = inv.getArgument(0);
+            c.accept(new FileRef(1, "aa/bb/ok.pdf", 10L));
+            c.accept(new FileRef(2, "aa/cc/resized.pdf", 99L));
+            c.accept(new FileRef(3, "legacy.pdf", null));
+            c.accept(new FileRef(4, "aa/bb/gone.pdf", 3L));
+            c.accept(new FileRef(5, "aa/bb/ok.pdf", 10L)); // file yang sama dipakai 2 sertifikat
+            return null;
+        }).when(repo).streamFileRefs(any());
+
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0))
+                .doInTransaction(new SimpleTransactionStatus()));
+
+        StorageReconciler reconciler = new StorageReconciler(store, repo, tx, true, 2, false, 60, 1000,
+                new SimpleMeterRegistry());
+        try {
+            StorageReconciler.Report report = reconciler.run(true);
+
+            assertEquals(StorageReconciler.Status.COMPLETED, report.status());
+            assertEquals(5, report.filesScanned());
+            assertEquals(5, report.rowsScanned());
+            assertEquals(List.of(4L), report.missingCertificationIds());
+            assertEquals(List.of("dd/ee/old-orphan.pdf"), report.orphanedFiles());
+            assertEquals(1, report.sizeMismatchCount());
+            assertEquals(2L, report.sizeMismatches().get(0).certificationId());
+            assertEquals(1, report.quarantinedCount());
+
+            assertFalse(Files.exists(tempDir.resolve("dd/ee/old-orphan.pdf")));
+            assertTrue(Files.exists(tempDir.resolve("dd/ee/fresh-orphan.pdf")));
+            try (var q = Files.walk(tempDir.resolve(StorageReconciler.QUARANTINE_DIR))) {
+                assertTrue(q.anyMatch(p -> p.endsWith("dd/ee/old-orphan.pdf")));
+            }
+            assertSame(report, reconciler.lastReport());
+        } finally {
+            reconciler.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Orphans re-referenced or reused after the walk are left in place, under the file lock")
+    @SuppressWarnings("unchecked")
+    void run_RechecksOrphansUnderFileLock() throws Exception {
+        LocalFileStore store = new LocalFileStore(tempDir);
+        FileTime old = FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS));
+        for (String key : List.of("aa/aa/orphan", "bb/bb/referenced", "cc/cc/reused")) {
+            put(key, 4);
+            Files.setLastModifiedTime(tempDir.resolve(key), old);
+        }
+
+        JdbcCertificateFileRefRepository repo = mock(JdbcCertificateFileRefRepository.class);
+        when(repo.tryLock(anyLong())).thenReturn(true);
+        doAnswer(inv -> {
+            // setelah walk: upload lain memakai ulang blob ini (writeContent memperbarui mtime)
+            Files.setLastModifiedTime(tempDir.resolve("cc/cc/reused"), FileTime.from(Instant.now()));
+            return null;
+        }).when(repo).streamFileRefs(any());
+        // upload yang commit setelah cursor dibuka
+        when(repo.countOtherReferences("bb/bb/referenced", -1)).thenReturn(1L);
+
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0))
+                .doInTransaction(new SimpleTransactionStatus()));
+
+        StorageReconciler reconciler = new StorageReconciler(store, repo, tx, true, 2, false, 60, 1000,
+                new SimpleMeterRegistry());
+        try {
+            StorageReconciler.Report report = reconciler.run(true);
+
+            assertEquals(3, report.orphanCount());
+            assertEquals(1, report.quarantinedCount());
+            assertFalse(Files.exists(tempDir.resolve("aa/aa/orphan")));
+            assertTrue(Files.exists(tempDir.resolve("bb/bb/referenced")));
+            assertTrue(Files.exists(tempDir.resolve("cc/cc/reused")));
+
+            // lock diambil sebelum reference count dicek, per file
+            var order = inOrder(repo);
+            order.verify(repo).lockFile("aa/aa/orphan");
+            order.verify(repo).countOtherReferences("aa/aa/orphan", -1);
+            verify(repo).lockFile("bb/bb/referenced");
+            verify(repo).lockFile("cc/cc/reused");
+            // scan + 1 transaksi per orphan
+            verify(tx, times(4)).execute(any());
+        } finally {
+            reconciler.shutdown();
+        }
+    }
+}
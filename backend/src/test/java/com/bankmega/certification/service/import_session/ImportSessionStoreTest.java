@@ -0,0 +1,139 @@
+package com.bankmega.certification.service.import_session;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ImportSessionStore Tests")
+class ImportSessionStoreTest {
+
+    private MutableClock clock;
+    private ImportSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-01-01T08:00:00Z"));
+        store = new ImportSessionStore(Duration.ofMinutes(30), 3, 1000, clock);
+    }
+
+    @Test
+    @DisplayName("Take should return payload once and remove the session")
+    void take_ShouldBeSingleUse() {
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", "plan", 10);
+
+        assertEquals("plan", store.take(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", String.class).orElseThrow());
+        assertTrue(store.take(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", String.class).isEmpty());
+        assertEquals(0, store.totalRows());
+    }
+
+    @Test
+    @DisplayName("Sessions are isolated per import kind")
+    void differentKinds_ShouldNotCollide() {
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", "employee", 1);
+
+        assertTrue(store.peek(ImportSessionStore.Kind.JOB_CERTIFICATION, 1L, "abc", String.class).isEmpty());
+        assertTrue(store.peek(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", String.class).isPresent());
+    }
+
+    @Test
+    @DisplayName("Sessions are isolated per user for the same file")
+    void differentUsers_ShouldNotShareSession() {
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", "plan user 1", 10);
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 2L, "abc", "plan user 2", 10);
+
+        assertEquals("plan user 2",
+                store.take(ImportSessionStore.Kind.EMPLOYEE, 2L, "abc", String.class).orElseThrow());
+        assertEquals("plan user 1",
+                store.take(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", String.class).orElseThrow());
+
+        store.put(ImportSessionStore.Kind.EMPLOYEE, null, "abc", "anonymous", 10);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("Expired sessions should not be returned")
+    void expiredSession_ShouldBeEvicted() {
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", "plan", 10);
+
+        clock.advance(Duration.ofMinutes(31));
+
+        assertTrue(store.peek(ImportSessionStore.Kind.EMPLOYEE, 1L, "abc", String.class).isEmpty());
+        assertEquals(0, store.size());
+        assertEquals(0, store.totalRows());
+    }
+
+    @Test
+    @DisplayName("Session count cap should evict least recently used")
+    void sessionCap_ShouldEvictLeastRecentlyUsed() {
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "a", "A", 1);
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "b", "B", 1);
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "c", "C", 1);
+        store.peek(ImportSessionStore.Kind.EMPLOYEE, 1L, "a", String.class); // a jadi paling baru dipakai
+
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "d", "D", 1);
+
+        assertEquals(3, store.size());
+        assertTrue(store.peek(ImportSessionStore.Kind.EMPLOYEE, 1L, "b", String.class).isEmpty());
+        assertTrue(store.peek(ImportSessionStore.Kind.EMPLOYEE, 1L, "a", String.class).isPresent());
+    }
+
+    @Test
+    @DisplayName("Row cap should evict older sessions and reject oversized ones")
+    void rowCap_ShouldBoundMemory() {
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "a", "A", 600);
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "b", "B", 600);
+
+        assertTrue(store.peek(ImportSessionStore.Kind.EMPLOYEE, 1L, "a", String.class).isEmpty());
+        assertEquals(600, store.totalRows());
+
+        store.put(ImportSessionStore.Kind.EMPLOYEE, 1L, "huge", "H", 5000);
+        assertTrue(store.peek(ImportSessionStore.Kind.EMPLOYEE, 1L, "huge", String.class).isEmpty());
+        assertEquals(600, store.totalRows());
+    }
+
+    @Test
+    @DisplayName("Content hash should be stable SHA-256 hex")
+    void sha256_ShouldBeStable() {
+        String h1 = ImportSessionStore.sha256("hello".getBytes());
+        String h2 = ImportSessionStore.sha256("hello".getBytes());
+
+        assertEquals(h1, h2);
+        assertEquals(64, h1.length());
+        assertNotEquals(h1, ImportSessionStore.sha256("hello!".getBytes()));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.bankmega.certification.service.notification_inbox;
+
+import com.bankmega.certification.entity.Notification;
+import com.bankmega.certification.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("NotificationStreamService Tests")
+class NotificationStreamServiceTest {
+
+    private static final Pattern NOTIFICATION_ID = Pattern.compile("id:(\\d+)\nevent:notification\n");
+
+    private NotificationRepository repo;
+    private NotificationStreamService service;
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    // kalau diisi, emitter berikutnya tertahan di send() sampai latch ini dibuka
+    private volatile CountDownLatch stallNext;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(NotificationRepository.class);
+        when(repo.countByUserIdAndIsReadFalse(anyLong())).thenReturn(3L);
+        // 2 koneksi per user, 2 thread writer, antrean 8 event per tab
+        service = new NotificationStreamService(repo, new UnreadCountCache(60, 100), 2, 30, 25, 2, 8) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                RecordingEmitter e = new RecordingEmitter(stallNext);
+                emitters.add(e);
+                return e;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    /** Tunggu thread pusher selesai memilih event, lalu semua writer selesai mengirim. */
+    private void flush() throws Exception {
+        flushPusher();
+        ThreadPoolExecutor writers = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "writers");
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (writers.getCompletedTaskCount() < writers.getTaskCount())
+                Thread.sleep(5);
+        });
+    }
+
+    private void flushPusher() throws Exception {
+        ((ExecutorService) ReflectionTestUtils.getField(service, "pusher")).submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static Notification notif(long id, long userId, LocalDateTime createdAt) {
+        return Notification.builder().id(id).userId(userId).title("T" + id).message("M").createdAt(createdAt).build();
+    }
+
+    @Test
+    @DisplayName("A new tab gets the unread count and no replay")
+    void subscribe_SendsUnreadCount() throws Exception {
+        service.subscribe(1L, null);
+        flush();
+
+        RecordingEmitter tab = emitters.get(0);
+        assertEquals(List.of(), tab.notificationIds());
+        assertTrue(tab.events.get(tab.events.size() - 1).contains("event:unread-count\ndata:3"));
+        verify(repo, never()).findByUserIdAndIdGreaterThanAndCreatedAtGreaterThanEqualOrderByIdAsc(any(), any(),
+                any(), any());
+        assertEquals(1, service.connectionCount());
+    }
+
+    @Test
+    @DisplayName("Reconnect with Last-Event-ID replays newer notifications before the unread count")
+    void subscribe_ReplaysAfterLastEventId() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        when(repo.findByUserIdAndIdGreaterThanAndCreatedAtGreaterThanEqualOrderByIdAsc(eq(1L), eq(10L), any(),
+                any(Pageable.class))).thenReturn(List.of(notif(11, 1, now), notif(12, 1, now)));
+
+        service.subscribe(1L, 10L);
+        flush();
+
+        RecordingEmitter tab = emitters.get(0);
+        assertEquals(List.of(11L, 12L), tab.notificationIds());
+        assertTrue(tab.events.get(2).contains("event:unread-count"));
+    }
+
+    @Test
+    @DisplayName("Heartbeat sweep only sends notifications above each tab's floor, once")
+    void heartbeat_SweepRespectsSubscriberFloor() throws Exception {
+        LocalDateTime old = LocalDateTime.now().minusSeconds(60);
+        when(repo.findByUserIdAndIdGreaterThanAndCreatedAtGreaterThanEqualOrderByIdAsc(any(), any(), any(),
+                any(Pageable.class))).thenReturn(List.of());
+
+        service.subscribe(1L, 20L); // reconnect: floor = Last-Event-ID
+        service.subscribe(1L, null); // tab baru: floor = waktu subscribe
+        flush();
+        Notification fresh = notif(30, 1, LocalDateTime.now());
+        when(repo.findByUserIdInAndCreatedAtGreaterThanEqualOrderByIdAsc(anyCollection(), any()))
+                .thenReturn(List.of(notif(15, 1, old), notif(25, 1, old), fresh));
+
+        service.heartbeat();
+        flush();
+        service.heartbeat();
+        flush();
+
+        assertEquals(List.of(25L, 30L), emitters.get(0).notificationIds());
+        assertEquals(List.of(30L), emitters.get(1).notificationIds());
+    }
+
+    @Test
+    @DisplayName("Opening more tabs than the per-user cap closes the oldest")
+    void subscribe_ConnectionCap() throws Exception {
+        service.subscribe(1L, null);
+        service.subscribe(1L, null);
+        service.subscribe(1L, null);
+        service.subscribe(2L, null);
+        flush();
+
+        assertTrue(emitters.get(0).completed);
+        assertFalse(emitters.get(1).completed);
+        assertFalse(emitters.get(2).completed);
+        assertEquals(3, service.connectionCount());
+    }
+
+    @Test
+    @DisplayName("A stalled tab is closed once its backlog is full, without delaying other users")
+    void publish_StalledTabDoesNotBlockOthers() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        stallNext = unblock;
+        service.subscribe(1L, null); // socket penuh: send() pertama tertahan
+        stallNext = null;
+        service.subscribe(2L, null);
+        flushPusher();
+        RecordingEmitter stalled = emitters.get(0);
+        RecordingEmitter healthy = emitters.get(1);
+
+        LocalDateTime created = LocalDateTime.now().plusSeconds(1);
+        List<Notification> batch = new ArrayList<>();
+        for (long id = 1; id <= 12; id++)
+            batch.add(notif(id, 1, created));
+        for (long id = 101; id <= 105; id++)
+            batch.add(notif(id, 2, created));
+        service.publish(batch);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (healthy.notificationIds().size() < 5)
+                Thread.sleep(5);
+        });
+        assertEquals(List.of(101L, 102L, 103L, 104L, 105L), healthy.notificationIds());
+        // tab yang tertahan sudah dilepas dari daftar, tapi complete() menunggu send-nya kembali
+        assertEquals(1, service.connectionCount());
+        assertFalse(stalled.completed);
+
+        unblock.countDown();
+        flush();
+        assertTrue(stalled.completed);
+        assertEquals(List.of(), stalled.notificationIds());
+        assertFalse(healthy.completed);
+    }
+
+    /** Emitter tanpa servlet: simpan event yang dikirim sebagai teks SSE. */
+    static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch gate;
+        volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch gate) {
+            super(0L);
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (gate != null) {
+                try {
+                    gate.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(builder.build().stream().map(d -> String.valueOf(d.getData())).collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        List<Long> notificationIds() {
+            List<Long> ids = new ArrayList<>();
+            for (String e : events) {
+                Matcher m = NOTIFICATION_ID.matcher(e);
+                if (m.find())
+                    ids.add(Long.parseLong(m.group(1)));
+            }
+            return ids;
+        }
+    }
+}
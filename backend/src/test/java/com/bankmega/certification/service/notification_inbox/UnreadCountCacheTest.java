@@ -0,0 +1,120 @@
+package com.bankmega.certification.service.notification_inbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UnreadCountCache Tests")
+class UnreadCountCacheTest {
+
+    /** Jam yang bisa dimajukan manual. */
+    private static final class TestClock extends Clock {
+        private Instant now = Instant.parse("2026-10-19T08:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private final TestClock clock = new TestClock();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private long load(long value) {
+        loads.incrementAndGet();
+        return value;
+    }
+
+    @Test
+    @DisplayName("Serves the cached count until the TTL expires")
+    void get_CachesUntilTtl() {
+        UnreadCountCache cache = new UnreadCountCache(Duration.ofSeconds(60), 10, clock);
+
+        assertEquals(4, cache.get(1L, () -> load(4)));
+        clock.advance(Duration.ofSeconds(59));
+        assertEquals(4, cache.get(1L, () -> load(9)));
+        assertEquals(1, loads.get());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(9, cache.get(1L, () -> load(9)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Evicts the least recently used user when over the limit")
+    void get_EvictsLeastRecentlyUsed() {
+        UnreadCountCache cache = new UnreadCountCache(Duration.ofSeconds(60), 2, clock);
+        cache.get(1L, () -> load(1));
+        cache.get(2L, () -> load(2));
+        cache.get(1L, () -> load(1)); // user 1 jadi yang terakhir dipakai
+        cache.get(3L, () -> load(3));
+        assertEquals(3, loads.get());
+
+        cache.get(1L, () -> load(1));
+        assertEquals(3, loads.get());
+        cache.get(2L, () -> load(2));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    @DisplayName("A count loaded while the counter changed is returned but not cached")
+    void get_DropsLoadRacingAChange() {
+        UnreadCountCache cache = new UnreadCountCache(Duration.ofSeconds(60), 10, clock);
+
+        long racing = cache.get(1L, () -> {
+            cache.adjust(2L, 1); // perubahan lain di tengah COUNT
+            return load(5);
+        });
+        assertEquals(5, racing);
+
+        assertEquals(6, cache.get(1L, () -> load(6)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Adjust and reset apply to cached counts only after commit")
+    void adjust_AppliesAfterCommit() {
+        UnreadCountCache cache = new UnreadCountCache(Duration.ofSeconds(60), 10, clock);
+        cache.get(1L, () -> load(5));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.adjust(1L, -2);
+            assertEquals(5, cache.get(1L, () -> load(0)));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(3, cache.get(1L, () -> load(0)));
+
+        cache.adjust(1L, -10);
+        assertEquals(0, cache.get(1L, () -> load(0)));
+        cache.reset(7L);
+        assertEquals(0, cache.get(7L, () -> load(42)));
+        assertEquals(1, loads.get());
+    }
+}
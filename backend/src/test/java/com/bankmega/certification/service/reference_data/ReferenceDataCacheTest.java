@@ -0,0 +1,103 @@
+package com.bankmega.certification.service.reference_data;
+
+import com.bankmega.certification.entity.Certification;
+import com.bankmega.certification.entity.CertificationLevel;
+import com.bankmega.certification.entity.CertificationRule;
+import com.bankmega.certification.entity.JobPosition;
+import com.bankmega.certification.entity.SubField;
+import com.bankmega.certification.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ReferenceDataCache Tests")
+class ReferenceDataCacheTest {
+
+    private JobPositionRepository jobPositionRepo;
+    private CertificationRuleRepository ruleRepo;
+    private ReferenceDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jobPositionRepo = mock(JobPositionRepository.class);
+        ruleRepo = mock(CertificationRuleRepository.class);
+        when(jobPositionRepo.findAll()).thenReturn(List.of(JobPosition.builder().id(10L).name("Teller").build()));
+        when(ruleRepo.findWithRelationsByDeletedAtIsNull()).thenReturn(List.of(CertificationRule.builder()
+                .id(7L)
+                .certification(Certification.builder().id(1L).code("BSMR").build())
+                .certificationLevel(CertificationLevel.builder().id(2L).level(2).build())
+                .subField(SubField.builder().id(3L).code("RISK").build())
+                .build()));
+
+        cache = new ReferenceDataCache(mock(RegionalRepository.class), mock(DivisionRepository.class),
+                mock(UnitRepository.class), jobPositionRepo, mock(CertificationRepository.class),
+                mock(CertificationLevelRepository.class), mock(SubFieldRepository.class), ruleRepo);
+    }
+
+    @Test
+    @DisplayName("Looks up by normalized key and by id from one loaded snapshot")
+    void lookup_NormalizesKeys() {
+        assertEquals(10L, cache.jobPositions().byKey("  TELLER ").orElseThrow().getId());
+        assertTrue(cache.jobPositions().byKey(" ").isEmpty());
+        assertEquals(7L, cache.rules().byKey(ReferenceDataCache.ruleKey(" bsmr", 2, "Risk ")).orElseThrow().getId());
+        assertEquals(7L, cache.rules().byId(7L).orElseThrow().getId());
+        assertEquals(1, cache.rules().group("Bsmr").size());
+
+        verify(jobPositionRepo, times(1)).findAll();
+        verify(ruleRepo, times(1)).findWithRelationsByDeletedAtIsNull();
+    }
+
+    @Test
+    @DisplayName("Invalidating certifications also invalidates sub fields and rules, nothing else")
+    void invalidate_BumpsDependents() {
+        cache.rules();
+        cache.jobPositions();
+        long certVersion = cache.version(ReferenceDataCache.Type.CERTIFICATION);
+        long subVersion = cache.version(ReferenceDataCache.Type.SUB_FIELD);
+        long ruleVersion = cache.version(ReferenceDataCache.Type.CERTIFICATION_RULE);
+        long jobVersion = cache.version(ReferenceDataCache.Type.JOB_POSITION);
+        long levelVersion = cache.version(ReferenceDataCache.Type.CERTIFICATION_LEVEL);
+
+        cache.invalidate(ReferenceDataCache.Type.CERTIFICATION);
+
+        assertTrue(cache.version(ReferenceDataCache.Type.CERTIFICATION) > certVersion);
+        assertTrue(cache.version(ReferenceDataCache.Type.SUB_FIELD) > subVersion);
+        assertTrue(cache.version(ReferenceDataCache.Type.CERTIFICATION_RULE) > ruleVersion);
+        assertEquals(jobVersion, cache.version(ReferenceDataCache.Type.JOB_POSITION));
+        assertEquals(levelVersion, cache.version(ReferenceDataCache.Type.CERTIFICATION_LEVEL));
+
+        cache.rules();
+        cache.jobPositions();
+        verify(ruleRepo, times(2)).findWithRelationsByDeletedAtIsNull();
+        verify(jobPositionRepo, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Invalidating inside a transaction bumps again after completion")
+    void invalidate_InTransaction_ReBumpsAfterCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(ReferenceDataCache.Type.JOB_POSITION);
+            // dibaca lagi sebelum commit → snapshot ini belum lihat tulisan transaksi
+            cache.jobPositions();
+            long before = cache.version(ReferenceDataCache.Type.JOB_POSITION);
+
+            List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, syncs.size());
+            syncs.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+            assertEquals(before + 1, cache.version(ReferenceDataCache.Type.JOB_POSITION));
+            cache.jobPositions();
+            verify(jobPositionRepo, times(2)).findAll();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
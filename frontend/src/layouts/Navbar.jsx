@@ -4,7 +4,12 @@ import { Menu, Bell, Mail, MailOpen, Clock, ArrowRight } from "lucide-react";
 import { useNavigate } from "react-router-dom";
 
 import ProfileDropdown from "./ProfileDropdown";
-import { fetchUnreadCount, fetchLatestNotifications, markNotificationAsRead } from "../services/notificationService";
+import {
+    fetchUnreadCount,
+    fetchLatestNotifications,
+    markNotificationAsRead,
+    openNotificationStream,
+} from "../services/notificationService";
 
 // ====== HELPERS ======
 const getStoredUser = () => {
@@ -82,13 +87,31 @@ export default function Navbar({ onMenuClick, hideMenuButton = false }) {
     const [unreadCount, setUnreadCount] = useState(0);
     const [latest, setLatest] = useState([]);
 
+    // Ambil sekali, lalu update lewat stream (tanpa polling)
     useEffect(() => {
         if (!isEmployee) return;
 
-        loadNotif();
+        let cancelled = false;
+        let closeStream = () => {};
 
-        const interval = setInterval(loadNotif, 10_000);
-        return () => clearInterval(interval);
+        (async () => {
+            const latestList = await loadNotif();
+            if (cancelled) return;
+
+            // Last-Event-ID = notifikasi terbaru yang sudah tampil, supaya yang masuk
+            // di antara load dan connect ikut di-replay
+            const ids = latestList.map((n) => n.id);
+            closeStream = openNotificationStream({
+                lastEventId: ids.length ? Math.max(...ids) : null,
+                onNotification: (n) => setLatest((prev) => [n, ...prev.filter((p) => p.id !== n.id)].slice(0, 5)),
+                onUnreadCount: (count) => setUnreadCount(count || 0),
+            });
+        })();
+
+        return () => {
+            cancelled = true;
+            closeStream();
+        };
         // eslint-disable-next-line react-hooks/exhaustive-deps
     }, [isEmployee]);
 
@@ -98,8 +121,10 @@ export default function Navbar({ onMenuClick, hideMenuButton = false }) {
 
             setUnreadCount(count || 0);
             setLatest(latestList || []);
+            return latestList || [];
         } catch (err) {
             console.warn("Gagal ambil notifikasi navbar", err);
+            return [];
         }
     };
 
@@ -113,9 +138,10 @@ export default function Navbar({ onMenuClick, hideMenuButton = false }) {
         return () => document.removeEventListener("mousedown", handleClick);
     }, []);
 
-    const openFullNotification = async (notifId) => {
+    const openFullNotification = async (notif) => {
+        const notifId = notif.id;
         try {
-            await markNotificationAsRead(notifId);
+            await markNotificationAsRead(notifId, notif.createdAt);
             setLatest((prev) => prev.map((n) => (n.id === notifId ? { ...n, read: true } : n)));
             setUnreadCount((prev) => (prev > 0 ? prev - 1 : 0));
         } catch (err) {
@@ -186,7 +212,7 @@ export default function Navbar({ onMenuClick, hideMenuButton = false }) {
                                             {latest.map((n) => (
                                                 <button
                                                     key={n.id}
-                                                    onClick={() => openFullNotification(n.id)}
+                                                    onClick={() => openFullNotification(n)}
                                                     className={`w-full text-left p-3.5 hover:bg-gray-50 transition-all flex gap-3 group ${
                                                         !n.read ? "bg-primary/5" : ""
                                                     }`}
@@ -136,7 +136,7 @@ export default function NotificationPage() {
         if (n.read) return;
 
         try {
-            await markNotificationAsRead(n.id);
+            await markNotificationAsRead(n.id, n.createdAt);
             setRows((prev) =>
                 prev.map((item) =>
                     item.id === n.id ? { ...item, read: true, readAt: new Date().toISOString() } : item
@@ -46,12 +46,98 @@ export async function fetchLatestNotifications(limit = 5) {
 
 // ================== UPDATE ==================
 
-export async function markNotificationAsRead(id) {
+// createdAt (opsional) = createdAt dari item notifikasi, supaya backend hanya
+// membaca partisi bulan notifikasi itu
+export async function markNotificationAsRead(id, createdAt) {
     try {
-        await api.patch(`${BASE_URL}/${id}/read`);
+        await api.patch(`${BASE_URL}/${id}/read`, null, { params: createdAt ? { createdAt } : {} });
         return true;
     } catch (err) {
         console.error("markNotificationAsRead error:", err);
         throw err;
     }
 }
+
+// ================== STREAM ==================
+
+// SSE di-parse manual: EventSource tidak bisa kirim header Authorization
+const parseSseFrame = (frame) => {
+    const event = { id: null, name: "message", data: [] };
+    for (const line of frame.split("\n")) {
+        if (!line || line.startsWith(":")) continue; // komentar = heartbeat
+        const idx = line.indexOf(":");
+        const field = idx < 0 ? line : line.slice(0, idx);
+        let value = idx < 0 ? "" : line.slice(idx + 1);
+        if (value.startsWith(" ")) value = value.slice(1);
+        if (field === "id") event.id = value;
+        else if (field === "event") event.name = value;
+        else if (field === "data") event.data.push(value);
+    }
+    return { ...event, data: event.data.join("\n") };
+};
+
+/**
+ * Buka stream notifikasi (/notifications/stream) lewat fetch supaya bisa pakai
+ * Bearer token. Reconnect otomatis dengan Last-Event-ID (backoff sampai 30 detik),
+ * berhenti kalau 401/403. Return fungsi untuk menutup stream.
+ */
+export function openNotificationStream({ lastEventId, onNotification, onUnreadCount }) {
+    const controller = new AbortController();
+    let lastId = lastEventId ?? null;
+    let retryMs = 1000;
+    let stopped = false;
+
+    const dispatch = (event) => {
+        if (!event.data) return;
+        if (event.id) lastId = event.id;
+        if (event.name === "notification") onNotification?.(JSON.parse(event.data));
+        else if (event.name === "unread-count") onUnreadCount?.(Number(event.data));
+    };
+
+    const connect = async () => {
+        const headers = { Accept: "text/event-stream" };
+        const token = localStorage.getItem("token");
+        if (token) headers.Authorization = `Bearer ${token}`;
+        if (lastId != null) headers["Last-Event-ID"] = String(lastId);
+
+        const res = await fetch(`${api.defaults.baseURL}${BASE_URL}/stream`, {
+            headers,
+            signal: controller.signal,
+        });
+        if (res.status === 401 || res.status === 403) {
+            stopped = true;
+            return;
+        }
+        if (!res.ok || !res.body) throw new Error(`stream HTTP ${res.status}`);
+        retryMs = 1000;
+
+        const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = "";
+        for (;;) {
+            const { value, done } = await reader.read();
+            if (done) return;
+            buffer += value.replace(/\r\n?/g, "\n");
+            let sep;
+            while ((sep = buffer.indexOf("\n\n")) >= 0) {
+                dispatch(parseSseFrame(buffer.slice(0, sep)));
+                buffer = buffer.slice(sep + 2);
+            }
+        }
+    };
+
+    (async () => {
+        while (!stopped && !controller.signal.aborted) {
+            try {
+                await connect();
+            } catch (err) {
+                if (controller.signal.aborted) return;
+                console.warn("notification stream error:", err?.message || err);
+            }
+            if (stopped || controller.signal.aborted) return;
+            await new Promise((resolve) => setTimeout(resolve, retryMs));
+            retryMs = Math.min(retryMs * 2, 30_000);
+        }
+    })();
+
+    return () => controller.abort();
+}